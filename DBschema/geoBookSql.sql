@@ -1,4 +1,6 @@
 -- GeoBook Database Schema for Oracle Database
+-- For manual installs. The prod profile applies the same schema as versioned Flyway
+-- migrations (geobook-app/src/main/resources/db/migration); keep both in step.
 
 -- Remove tables (in dependency order)
 DROP TABLE multimedia CASCADE CONSTRAINTS PURGE;
@@ -92,11 +94,40 @@ CREATE TABLE multimedia (
                             image_ac        ORDSYS.SI_AverageColor,
                             image_ch        ORDSYS.SI_ColorHistogram,
                             image_pc        ORDSYS.SI_PositionalColor,
-                            image_tx        ORDSYS.SI_Texture
+                            image_tx        ORDSYS.SI_Texture,
+
+    -- Portable descriptors computed in Java (little-endian float vectors)
+                            feature_ac      RAW(64),
+                            feature_ch      RAW(512),
+                            feature_pc      RAW(512),
+                            feature_tx      RAW(128),
+
+    -- Photo metadata read from EXIF at ingest
+                            captured_at     TIMESTAMP,
+                            gps_latitude    FLOAT,
+                            gps_longitude   FLOAT,
+                            image_width     NUMBER,
+                            image_height    NUMBER
 );
 
 COMMENT ON TABLE multimedia IS 'Images, videos, and other media associated with geographic locations';
 COMMENT ON COLUMN multimedia.image_blob IS 'Fallback BLOB storage when Oracle Multimedia is unavailable';
+COMMENT ON COLUMN multimedia.feature_ch IS 'Color histogram (64 bins) as float vector, computed by ImageDescriptorExtractor';
+
+-- Media content for geobook.media.store=db, keyed by the file path without leading slash
+CREATE TABLE media_blobs (
+                             media_key       VARCHAR2(512)   PRIMARY KEY,
+                             content         BLOB,
+                             content_length  NUMBER,
+                             updated_at      TIMESTAMP       DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Single row stamped by the primary every geobook.datasource.routing.heartbeat-ms;
+-- read back on each replica to measure its replication lag
+CREATE TABLE replica_heartbeat (
+                             id              NUMBER(1)       PRIMARY KEY,
+                             beat_millis     NUMBER(19)      NOT NULL
+);
 
 
 PROMPT Creating spatial analysis tables...
@@ -121,8 +152,12 @@ COMMENT ON COLUMN spatial_entities.color IS 'Hex color code for map visualizatio
 
 PROMPT Creating sequences and triggers for auto-increment...
 
+-- Sequences step by 50 to match the application's pooled-lo id allocation
+-- (allocationSize = 50): the app reserves a block of ids per NEXTVAL and the
+-- triggers only fill in ids for rows inserted without one.
+
 -- Users sequence and trigger
-CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
 
 CREATE OR REPLACE TRIGGER users_auto_id
     BEFORE INSERT ON users
@@ -135,7 +170,7 @@ END;
 /
 
 -- Books sequence and trigger  
-CREATE SEQUENCE books_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE books_seq START WITH 1 INCREMENT BY 50;
 
 CREATE OR REPLACE TRIGGER books_auto_id
     BEFORE INSERT ON books
@@ -148,7 +183,7 @@ END;
 /
 
 -- Chapters sequence and trigger
-CREATE SEQUENCE chapters_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE chapters_seq START WITH 1 INCREMENT BY 50;
 
 CREATE OR REPLACE TRIGGER chapters_auto_id
     BEFORE INSERT ON chapters
@@ -161,7 +196,7 @@ END;
 /
 
 -- Locations sequence and trigger
-CREATE SEQUENCE locations_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE locations_seq START WITH 1 INCREMENT BY 50;
 
 CREATE OR REPLACE TRIGGER locations_auto_id
     BEFORE INSERT ON locations
@@ -174,7 +209,7 @@ END;
 /
 
 -- Multimedia sequence and trigger
-CREATE SEQUENCE multimedia_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE multimedia_seq START WITH 1 INCREMENT BY 50;
 
 CREATE OR REPLACE TRIGGER multimedia_auto_id
     BEFORE INSERT ON multimedia
@@ -206,7 +241,7 @@ END;
 -- /
 
 -- Spatial entities sequence and triggers
-CREATE SEQUENCE spatial_entities_seq START WITH 1 INCREMENT BY 1;
+CREATE SEQUENCE spatial_entities_seq START WITH 1 INCREMENT BY 50;
 
 CREATE OR REPLACE TRIGGER spatial_entities_auto_id
     BEFORE INSERT ON spatial_entities
@@ -0,0 +1,221 @@
+package com.geobook;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit for one class of requests that adapts to measured latency,
+ * AIMD style: every completion within the target latency raises the limit by
+ * 1/limit (about +1 per limit's worth of requests), a slow or overloaded one
+ * cuts it by the backoff ratio, at most once per target interval. Requests
+ * over the limit wait in a bounded queue for up to max-wait-ms.
+ */
+public class AdaptiveLimiter {
+
+    public enum Outcome { ADMITTED, QUEUE_FULL, TIMED_OUT }
+
+    /**
+     * Tuning for one limiter, bound from {@code geobook.admission.<name>.*}.
+     */
+    public static final class Settings {
+        private int initialLimit;
+        private int minLimit;
+        private int maxLimit;
+        private int queueSize;
+        private long maxWaitMs;
+        private long targetLatencyMs;
+        private double backoffRatio = 0.9;
+
+        public Settings(int initialLimit, int minLimit, int maxLimit, int queueSize, long maxWaitMs,
+                        long targetLatencyMs) {
+            this.initialLimit = initialLimit;
+            this.minLimit = minLimit;
+            this.maxLimit = maxLimit;
+            this.queueSize = queueSize;
+            this.maxWaitMs = maxWaitMs;
+            this.targetLatencyMs = targetLatencyMs;
+        }
+
+        public int getInitialLimit() {
+            return initialLimit;
+        }
+
+        public void setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+        }
+
+        public int getMinLimit() {
+            return minLimit;
+        }
+
+        public void setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+        }
+
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        public void setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+
+        public int getQueueSize() {
+            return queueSize;
+        }
+
+        public void setQueueSize(int queueSize) {
+            this.queueSize = queueSize;
+        }
+
+        public long getMaxWaitMs() {
+            return maxWaitMs;
+        }
+
+        public void setMaxWaitMs(long maxWaitMs) {
+            this.maxWaitMs = maxWaitMs;
+        }
+
+        public long getTargetLatencyMs() {
+            return targetLatencyMs;
+        }
+
+        public void setTargetLatencyMs(long targetLatencyMs) {
+            this.targetLatencyMs = targetLatencyMs;
+        }
+
+        public double getBackoffRatio() {
+            return backoffRatio;
+        }
+
+        public void setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+        }
+    }
+
+    private final String name;
+    private final Settings settings;
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long lastDecreaseNanos;
+    // moving average of completion latency, for the Retry-After estimate
+    private double averageLatencyMs;
+
+    public AdaptiveLimiter(String name, Settings settings) {
+        this.name = name;
+        this.settings = settings;
+        this.limit = Math.max(settings.minLimit, Math.min(settings.maxLimit, settings.initialLimit));
+        this.averageLatencyMs = settings.targetLatencyMs;
+        this.lastDecreaseNanos = System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(settings.targetLatencyMs) - 1;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Outcome acquire() throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return Outcome.ADMITTED;
+            }
+            if (queued >= settings.queueSize) {
+                return Outcome.QUEUE_FULL;
+            }
+            queued++;
+            try {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(settings.maxWaitMs);
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) return Outcome.TIMED_OUT;
+                    remaining = released.awaitNanos(remaining);
+                }
+                inFlight++;
+                return Outcome.ADMITTED;
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Completion of an admitted request; {@code overloaded} marks a failure that
+     * signals saturation (a 503 from below, an exception) rather than a client error.
+     */
+    public void release(long latencyNanos, boolean overloaded) {
+        release(latencyNanos, overloaded, true);
+    }
+
+    /**
+     * As {@link #release(long, boolean)}; with {@code latencyBound} false a slow
+     * completion does not cut the limit, only an overloaded one does. For requests
+     * whose latency is mostly the client's transfer time rather than server work.
+     */
+    public void release(long latencyNanos, boolean overloaded, boolean latencyBound) {
+        double latencyMs = latencyNanos / 1_000_000.0;
+        lock.lock();
+        try {
+            inFlight--;
+            averageLatencyMs += (latencyMs - averageLatencyMs) * 0.1;
+            long now = System.nanoTime();
+            if (overloaded || (latencyBound && latencyMs > settings.targetLatencyMs)) {
+                if (now - lastDecreaseNanos > TimeUnit.MILLISECONDS.toNanos(settings.targetLatencyMs)) {
+                    limit = Math.max(settings.minLimit, limit * settings.backoffRatio);
+                    lastDecreaseNanos = now;
+                }
+            } else {
+                limit = Math.min(settings.maxLimit, limit + 1.0 / limit);
+            }
+            released.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Seconds until a slot is likely to be free: the queue ahead drained at the
+     * current limit and average latency, at least one.
+     */
+    public long retryAfterSeconds() {
+        lock.lock();
+        try {
+            double drainMs = averageLatencyMs * (queued + 1) / Math.max(1, (int) limit);
+            return Math.max(1, (long) Math.ceil(drainMs / 1000));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
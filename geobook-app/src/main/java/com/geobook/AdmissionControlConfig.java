@@ -0,0 +1,66 @@
+package com.geobook;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.security.SecurityProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+/**
+ * Per-endpoint admission control ({@code geobook.admission.enabled}, on by default):
+ * uploads, bulk geotagging, rotation and image delivery each get an adaptive
+ * concurrency limit, tunable under {@code geobook.admission.<endpoint>.*}. The filter
+ * runs after Spring Security, so requests it turns away never take a slot; the form
+ * upload ({@code POST /multimedia}) is open to anonymous users and does count. Form
+ * and chunk uploads carry the client's transfer time, so only 503s lower their limit.
+ */
+@Configuration
+@ConditionalOnProperty(name = "geobook.admission.enabled", havingValue = "true", matchIfMissing = true)
+public class AdmissionControlConfig {
+
+    @Bean
+    public FilterRegistrationBean<AdmissionControlFilter> admissionControlFilter(Environment env,
+                                                                                MeterRegistry registry) {
+        Binder binder = Binder.get(env);
+        AdaptiveLimiter upload = limiter(binder, registry, "upload",
+                new AdaptiveLimiter.Settings(8, 2, 32, 16, 2000, 5000));
+        AdaptiveLimiter geotag = limiter(binder, registry, "geotag",
+                new AdaptiveLimiter.Settings(2, 1, 4, 0, 0, 300000));
+        AdaptiveLimiter rotate = limiter(binder, registry, "rotate",
+                new AdaptiveLimiter.Settings(4, 1, 16, 8, 2000, 3000));
+        AdaptiveLimiter image = limiter(binder, registry, "image",
+                new AdaptiveLimiter.Settings(32, 4, 128, 64, 1000, 1000));
+
+        AdmissionControlFilter filter = new AdmissionControlFilter(registry)
+                .route("POST", "/multimedia/uploads/geotag", geotag)
+                .uploadRoute("POST", "/multimedia", upload)
+                .uploadRoute("PUT", "/multimedia/uploads/*", upload)
+                .route("POST", "/multimedia/uploads/*/complete", upload)
+                .route("POST", "/multimedia/*/rotate", rotate)
+                .route("GET", "/multimedia/*/image", image)
+                .route("GET", "/multimedia/*/thumbnail", image);
+        FilterRegistrationBean<AdmissionControlFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.setOrder(SecurityProperties.DEFAULT_FILTER_ORDER + 10);
+        return registration;
+    }
+
+    private static AdaptiveLimiter limiter(Binder binder, MeterRegistry registry, String name,
+                                           AdaptiveLimiter.Settings defaults) {
+        AdaptiveLimiter.Settings settings = binder
+                .bind("geobook.admission." + name, Bindable.ofInstance(defaults))
+                .orElse(defaults);
+        AdaptiveLimiter limiter = new AdaptiveLimiter(name, settings);
+        Gauge.builder("geobook.admission.limit", limiter, AdaptiveLimiter::getLimit)
+                .description("Current adaptive concurrency limit").tag("endpoint", name).register(registry);
+        Gauge.builder("geobook.admission.inflight", limiter, AdaptiveLimiter::getInFlight)
+                .description("Admitted requests in progress").tag("endpoint", name).register(registry);
+        Gauge.builder("geobook.admission.queued", limiter, AdaptiveLimiter::getQueued)
+                .description("Requests waiting for admission").tag("endpoint", name).register(registry);
+        return limiter;
+    }
+}
@@ -0,0 +1,128 @@
+package com.geobook;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.AntPathMatcher;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Admission control for the expensive endpoints. Each route belongs to an
+ * {@link AdaptiveLimiter}; a request over its limit waits in the limiter's queue,
+ * and is turned away before its body is read when the queue is full (429) or the
+ * wait runs out (503), with a Retry-After estimate either way. Unmatched requests
+ * pass straight through.
+ */
+public class AdmissionControlFilter extends OncePerRequestFilter {
+
+    private static final Logger logger = LoggerFactory.getLogger(AdmissionControlFilter.class);
+
+    private final List<Route> routes = new ArrayList<>();
+    private final AntPathMatcher matcher = new AntPathMatcher();
+    private final MeterRegistry registry;
+
+    private static final class Route {
+        final String method;
+        final String pattern;
+        final AdaptiveLimiter limiter;
+        final boolean latencyBound;
+
+        Route(String method, String pattern, AdaptiveLimiter limiter, boolean latencyBound) {
+            this.method = method;
+            this.pattern = pattern;
+            this.limiter = limiter;
+            this.latencyBound = latencyBound;
+        }
+    }
+
+    public AdmissionControlFilter(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    /**
+     * Put requests matching {@code method} and the Ant-style {@code pattern} under
+     * {@code limiter}; the first matching route wins.
+     */
+    public AdmissionControlFilter route(String method, String pattern, AdaptiveLimiter limiter) {
+        routes.add(new Route(method, pattern, limiter, true));
+        return this;
+    }
+
+    /**
+     * Like {@link #route}, for requests whose body streams in at the client's pace:
+     * their latency is mostly transfer time, so it does not lower the limit; only
+     * an overloaded completion (503) does.
+     */
+    public AdmissionControlFilter uploadRoute(String method, String pattern, AdaptiveLimiter limiter) {
+        routes.add(new Route(method, pattern, limiter, false));
+        return this;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        Route route = routeFor(request);
+        if (route == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        AdaptiveLimiter limiter = route.limiter;
+        AdaptiveLimiter.Outcome outcome;
+        try {
+            outcome = limiter.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            outcome = AdaptiveLimiter.Outcome.TIMED_OUT;
+        }
+        if (outcome != AdaptiveLimiter.Outcome.ADMITTED) {
+            reject(limiter, outcome, response);
+            return;
+        }
+        long started = System.nanoTime();
+        boolean overloaded = true;
+        try {
+            chain.doFilter(request, response);
+            overloaded = response.getStatus() == HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+        } finally {
+            limiter.release(System.nanoTime() - started, overloaded, route.latencyBound);
+        }
+    }
+
+    private Route routeFor(HttpServletRequest request) {
+        if (routes.isEmpty()) return null;
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        for (Route route : routes) {
+            if (route.method.equals(request.getMethod()) && matcher.match(route.pattern, path)) {
+                return route;
+            }
+        }
+        return null;
+    }
+
+    private void reject(AdaptiveLimiter limiter, AdaptiveLimiter.Outcome outcome, HttpServletResponse response)
+            throws IOException {
+        int status = outcome == AdaptiveLimiter.Outcome.QUEUE_FULL ? 429 : HttpServletResponse.SC_SERVICE_UNAVAILABLE;
+        Counter.builder("geobook.admission.rejected")
+                .description("Requests turned away by admission control")
+                .tag("endpoint", limiter.getName())
+                .tag("status", String.valueOf(status))
+                .register(registry)
+                .increment();
+        logger.debug("Rejected {} request with {} (limit {}, queued {})", limiter.getName(), status,
+                limiter.getLimit(), limiter.getQueued());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(limiter.retryAfterSeconds()));
+        response.sendError(status, status == 429
+                ? "Too many concurrent " + limiter.getName() + " requests, retry later"
+                : "Server busy, retry later");
+    }
+}
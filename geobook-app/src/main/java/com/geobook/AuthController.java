@@ -1,5 +1,7 @@
 package com.geobook;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Controller;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -13,6 +15,8 @@ import jakarta.servlet.http.HttpSession;
 @Controller
 public class AuthController {
 
+    private static final Logger logger = LoggerFactory.getLogger(AuthController.class);
+
     private final UserRepository userRepository;
     private final PasswordEncoder passwordEncoder;
 
@@ -28,12 +32,12 @@ public class AuthController {
         user.setUsername(username);
         user.setPassword(passwordEncoder.encode(password));
         user.setEmail(email);
-        System.out.println("Registering user: " + username + ", email: " + email);
+        logger.debug("Registering user {}", username);
 
         try {
             userRepository.save(user);
         } catch (Exception e) {
-            System.out.println("Error registering user: " + e.getMessage());
+            logger.warn("Registering user {} failed: {}", username, e.getMessage());
             return "redirect:/register?error";
         }
         return "redirect:/login";
@@ -0,0 +1,111 @@
+package com.geobook;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Creates many chapters or locations in one transaction. Ids come from the pooled
+ * sequences without a round trip per row and Hibernate sends the inserts as JDBC
+ * batches, so a bulk edit costs a few statements instead of one per row.
+ */
+@Service
+public class BatchWriteService {
+
+    private static final Logger logger = LoggerFactory.getLogger(BatchWriteService.class);
+
+    static final int MAX_ROWS = 1000;
+
+    private final BookRepository bookRepository;
+    private final ChapterRepository chapterRepository;
+    private final LocationRepository locationRepository;
+    private final SpatialService spatialService;
+
+    public BatchWriteService(BookRepository bookRepository, ChapterRepository chapterRepository,
+                             LocationRepository locationRepository, SpatialService spatialService) {
+        this.bookRepository = bookRepository;
+        this.chapterRepository = chapterRepository;
+        this.locationRepository = locationRepository;
+        this.spatialService = spatialService;
+    }
+
+    @Transactional
+    public List<Chapter> createChapters(Long bookId, List<Chapter> chapters) {
+        checkSize(chapters);
+        Book book = bookRepository.findById(bookId).orElseThrow(() -> new IllegalArgumentException("Invalid book Id:" + bookId));
+        for (Chapter chapter : chapters) {
+            chapter.setChapterId(null);
+            chapter.setBook(book);
+        }
+        List<Chapter> saved = chapterRepository.saveAll(chapters);
+        chapterRepository.flush();
+        logger.info("Created {} chapters for book id={}", saved.size(), bookId);
+        return saved;
+    }
+
+    /**
+     * Insert the locations, then write SDO_GEOMETRY for those with coordinates in one batched UPDATE.
+     */
+    @Transactional
+    public List<Location> createLocations(List<LocationInput> inputs) {
+        checkSize(inputs);
+        Set<Long> chapterIds = inputs.stream().map(LocationInput::getChapterId).collect(Collectors.toSet());
+        if (chapterIds.contains(null)) {
+            throw new IllegalArgumentException("chapterId is required for every location");
+        }
+        Map<Long, Chapter> chapters = chapterRepository.findAllById(chapterIds).stream()
+                .collect(Collectors.toMap(Chapter::getChapterId, Function.identity()));
+
+        List<Location> locations = new ArrayList<>(inputs.size());
+        for (LocationInput input : inputs) {
+            Chapter chapter = chapters.get(input.getChapterId());
+            if (chapter == null) {
+                throw new IllegalArgumentException("Invalid chapter Id:" + input.getChapterId());
+            }
+            Location location = new Location();
+            location.setChapter(chapter);
+            location.setPlaceName(input.getPlaceName());
+            location.setLatitude(input.getLatitude());
+            location.setLongitude(input.getLongitude());
+            locations.add(location);
+        }
+        List<Location> saved = locationRepository.saveAll(locations);
+        locationRepository.flush();
+        int spatial = spatialService.updateLocationsSpatialData(saved);
+        logger.info("Created {} locations ({} with spatial data)", saved.size(), spatial);
+        return saved;
+    }
+
+    private static void checkSize(List<?> rows) {
+        if (rows == null || rows.isEmpty() || rows.size() > MAX_ROWS) {
+            throw new IllegalArgumentException("A batch must contain between 1 and " + MAX_ROWS + " rows");
+        }
+    }
+
+    /**
+     * One location in a batch-create request.
+     */
+    public static final class LocationInput {
+        private Long chapterId;
+        private String placeName;
+        private Double latitude;
+        private Double longitude;
+
+        public Long getChapterId() { return chapterId; }
+        public void setChapterId(Long chapterId) { this.chapterId = chapterId; }
+        public String getPlaceName() { return placeName; }
+        public void setPlaceName(String placeName) { this.placeName = placeName; }
+        public Double getLatitude() { return latitude; }
+        public void setLatitude(Double latitude) { this.latitude = latitude; }
+        public Double getLongitude() { return longitude; }
+        public void setLongitude(Double longitude) { this.longitude = longitude; }
+    }
+}
@@ -1,34 +1,100 @@
 package com.geobook;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Controller
 @RequestMapping("/books")
 public class BookController {
 
+    private static final Logger logger = LoggerFactory.getLogger(BookController.class);
+
     private final BookRepository bookRepository;
+    private final TableStatsService tableStats;
+    private final SearchIndexService searchIndex;
 
-    public BookController(BookRepository bookRepository) {
+    public BookController(BookRepository bookRepository, TableStatsService tableStats, SearchIndexService searchIndex) {
         this.bookRepository = bookRepository;
+        this.tableStats = tableStats;
+        this.searchIndex = searchIndex;
     }
 
+    @Transactional(readOnly = true)
     @GetMapping
-    public String listBooks(@RequestParam(required = false) String search, Model model) {
-        List<Book> books;
+    public String listBooks(@RequestParam(required = false) String search,
+                            @RequestParam(required = false) Long after,
+                            @RequestParam(required = false) Long before,
+                            @RequestParam(required = false) Integer size,
+                            @RequestParam(required = false) String cursor,
+                            Model model) {
         if (search != null && !search.isEmpty()) {
-            books = bookRepository.findByTitleContainingIgnoreCase(search);
+            if (!searchRanked(search, cursor, size, model)) {
+                // no total: counting the matches is the scan the page avoids
+                KeysetPage<BookListItem> page = KeysetPage.fetch(after, before, size,
+                        (key, limit) -> bookRepository.findTitleMatchesAfter(search, key, limit),
+                        (key, limit) -> bookRepository.findTitleMatchesBefore(search, key, limit),
+                        BookListItem::getBookId, -1);
+                model.addAttribute("books", page.getItems());
+                model.addAttribute("page", page);
+            }
         } else {
-            books = bookRepository.findAll();
+            KeysetPage<BookListItem> page = KeysetPage.fetch(after, before, size,
+                    bookRepository::findListPageAfter, bookRepository::findListPageBefore,
+                    BookListItem::getBookId, tableStats.count(TableStatsService.BOOKS));
+            model.addAttribute("books", page.getItems());
+            model.addAttribute("page", page);
         }
-        model.addAttribute("books", books);
         model.addAttribute("search", search);
         return "books";
     }
 
+    /**
+     * Trigram search through the Lucene index, one ranked page after {@code cursor}.
+     * False if the index is unavailable or the query too short for trigrams, and the
+     * caller should fall back to a paged LIKE scan. A cursor that does not parse
+     * gives the first page.
+     */
+    private boolean searchRanked(String search, String cursor, Integer size, Model model) {
+        if (!searchIndex.isAvailable() || !SearchIndexService.isRankable(search)) return false;
+        int pageSize = size == null ? KeysetPage.DEFAULT_SIZE : Math.max(1, Math.min(KeysetPage.MAX_SIZE, size));
+        SearchIndexService.RankedPage page;
+        try {
+            try {
+                page = searchIndex.searchBooks(search, cursor, pageSize);
+            } catch (IllegalArgumentException e) {
+                logger.debug("Ignoring book search cursor: {}", e.getMessage());
+                page = searchIndex.searchBooks(search, null, pageSize);
+            }
+        } catch (IOException e) {
+            logger.warn("Book search via index failed, scanning titles instead: {}", e.getMessage());
+            return false;
+        }
+        List<Long> ids = page.getHits().stream().map(SearchIndexService.Hit::getId).collect(Collectors.toList());
+        Map<Long, BookListItem> rows = ids.isEmpty() ? Map.of() : bookRepository.findListItemsByIds(ids).stream()
+                .collect(Collectors.toMap(BookListItem::getBookId, Function.identity()));
+        List<BookListItem> books = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            BookListItem row = rows.get(id);
+            if (row != null) books.add(row);
+        }
+        model.addAttribute("books", books);
+        model.addAttribute("searchPage", page);
+        model.addAttribute("size", pageSize);
+        return true;
+    }
+
+    @Transactional(readOnly = true)
     @GetMapping("/{id}")
     public String viewBook(@PathVariable Long id, Model model) {
         Book book = bookRepository.findById(id).orElseThrow(() -> new IllegalArgumentException("Invalid book Id:" + id));
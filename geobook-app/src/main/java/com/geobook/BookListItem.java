@@ -0,0 +1,10 @@
+package com.geobook;
+
+/**
+ * Columns shown on the book list page.
+ */
+public interface BookListItem {
+    Long getBookId();
+    String getTitle();
+    String getAuthor();
+}
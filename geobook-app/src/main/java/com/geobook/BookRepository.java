@@ -1,10 +1,35 @@
 package com.geobook;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
-    List<Book> findByTitleContainingIgnoreCase(String title);
+    // Keyset pages for the book list, ascending after / descending before an id
+    @Query("SELECT b.bookId AS bookId, b.title AS title, b.author AS author FROM Book b " +
+           "WHERE b.bookId > :after ORDER BY b.bookId ASC")
+    List<BookListItem> findListPageAfter(@Param("after") long after, Pageable page);
+
+    @Query("SELECT b.bookId AS bookId, b.title AS title, b.author AS author FROM Book b " +
+           "WHERE b.bookId < :before ORDER BY b.bookId DESC")
+    List<BookListItem> findListPageBefore(@Param("before") long before, Pageable page);
+
+    // Keyset pages of titles containing :search (literally, case-insensitive), for queries the trigram index cannot rank;
+    // each page stops after the rows it needs instead of reading every match
+    @Query("SELECT b.bookId AS bookId, b.title AS title, b.author AS author FROM Book b " +
+           "WHERE LOCATE(LOWER(:search), LOWER(b.title)) > 0 AND b.bookId > :after ORDER BY b.bookId ASC")
+    List<BookListItem> findTitleMatchesAfter(@Param("search") String search, @Param("after") long after, Pageable page);
+
+    @Query("SELECT b.bookId AS bookId, b.title AS title, b.author AS author FROM Book b " +
+           "WHERE LOCATE(LOWER(:search), LOWER(b.title)) > 0 AND b.bookId < :before ORDER BY b.bookId DESC")
+    List<BookListItem> findTitleMatchesBefore(@Param("search") String search, @Param("before") long before, Pageable page);
+
+    // List rows for ranked search hits, in no particular order
+    @Query("SELECT b.bookId AS bookId, b.title AS title, b.author AS author FROM Book b WHERE b.bookId IN :ids")
+    List<BookListItem> findListItemsByIds(@Param("ids") Collection<Long> ids);
 }
@@ -0,0 +1,100 @@
+package com.geobook;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Wraps a database-backed store so that content reads and writes take a
+ * {@link ConnectionBulkheads} permit for as long as they hold a connection: a
+ * read until its stream is closed, a write until it returns. Metadata lookups
+ * are single short queries and go straight through, as does content the
+ * store keeps on local disk (the ORDImage store's renditions).
+ */
+public class BulkheadMediaStore implements MediaStore {
+
+    private final MediaStore delegate;
+    private final ConnectionBulkheads bulkheads;
+
+    public BulkheadMediaStore(MediaStore delegate, ConnectionBulkheads bulkheads) {
+        this.delegate = delegate;
+        this.bulkheads = bulkheads;
+    }
+
+    @Override
+    public String name() {
+        return delegate.name();
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        if (delegate.localPath(key) != null) {
+            delegate.put(key, source);
+            return;
+        }
+        try (ConnectionBulkheads.Permit permit = bulkheads.acquire(ConnectionBulkheads.Kind.LOB_WRITE)) {
+            delegate.put(key, source);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        if (delegate.localPath(key) != null) {
+            return delegate.open(key);
+        }
+        ConnectionBulkheads.Permit permit = bulkheads.acquire(ConnectionBulkheads.Kind.LOB_READ);
+        InputStream in;
+        try {
+            in = delegate.open(key);
+        } catch (IOException | RuntimeException e) {
+            permit.close();
+            throw e;
+        }
+        return new FilterInputStream(in) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    permit.close();
+                }
+            }
+        };
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return delegate.exists(key);
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return delegate.size(key);
+    }
+
+    @Override
+    public long lastModified(String key) throws IOException {
+        return delegate.lastModified(key);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        delegate.delete(key);
+    }
+
+    @Override
+    public void listEntries(EntryVisitor visitor) throws IOException {
+        delegate.listEntries(visitor);
+    }
+
+    @Override
+    public long purgeIncomplete(long cutoffMillis) throws IOException {
+        return delegate.purgeIncomplete(cutoffMillis);
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return delegate.localPath(key);
+    }
+}
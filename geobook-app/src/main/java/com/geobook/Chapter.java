@@ -1,15 +1,22 @@
 package com.geobook;
 
 import jakarta.persistence.*;
+import org.hibernate.annotations.BatchSize;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.CHAPTER)
+@EntityListeners(SearchIndexListener.class)
 @Table(name = "chapters")
 public class Chapter {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "chapter_seq")
+    @SequenceGenerator(name = "chapter_seq", sequenceName = "CHAPTERS_SEQ", allocationSize = 50)
     @Column(name = "chapter_id")
     private Long chapterId;
 
@@ -27,7 +34,10 @@ public class Chapter {
     @Column(name = "location_description")
     private String locationDescription;
 
+    // book detail walks every chapter's locations: load them for up to 50 chapters per statement
     @OneToMany(mappedBy = "chapter", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
+    @BatchSize(size = 50)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.CHAPTER_LOCATIONS)
     @JsonIgnore
     private List<Location> locations;
 
@@ -1,19 +1,28 @@
 package com.geobook;
 
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
 @Controller
 @RequestMapping("/books/{bookId}/chapters")
 public class ChapterController {
 
     private final ChapterRepository chapterRepository;
     private final BookRepository bookRepository;
+    private final BatchWriteService batchWriteService;
 
-    public ChapterController(ChapterRepository chapterRepository, BookRepository bookRepository) {
+    public ChapterController(ChapterRepository chapterRepository, BookRepository bookRepository,
+                             BatchWriteService batchWriteService) {
         this.chapterRepository = chapterRepository;
         this.bookRepository = bookRepository;
+        this.batchWriteService = batchWriteService;
     }
 
     @GetMapping
@@ -41,6 +50,23 @@ public class ChapterController {
         return "redirect:/books/{bookId}/chapters";
     }
 
+    /**
+     * Create several chapters of the book in one transaction; body is a JSON array of chapters.
+     * Like the map's JSON calls it needs the {@code X-CSRF-TOKEN} header from the {@code _csrf} meta tag.
+     */
+    @PostMapping("/batch")
+    @ResponseBody
+    public ResponseEntity<?> addChapters(@PathVariable Long bookId, @RequestBody List<Chapter> chapters) {
+        try {
+            List<Chapter> saved = batchWriteService.createChapters(bookId, chapters);
+            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
+                    "created", saved.size(),
+                    "ids", saved.stream().map(Chapter::getChapterId).collect(Collectors.toList())));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/{chapterId}/edit")
     public String editChapterForm(@PathVariable Long bookId, @PathVariable Long chapterId, Model model) {
         Chapter chapter = chapterRepository.findById(chapterId).orElseThrow(() -> new IllegalArgumentException("Invalid chapter Id:" + chapterId));
@@ -1,10 +1,15 @@
 package com.geobook;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import java.util.List;
 
 @Repository
 public interface ChapterRepository extends JpaRepository<Chapter, Long> {
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCacheConfig.CATALOG_QUERIES)})
     List<Chapter> findByBookBookId(Long bookId);
 }
@@ -0,0 +1,277 @@
+package com.geobook;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Properties;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Resumable upload sessions: init, append chunk at offset, complete.
+ * Each chunk is transferred straight from the request stream into a staging
+ * file with FileChannel, so nothing is buffered in heap. Session metadata lives
+ * in a properties file next to the data, so uploads survive a restart.
+ */
+@Service
+public class ChunkedUploadService {
+
+    private static final Logger logger = LoggerFactory.getLogger(ChunkedUploadService.class);
+
+    private final Path stagingDir;
+    private final long maxUploadBytes;
+    private final MultimediaIngestService ingestService;
+    private final ConcurrentHashMap<String, ReentrantLock> locks = new ConcurrentHashMap<>();
+
+    public ChunkedUploadService(MultimediaIngestService ingestService,
+                                @Value("${geobook.upload.staging-dir:${user.dir}/data/uploads}") String stagingDir,
+                                @Value("${geobook.upload.max-bytes:2147483648}") long maxUploadBytes) {
+        this.ingestService = ingestService;
+        this.stagingDir = Paths.get(stagingDir);
+        this.maxUploadBytes = maxUploadBytes;
+    }
+
+    /**
+     * Start a session. {@code sha256} is the hex digest of the whole file, checked on completion.
+     */
+    public String init(String filename, long totalSize, String sha256, Long locationId,
+                       String description, String fileType) throws IOException {
+        if (totalSize <= 0 || totalSize > maxUploadBytes) {
+            throw new IllegalArgumentException("Upload size must be between 1 and " + maxUploadBytes + " bytes");
+        }
+        if (sha256 == null || !sha256.matches("[0-9a-fA-F]{64}")) {
+            throw new IllegalArgumentException("sha256 must be a 64-character hex digest");
+        }
+        Files.createDirectories(stagingDir);
+        String uploadId = UUID.randomUUID().toString();
+
+        Properties meta = new Properties();
+        meta.setProperty("filename", Paths.get(filename).getFileName().toString());
+        meta.setProperty("size", Long.toString(totalSize));
+        meta.setProperty("sha256", sha256.toLowerCase());
+        meta.setProperty("locationId", locationId != null ? locationId.toString() : "");
+        meta.setProperty("description", description != null ? description : "");
+        meta.setProperty("fileType", fileType != null ? fileType : "");
+        try (Writer w = Files.newBufferedWriter(metaPath(uploadId))) {
+            meta.store(w, "chunked upload");
+        }
+        Files.createFile(dataPath(uploadId));
+        return uploadId;
+    }
+
+    /**
+     * Number of bytes durably received so far; clients resume from here.
+     */
+    public long offset(String uploadId) throws IOException {
+        requireSession(uploadId);
+        return Files.size(dataPath(uploadId));
+    }
+
+    public long totalSize(String uploadId) throws IOException {
+        return Long.parseLong(loadMeta(uploadId).getProperty("size"));
+    }
+
+    /**
+     * Append a chunk that starts at {@code offset}. Returns the new acknowledged offset.
+     * A mismatching offset raises {@link OffsetMismatchException} carrying the current one.
+     */
+    public long appendChunk(String uploadId, long offset, InputStream body, long length) throws IOException {
+        Properties meta = loadMeta(uploadId);
+        long total = Long.parseLong(meta.getProperty("size"));
+        ReentrantLock lock = lockFor(uploadId);
+        lock.lock();
+        try {
+            try (FileChannel channel = FileChannel.open(dataPath(uploadId), StandardOpenOption.WRITE)) {
+                long current = channel.size();
+                if (offset != current) {
+                    throw new OffsetMismatchException(current);
+                }
+                long limit = total - offset;
+                if (length > limit) {
+                    throw new IllegalArgumentException("Chunk exceeds declared upload size");
+                }
+                ReadableByteChannel source = Channels.newChannel(body);
+                long max = length >= 0 ? length : limit;
+                long written = 0;
+                while (written < max) {
+                    long n = channel.transferFrom(source, offset + written, max - written);
+                    if (n <= 0) break;
+                    written += n;
+                }
+                if (length >= 0 && written != length) {
+                    // short body: drop the partial tail so the acknowledged offset stays exact
+                    channel.truncate(offset);
+                    throw new IOException("Chunk truncated: expected " + length + " bytes, got " + written);
+                }
+                channel.force(false);
+                return offset + written;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Verify size and checksum, then hand the file to the ingest pipeline.
+     */
+    public Multimedia complete(String uploadId) throws IOException {
+        Properties meta = loadMeta(uploadId);
+        ReentrantLock lock = lockFor(uploadId);
+        lock.lock();
+        try {
+            Path data = dataPath(uploadId);
+            long expected = Long.parseLong(meta.getProperty("size"));
+            long actual = Files.size(data);
+            if (actual != expected) {
+                throw new OffsetMismatchException(actual);
+            }
+            String digest = sha256(data);
+            if (!digest.equals(meta.getProperty("sha256"))) {
+                abort(uploadId);
+                throw new IllegalStateException("Checksum mismatch: upload discarded");
+            }
+            Multimedia saved = ingestService.ingest(data, meta.getProperty("filename"),
+                    locationIdOf(meta), meta.getProperty("description"),
+                    meta.getProperty("fileType"));
+            Files.deleteIfExists(data);
+            Files.deleteIfExists(metaPath(uploadId));
+            locks.remove(uploadId);
+            logger.info("Completed chunked upload {} as multimedia id={}", uploadId, saved.getMultimediaId());
+            return saved;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void abort(String uploadId) throws IOException {
+        requireSession(uploadId);
+        Files.deleteIfExists(dataPath(uploadId));
+        Files.deleteIfExists(metaPath(uploadId));
+        locks.remove(uploadId);
+    }
+
+    /**
+     * Drop sessions that have not received data since {@code cutoffMillis}.
+     * Returns the number of staged bytes reclaimed.
+     */
+    public long purgeStale(long cutoffMillis) throws IOException {
+        if (!Files.isDirectory(stagingDir)) return 0L;
+        long reclaimed = 0;
+        try (DirectoryStream<Path> sessions = Files.newDirectoryStream(stagingDir, "*.properties")) {
+            for (Path meta : sessions) {
+                String file = meta.getFileName().toString();
+                String uploadId = file.substring(0, file.length() - ".properties".length());
+                ReentrantLock lock = lockFor(uploadId);
+                lock.lock();
+                try {
+                    Path data = dataPath(uploadId);
+                    long touched = Math.max(lastModified(meta), lastModified(data));
+                    if (touched >= cutoffMillis) continue;
+                    long size = Files.exists(data) ? Files.size(data) : 0L;
+                    Files.deleteIfExists(data);
+                    Files.deleteIfExists(meta);
+                    reclaimed += size;
+                    logger.info("Purged stale upload {} ({} bytes)", uploadId, size);
+                } finally {
+                    lock.unlock();
+                }
+                locks.remove(uploadId);
+            }
+        }
+        return reclaimed;
+    }
+
+    private static long lastModified(Path file) throws IOException {
+        return Files.exists(file) ? Files.getLastModifiedTime(file).toMillis() : 0L;
+    }
+
+    private static Long locationIdOf(Properties meta) {
+        String value = meta.getProperty("locationId", "");
+        return value.isEmpty() ? null : Long.valueOf(value);
+    }
+
+    private Properties loadMeta(String uploadId) throws IOException {
+        requireSession(uploadId);
+        Properties meta = new Properties();
+        try (Reader r = Files.newBufferedReader(metaPath(uploadId))) {
+            meta.load(r);
+        }
+        return meta;
+    }
+
+    private void requireSession(String uploadId) {
+        // ids are UUIDs; reject anything else so they can't escape the staging dir
+        try {
+            UUID.fromString(uploadId);
+        } catch (IllegalArgumentException e) {
+            throw new UploadNotFoundException(uploadId);
+        }
+        if (!Files.exists(metaPath(uploadId))) {
+            throw new UploadNotFoundException(uploadId);
+        }
+    }
+
+    // ReentrantLock, not synchronized: a virtual thread blocked reading a chunk inside a monitor would hold its carrier
+    private ReentrantLock lockFor(String uploadId) {
+        return locks.computeIfAbsent(uploadId, k -> new ReentrantLock());
+    }
+
+    private Path dataPath(String uploadId) {
+        return stagingDir.resolve(uploadId + ".part");
+    }
+
+    private Path metaPath(String uploadId) {
+        return stagingDir.resolve(uploadId + ".properties");
+    }
+
+    private static String sha256(Path file) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                md.update(buffer, 0, read);
+            }
+            return HexFormat.of().formatHex(md.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    public static class OffsetMismatchException extends RuntimeException {
+        private final long currentOffset;
+
+        public OffsetMismatchException(long currentOffset) {
+            super("Upload is at offset " + currentOffset);
+            this.currentOffset = currentOffset;
+        }
+
+        public long getCurrentOffset() {
+            return currentOffset;
+        }
+    }
+
+    public static class UploadNotFoundException extends RuntimeException {
+        public UploadNotFoundException(String uploadId) {
+            super("Unknown upload: " + uploadId);
+        }
+    }
+}
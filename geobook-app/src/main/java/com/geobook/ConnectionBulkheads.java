@@ -0,0 +1,93 @@
+package com.geobook;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Concurrency limits sized from the connection pool rather than from thread counts.
+ * With virtual threads any number of requests can be in flight, so work that keeps
+ * a JDBC connection busy for the length of a LOB stream is capped at a share of the
+ * pool; the connections left over stay free for short queries such as the map,
+ * however many slow image downloads or uploads are running.
+ */
+@Component
+public class ConnectionBulkheads {
+
+    public enum Kind {
+        /** Reading LOB content, held until the stream is closed. */
+        LOB_READ,
+        /** Writing LOB/ORDImage content: ingestion and rotation. */
+        LOB_WRITE,
+        /** One photo of a bulk geotagging batch, from metadata to stored media. */
+        INGEST
+    }
+
+    /**
+     * No permit became free within the acquire timeout.
+     */
+    public static final class Busy extends IOException {
+        public Busy(Kind kind) {
+            super("Too many concurrent " + kind.name().toLowerCase() + " operations, try again later");
+        }
+    }
+
+    /**
+     * Held for the duration of the guarded work; closing it twice releases once.
+     */
+    public interface Permit extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    private final Map<Kind, Semaphore> permits = new EnumMap<>(Kind.class);
+    private final long acquireTimeoutMs;
+
+    public ConnectionBulkheads(@Value("${spring.datasource.hikari.maximum-pool-size:10}") int poolSize,
+                               @Value("${geobook.concurrency.lob-read-share:0.3}") double readShare,
+                               @Value("${geobook.concurrency.lob-write-share:0.2}") double writeShare,
+                               @Value("${geobook.concurrency.ingest-share:0.25}") double ingestShare,
+                               @Value("${geobook.concurrency.acquire-timeout-ms:10000}") long acquireTimeoutMs,
+                               MeterRegistry registry) {
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        permits.put(Kind.LOB_READ, new Semaphore(Math.max(1, (int) (poolSize * readShare)), true));
+        permits.put(Kind.LOB_WRITE, new Semaphore(Math.max(1, (int) (poolSize * writeShare)), true));
+        permits.put(Kind.INGEST, new Semaphore(Math.max(1, (int) (poolSize * ingestShare)), true));
+        permits.forEach((kind, semaphore) -> Gauge.builder("geobook.bulkhead.available", semaphore, Semaphore::availablePermits)
+                .description("Free permits of a connection bulkhead")
+                .tag("bulkhead", kind.name().toLowerCase())
+                .register(registry));
+    }
+
+    public Permit acquire(Kind kind) throws IOException {
+        return acquire(kind, acquireTimeoutMs);
+    }
+
+    /**
+     * Like {@link #acquire(Kind)} with an explicit wait; background work that should
+     * queue rather than fail passes {@link Long#MAX_VALUE}.
+     */
+    public Permit acquire(Kind kind, long timeoutMs) throws IOException {
+        Semaphore semaphore = permits.get(kind);
+        try {
+            if (!semaphore.tryAcquire(timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new Busy(kind);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for a " + kind + " permit", e);
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) semaphore.release();
+        };
+    }
+}
@@ -0,0 +1,116 @@
+package com.geobook;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Sample data for a fresh database, the same rows data.sql inserts in the dev
+ * profile. Runs only while the users and books tables are both empty, so a
+ * restart against a populated schema costs two count queries. Rows are saved
+ * per table in one transaction and go out as JDBC batches with pooled ids.
+ */
+@Component
+@ConditionalOnProperty(name = "geobook.seed.enabled", havingValue = "true")
+public class DataSeeder implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(DataSeeder.class);
+
+    private final UserRepository userRepository;
+    private final BookRepository bookRepository;
+    private final ChapterRepository chapterRepository;
+    private final LocationRepository locationRepository;
+    private final SpatialService spatialService;
+    private final TransactionTemplate transactionTemplate;
+    private final StartupTimings startupTimings;
+
+    public DataSeeder(UserRepository userRepository, BookRepository bookRepository,
+                      ChapterRepository chapterRepository, LocationRepository locationRepository,
+                      SpatialService spatialService, TransactionTemplate transactionTemplate,
+                      StartupTimings startupTimings) {
+        this.userRepository = userRepository;
+        this.bookRepository = bookRepository;
+        this.chapterRepository = chapterRepository;
+        this.locationRepository = locationRepository;
+        this.spatialService = spatialService;
+        this.transactionTemplate = transactionTemplate;
+        this.startupTimings = startupTimings;
+    }
+
+    @Override
+    public void run(ApplicationArguments args) {
+        long started = System.currentTimeMillis();
+        Integer rows = transactionTemplate.execute(status -> {
+            if (userRepository.count() > 0 || bookRepository.count() > 0) return 0;
+            return seed();
+        });
+        long took = System.currentTimeMillis() - started;
+        startupTimings.record("seed", took);
+        if (rows != null && rows > 0) {
+            logger.info("Seeded empty database with {} rows in {} ms", rows, took);
+        } else {
+            logger.info("Database already populated, seeding skipped ({} ms)", took);
+        }
+    }
+
+    private int seed() {
+        User user = new User();
+        user.setUsername("user1");
+        user.setPassword("$2a$10$dXJ3SW6G7P50lGmMkkmwe.9cTQjwW9iFzJ4E8XeOwVqE7vQKcKPj2");
+        user.setEmail("user1@example.com");
+        userRepository.save(user);
+
+        Book verne = book("Around the World in 80 Days", "Jules Verne", "A classic adventure story.");
+        Book hobbit = book("The Hobbit", "J.R.R. Tolkien", "A fantasy adventure.");
+        bookRepository.saveAll(List.of(verne, hobbit));
+
+        Chapter verne1 = chapter(verne, 1, "Chapter 1", "Content of chapter 1.");
+        Chapter verne2 = chapter(verne, 2, "Chapter 2", "Content of chapter 2.");
+        Chapter hobbit1 = chapter(hobbit, 1, "Chapter 1", "Hobbit content.");
+        chapterRepository.saveAll(List.of(verne1, verne2, hobbit1));
+
+        List<Location> locations = new ArrayList<>();
+        locations.add(location(verne1, "London", 51.5074, -0.1278));
+        locations.add(location(verne1, "Paris", 48.8566, 2.3522));
+        locations.add(location(verne2, "New York", 40.7128, -74.006));
+        locations.add(location(hobbit1, "San Francisco", 37.7749, -122.4194));
+        locationRepository.saveAll(locations);
+        locationRepository.flush();
+        spatialService.updateLocationsSpatialData(locations);
+
+        return 1 + 2 + 3 + locations.size();
+    }
+
+    private static Book book(String title, String author, String description) {
+        Book book = new Book();
+        book.setTitle(title);
+        book.setAuthor(author);
+        book.setDescription(description);
+        return book;
+    }
+
+    private static Chapter chapter(Book book, int number, String title, String text) {
+        Chapter chapter = new Chapter();
+        chapter.setBook(book);
+        chapter.setChapterNumber(number);
+        chapter.setTitle(title);
+        chapter.setLocationDescription(text);
+        return chapter;
+    }
+
+    private static Location location(Chapter chapter, String placeName, double latitude, double longitude) {
+        Location location = new Location();
+        location.setChapter(chapter);
+        location.setPlaceName(placeName);
+        location.setLatitude(latitude);
+        location.setLongitude(longitude);
+        return location;
+    }
+}
@@ -0,0 +1,134 @@
+package com.geobook;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Which Oracle features the connected database actually offers. Each capability
+ * is probed once at startup, again when the application is ready (after schema
+ * migration) and then on a schedule, so callers pick the native or the Java
+ * implementation with a field read instead of a failed round trip.
+ * <p>
+ * Every capability also acts as a circuit breaker: a caller that hits an error
+ * on the native path reports it, and after {@code failure-threshold} consecutive
+ * failures the capability is switched off until the next successful re-check.
+ * The trial call after an outage is the probe itself, never a user request.
+ */
+@Service
+public class DatabaseCapabilities {
+
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseCapabilities.class);
+
+    public enum Capability {
+        /** MDSYS.SDO_GEOMETRY and its member functions. */
+        SPATIAL("SELECT MDSYS.SDO_GEOMETRY(2001, 8307, MDSYS.SDO_POINT_TYPE(0, 0, NULL), NULL, NULL).GET_WKT() FROM dual"),
+        /** A usable spatial index on locations, needed by SDO_WITHIN_DISTANCE, SDO_NN and SDO_INSIDE. */
+        SPATIAL_INDEX("SELECT 1 FROM user_indexes WHERE index_name = 'LOCATIONS_SDO_IDX' " +
+                "AND status = 'VALID' AND domidx_opstatus = 'VALID'"),
+        /** Oracle Multimedia's ORDSYS.ORDImage type. */
+        ORDSYS("SELECT ORDSYS.ORDImage.init() FROM dual");
+
+        private final String probe;
+
+        Capability(String probe) {
+            this.probe = probe;
+        }
+    }
+
+    private final DataSource dataSource;
+    private final int failureThreshold;
+    private final Map<Capability, AtomicBoolean> available = new EnumMap<>(Capability.class);
+    private final Map<Capability, AtomicInteger> failures = new EnumMap<>(Capability.class);
+    private volatile boolean probed;
+
+    public DatabaseCapabilities(DataSource dataSource, MeterRegistry registry,
+                                @Value("${geobook.db.capability.failure-threshold:3}") int failureThreshold) {
+        this.dataSource = dataSource;
+        this.failureThreshold = failureThreshold;
+        for (Capability capability : Capability.values()) {
+            available.put(capability, new AtomicBoolean());
+            failures.put(capability, new AtomicInteger());
+            Gauge.builder("geobook.db.capability", this, c -> c.isAvailable(capability) ? 1 : 0)
+                    .description("Whether a database feature is in use (1) or routed to the Java fallback (0)")
+                    .tag("capability", capability.name().toLowerCase())
+                    .register(registry);
+        }
+        recheck();
+    }
+
+    public boolean isAvailable(Capability capability) {
+        return available.get(capability).get();
+    }
+
+    /**
+     * A native call succeeded; resets the breaker's failure count.
+     */
+    public void recordSuccess(Capability capability) {
+        failures.get(capability).set(0);
+    }
+
+    /**
+     * A native call failed although the capability was reported available.
+     */
+    public void recordFailure(Capability capability, Exception e) {
+        int count = failures.get(capability).incrementAndGet();
+        if (count >= failureThreshold && isAvailable(capability)) {
+            set(capability, false);
+            logger.warn("Circuit open for {} after {} failures, using the Java fallback until the next re-check: {}",
+                    capability, count, e.getMessage());
+        } else {
+            logger.debug("{} call failed ({} of {}): {}", capability, count, failureThreshold, e.getMessage());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        recheck();
+    }
+
+    @Scheduled(initialDelayString = "${geobook.db.capability.recheck-ms:300000}",
+            fixedDelayString = "${geobook.db.capability.recheck-ms:300000}")
+    public void recheck() {
+        for (Capability capability : Capability.values()) {
+            boolean ok = probe(capability);
+            if (ok) failures.get(capability).set(0);
+            set(capability, ok);
+        }
+        probed = true;
+    }
+
+    private boolean probe(Capability capability) {
+        try (Connection conn = dataSource.getConnection();
+             Statement st = conn.createStatement();
+             ResultSet rs = st.executeQuery(capability.probe)) {
+            return rs.next();
+        } catch (SQLException e) {
+            logger.debug("{} probe failed: {}", capability, e.getMessage());
+            return false;
+        }
+    }
+
+    private void set(Capability capability, boolean ok) {
+        boolean previous = available.get(capability).getAndSet(ok);
+        if (previous != ok || !probed) {
+            logger.info("Database capability {}: {}", capability, ok ? "available" : "unavailable, using Java fallback");
+        }
+    }
+}
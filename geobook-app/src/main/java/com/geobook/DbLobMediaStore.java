@@ -0,0 +1,181 @@
+package com.geobook;
+
+import javax.sql.DataSource;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Keeps media as BLOBs in the media_blobs table, so every node sharing the
+ * database sees the same files. Content is streamed in and out with JDBC.
+ */
+public class DbLobMediaStore implements MediaStore {
+
+    private static final int LIST_FETCH_SIZE = 1000;
+
+    private final DataSource dataSource;
+
+    public DbLobMediaStore(DataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Override
+    public String name() {
+        return "db";
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        MediaStore.checkKey(key);
+        long length = Files.size(source);
+        try (Connection conn = dataSource.getConnection()) {
+            boolean oldAutoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try (PreparedStatement del = conn.prepareStatement("DELETE FROM media_blobs WHERE media_key = ?");
+                 PreparedStatement ins = conn.prepareStatement(
+                         "INSERT INTO media_blobs (media_key, content, content_length, updated_at) VALUES (?, ?, ?, ?)");
+                 InputStream in = Files.newInputStream(source)) {
+                del.setString(1, key);
+                del.executeUpdate();
+                ins.setString(1, key);
+                ins.setBinaryStream(2, in, length);
+                ins.setLong(3, length);
+                ins.setTimestamp(4, new Timestamp(System.currentTimeMillis()));
+                ins.executeUpdate();
+                conn.commit();
+            } catch (SQLException | IOException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(oldAutoCommit);
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to store " + key, e);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        MediaStore.checkKey(key);
+        Connection conn = null;
+        PreparedStatement ps = null;
+        ResultSet rs = null;
+        try {
+            conn = dataSource.getConnection();
+            ps = conn.prepareStatement("SELECT content FROM media_blobs WHERE media_key = ?");
+            ps.setString(1, key);
+            rs = ps.executeQuery();
+            if (!rs.next()) {
+                throw new NoSuchFileException(key);
+            }
+            // the connection stays open until the caller closes the stream
+            final Connection c = conn;
+            final PreparedStatement p = ps;
+            final ResultSet r = rs;
+            return new FilterInputStream(rs.getBinaryStream(1)) {
+                @Override
+                public void close() throws IOException {
+                    try {
+                        super.close();
+                    } finally {
+                        closeQuietly(r, p, c);
+                    }
+                }
+            };
+        } catch (SQLException e) {
+            closeQuietly(rs, ps, conn);
+            throw new IOException("Failed to read " + key, e);
+        } catch (IOException e) {
+            closeQuietly(rs, ps, conn);
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return queryLong(key, "SELECT 1 FROM media_blobs WHERE media_key = ?") != null;
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        Long size = queryLong(key, "SELECT content_length FROM media_blobs WHERE media_key = ?");
+        if (size == null) throw new NoSuchFileException(key);
+        return size;
+    }
+
+    @Override
+    public long lastModified(String key) throws IOException {
+        MediaStore.checkKey(key);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT updated_at FROM media_blobs WHERE media_key = ?")) {
+            ps.setString(1, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (!rs.next()) throw new NoSuchFileException(key);
+                Timestamp ts = rs.getTimestamp(1);
+                return ts != null ? ts.getTime() : 0L;
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to read " + key, e);
+        }
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        MediaStore.checkKey(key);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement("DELETE FROM media_blobs WHERE media_key = ?")) {
+            ps.setString(1, key);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new IOException("Failed to delete " + key, e);
+        }
+    }
+
+    @Override
+    public void listEntries(EntryVisitor visitor) throws IOException {
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(
+                     "SELECT media_key, content_length, updated_at FROM media_blobs")) {
+            ps.setFetchSize(LIST_FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    Timestamp ts = rs.getTimestamp(3);
+                    visitor.visit(rs.getString(1), rs.getLong(2), ts != null ? ts.getTime() : 0L);
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to list media_blobs", e);
+        }
+    }
+
+    private Long queryLong(String key, String sql) throws IOException {
+        MediaStore.checkKey(key);
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, key);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : null;
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to read " + key, e);
+        }
+    }
+
+    private static void closeQuietly(AutoCloseable... resources) {
+        for (AutoCloseable r : resources) {
+            if (r == null) continue;
+            try {
+                r.close();
+            } catch (Exception ignore) {
+            }
+        }
+    }
+}
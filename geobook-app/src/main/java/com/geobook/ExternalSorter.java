@@ -0,0 +1,124 @@
+package com.geobook;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Sorts an arbitrary number of text lines with bounded memory: lines are buffered
+ * into runs of at most {@code runSize}, each run is sorted and spilled to a temp
+ * file, and {@link #sorted()} merges the runs k-way. Lines must not contain line
+ * breaks. Closing deletes the run files.
+ */
+final class ExternalSorter implements Closeable {
+
+    /** Pull-style cursor over the merged output; {@link #next()} returns null at the end. */
+    interface LineSource extends Closeable {
+        String next() throws IOException;
+    }
+
+    private final Path workDir;
+    private final int runSize;
+    private final List<String> buffer = new ArrayList<>();
+    private final List<Path> runs = new ArrayList<>();
+    private final List<BufferedReader> readers = new ArrayList<>();
+
+    ExternalSorter(Path workDir, int runSize) {
+        this.workDir = workDir;
+        this.runSize = Math.max(1, runSize);
+    }
+
+    void add(String line) throws IOException {
+        if (line.indexOf('\n') >= 0 || line.indexOf('\r') >= 0) {
+            throw new IllegalArgumentException("Line breaks are not allowed in sorted lines");
+        }
+        buffer.add(line);
+        if (buffer.size() >= runSize) {
+            spill();
+        }
+    }
+
+    /**
+     * Merge all lines in {@link String#compareTo} order. Can be called once.
+     */
+    LineSource sorted() throws IOException {
+        spill();
+        PriorityQueue<Head> heads = new PriorityQueue<>();
+        for (Path run : runs) {
+            BufferedReader reader = Files.newBufferedReader(run, StandardCharsets.UTF_8);
+            readers.add(reader);
+            String first = reader.readLine();
+            if (first != null) heads.add(new Head(first, reader));
+        }
+        return new LineSource() {
+            @Override
+            public String next() throws IOException {
+                Head head = heads.poll();
+                if (head == null) return null;
+                String line = head.line;
+                String following = head.reader.readLine();
+                if (following != null) heads.add(new Head(following, head.reader));
+                return line;
+            }
+
+            @Override
+            public void close() throws IOException {
+                ExternalSorter.this.close();
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (BufferedReader reader : readers) {
+            try {
+                reader.close();
+            } catch (IOException ignore) {
+            }
+        }
+        readers.clear();
+        for (Path run : runs) {
+            Files.deleteIfExists(run);
+        }
+        runs.clear();
+        buffer.clear();
+    }
+
+    private void spill() throws IOException {
+        if (buffer.isEmpty()) return;
+        Collections.sort(buffer);
+        Files.createDirectories(workDir);
+        Path run = Files.createTempFile(workDir, "run_", ".txt");
+        runs.add(run);
+        try (BufferedWriter out = Files.newBufferedWriter(run, StandardCharsets.UTF_8)) {
+            for (String line : buffer) {
+                out.write(line);
+                out.newLine();
+            }
+        }
+        buffer.clear();
+    }
+
+    private static final class Head implements Comparable<Head> {
+        private final String line;
+        private final BufferedReader reader;
+
+        Head(String line, BufferedReader reader) {
+            this.line = line;
+            this.reader = reader;
+        }
+
+        @Override
+        public int compareTo(Head o) {
+            return line.compareTo(o.line);
+        }
+    }
+}
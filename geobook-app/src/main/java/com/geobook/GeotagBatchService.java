@@ -0,0 +1,283 @@
+package com.geobook;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+/**
+ * Geotags and ingests a whole zip archive or server-side folder of photos in parallel.
+ * Each photo is placed at the location nearest to its GPS position; photos without a
+ * match fall back to {@code fallbackLocationId}, or are reported with a proposed position.
+ */
+@Service
+public class GeotagBatchService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeotagBatchService.class);
+
+    private static final Set<String> IMAGE_EXTENSIONS = Set.of("jpg", "jpeg", "png", "gif", "bmp");
+
+    private final MultimediaIngestService ingestService;
+    private final GeotagService geotagService;
+    private final PhotoMetadataReader metadataReader;
+    private final Path importRoot;
+    private final long maxBatchBytes;
+    private final ConnectionBulkheads bulkheads;
+    private final AsyncTaskExecutor executor;
+    // photos submitted and not finished yet, waiting for a thread or an INGEST permit
+    private final AtomicInteger pending = new AtomicInteger();
+
+    public GeotagBatchService(MultimediaIngestService ingestService,
+                              GeotagService geotagService,
+                              PhotoMetadataReader metadataReader,
+                              ConnectionBulkheads bulkheads,
+                              Environment environment,
+                              MeterRegistry registry,
+                              @Value("${geobook.geotag.import-root:${user.dir}/data/import}") String importRoot,
+                              @Value("${geobook.upload.max-bytes:2147483648}") long maxBatchBytes,
+                              @Value("${geobook.geotag.threads:4}") int threads) {
+        this.ingestService = ingestService;
+        this.geotagService = geotagService;
+        this.metadataReader = metadataReader;
+        this.bulkheads = bulkheads;
+        this.importRoot = Paths.get(importRoot).toAbsolutePath().normalize();
+        this.maxBatchBytes = maxBatchBytes;
+        this.executor = executor(environment, threads);
+        Gauge.builder("geobook.geotag.pending", pending, AtomicInteger::get)
+                .description("Photos of running geotag batches not processed yet")
+                .register(registry);
+    }
+
+    /**
+     * A virtual thread per photo when virtual threads are enabled (Java 21+), else a
+     * pool of {@code threads}. Either way the INGEST bulkhead bounds how many photos
+     * are being processed at once.
+     */
+    private static AsyncTaskExecutor executor(Environment environment, int threads) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            SimpleAsyncTaskExecutor virtual = new SimpleAsyncTaskExecutor("geotag-");
+            virtual.setVirtualThreads(true);
+            return virtual;
+        }
+        ThreadPoolTaskExecutor pool = new ThreadPoolTaskExecutor();
+        pool.setCorePoolSize(threads);
+        pool.setMaxPoolSize(threads);
+        pool.setThreadNamePrefix("geotag-");
+        pool.initialize();
+        return pool;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (executor instanceof ThreadPoolTaskExecutor pool) {
+            pool.shutdown();
+        } else if (executor instanceof SimpleAsyncTaskExecutor virtual) {
+            virtual.close();
+        }
+    }
+
+    /**
+     * Options shared by every photo of one batch.
+     */
+    public static final class Options {
+        final Long chapterId;
+        final Long fallbackLocationId;
+        final String description;
+
+        public Options(Long chapterId, Long fallbackLocationId, String description) {
+            this.chapterId = chapterId;
+            this.fallbackLocationId = fallbackLocationId;
+            this.description = description;
+        }
+    }
+
+    /**
+     * Unpack the archive entry by entry to temp files and process them in parallel.
+     * Entries are copied through a bound of what is left of {@code maxBatchBytes},
+     * so an entry that inflates without end stops at the limit.
+     */
+    public List<Map<String, Object>> geotagZip(InputStream zip, Options options) throws IOException {
+        List<Future<Map<String, Object>>> futures = new ArrayList<>();
+        List<Path> temps = new ArrayList<>();
+        long total = 0;
+        try (ZipInputStream in = new ZipInputStream(zip)) {
+            ZipEntry entry;
+            while ((entry = in.getNextEntry()) != null) {
+                String name = Paths.get(entry.getName()).getFileName().toString();
+                if (entry.isDirectory() || !isImage(name)) continue;
+
+                Path temp = Files.createTempFile("geotag_", "_" + name);
+                temps.add(temp);
+                long copied = copyAtMost(in, temp, maxBatchBytes - total);
+                if (copied < 0) {
+                    throw new IllegalArgumentException("Archive exceeds " + maxBatchBytes + " bytes");
+                }
+                total += copied;
+                futures.add(submit(() -> {
+                    try {
+                        return process(temp, name, options);
+                    } finally {
+                        Files.deleteIfExists(temp);
+                    }
+                }));
+            }
+        } catch (IOException | RuntimeException e) {
+            // cancelled tasks that never started do not clean up after themselves
+            cancel(futures);
+            for (Path temp : temps) {
+                Files.deleteIfExists(temp);
+            }
+            throw e;
+        }
+        return collect(futures);
+    }
+
+    /** Copy at most {@code limit} bytes; -1 (and a partial file) when the stream holds more. */
+    private static long copyAtMost(InputStream in, Path target, long limit) throws IOException {
+        byte[] buffer = new byte[8192];
+        long copied = 0;
+        try (OutputStream out = Files.newOutputStream(target)) {
+            int n;
+            while ((n = in.read(buffer, 0, (int) Math.min(buffer.length, limit - copied + 1))) > 0) {
+                copied += n;
+                if (copied > limit) return -1;
+                out.write(buffer, 0, n);
+            }
+        }
+        return copied;
+    }
+
+    /**
+     * Process every image under a folder inside the configured import root.
+     */
+    public List<Map<String, Object>> geotagFolder(String folder, Options options) throws IOException {
+        Path dir = importRoot.resolve(folder).normalize();
+        if (!dir.startsWith(importRoot) || !Files.isDirectory(dir)) {
+            throw new IllegalArgumentException("Folder must be a directory under " + importRoot);
+        }
+        List<Future<Map<String, Object>>> futures = new ArrayList<>();
+        try (Stream<Path> files = Files.walk(dir)) {
+            files.filter(Files::isRegularFile)
+                    .filter(p -> isImage(p.getFileName().toString()))
+                    .forEach(p -> futures.add(submit(() -> {
+                        // ingest consumes nothing; copy so the import folder is left untouched
+                        Path temp = Files.createTempFile("geotag_", "_" + p.getFileName());
+                        try {
+                            Files.copy(p, temp, StandardCopyOption.REPLACE_EXISTING);
+                            return process(temp, importRoot.relativize(p).toString(), options);
+                        } finally {
+                            Files.deleteIfExists(temp);
+                        }
+                    })));
+        }
+        return collect(futures);
+    }
+
+    private Future<Map<String, Object>> submit(Callable<Map<String, Object>> task) {
+        pending.incrementAndGet();
+        try {
+            return executor.submit(() -> {
+                try {
+                    return task.call();
+                } finally {
+                    pending.decrementAndGet();
+                }
+            });
+        } catch (RuntimeException e) {
+            pending.decrementAndGet();
+            throw e;
+        }
+    }
+
+    private Map<String, Object> process(Path photo, String name, Options options) {
+        Map<String, Object> result = new HashMap<>();
+        result.put("file", name);
+        // a batch queues here instead of failing: the wait is unbounded
+        try (ConnectionBulkheads.Permit permit = bulkheads.acquire(ConnectionBulkheads.Kind.INGEST, Long.MAX_VALUE)) {
+            PhotoMetadata metadata = metadataReader.read(photo);
+            GeotagService.Match match = geotagService.matchOrCreate(metadata, options.chapterId, null);
+            if (match != null) {
+                result.putAll(match.toMap());
+            }
+            Long locationId = match != null && match.getLocationId() != null
+                    ? match.getLocationId() : options.fallbackLocationId;
+            if (locationId == null) {
+                result.put("status", match == null ? "no-gps" : "unmatched");
+                return result;
+            }
+            String fileName = Paths.get(name).getFileName().toString();
+            Multimedia saved = ingestService.ingest(photo, fileName, locationId, options.description,
+                    Files.probeContentType(photo));
+            result.put("status", match != null && match.getLocationId() != null ? "geotagged" : "fallback");
+            result.put("locationId", locationId);
+            result.put("multimediaId", saved.getMultimediaId());
+            result.put("capturedAt", metadata.getCapturedAt());
+        } catch (ConnectionBulkheads.Busy e) {
+            // nothing was kept for this photo; it can be sent again in a later batch
+            logger.warn("Geotagging {} deferred: {}", name, e.getMessage());
+            result.put("status", "busy");
+            result.put("error", e.getMessage());
+        } catch (Exception e) {
+            logger.warn("Geotagging {} failed: {}", name, e.getMessage());
+            result.put("status", "error");
+            result.put("error", e.getMessage());
+        }
+        return result;
+    }
+
+    private static List<Map<String, Object>> collect(List<Future<Map<String, Object>>> futures) throws IOException {
+        List<Map<String, Object>> results = new ArrayList<>(futures.size());
+        for (Future<Map<String, Object>> f : futures) {
+            try {
+                results.add(f.get());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel(futures);
+                throw new IOException("Interrupted while geotagging", e);
+            } catch (ExecutionException e) {
+                results.add(Map.of("status", "error", "error", String.valueOf(e.getCause().getMessage())));
+            }
+        }
+        return results;
+    }
+
+    private static void cancel(List<Future<Map<String, Object>>> futures) {
+        for (Future<Map<String, Object>> f : futures) {
+            f.cancel(true);
+        }
+    }
+
+    private static boolean isImage(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot > 0 && IMAGE_EXTENSIONS.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+    }
+}
@@ -0,0 +1,176 @@
+package com.geobook;
+
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Matches a photo's GPS position to the nearest existing Location using the
+ * LOCATIONS_SDO_IDX spatial index. Positions farther than the match radius
+ * become a proposal, or a new Location when a chapter is given to hold it.
+ */
+@Service
+public class GeotagService {
+
+    private static final Logger logger = LoggerFactory.getLogger(GeotagService.class);
+
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    private final LocationRepository locationRepository;
+    private final ChapterRepository chapterRepository;
+    private final SpatialService spatialService;
+    private final DatabaseCapabilities capabilities;
+    private final double matchRadiusKm;
+    private final ReentrantLock createLock = new ReentrantLock();
+
+    public GeotagService(LocationRepository locationRepository,
+                         ChapterRepository chapterRepository,
+                         SpatialService spatialService,
+                         DatabaseCapabilities capabilities,
+                         @Value("${geobook.geotag.match-radius-km:1.0}") double matchRadiusKm) {
+        this.locationRepository = locationRepository;
+        this.chapterRepository = chapterRepository;
+        this.spatialService = spatialService;
+        this.capabilities = capabilities;
+        this.matchRadiusKm = matchRadiusKm;
+    }
+
+    /**
+     * Nearest location within the match radius, or a proposal when there is none.
+     * Returns null when the photo has no GPS position.
+     */
+    public Match match(PhotoMetadata metadata) {
+        if (metadata == null || !metadata.hasGps()) return null;
+        double lat = metadata.getLatitude();
+        double lng = metadata.getLongitude();
+        Match nearest = nearest(lat, lng);
+        if (nearest != null && nearest.getDistanceKm() <= matchRadiusKm) {
+            return nearest;
+        }
+        return new Match(null, nearest != null ? nearest.getDistanceKm() : null, lat, lng, false);
+    }
+
+    /**
+     * Like {@link #match} but creates the proposed location under {@code chapterId}.
+     * Creation is serialized so photos taken at the same spot share one new location.
+     */
+    public Match matchOrCreate(PhotoMetadata metadata, Long chapterId, String placeName) {
+        Match match = match(metadata);
+        if (match == null || match.getLocationId() != null || chapterId == null) {
+            return match;
+        }
+        // a lock rather than a monitor: the JDBC work inside must not pin a virtual thread's carrier
+        createLock.lock();
+        try {
+            // another photo of the batch may have created it meanwhile
+            match = match(metadata);
+            if (match.getLocationId() != null) return match;
+
+            Location location = new Location();
+            location.setChapter(chapterRepository.findById(chapterId).orElseThrow());
+            location.setLatitude(metadata.getLatitude());
+            location.setLongitude(metadata.getLongitude());
+            location.setPlaceName(placeName != null ? placeName : defaultPlaceName(metadata));
+            Location saved = locationRepository.save(location);
+            try {
+                spatialService.updateLocationSpatialData(saved.getLocationId(),
+                        metadata.getLatitude(), metadata.getLongitude());
+            } catch (Exception e) {
+                logger.warn("Failed to set spatial data for new location {}: {}", saved.getLocationId(), e.getMessage());
+            }
+            logger.info("Created location {} at {}, {} from photo GPS", saved.getLocationId(),
+                    metadata.getLatitude(), metadata.getLongitude());
+            return new Match(saved.getLocationId(), 0.0, metadata.getLatitude(), metadata.getLongitude(), true);
+        } finally {
+            createLock.unlock();
+        }
+    }
+
+    private Match nearest(double lat, double lng) {
+        if (capabilities.isAvailable(DatabaseCapabilities.Capability.SPATIAL_INDEX)) {
+            Timer.Sample sample = HotPathMetrics.start();
+            try {
+                List<Object[]> rows = locationRepository.findNearestLocation(lat, lng);
+                HotPathMetrics.stopSpatial(sample, "sdo_nn", "native", true);
+                capabilities.recordSuccess(DatabaseCapabilities.Capability.SPATIAL_INDEX);
+                if (!rows.isEmpty()) {
+                    Object[] row = rows.get(0);
+                    return new Match(((Number) row[0]).longValue(), ((Number) row[1]).doubleValue(), lat, lng, false);
+                }
+                return null;
+            } catch (Exception e) {
+                HotPathMetrics.stopSpatial(sample, "sdo_nn", "native", false);
+                capabilities.recordFailure(DatabaseCapabilities.Capability.SPATIAL_INDEX, e);
+            }
+        }
+        Timer.Sample sample = HotPathMetrics.start();
+        Match best = null;
+        for (Location l : locationRepository.findLocationsWithinDistanceFallback(lat, lng, matchRadiusKm)) {
+            double d = haversineKm(lat, lng, l.getLatitude(), l.getLongitude());
+            if (best == null || d < best.getDistanceKm()) {
+                best = new Match(l.getLocationId(), d, lat, lng, false);
+            }
+        }
+        HotPathMetrics.stopSpatial(sample, "sdo_nn", "fallback", true);
+        return best;
+    }
+
+    static double haversineKm(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static String defaultPlaceName(PhotoMetadata metadata) {
+        String name = String.format("Photo location %.5f, %.5f", metadata.getLatitude(), metadata.getLongitude());
+        if (metadata.getCapturedAt() != null) {
+            name += " (" + metadata.getCapturedAt().format(DateTimeFormatter.ISO_LOCAL_DATE) + ")";
+        }
+        return name;
+    }
+
+    public static final class Match {
+        private final Long locationId;
+        private final Double distanceKm;
+        private final double latitude;
+        private final double longitude;
+        private final boolean created;
+
+        public Match(Long locationId, Double distanceKm, double latitude, double longitude, boolean created) {
+            this.locationId = locationId;
+            this.distanceKm = distanceKm;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.created = created;
+        }
+
+        public Long getLocationId() { return locationId; }
+        public Double getDistanceKm() { return distanceKm; }
+        public double getLatitude() { return latitude; }
+        public double getLongitude() { return longitude; }
+        public boolean isCreated() { return created; }
+
+        public Map<String, Object> toMap() {
+            Map<String, Object> row = new HashMap<>();
+            row.put("locationId", locationId);
+            row.put("distanceKm", distanceKm);
+            row.put("latitude", latitude);
+            row.put("longitude", longitude);
+            row.put("created", created);
+            if (locationId == null) {
+                row.put("proposed", true);
+            }
+            return row;
+        }
+    }
+}
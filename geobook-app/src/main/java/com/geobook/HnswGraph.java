@@ -0,0 +1,231 @@
+package com.geobook;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Random;
+
+/**
+ * Minimal Hierarchical Navigable Small World graph for approximate nearest
+ * neighbour search over squared L2 distance. Not thread-safe; callers guard it.
+ * Removed nodes are tombstoned and skipped in results but still used for routing.
+ */
+class HnswGraph {
+
+    private final int dim;
+    private final int m;
+    private final int maxM0;
+    private final int efConstruction;
+    private final double levelMultiplier;
+    private final Random random;
+
+    private float[][] vectors = new float[64][];
+    private long[] ids = new long[64];
+    // links[node][level] = int[] where [0] is the neighbour count
+    private int[][][] links = new int[64][][];
+    private final BitSet deleted = new BitSet();
+    private int size;
+    private int entryPoint = -1;
+    private int maxLevel = -1;
+
+    HnswGraph(int dim, int m, int efConstruction, long seed) {
+        this.dim = dim;
+        this.m = m;
+        this.maxM0 = m * 2;
+        this.efConstruction = efConstruction;
+        this.levelMultiplier = 1.0 / Math.log(m);
+        this.random = new Random(seed);
+    }
+
+    int size() {
+        return size - deleted.cardinality();
+    }
+
+    int tombstones() {
+        return deleted.cardinality();
+    }
+
+    /**
+     * Insert a vector and return its internal node number.
+     */
+    int insert(long id, float[] vector) {
+        if (vector.length != dim) {
+            throw new IllegalArgumentException("Expected dimension " + dim + " but got " + vector.length);
+        }
+        int node = size++;
+        ensureCapacity(size);
+        int level = (int) (-Math.log(1.0 - random.nextDouble()) * levelMultiplier);
+        vectors[node] = vector;
+        ids[node] = id;
+        links[node] = new int[level + 1][];
+        for (int l = 0; l <= level; l++) {
+            links[node][l] = new int[(l == 0 ? maxM0 : m) + 1];
+        }
+
+        if (entryPoint < 0) {
+            entryPoint = node;
+            maxLevel = level;
+            return node;
+        }
+
+        int ep = entryPoint;
+        for (int l = maxLevel; l > level; l--) {
+            ep = greedyClosest(vector, ep, l);
+        }
+        for (int l = Math.min(level, maxLevel); l >= 0; l--) {
+            int[] candidates = searchLayer(vector, ep, efConstruction, l);
+            int maxLinks = l == 0 ? maxM0 : m;
+            int count = Math.min(m, candidates.length);
+            for (int i = 0; i < count; i++) {
+                int neighbour = candidates[i];
+                addLink(node, neighbour, l, maxLinks);
+                addLink(neighbour, node, l, maxLinks);
+            }
+            ep = candidates[0];
+        }
+        if (level > maxLevel) {
+            entryPoint = node;
+            maxLevel = level;
+        }
+        return node;
+    }
+
+    void markDeleted(int node) {
+        deleted.set(node);
+    }
+
+    /**
+     * Approximate k nearest live nodes, closest first.
+     */
+    List<ImageSimilarityIndex.Hit> search(float[] query, int k, int ef) {
+        List<ImageSimilarityIndex.Hit> hits = new ArrayList<>();
+        if (entryPoint < 0) return hits;
+        int ep = entryPoint;
+        for (int l = maxLevel; l > 0; l--) {
+            ep = greedyClosest(query, ep, l);
+        }
+        // over-fetch so that tombstoned nodes do not starve the result
+        int[] candidates = searchLayer(query, ep, Math.max(ef, k) + deleted.cardinality(), 0);
+        for (int node : candidates) {
+            if (deleted.get(node)) continue;
+            hits.add(new ImageSimilarityIndex.Hit(ids[node], distance(query, vectors[node])));
+            if (hits.size() == k) break;
+        }
+        return hits;
+    }
+
+    private int greedyClosest(float[] query, int ep, int level) {
+        int current = ep;
+        float best = distance(query, vectors[current]);
+        boolean improved = true;
+        while (improved) {
+            improved = false;
+            int[] neighbours = links[current][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int candidate = neighbours[i];
+                float d = distance(query, vectors[candidate]);
+                if (d < best) {
+                    best = d;
+                    current = candidate;
+                    improved = true;
+                }
+            }
+        }
+        return current;
+    }
+
+    /**
+     * Beam search on one layer; returns up to ef nodes sorted closest first.
+     */
+    private int[] searchLayer(float[] query, int ep, int ef, int level) {
+        BitSet visited = new BitSet(size);
+        // candidates: min-heap by distance; results: max-heap by distance
+        PriorityQueue<Candidate> candidates = new PriorityQueue<>((a, b) -> Float.compare(a.distance, b.distance));
+        PriorityQueue<Candidate> results = new PriorityQueue<>((a, b) -> Float.compare(b.distance, a.distance));
+        Candidate start = new Candidate(ep, distance(query, vectors[ep]));
+        candidates.add(start);
+        results.add(start);
+        visited.set(ep);
+
+        while (!candidates.isEmpty()) {
+            Candidate closest = candidates.poll();
+            if (closest.distance > results.peek().distance && results.size() >= ef) break;
+            int[] neighbours = links[closest.node][level];
+            for (int i = 1; i <= neighbours[0]; i++) {
+                int n = neighbours[i];
+                if (visited.get(n)) continue;
+                visited.set(n);
+                float d = distance(query, vectors[n]);
+                if (results.size() < ef || d < results.peek().distance) {
+                    Candidate c = new Candidate(n, d);
+                    candidates.add(c);
+                    results.add(c);
+                    if (results.size() > ef) results.poll();
+                }
+            }
+        }
+
+        int[] sorted = new int[results.size()];
+        for (int i = sorted.length - 1; i >= 0; i--) {
+            sorted[i] = results.poll().node;
+        }
+        return sorted;
+    }
+
+    private void addLink(int from, int to, int level, int maxLinks) {
+        if (level >= links[from].length) return;
+        int[] list = links[from][level];
+        int count = list[0];
+        for (int i = 1; i <= count; i++) {
+            if (list[i] == to) return;
+        }
+        if (count < maxLinks) {
+            list[count + 1] = to;
+            list[0] = count + 1;
+            return;
+        }
+        // full: replace the farthest neighbour if the new one is closer
+        float[] origin = vectors[from];
+        int worst = -1;
+        float worstDistance = distance(origin, vectors[to]);
+        for (int i = 1; i <= count; i++) {
+            float d = distance(origin, vectors[list[i]]);
+            if (d > worstDistance) {
+                worstDistance = d;
+                worst = i;
+            }
+        }
+        if (worst > 0) {
+            list[worst] = to;
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= ids.length) return;
+        int capacity = Math.max(needed, ids.length * 2);
+        vectors = Arrays.copyOf(vectors, capacity);
+        ids = Arrays.copyOf(ids, capacity);
+        links = Arrays.copyOf(links, capacity);
+    }
+
+    static float distance(float[] a, float[] b) {
+        float sum = 0f;
+        for (int i = 0; i < a.length; i++) {
+            float d = a[i] - b[i];
+            sum += d * d;
+        }
+        return sum;
+    }
+
+    private static final class Candidate {
+        final int node;
+        final float distance;
+
+        Candidate(int node, float distance) {
+            this.node = node;
+            this.distance = distance;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package com.geobook;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+/**
+ * Timers and size distributions for the database and imaging hot paths. Every
+ * meter carries an {@code endpoint} tag, the mapped route of the request doing
+ * the work ({@code /multimedia/{id}/image}, not the raw URI) or
+ * {@code background} for scheduled and async work, so a slow p99 on an endpoint
+ * can be broken down into its spatial, LOB and imaging parts.
+ * <p>
+ * Static, on the global registry, because some callers (the SDO_GEOMETRY user
+ * type, the media stores) are not Spring beans; Boot adds its registries to the
+ * global one. Histogram buckets come from
+ * {@code management.metrics.distribution.percentiles-histogram.geobook}.
+ */
+public final class HotPathMetrics {
+
+    public static final String SPATIAL_QUERY = "geobook.spatial.query";
+    public static final String SDO_CONVERSION = "geobook.sdo.conversion";
+    public static final String MEDIA_IO = "geobook.media.io";
+    public static final String MEDIA_BYTES = "geobook.media.bytes";
+    public static final String IMAGE_DESCRIPTORS = "geobook.image.descriptors";
+    public static final String IMAGE_THUMBNAIL = "geobook.image.thumbnail";
+    public static final String SEARCH_QUERY = "geobook.search.query";
+
+    static final String BACKGROUND = "background";
+    static final String UNMAPPED = "unmapped";
+
+    private HotPathMetrics() {
+    }
+
+    public static Timer.Sample start() {
+        return Timer.start(Metrics.globalRegistry);
+    }
+
+    /**
+     * Stop {@code sample} into the timer {@code name} with the given tag pairs
+     * plus the endpoint; returns the elapsed nanoseconds.
+     */
+    public static long stop(Timer.Sample sample, String name, String... tags) {
+        return sample.stop(Timer.builder(name)
+                .tags(Tags.of(tags).and("endpoint", endpoint()))
+                .register(Metrics.globalRegistry));
+    }
+
+    /**
+     * One spatial query: {@code operator} is the SDO operator it implements (its
+     * fallback keeps the same name), {@code path} is {@code native} when it ran on Oracle Spatial
+     * and {@code fallback} for the Java/plain-SQL route, so the ratio of the two
+     * counts is how often the spatial index is actually used.
+     */
+    public static long stopSpatial(Timer.Sample sample, String operator, String path, boolean success) {
+        return stop(sample, SPATIAL_QUERY, "operator", operator, "path", path,
+                "outcome", success ? "success" : "error");
+    }
+
+    public static void recordBytes(String name, long bytes, String... tags) {
+        recordBytes(name, endpoint(), bytes, tags);
+    }
+
+    /**
+     * For sizes known only after the request thread has moved on, with the
+     * endpoint captured earlier.
+     */
+    public static void recordBytes(String name, String endpoint, long bytes, String... tags) {
+        DistributionSummary.builder(name)
+                .baseUnit("bytes")
+                .tags(Tags.of(tags).and("endpoint", endpoint))
+                .register(Metrics.globalRegistry)
+                .record(bytes);
+    }
+
+    /**
+     * The mapped route of the current request, {@code unmapped} before handler
+     * mapping (filters, 404s), {@code background} off request threads.
+     */
+    static String endpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) return BACKGROUND;
+        HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? request.getMethod() + " " + pattern : UNMAPPED;
+    }
+}
@@ -0,0 +1,162 @@
+package com.geobook;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.coobird.thumbnailator.util.exif.ExifUtils;
+import net.coobird.thumbnailator.util.exif.Orientation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Memory-bounded image decoding. Dimensions are read from the header first, the
+ * image is decoded with {@link ImageReadParam} subsampling at the smallest
+ * resolution that still covers the requested size, and a global pixel budget
+ * limits how many decoded pixels are held across concurrent jobs.
+ */
+@Component
+public class ImageDecoder {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageDecoder.class);
+
+    // budget is counted in blocks of 1024 pixels so it fits a Semaphore
+    private static final int PIXELS_PER_PERMIT = 1024;
+
+    private final int totalPermits;
+    private final Semaphore budget;
+    private final long acquireTimeoutMs;
+
+    public ImageDecoder(@Value("${geobook.image.decode-budget-pixels:100000000}") long budgetPixels,
+                        @Value("${geobook.image.decode-wait-ms:30000}") long acquireTimeoutMs,
+                        MeterRegistry registry) {
+        this.totalPermits = (int) Math.max(1, Math.min(Integer.MAX_VALUE, budgetPixels / PIXELS_PER_PERMIT));
+        this.budget = new Semaphore(totalPermits, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        Gauge.builder("geobook.image.decode.available", this, ImageDecoder::availablePixels)
+                .description("Pixels left in the decode budget")
+                .baseUnit("pixels")
+                .register(registry);
+        Gauge.builder("geobook.image.decode.waiting", budget, Semaphore::getQueueLength)
+                .description("Decodes waiting for budget")
+                .register(registry);
+    }
+
+    /**
+     * Work done on a decoded image while its pixels are counted against the budget.
+     */
+    @FunctionalInterface
+    public interface ImageJob<T> {
+        T apply(BufferedImage image, Orientation orientation) throws IOException;
+    }
+
+    /**
+     * Width and height from the image header, without decoding pixels; null if unreadable.
+     */
+    public int[] readDimensions(Path file) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(file.toFile())) {
+            ImageReader reader = readerFor(iis);
+            if (reader == null) return null;
+            try {
+                return new int[]{reader.getWidth(0), reader.getHeight(0)};
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Decode at the smallest subsampled resolution whose width and height are still at
+     * least {@code minWidth} x {@code minHeight} (0 keeps full resolution), and run {@code job}
+     * on it. {@code copies} is the number of image-sized buffers the job allocates in
+     * addition to the decoded one. Returns null if the file is not a readable image.
+     */
+    public <T> T decode(Path file, int minWidth, int minHeight, int copies, ImageJob<T> job) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(file.toFile())) {
+            ImageReader reader = readerFor(iis);
+            if (reader == null) return null;
+            try {
+                int width = reader.getWidth(0);
+                int height = reader.getHeight(0);
+                int factor = subsampling(width, height, minWidth, minHeight);
+                long pixels = (long) ceilDiv(width, factor) * ceilDiv(height, factor) * (1 + copies);
+
+                Orientation orientation = null;
+                try {
+                    orientation = ExifUtils.getExifOrientation(reader, 0);
+                } catch (Exception ignore) {
+                    // no or unreadable EXIF block
+                }
+
+                int permits = acquire(pixels);
+                try {
+                    ImageReadParam param = reader.getDefaultReadParam();
+                    param.setSourceSubsampling(factor, factor, 0, 0);
+                    BufferedImage image = reader.read(0, param);
+                    logger.debug("Decoded {} at {}x{} (source {}x{}, subsampling {})", file.getFileName(),
+                            image.getWidth(), image.getHeight(), width, height, factor);
+                    return job.apply(image, orientation);
+                } finally {
+                    budget.release(permits);
+                }
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /**
+     * Largest integer subsampling factor that keeps both sides at or above the minimum.
+     */
+    static int subsampling(int width, int height, int minWidth, int minHeight) {
+        int fx = minWidth > 0 ? width / minWidth : 1;
+        int fy = minHeight > 0 ? height / minHeight : 1;
+        return Math.max(1, Math.min(fx, fy));
+    }
+
+    public int availablePixels() {
+        return budget.availablePermits() * PIXELS_PER_PERMIT;
+    }
+
+    private int acquire(long pixels) throws IOException {
+        // a single image larger than the whole budget waits for exclusive use instead of failing
+        int permits = (int) Math.min(totalPermits, Math.max(1, ceilDiv(pixels, PIXELS_PER_PERMIT)));
+        try {
+            if (!budget.tryAcquire(permits, acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IOException("Image decode budget exhausted, try again later");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while waiting for image decode budget", e);
+        }
+        return permits;
+    }
+
+    private static ImageReader readerFor(ImageInputStream iis) {
+        if (iis == null) return null;
+        Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+        if (!readers.hasNext()) return null;
+        ImageReader reader = readers.next();
+        reader.setInput(iis, true, false);
+        return reader;
+    }
+
+    private static int ceilDiv(int a, int b) {
+        return (a + b - 1) / b;
+    }
+
+    private static long ceilDiv(long a, long b) {
+        return (a + b - 1) / b;
+    }
+}
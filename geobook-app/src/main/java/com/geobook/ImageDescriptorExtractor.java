@@ -0,0 +1,163 @@
+package com.geobook;
+
+import io.micrometer.core.instrument.Timer;
+import net.coobird.thumbnailator.util.exif.ExifFilterUtils;
+import org.springframework.stereotype.Component;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Pure-Java replacement for the ORDSYS SI_* descriptor functions.
+ * Average color, color histogram, positional color grid and texture are all
+ * accumulated in a single row-by-row pass over the decoded raster.
+ */
+@Component
+public class ImageDescriptorExtractor {
+
+    /** Quantization levels per RGB channel for the color histogram (4x4x4 = 64 bins). */
+    public static final int HISTOGRAM_LEVELS = 4;
+
+    /** Positional color grid is GRID x GRID cells, each holding a mean RGB triple. */
+    public static final int GRID = 4;
+
+    /** Gradient orientation bins for the texture descriptor. */
+    public static final int ORIENTATION_BINS = 8;
+
+    /** Texture vector: orientation histogram + contrast + mean gradient magnitude. */
+    public static final int TEXTURE_LENGTH = ORIENTATION_BINS + 2;
+
+    /**
+     * Shorter side the image is subsampled down to (but not below) before analysis.
+     * Descriptors are normalized per pixel, so a reduced raster gives the same colors.
+     */
+    public static final int ANALYSIS_SIZE = 512;
+
+    private final ImageDecoder imageDecoder;
+
+    public ImageDescriptorExtractor(ImageDecoder imageDecoder) {
+        this.imageDecoder = imageDecoder;
+    }
+
+    /**
+     * Decode an image file, turned upright by its EXIF orientation, and extract its
+     * descriptors, or return null if the file is not a readable image.
+     */
+    public ImageDescriptors extract(File file) throws IOException {
+        Timer.Sample sample = HotPathMetrics.start();
+        ImageDescriptors descriptors = null;
+        try {
+            descriptors = imageDecoder.decode(file.toPath(), ANALYSIS_SIZE, ANALYSIS_SIZE, 0,
+                    (image, orientation) -> extract(orientation != null
+                            // lossless JPEG rotation only rewrites the EXIF orientation
+                            ? ExifFilterUtils.getFilterForOrientation(orientation).apply(image)
+                            : image));
+            return descriptors;
+        } finally {
+            HotPathMetrics.stop(sample, HotPathMetrics.IMAGE_DESCRIPTORS,
+                    "outcome", descriptors != null ? "success" : "unreadable");
+        }
+    }
+
+    public ImageDescriptors extract(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        long pixels = (long) width * height;
+
+        long sumR = 0, sumG = 0, sumB = 0;
+        long sumLuma = 0, sumLumaSq = 0;
+        int[] histogram = new int[HISTOGRAM_LEVELS * HISTOGRAM_LEVELS * HISTOGRAM_LEVELS];
+        long[] gridSums = new long[GRID * GRID * 3];
+        int[] gridCounts = new int[GRID * GRID];
+        double[] orientation = new double[ORIENTATION_BINS];
+        double gradientSum = 0;
+        int shift = 8 - Integer.numberOfTrailingZeros(HISTOGRAM_LEVELS);
+
+        int[] row = new int[width];
+        int[] luma = new int[width];
+        int[] prevLuma = new int[width];
+
+        for (int y = 0; y < height; y++) {
+            image.getRGB(0, y, width, 1, row, 0, width);
+            int gridRow = Math.min(y * GRID / height, GRID - 1) * GRID;
+
+            for (int x = 0; x < width; x++) {
+                int argb = row[x];
+                int r = (argb >> 16) & 0xFF;
+                int g = (argb >> 8) & 0xFF;
+                int b = argb & 0xFF;
+
+                sumR += r;
+                sumG += g;
+                sumB += b;
+
+                histogram[((r >> shift) * HISTOGRAM_LEVELS + (g >> shift)) * HISTOGRAM_LEVELS + (b >> shift)]++;
+
+                int cell = gridRow + Math.min(x * GRID / width, GRID - 1);
+                gridSums[cell * 3] += r;
+                gridSums[cell * 3 + 1] += g;
+                gridSums[cell * 3 + 2] += b;
+                gridCounts[cell]++;
+
+                // integer BT.601 luma
+                int l = (r * 299 + g * 587 + b * 114) / 1000;
+                luma[x] = l;
+                sumLuma += l;
+                sumLumaSq += (long) l * l;
+
+                if (x > 0 && y > 0) {
+                    int gx = l - luma[x - 1];
+                    int gy = l - prevLuma[x];
+                    if (gx != 0 || gy != 0) {
+                        double magnitude = Math.sqrt(gx * gx + gy * gy);
+                        double angle = Math.atan2(gy, gx) + Math.PI; // 0..2PI
+                        int bin = (int) (angle * ORIENTATION_BINS / (2 * Math.PI)) % ORIENTATION_BINS;
+                        orientation[bin] += magnitude;
+                        gradientSum += magnitude;
+                    }
+                }
+            }
+
+            int[] tmp = prevLuma;
+            prevLuma = luma;
+            luma = tmp;
+        }
+
+        float[] averageColor = new float[3];
+        float[] colorHistogram = new float[histogram.length];
+        float[] positionalColor = new float[gridSums.length];
+        float[] texture = new float[TEXTURE_LENGTH];
+
+        if (pixels > 0) {
+            averageColor[0] = (float) (sumR / (255.0 * pixels));
+            averageColor[1] = (float) (sumG / (255.0 * pixels));
+            averageColor[2] = (float) (sumB / (255.0 * pixels));
+
+            for (int i = 0; i < histogram.length; i++) {
+                colorHistogram[i] = (float) (histogram[i] / (double) pixels);
+            }
+
+            for (int cell = 0; cell < gridCounts.length; cell++) {
+                int count = gridCounts[cell];
+                if (count == 0) continue;
+                for (int c = 0; c < 3; c++) {
+                    positionalColor[cell * 3 + c] = (float) (gridSums[cell * 3 + c] / (255.0 * count));
+                }
+            }
+
+            for (int i = 0; i < ORIENTATION_BINS; i++) {
+                texture[i] = gradientSum > 0 ? (float) (orientation[i] / gradientSum) : 0f;
+            }
+            double meanLuma = sumLuma / (double) pixels;
+            double variance = Math.max(0, sumLumaSq / (double) pixels - meanLuma * meanLuma);
+            texture[ORIENTATION_BINS] = (float) (Math.sqrt(variance) / 255.0);
+            long gradientSamples = (long) Math.max(0, width - 1) * Math.max(0, height - 1);
+            texture[ORIENTATION_BINS + 1] = gradientSamples > 0
+                    ? (float) (gradientSum / gradientSamples / (255.0 * Math.sqrt(2)))
+                    : 0f;
+        }
+
+        return new ImageDescriptors(averageColor, colorHistogram, positionalColor, texture);
+    }
+}
@@ -0,0 +1,50 @@
+package com.geobook;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Visual descriptors of one image, the Java counterpart of the ORDSYS
+ * SI_AverageColor / SI_ColorHistogram / SI_PositionalColor / SI_Texture objects.
+ * Every descriptor is a normalized float vector.
+ */
+public final class ImageDescriptors {
+
+    private final float[] averageColor;
+    private final float[] colorHistogram;
+    private final float[] positionalColor;
+    private final float[] texture;
+
+    public ImageDescriptors(float[] averageColor, float[] colorHistogram,
+                            float[] positionalColor, float[] texture) {
+        this.averageColor = averageColor;
+        this.colorHistogram = colorHistogram;
+        this.positionalColor = positionalColor;
+        this.texture = texture;
+    }
+
+    public float[] getAverageColor() { return averageColor; }
+    public float[] getColorHistogram() { return colorHistogram; }
+    public float[] getPositionalColor() { return positionalColor; }
+    public float[] getTexture() { return texture; }
+
+    /**
+     * Encode a float vector as little-endian IEEE-754 bytes for a RAW/VARBINARY column.
+     */
+    public static byte[] encode(float[] vector) {
+        if (vector == null) return null;
+        ByteBuffer buf = ByteBuffer.allocate(vector.length * Float.BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buf.asFloatBuffer().put(vector);
+        return buf.array();
+    }
+
+    /**
+     * Decode bytes written by {@link #encode(float[])}.
+     */
+    public static float[] decode(byte[] bytes) {
+        if (bytes == null) return null;
+        float[] vector = new float[bytes.length / Float.BYTES];
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).asFloatBuffer().get(vector);
+        return vector;
+    }
+}
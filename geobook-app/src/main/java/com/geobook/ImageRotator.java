@@ -0,0 +1,202 @@
+package com.geobook;
+
+import org.springframework.stereotype.Component;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Rotates images 90 degrees clockwise without changing their format.
+ * JPEGs are rotated losslessly by rewriting the EXIF Orientation tag while the
+ * compressed scan data is streamed through untouched. Other formats (and JPEGs
+ * whose EXIF block has no Orientation entry) are re-encoded in the source format.
+ */
+@Component
+public class ImageRotator {
+
+    private static final int TAG_ORIENTATION = 0x0112;
+
+    // EXIF orientation after one more clockwise quarter turn, indexed by current orientation
+    private static final int[] ROTATE_CW = {1, 6, 7, 8, 5, 2, 3, 4, 1};
+
+    private final ImageDecoder imageDecoder;
+
+    public ImageRotator(ImageDecoder imageDecoder) {
+        this.imageDecoder = imageDecoder;
+    }
+
+    /**
+     * Rotate src into dst and return the image format name that was written.
+     */
+    public String rotate90Clockwise(Path src, Path dst) throws IOException {
+        String format = detectFormat(src);
+        if (format == null) {
+            throw new IOException("Unsupported or unreadable image: " + src);
+        }
+        if (("jpeg".equalsIgnoreCase(format) || "jpg".equalsIgnoreCase(format)) && rotateJpegLossless(src, dst)) {
+            return "jpeg";
+        }
+        reencodeRotated(src, dst, format);
+        return format.toLowerCase();
+    }
+
+    /**
+     * Format name of the first ImageIO reader that accepts the file, read from the header only.
+     */
+    public String detectFormat(Path file) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(file.toFile())) {
+            if (iis == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            return readers.hasNext() ? readers.next().getFormatName() : null;
+        }
+    }
+
+    /**
+     * Copy a JPEG segment by segment, bumping (or inserting) the EXIF orientation.
+     * Returns false without a usable result when the header cannot be patched in place.
+     */
+    boolean rotateJpegLossless(Path src, Path dst) throws IOException {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(src)));
+             OutputStream out = new BufferedOutputStream(Files.newOutputStream(dst))) {
+
+            if (in.readUnsignedShort() != 0xFFD8) return false;
+            out.write(0xFF);
+            out.write(0xD8);
+
+            boolean orientationWritten = false;
+            while (true) {
+                int marker = in.readUnsignedShort();
+                if ((marker & 0xFF00) != 0xFF00) return false;
+                if (marker == 0xFFDA || marker == 0xFFD9) {
+                    // start of scan: if no EXIF was seen, insert a minimal APP1 before the image data
+                    if (!orientationWritten) {
+                        out.write(minimalExifSegment(ROTATE_CW[1]));
+                    }
+                    out.write(marker >> 8);
+                    out.write(marker & 0xFF);
+                    in.transferTo(out);
+                    return true;
+                }
+                int length = in.readUnsignedShort();
+                byte[] payload = new byte[length - 2];
+                in.readFully(payload);
+
+                if (marker == 0xFFE1 && !orientationWritten && isExif(payload)) {
+                    if (!patchOrientation(payload)) return false;
+                    orientationWritten = true;
+                } else if (!orientationWritten && marker != 0xFFE0) {
+                    // Exif APP1 must come before other segments (APP0/JFIF excepted)
+                    out.write(minimalExifSegment(ROTATE_CW[1]));
+                    orientationWritten = true;
+                }
+                out.write(marker >> 8);
+                out.write(marker & 0xFF);
+                out.write(length >> 8);
+                out.write(length & 0xFF);
+                out.write(payload);
+            }
+        }
+    }
+
+    private static boolean isExif(byte[] p) {
+        return p.length > 14 && p[0] == 'E' && p[1] == 'x' && p[2] == 'i' && p[3] == 'f' && p[4] == 0 && p[5] == 0;
+    }
+
+    /**
+     * Find the Orientation entry in IFD0 and rotate it in place.
+     */
+    private static boolean patchOrientation(byte[] p) {
+        int tiff = 6;
+        boolean little = p[tiff] == 'I';
+        int ifd = tiff + readInt(p, tiff + 4, little);
+        if (ifd + 2 > p.length) return false;
+        int entries = readShort(p, ifd, little);
+        for (int i = 0; i < entries; i++) {
+            int entry = ifd + 2 + i * 12;
+            if (entry + 12 > p.length) return false;
+            if (readShort(p, entry, little) == TAG_ORIENTATION) {
+                int current = readShort(p, entry + 8, little);
+                int next = ROTATE_CW[current >= 1 && current <= 8 ? current : 1];
+                writeShort(p, entry + 8, next, little);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static byte[] minimalExifSegment(int orientation) {
+        return new byte[]{
+                (byte) 0xFF, (byte) 0xE1, 0, 34,
+                'E', 'x', 'i', 'f', 0, 0,
+                'M', 'M', 0, 42, 0, 0, 0, 8,              // big-endian TIFF header, IFD0 at 8
+                0, 1,                                     // one entry
+                0x01, 0x12, 0, 3, 0, 0, 0, 1,             // Orientation, SHORT, count 1
+                0, (byte) orientation, 0, 0,
+                0, 0, 0, 0                                // no next IFD
+        };
+    }
+
+    private void reencodeRotated(Path src, Path dst, String format) throws IOException {
+        // full resolution is required; the budget covers the source and the rotated copy
+        Boolean written = imageDecoder.decode(src, 0, 0, 1, (original, orientation) -> {
+            int width = original.getWidth();
+            int height = original.getHeight();
+
+            // copy raw pixels with the source color model so the type survives (incl. TYPE_CUSTOM)
+            WritableRaster source = original.getRaster();
+            WritableRaster target = original.getColorModel().createCompatibleWritableRaster(height, width);
+            Object pixel = null;
+            for (int y = 0; y < height; y++) {
+                for (int x = 0; x < width; x++) {
+                    pixel = source.getDataElements(x, y, pixel);
+                    target.setDataElements(height - 1 - y, x, pixel);
+                }
+            }
+            BufferedImage rotated = new BufferedImage(original.getColorModel(), target,
+                    original.isAlphaPremultiplied(), null);
+
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(dst))) {
+                if (!ImageIO.write(rotated, format, out)) {
+                    throw new IOException("No ImageIO writer for format " + format);
+                }
+            }
+            return Boolean.TRUE;
+        });
+        if (written == null) {
+            throw new IOException("Failed to decode image: " + src);
+        }
+    }
+
+    static int readShort(byte[] b, int off, boolean little) {
+        return little
+                ? (b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8
+                : (b[off] & 0xFF) << 8 | (b[off + 1] & 0xFF);
+    }
+
+    static int readInt(byte[] b, int off, boolean little) {
+        return little
+                ? (b[off] & 0xFF) | (b[off + 1] & 0xFF) << 8 | (b[off + 2] & 0xFF) << 16 | (b[off + 3] & 0xFF) << 24
+                : (b[off] & 0xFF) << 24 | (b[off + 1] & 0xFF) << 16 | (b[off + 2] & 0xFF) << 8 | (b[off + 3] & 0xFF);
+    }
+
+    private static void writeShort(byte[] b, int off, int value, boolean little) {
+        if (little) {
+            b[off] = (byte) value;
+            b[off + 1] = (byte) (value >> 8);
+        } else {
+            b[off] = (byte) (value >> 8);
+            b[off + 1] = (byte) value;
+        }
+    }
+}
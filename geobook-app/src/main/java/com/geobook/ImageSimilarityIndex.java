@@ -0,0 +1,257 @@
+package com.geobook;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory index over the Java image descriptors used for "find similar images".
+ * Replaces a full SI_ScoreByFtrList scan with an exact brute-force pass over a
+ * contiguous float matrix, or an approximate HNSW lookup for large catalogs.
+ * The index is loaded once at startup and updated incrementally on ingest/delete.
+ */
+@Component
+public class ImageSimilarityIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(ImageSimilarityIndex.class);
+
+    // Segment layout of the combined vector: average color, histogram, positional color, texture
+    static final int AC_LENGTH = 3;
+    static final int CH_LENGTH = ImageDescriptorExtractor.HISTOGRAM_LEVELS
+            * ImageDescriptorExtractor.HISTOGRAM_LEVELS * ImageDescriptorExtractor.HISTOGRAM_LEVELS;
+    static final int PC_LENGTH = ImageDescriptorExtractor.GRID * ImageDescriptorExtractor.GRID * 3;
+    static final int TX_LENGTH = ImageDescriptorExtractor.TEXTURE_LENGTH;
+    static final int[] SEGMENT_OFFSETS = {0, AC_LENGTH, AC_LENGTH + CH_LENGTH, AC_LENGTH + CH_LENGTH + PC_LENGTH};
+    static final int DIM = AC_LENGTH + CH_LENGTH + PC_LENGTH + TX_LENGTH;
+
+    /** Equal weights, the SI_ScoreByFtrList default. */
+    public static final float[] DEFAULT_WEIGHTS = {1f, 1f, 1f, 1f};
+
+    private static final int HNSW_M = 16;
+    private static final int HNSW_EF_CONSTRUCTION = 100;
+    private static final int HNSW_EF_SEARCH = 64;
+
+    private final MultimediaRepository multimediaRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // exact store: row i occupies matrix[i * DIM .. (i + 1) * DIM)
+    private float[] matrix = new float[64 * DIM];
+    private long[] ids = new long[64];
+    private int size;
+    private final HashMap<Long, Integer> rowById = new HashMap<>();
+
+    // approximate store
+    private HnswGraph graph = newGraph();
+    private final HashMap<Long, Integer> nodeById = new HashMap<>();
+
+    public ImageSimilarityIndex(MultimediaRepository multimediaRepository) {
+        this.multimediaRepository = multimediaRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            List<Object[]> rows = multimediaRepository.findAllDescriptors();
+            for (Object[] row : rows) {
+                ImageDescriptors d = new ImageDescriptors(
+                        ImageDescriptors.decode((byte[]) row[1]),
+                        ImageDescriptors.decode((byte[]) row[2]),
+                        ImageDescriptors.decode((byte[]) row[3]),
+                        ImageDescriptors.decode((byte[]) row[4]));
+                upsert(((Number) row[0]).longValue(), d);
+            }
+            logger.info("Image similarity index loaded with {} images", size());
+        } catch (Exception e) {
+            logger.warn("Image similarity index could not be loaded: {}", e.getMessage());
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void upsert(long id, ImageDescriptors descriptors) {
+        float[] vector = toVector(descriptors);
+        if (vector == null) return;
+        lock.writeLock().lock();
+        try {
+            Integer row = rowById.get(id);
+            if (row == null) {
+                row = size++;
+                ensureCapacity(size);
+                ids[row] = id;
+                rowById.put(id, row);
+            }
+            System.arraycopy(vector, 0, matrix, row * DIM, DIM);
+
+            Integer oldNode = nodeById.get(id);
+            if (oldNode != null) graph.markDeleted(oldNode);
+            nodeById.put(id, graph.insert(id, vector));
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            Integer row = rowById.remove(id);
+            if (row == null) return;
+            // swap-remove keeps the matrix dense
+            int last = --size;
+            if (row != last) {
+                System.arraycopy(matrix, last * DIM, matrix, row * DIM, DIM);
+                ids[row] = ids[last];
+                rowById.put(ids[row], row);
+            }
+            Integer node = nodeById.remove(id);
+            if (node != null) graph.markDeleted(node);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Top-k images most similar to an indexed image, excluding the image itself.
+     * Custom weights always use the exact scan; the HNSW graph is built for default weights.
+     */
+    public List<Hit> findSimilar(long id, int k, float[] weights, boolean approximate) {
+        lock.readLock().lock();
+        try {
+            Integer row = rowById.get(id);
+            if (row == null) return List.of();
+            float[] query = Arrays.copyOfRange(matrix, row * DIM, (row + 1) * DIM);
+            if (approximate && Arrays.equals(weights, DEFAULT_WEIGHTS)) {
+                List<Hit> hits = graph.search(query, k + 1, HNSW_EF_SEARCH);
+                hits.removeIf(h -> h.getMultimediaId() == id);
+                return hits.size() > k ? hits.subList(0, k) : hits;
+            }
+            return searchExact(query, k, weights, id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Top-k images closest to the given descriptors (exact scan).
+     */
+    public List<Hit> search(ImageDescriptors descriptors, int k, float[] weights) {
+        float[] query = toVector(descriptors);
+        if (query == null) return List.of();
+        lock.readLock().lock();
+        try {
+            return searchExact(query, k, weights, Long.MIN_VALUE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private List<Hit> searchExact(float[] query, int k, float[] weights, long excludeId) {
+        // bounded max-heap on distance keeps only the best k rows
+        PriorityQueue<Hit> heap = new PriorityQueue<>((a, b) -> Float.compare(b.getDistance(), a.getDistance()));
+        for (int row = 0; row < size; row++) {
+            if (ids[row] == excludeId) continue;
+            int base = row * DIM;
+            float distance = 0f;
+            for (int s = 0; s < SEGMENT_OFFSETS.length; s++) {
+                float w = weights[s];
+                if (w == 0f) continue;
+                int from = SEGMENT_OFFSETS[s];
+                int to = s + 1 < SEGMENT_OFFSETS.length ? SEGMENT_OFFSETS[s + 1] : DIM;
+                float sum = 0f;
+                for (int i = from; i < to; i++) {
+                    float d = matrix[base + i] - query[i];
+                    sum += d * d;
+                }
+                distance += w * sum;
+            }
+            if (heap.size() < k) {
+                heap.add(new Hit(ids[row], distance));
+            } else if (distance < heap.peek().getDistance()) {
+                heap.poll();
+                heap.add(new Hit(ids[row], distance));
+            }
+        }
+        List<Hit> hits = new ArrayList<>(heap);
+        hits.sort((a, b) -> Float.compare(a.getDistance(), b.getDistance()));
+        return hits;
+    }
+
+    /**
+     * Concatenate the four descriptors; each segment is scaled by 1/sqrt(length) so that
+     * long segments (histogram, grid) do not dominate the distance.
+     */
+    static float[] toVector(ImageDescriptors d) {
+        if (d == null || d.getAverageColor() == null || d.getColorHistogram() == null
+                || d.getPositionalColor() == null || d.getTexture() == null) {
+            return null;
+        }
+        float[][] segments = {d.getAverageColor(), d.getColorHistogram(), d.getPositionalColor(), d.getTexture()};
+        float[] vector = new float[DIM];
+        for (int s = 0; s < segments.length; s++) {
+            int length = (s + 1 < SEGMENT_OFFSETS.length ? SEGMENT_OFFSETS[s + 1] : DIM) - SEGMENT_OFFSETS[s];
+            if (segments[s].length != length) return null;
+            float scale = (float) (1.0 / Math.sqrt(length));
+            for (int i = 0; i < length; i++) {
+                vector[SEGMENT_OFFSETS[s] + i] = segments[s][i] * scale;
+            }
+        }
+        return vector;
+    }
+
+    // tombstones still cost routing work on every search; rebuild once they outnumber live nodes
+    private void compactIfNeeded() {
+        if (graph.tombstones() > graph.size()) {
+            rebuildGraph();
+        }
+    }
+
+    private void rebuildGraph() {
+        graph = newGraph();
+        nodeById.clear();
+        for (int row = 0; row < size; row++) {
+            float[] vector = Arrays.copyOfRange(matrix, row * DIM, (row + 1) * DIM);
+            nodeById.put(ids[row], graph.insert(ids[row], vector));
+        }
+    }
+
+    private static HnswGraph newGraph() {
+        return new HnswGraph(DIM, HNSW_M, HNSW_EF_CONSTRUCTION, 42L);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= ids.length) return;
+        int capacity = Math.max(needed, ids.length * 2);
+        ids = Arrays.copyOf(ids, capacity);
+        matrix = Arrays.copyOf(matrix, capacity * DIM);
+    }
+
+    public static final class Hit {
+        private final long multimediaId;
+        private final float distance;
+
+        public Hit(long multimediaId, float distance) {
+            this.multimediaId = multimediaId;
+            this.distance = distance;
+        }
+
+        public long getMultimediaId() { return multimediaId; }
+        public float getDistance() { return distance; }
+    }
+}
@@ -0,0 +1,83 @@
+package com.geobook;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ToLongFunction;
+
+/**
+ * One page of a listing ordered by id, addressed by the id before or after it
+ * instead of an offset, so every page costs one index range scan.
+ */
+public class KeysetPage<T> {
+
+    public static final int DEFAULT_SIZE = 50;
+    public static final int MAX_SIZE = 200;
+
+    /** Query for up to {@code page.getPageSize()} rows past {@code key} in the query's direction. */
+    @FunctionalInterface
+    public interface Query<T> {
+        List<T> fetch(long key, Pageable page);
+    }
+
+    private final List<T> items;
+    private final Long firstKey;
+    private final Long lastKey;
+    private final boolean hasPrevious;
+    private final boolean hasNext;
+    private final int size;
+    private final long total;
+
+    private KeysetPage(List<T> items, Long firstKey, Long lastKey, boolean hasPrevious, boolean hasNext,
+                       int size, long total) {
+        this.items = items;
+        this.firstKey = firstKey;
+        this.lastKey = lastKey;
+        this.hasPrevious = hasPrevious;
+        this.hasNext = hasNext;
+        this.size = size;
+        this.total = total;
+    }
+
+    /**
+     * Fetch the page after {@code after} (ascending query), or before {@code before}
+     * (descending query, reversed for display). One extra row tells whether more exist.
+     */
+    public static <T> KeysetPage<T> fetch(Long after, Long before, Integer requestedSize,
+                                          Query<T> ascending, Query<T> descending,
+                                          ToLongFunction<T> key, long total) {
+        int size = requestedSize == null ? DEFAULT_SIZE : Math.max(1, Math.min(MAX_SIZE, requestedSize));
+        Pageable limit = PageRequest.of(0, size + 1);
+
+        List<T> rows;
+        boolean hasPrevious;
+        boolean hasNext;
+        if (before != null) {
+            rows = new ArrayList<>(descending.fetch(before, limit));
+            hasPrevious = rows.size() > size;
+            if (hasPrevious) rows.remove(rows.size() - 1);
+            Collections.reverse(rows);
+            hasNext = true;
+        } else {
+            rows = new ArrayList<>(ascending.fetch(after != null ? after : Long.MIN_VALUE, limit));
+            hasNext = rows.size() > size;
+            if (hasNext) rows.remove(rows.size() - 1);
+            hasPrevious = after != null;
+        }
+        Long first = rows.isEmpty() ? null : key.applyAsLong(rows.get(0));
+        Long last = rows.isEmpty() ? null : key.applyAsLong(rows.get(rows.size() - 1));
+        return new KeysetPage<>(rows, first, last, hasPrevious && first != null, hasNext && last != null, size, total);
+    }
+
+    public List<T> getItems() { return items; }
+    public Long getFirstKey() { return firstKey; }
+    public Long getLastKey() { return lastKey; }
+    public boolean isHasPrevious() { return hasPrevious; }
+    public boolean isHasNext() { return hasNext; }
+    public int getSize() { return size; }
+    /** Row count from {@link TableStatsService}, which may lag recent writes by one refresh; -1 when not counted. */
+    public long getTotal() { return total; }
+}
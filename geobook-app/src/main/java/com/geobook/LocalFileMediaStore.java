@@ -0,0 +1,154 @@
+package com.geobook;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+
+/**
+ * Keeps media under a configured root outside the classpath. Files are sharded
+ * into two levels of 256 directories derived from the file name hash, e.g.
+ * {@code images/3f/a2/1700000000_photo.jpg}, so no directory grows unbounded.
+ */
+public class LocalFileMediaStore implements MediaStore {
+
+    private static final String TMP_PREFIX = ".put_";
+
+    private final Path root;
+
+    public LocalFileMediaStore(Path root) throws IOException {
+        this.root = root.toAbsolutePath().normalize();
+        Files.createDirectories(this.root);
+    }
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        Path target = resolve(key);
+        Files.createDirectories(target.getParent());
+        // copy next to the target then rename, so readers never see a partial file
+        Path tmp = Files.createTempFile(target.getParent(), TMP_PREFIX, ".tmp");
+        try {
+            Files.copy(source, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        return Files.newInputStream(resolve(key));
+    }
+
+    @Override
+    public boolean exists(String key) {
+        return Files.exists(resolve(key));
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return Files.size(resolve(key));
+    }
+
+    @Override
+    public long lastModified(String key) throws IOException {
+        return Files.getLastModifiedTime(resolve(key)).toMillis();
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        Files.deleteIfExists(resolve(key));
+    }
+
+    @Override
+    public void listEntries(EntryVisitor visitor) throws IOException {
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                String key = keyFor(file);
+                if (key != null && attrs.isRegularFile()) {
+                    visitor.visit(key, attrs.size(), attrs.lastModifiedTime().toMillis());
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                // a file deleted while walking is not an error
+                return FileVisitResult.CONTINUE;
+            }
+        });
+    }
+
+    @Override
+    public long purgeIncomplete(long cutoffMillis) throws IOException {
+        long[] reclaimed = {0L};
+        Files.walkFileTree(root, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
+                if (file.getFileName().toString().startsWith(TMP_PREFIX)
+                        && attrs.lastModifiedTime().toMillis() < cutoffMillis
+                        && Files.deleteIfExists(file)) {
+                    reclaimed[0] += attrs.size();
+                }
+                return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(Path file, IOException e) {
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return reclaimed[0];
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return resolve(key);
+    }
+
+    public Path getRoot() {
+        return root;
+    }
+
+    /**
+     * Key stored at {@code file}, or null for anything this store did not write there
+     * (temp files, files outside a shard directory or in the wrong shard).
+     */
+    String keyFor(Path file) {
+        Path rel = root.relativize(file);
+        int n = rel.getNameCount();
+        String name = rel.getFileName().toString();
+        if (n < 3 || name.startsWith(TMP_PREFIX)) return null;
+        StringBuilder key = new StringBuilder();
+        for (int i = 0; i < n - 3; i++) {
+            key.append(rel.getName(i)).append('/');
+        }
+        key.append(name);
+        try {
+            return resolve(key.toString()).equals(file) ? key.toString() : null;
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    Path resolve(String key) {
+        MediaStore.checkKey(key);
+        int slash = key.lastIndexOf('/');
+        String dir = slash >= 0 ? key.substring(0, slash) : "";
+        String file = key.substring(slash + 1);
+        int h = file.hashCode();
+        String shard1 = String.format("%02x", (h >>> 8) & 0xFF);
+        String shard2 = String.format("%02x", h & 0xFF);
+        return root.resolve(dir).resolve(shard1).resolve(shard2).resolve(file);
+    }
+}
@@ -6,16 +6,22 @@ import java.util.List;
 import oracle.sql.STRUCT;
 import javax.sql.DataSource;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.Type;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = SecondLevelCacheConfig.LOCATION)
 @Table(name = "locations")
 public class Location {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "location_seq")
-    @SequenceGenerator(name = "location_seq", sequenceName = "LOCATIONS_SEQ", allocationSize = 1)
+    @SequenceGenerator(name = "location_seq", sequenceName = "LOCATIONS_SEQ", allocationSize = 50)
     @Column(name = "location_id")
     private Long locationId;
 
@@ -32,8 +38,10 @@ public class Location {
     @Column(name = "place_name")
     private String placeName;
 
+    // explicit type: Hibernate has no DDL mapping for STRUCT, and needs one for the
+    // temporary tables it plans alongside pooled id generation
     @Type(SdoGeometryType.class)
-    @Column(name = "spatial_data")
+    @Column(name = "spatial_data", columnDefinition = "MDSYS.SDO_GEOMETRY")
     private String spatialData; 
 
     @OneToMany(mappedBy = "location", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
@@ -100,40 +108,33 @@ public class Location {
     @Transient // Not persisted directly
     public STRUCT getSpatialDataAsGeometry(DataSource dataSource) throws SQLException {
         if (spatialData == null) return null;
-        Connection conn = dataSource.getConnection();
-        try {
-            // Convert WKT string to SDO_GEOMETRY
-            String sql = "SELECT SDO_UTIL.TO_WKTGEOMETRY(?) FROM DUAL"; 
-            var stmt = conn.prepareStatement(sql);
+        // Convert WKT string to SDO_GEOMETRY
+        String sql = "SELECT SDO_UTIL.FROM_WKTGEOMETRY(?, 8307) FROM DUAL";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setString(1, spatialData);
-            var rs = stmt.executeQuery();
-            if (rs.next()) {
-                return (STRUCT) rs.getObject(1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                return rs.next() ? (STRUCT) rs.getObject(1) : null;
             }
-        } finally {
-            conn.close();
         }
-        return null;
     }
 
-       @Transient
+    @Transient
     public void setSpatialDataFromGeometry(STRUCT geometry, DataSource dataSource) throws SQLException {
         if (geometry == null) {
             this.spatialData = null;
             return;
         }
-        Connection conn = dataSource.getConnection();
-        try {
-            // Convert SDO_GEOMETRY to WKT string use Oracle spatial functions
-            String sql = "SELECT SDO_UTIL.TO_WKTGEOMETRY(?) FROM DUAL";
-            var stmt = conn.prepareStatement(sql);
+        // Convert SDO_GEOMETRY to WKT string use Oracle spatial functions
+        String sql = "SELECT SDO_UTIL.TO_WKTGEOMETRY(?) FROM DUAL";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
             stmt.setObject(1, geometry);
-            var rs = stmt.executeQuery();
-            if (rs.next()) {
-                this.spatialData = rs.getString(1);
+            try (ResultSet rs = stmt.executeQuery()) {
+                if (rs.next()) {
+                    this.spatialData = rs.getString(1);
+                }
             }
-        } finally {
-            conn.close();
         }
     }
 }
@@ -3,10 +3,15 @@ package com.geobook;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
+
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 @Controller
@@ -22,12 +27,25 @@ public class LocationController {
     @Autowired
     private SpatialService spatialService;
 
+    @Autowired
+    private TableStatsService tableStats;
+
+    @Autowired
+    private BatchWriteService batchWriteService;
+
     private static final Logger logger = LoggerFactory.getLogger(LocationController.class);
 
+    @Transactional(readOnly = true)
     @GetMapping
-    public String listLocations(Model model) {
-        List<Location> locations = locationRepository.findAll();
-        model.addAttribute("locations", locations.stream().map(LocationDto::from).collect(Collectors.toList()));
+    public String listLocations(@RequestParam(required = false) Long after,
+                                @RequestParam(required = false) Long before,
+                                @RequestParam(required = false) Integer size,
+                                Model model) {
+        KeysetPage<LocationListItem> page = KeysetPage.fetch(after, before, size,
+                locationRepository::findListPageAfter, locationRepository::findListPageBefore,
+                LocationListItem::getLocationId, tableStats.count(TableStatsService.LOCATIONS));
+        model.addAttribute("locations", page.getItems());
+        model.addAttribute("page", page);
         return "locations";
     }
 
@@ -62,6 +80,24 @@ public class LocationController {
         return "redirect:/locations";
     }
 
+    /**
+     * Create many locations in one transaction; body is a JSON array of
+     * {chapterId, placeName, latitude, longitude}. Needs the {@code X-CSRF-TOKEN}
+     * header, as the map's JSON calls send it from the {@code _csrf} meta tag.
+     */
+    @PostMapping("/batch")
+    @ResponseBody
+    public ResponseEntity<?> createLocations(@RequestBody List<BatchWriteService.LocationInput> locations) {
+        try {
+            List<Location> saved = batchWriteService.createLocations(locations);
+            return ResponseEntity.status(HttpStatus.CREATED).body(Map.of(
+                    "created", saved.size(),
+                    "ids", saved.stream().map(Location::getLocationId).collect(Collectors.toList())));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
     @GetMapping("/{id}/edit")
     public String editLocationForm(@PathVariable Long id, Model model) {
         Location location = locationRepository.findById(id).orElseThrow();
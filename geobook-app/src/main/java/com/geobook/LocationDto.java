@@ -1,5 +1,10 @@
 package com.geobook;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.sql.Clob;
+import java.sql.SQLException;
+
 public class LocationDto {
     private Long locationId;
     private String placeName;
@@ -23,6 +28,40 @@ public class LocationDto {
         this.chapterDescription = chapterDescription;
     }
 
+    // Read-model constructor used by the JPQL projections in LocationRepository (no geometry)
+    public LocationDto(Long locationId, String placeName, Double latitude, Double longitude,
+                       String chapterTitle, String bookTitle, String chapterDescription) {
+        this(locationId, placeName, latitude, longitude, chapterTitle, bookTitle, null, chapterDescription);
+    }
+
+    // Native row in LocationRepository.MAP_ROWS column order
+    public static LocationDto fromRow(Object[] row) {
+        return new LocationDto(
+            row[0] != null ? ((Number) row[0]).longValue() : null,
+            (String) row[1],
+            row[2] != null ? ((Number) row[2]).doubleValue() : null,
+            row[3] != null ? ((Number) row[3]).doubleValue() : null,
+            (String) row[4],
+            (String) row[5],
+            text(row[6])
+        );
+    }
+
+    private static String text(Object value) {
+        if (!(value instanceof Clob clob)) return (String) value;
+        try (Reader reader = clob.getCharacterStream()) {
+            StringBuilder sb = new StringBuilder();
+            char[] buffer = new char[4096];
+            int n;
+            while ((n = reader.read(buffer)) != -1) {
+                sb.append(buffer, 0, n);
+            }
+            return sb.toString();
+        } catch (SQLException | IOException e) {
+            return null;
+        }
+    }
+
     // Static factory method
     public static LocationDto from(Location location) {
         return new LocationDto(
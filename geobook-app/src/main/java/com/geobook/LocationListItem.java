@@ -0,0 +1,14 @@
+package com.geobook;
+
+/**
+ * Columns shown on the location list page, with the chapter and book titles joined in.
+ */
+public interface LocationListItem {
+    Long getLocationId();
+    String getPlaceName();
+    Double getLatitude();
+    Double getLongitude();
+    String getChapterTitle();
+    String getBookTitle();
+    Boolean getHasSpatialData();
+}
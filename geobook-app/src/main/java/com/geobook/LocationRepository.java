@@ -1,8 +1,13 @@
 package com.geobook;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import java.util.List;
 
 @Repository
@@ -16,4 +21,49 @@ public interface LocationRepository extends JpaRepository<Location, Long> {
     @Query("SELECT l FROM Location l WHERE " +
            "6371 * acos(cos(radians(?1)) * cos(radians(l.latitude)) * cos(radians(l.longitude) - radians(?2)) + sin(radians(?1)) * sin(radians(l.latitude))) <= ?3")
     List<Location> findLocationsWithinDistanceFallback(double lat, double lng, double distanceKm);
+
+    // Nearest neighbour through the LOCATIONS_SDO_IDX R-tree; rows are [location_id, distance_km]
+    @Query(value = "SELECT l.location_id, SDO_NN_DISTANCE(1) FROM locations l WHERE " +
+                   "SDO_NN(l.spatial_data, MDSYS.SDO_GEOMETRY(2001, 8307, MDSYS.SDO_POINT_TYPE(?2, ?1, NULL), NULL, NULL), 'sdo_num_res=1 unit=KM', 1) = 'TRUE' " +
+                   "ORDER BY SDO_NN_DISTANCE(1)", nativeQuery = true)
+    List<Object[]> findNearestLocation(double lat, double lng);
+
+    // Keyset pages for the location list, chapter and book titles joined in the same statement
+    @Query("SELECT l.locationId AS locationId, l.placeName AS placeName, l.latitude AS latitude, " +
+           "l.longitude AS longitude, c.title AS chapterTitle, b.title AS bookTitle, " +
+           "CASE WHEN l.spatialData IS NOT NULL THEN true ELSE false END AS hasSpatialData " +
+           "FROM Location l LEFT JOIN l.chapter c LEFT JOIN c.book b " +
+           "WHERE l.locationId > :after ORDER BY l.locationId ASC")
+    List<LocationListItem> findListPageAfter(@Param("after") long after, Pageable page);
+
+    @Query("SELECT l.locationId AS locationId, l.placeName AS placeName, l.latitude AS latitude, " +
+           "l.longitude AS longitude, c.title AS chapterTitle, b.title AS bookTitle, " +
+           "CASE WHEN l.spatialData IS NOT NULL THEN true ELSE false END AS hasSpatialData " +
+           "FROM Location l LEFT JOIN l.chapter c LEFT JOIN c.book b " +
+           "WHERE l.locationId < :before ORDER BY l.locationId DESC")
+    List<LocationListItem> findListPageBefore(@Param("before") long before, Pageable page);
+
+    // Map and picker rows as LocationDto in one statement. The geometry is left out: the
+    // map plots latitude/longitude, and converting SDO_GEOMETRY to WKT costs a round trip per row.
+    String MAP_ROWS = "SELECT new com.geobook.LocationDto(l.locationId, l.placeName, l.latitude, l.longitude, " +
+                      "c.title, b.title, c.locationDescription) " +
+                      "FROM Location l LEFT JOIN l.chapter c LEFT JOIN c.book b ";
+
+    // cached until any location, chapter or book changes
+    @Query(MAP_ROWS + "ORDER BY l.locationId")
+    @QueryHints({@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"),
+                 @QueryHint(name = HibernateHints.HINT_CACHE_REGION, value = SecondLevelCacheConfig.CATALOG_QUERIES)})
+    List<LocationDto> findAllForMap();
+
+    @Query(MAP_ROWS + "WHERE 6371 * acos(cos(radians(?1)) * cos(radians(l.latitude)) * cos(radians(l.longitude) - radians(?2)) + " +
+           "sin(radians(?1)) * sin(radians(l.latitude))) <= ?3 ORDER BY l.locationId")
+    List<LocationDto> findForMapWithinDistanceFallback(double lat, double lng, double distanceKm);
+
+    // Same columns as MAP_ROWS, filtered through the spatial index; see LocationDto.fromRow
+    @Query(value = "SELECT l.location_id, l.place_name, l.latitude, l.longitude, c.title, b.title, c.location_description " +
+                   "FROM locations l LEFT JOIN chapters c ON c.chapter_id = l.chapter_id LEFT JOIN books b ON b.book_id = c.book_id " +
+                   "WHERE l.spatial_data IS NOT NULL AND " +
+                   "SDO_WITHIN_DISTANCE(l.spatial_data, MDSYS.SDO_GEOMETRY(2001, 4326, MDSYS.SDO_POINT_TYPE(?2, ?1, NULL), NULL, NULL), 'distance=' || ?3 || ' unit=KM') = 'TRUE' " +
+                   "ORDER BY l.location_id", nativeQuery = true)
+    List<Object[]> findMapRowsWithinDistance(double lat, double lng, double distanceKm);
 }
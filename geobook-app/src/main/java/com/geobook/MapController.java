@@ -1,5 +1,8 @@
 package com.geobook;
 
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -17,49 +20,68 @@ import org.springframework.transaction.annotation.Transactional;
 @RequestMapping("/map")
 public class MapController {
 
+    private static final Logger logger = LoggerFactory.getLogger(MapController.class);
+
+    private static final String SPATIAL_UNAVAILABLE = "Spatial analysis needs Oracle Spatial, which this database does not provide";
+
     private final LocationRepository locationRepository;
     private final SpatialEntityRepository spatialEntityRepository;
+    private final DatabaseCapabilities capabilities;
     
     @PersistenceContext
     private EntityManager entityManager;
 
-    public MapController(LocationRepository locationRepository, SpatialEntityRepository spatialEntityRepository) {
+    public MapController(LocationRepository locationRepository, SpatialEntityRepository spatialEntityRepository,
+                         DatabaseCapabilities capabilities) {
         this.locationRepository = locationRepository;
         this.spatialEntityRepository = spatialEntityRepository;
+        this.capabilities = capabilities;
     }
 
+    @Transactional(readOnly = true)
     @GetMapping
     public String showMap(Model model) {
-        List<Location> locations = locationRepository.findAll();
         List<SpatialEntity> spatialEntities = spatialEntityRepository.findAll();
         
-        model.addAttribute("locations", locations.stream().map(LocationDto::from).collect(Collectors.toList()));
+        model.addAttribute("locations", locationRepository.findAllForMap());
         model.addAttribute("spatialEntities", spatialEntities.stream().map(SpatialEntityDto::from).collect(Collectors.toList()));
         return "map";
     }
 
     @PostMapping("/search")
     public String searchLocations(@RequestParam double lat, @RequestParam double lng, @RequestParam double distance, Model model) {
-        try {
-            // Try Oracle Spatial query first
-            List<Location> locations = locationRepository.findLocationsWithinDistance(lat, lng, distance);
-            model.addAttribute("locations", locations.stream().map(LocationDto::from).collect(Collectors.toList()));
-            model.addAttribute("searchLat", lat);
-            model.addAttribute("searchLng", lng);
-            model.addAttribute("searchDistance", distance);
-        } catch (Exception e) {
-            // If spatial query fails, fall back to mathematical calculation
+        model.addAttribute("searchLat", lat);
+        model.addAttribute("searchLng", lng);
+        model.addAttribute("searchDistance", distance);
+        String failure = null;
+        if (capabilities.isAvailable(DatabaseCapabilities.Capability.SPATIAL_INDEX)) {
+            Timer.Sample sample = HotPathMetrics.start();
             try {
-                List<Location> locations = locationRepository.findLocationsWithinDistanceFallback(lat, lng, distance);
-                model.addAttribute("locations", locations.stream().map(LocationDto::from).collect(Collectors.toList()));
-                model.addAttribute("searchLat", lat);
-                model.addAttribute("searchLng", lng);
-                model.addAttribute("searchDistance", distance);
-                model.addAttribute("warning", "Using fallback distance calculation");
+                // Oracle Spatial query on the spatial index
+                List<LocationDto> locations = locationRepository.findMapRowsWithinDistance(lat, lng, distance).stream()
+                        .map(LocationDto::fromRow).collect(Collectors.toList());
+                HotPathMetrics.stopSpatial(sample, "sdo_within_distance", "native", true);
+                capabilities.recordSuccess(DatabaseCapabilities.Capability.SPATIAL_INDEX);
+                model.addAttribute("locations", locations);
+            } catch (Exception e) {
+                HotPathMetrics.stopSpatial(sample, "sdo_within_distance", "native", false);
+                capabilities.recordFailure(DatabaseCapabilities.Capability.SPATIAL_INDEX, e);
+                failure = e.getMessage();
+            }
+        }
+        if (!model.containsAttribute("locations")) {
+            // No usable spatial index (or the query failed): mathematical distance calculation
+            Timer.Sample sample = HotPathMetrics.start();
+            try {
+                model.addAttribute("locations", locationRepository.findForMapWithinDistanceFallback(lat, lng, distance));
+                HotPathMetrics.stopSpatial(sample, "sdo_within_distance", "fallback", true);
+                if (failure != null) {
+                    model.addAttribute("warning", "Using fallback distance calculation");
+                }
             } catch (Exception e2) {
-                List<Location> allLocations = locationRepository.findAll();
-                model.addAttribute("locations", allLocations.stream().map(LocationDto::from).collect(Collectors.toList()));
-                model.addAttribute("error", "Both spatial queries failed: " + e.getMessage());
+                HotPathMetrics.stopSpatial(sample, "sdo_within_distance", "fallback", false);
+                model.addAttribute("locations", locationRepository.findAllForMap());
+                model.addAttribute("error", "Both spatial queries failed: " + (failure != null ? failure : e2.getMessage()));
             }
         }
         
@@ -83,7 +105,7 @@ public class MapController {
                 return ResponseEntity.badRequest().body("Entity type is required");
             }
             
-            System.out.println("Creating entity: " + entityDto.getName() + " of type: " + entityDto.getEntityType());
+            logger.debug("Creating entity {} of type {}", entityDto.getName(), entityDto.getEntityType());
             
             SpatialEntity entity = entityDto.toEntity();
             
@@ -94,21 +116,20 @@ public class MapController {
                     entity.getEntityType(), 40.7128, -74.0060
                 );
                 entity.setGeometry(sampleGeometry);
-                System.out.println("Generated geometry: " + sampleGeometry);
+                logger.debug("Generated geometry: {}", sampleGeometry);
             } else if (!isValidGeometry(entityDto.getGeometry())) {
                 return ResponseEntity.badRequest().body("Invalid geometry format");
             }
             
             entity = spatialEntityRepository.save(entity);
-            System.out.println("Entity saved with ID: " + entity.getEntityId());
+            logger.debug("Entity saved with ID {}", entity.getEntityId());
             
             return ResponseEntity.ok(SpatialEntityDto.from(entity));
         } catch (IllegalArgumentException e) {
-            System.err.println("IllegalArgumentException: " + e.getMessage());
+            logger.warn("Invalid entity type {}: {}", entityDto.getEntityType(), e.getMessage());
             return ResponseEntity.badRequest().body("Invalid entity type: " + entityDto.getEntityType());
         } catch (Exception e) {
-            System.err.println("Exception creating entity: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Creating spatial entity failed", e);
             return ResponseEntity.badRequest().body("Error creating entity: " + e.getMessage());
         }
     }
@@ -150,6 +171,7 @@ public class MapController {
         }
     }
     
+    @Transactional(readOnly = true)
     @GetMapping("/entities")
     @ResponseBody
     public ResponseEntity<List<SpatialEntityDto>> getAllSpatialEntities() {
@@ -161,6 +183,7 @@ public class MapController {
         }
     }
     
+    @Transactional(readOnly = true)
     @GetMapping("/entities/type/{type}")
     @ResponseBody
     public ResponseEntity<List<SpatialEntityDto>> getEntitiesByType(@PathVariable String type) {
@@ -172,6 +195,7 @@ public class MapController {
         }
     }
     
+    @Transactional(readOnly = true)
     @GetMapping("/entities/{id}")
     @ResponseBody
     public ResponseEntity<SpatialEntityDto> getSpatialEntityById(@PathVariable Long id) {
@@ -190,6 +214,11 @@ public class MapController {
     @PostMapping("/spatial/intersections")
     public String findIntersections(@RequestParam String entityType1, 
                                    @RequestParam String entityType2, Model model) {
+        if (!capabilities.isAvailable(DatabaseCapabilities.Capability.SPATIAL)) {
+            model.addAttribute("error", SPATIAL_UNAVAILABLE);
+            addAllEntitiestoModel(model);
+            return "spatial-analysis";
+        }
         try {
             List<Map<String, Object>> intersections = new ArrayList<>();
             
@@ -200,11 +229,20 @@ public class MapController {
                         "AND SDO_OVERLAPS(parse_sdo_geom(e1.geometry), parse_sdo_geom(e2.geometry)) = 'TRUE' " +
                         "AND e1.entity_id != e2.entity_id";
             
-            @SuppressWarnings("unchecked")
-            List<Object[]> results = entityManager.createNativeQuery(sql)
-                .setParameter("type1", entityType1)
-                .setParameter("type2", entityType2)
-                .getResultList();
+            Timer.Sample sample = HotPathMetrics.start();
+            List<Object[]> results;
+            try {
+                @SuppressWarnings("unchecked")
+                List<Object[]> rows = entityManager.createNativeQuery(sql)
+                    .setParameter("type1", entityType1)
+                    .setParameter("type2", entityType2)
+                    .getResultList();
+                results = rows;
+                HotPathMetrics.stopSpatial(sample, "sdo_overlaps", "native", true);
+            } catch (RuntimeException e) {
+                HotPathMetrics.stopSpatial(sample, "sdo_overlaps", "native", false);
+                throw e;
+            }
             
             for (Object[] row : results) {
                 Map<String, Object> intersection = new HashMap<>();
@@ -233,6 +271,11 @@ public class MapController {
     // Analytic function Density Analysis
     @PostMapping("/analysis/density")
     public String performDensityAnalysis(@RequestParam(required = false) String regionType, Model model) {
+        if (!capabilities.isAvailable(DatabaseCapabilities.Capability.SPATIAL)) {
+            model.addAttribute("error", SPATIAL_UNAVAILABLE);
+            addAllEntitiestoModel(model);
+            return "spatial-analysis";
+        }
         try {
             List<Map<String, Object>> densityResults = new ArrayList<>();
             
@@ -243,10 +286,19 @@ public class MapController {
                         "WHERE p.entity_type = :regionType " +
                         "GROUP BY p.name, p.geometry";
             
-            @SuppressWarnings("unchecked")
-            List<Object[]> results = entityManager.createNativeQuery(sql)
-                .setParameter("regionType", regionType != null ? regionType : "POLYGON")
-                .getResultList();
+            Timer.Sample sample = HotPathMetrics.start();
+            List<Object[]> results;
+            try {
+                @SuppressWarnings("unchecked")
+                List<Object[]> rows = entityManager.createNativeQuery(sql)
+                    .setParameter("regionType", regionType != null ? regionType : "POLYGON")
+                    .getResultList();
+                results = rows;
+                HotPathMetrics.stopSpatial(sample, "sdo_inside", "native", true);
+            } catch (RuntimeException e) {
+                HotPathMetrics.stopSpatial(sample, "sdo_inside", "native", false);
+                throw e;
+            }
             
             for (Object[] row : results) {
                 String regionName = (String) row[0];
@@ -304,6 +356,7 @@ public class MapController {
     
     // === ADDITIONAL UTILITY ENDPOINTS ===
     
+    @Transactional(readOnly = true)
     @GetMapping("/analysis")
     public String showAnalysisPage(Model model) {
         addAllEntitiestoModel(model);
@@ -315,13 +368,36 @@ public class MapController {
     public ResponseEntity<List<SpatialEntityDto>> findEntitiesInBoundingBox(
             @RequestParam double minX, @RequestParam double minY,
             @RequestParam double maxX, @RequestParam double maxY) {
+        if (!capabilities.isAvailable(DatabaseCapabilities.Capability.SPATIAL)) {
+            // No Oracle Spatial: filter the stored geometries by their vertices in Java
+            Timer.Sample sample = HotPathMetrics.start();
+            try {
+                List<SpatialEntityDto> inside = spatialEntityRepository.findAll().stream()
+                    .filter(e -> SpatialGeometryUtils.isInsideBox(e.getGeometry(), minX, minY, maxX, maxY))
+                    .map(SpatialEntityDto::from)
+                    .collect(Collectors.toList());
+                HotPathMetrics.stopSpatial(sample, "sdo_inside", "fallback", true);
+                return ResponseEntity.ok(inside);
+            } catch (RuntimeException e) {
+                HotPathMetrics.stopSpatial(sample, "sdo_inside", "fallback", false);
+                return ResponseEntity.badRequest().build();
+            }
+        }
         try {
             String bboxWkt = String.format("POLYGON((%.6f %.6f, %.6f %.6f, %.6f %.6f, %.6f %.6f, %.6f %.6f))", 
                                          minX, minY, maxX, minY, maxX, maxY, minX, maxY, minX, minY);
             String sql = "SELECT * FROM spatial_entities WHERE SDO_INSIDE(parse_sdo_geom(geometry), SDO_GEOMETRY(:bbox, 4326)) = 'TRUE'";
-            List<SpatialEntity> entities = entityManager.createNativeQuery(sql, SpatialEntity.class)
-                .setParameter("bbox", bboxWkt)
-                .getResultList();
+            Timer.Sample sample = HotPathMetrics.start();
+            List<SpatialEntity> entities;
+            try {
+                entities = entityManager.createNativeQuery(sql, SpatialEntity.class)
+                    .setParameter("bbox", bboxWkt)
+                    .getResultList();
+                HotPathMetrics.stopSpatial(sample, "sdo_inside", "native", true);
+            } catch (RuntimeException e) {
+                HotPathMetrics.stopSpatial(sample, "sdo_inside", "native", false);
+                throw e;
+            }
             return ResponseEntity.ok(entities.stream().map(SpatialEntityDto::from).collect(Collectors.toList()));
         } catch (Exception e) {
             return ResponseEntity.badRequest().build();
@@ -331,10 +407,12 @@ public class MapController {
     // Helper method to add all entities to model
     private void addAllEntitiestoModel(Model model) {
         try {
-            List<Location> locations = locationRepository.findAll();
             List<SpatialEntity> spatialEntities = spatialEntityRepository.findAll();
             
-            model.addAttribute("locations", locations.stream().map(LocationDto::from).collect(Collectors.toList()));
+            // keep a location list the caller already put in the model (e.g. search results)
+            if (!model.containsAttribute("locations")) {
+                model.addAttribute("locations", locationRepository.findAllForMap());
+            }
             model.addAttribute("spatialEntities", spatialEntities.stream().map(SpatialEntityDto::from).collect(Collectors.toList()));
             
             // Add entity type counts for UI
@@ -420,7 +498,7 @@ public class MapController {
         Map<String, Object> response = new HashMap<>();
         
         try {
-            System.out.println("Fixing Oracle triggers for spatial_entities...");
+            logger.info("Fixing Oracle triggers for spatial_entities");
             
             // Use JDBC connection directly to avoid Hibernate parameter parsing issues
             java.sql.Connection connection = entityManager.unwrap(java.sql.Connection.class);
@@ -556,8 +634,7 @@ public class MapController {
             return ResponseEntity.ok(response);
             
         } catch (Exception e) {
-            System.err.println("Error fixing triggers: " + e.getMessage());
-            e.printStackTrace();
+            logger.error("Fixing spatial triggers failed", e);
             
             response.put("success", false);
             response.put("message", "Failed to fix triggers: " + e.getMessage());
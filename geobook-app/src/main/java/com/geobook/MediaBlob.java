@@ -0,0 +1,41 @@
+package com.geobook;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * Row of the media_blobs table used by {@link DbLobMediaStore}.
+ * Mapped only so the schema is generated; content is read and written
+ * through streaming JDBC, never loaded through this entity.
+ */
+@Entity
+@Table(name = "media_blobs")
+public class MediaBlob {
+
+    @Id
+    @Column(name = "media_key", length = 512)
+    private String mediaKey;
+
+    @Lob
+    @Basic(fetch = FetchType.LAZY)
+    @Column(name = "content")
+    private byte[] content;
+
+    @Column(name = "content_length")
+    private Long contentLength;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public String getMediaKey() {
+        return mediaKey;
+    }
+
+    public Long getContentLength() {
+        return contentLength;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -0,0 +1,234 @@
+package com.geobook;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reconciles the media store with the multimedia table and deletes stored content
+ * that no row refers to any more. Both sides are streamed into an
+ * {@link ExternalSorter} and merge-joined in key order, so memory stays bounded
+ * however many files there are. Content is only deleted once it is older than
+ * the grace period, which covers uploads whose row is not committed yet, and each
+ * deletion is re-checked against the table first. Abandoned upload sessions are
+ * purged on the same schedule.
+ */
+@Service
+public class MediaGcService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaGcService.class);
+
+    private static final int FETCH_SIZE = 1000;
+    private static final int RUN_SIZE = 100_000;
+
+    private final MediaStore mediaStore;
+    private final DataSource dataSource;
+    private final MultimediaRepository multimediaRepository;
+    private final ChunkedUploadService chunkedUploadService;
+    private final boolean enabled;
+    private final long graceMs;
+    private final boolean dryRun;
+    private final Path workDir;
+
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong missing = new AtomicLong();
+    private final Counter deleted;
+    private final Counter reclaimedStore;
+    private final Counter reclaimedStaging;
+    private final Timer duration;
+
+    public MediaGcService(MediaStore mediaStore, DataSource dataSource,
+                          MultimediaRepository multimediaRepository,
+                          ChunkedUploadService chunkedUploadService,
+                          MeterRegistry registry,
+                          @Value("${geobook.media.gc.enabled:true}") boolean enabled,
+                          @Value("${geobook.media.gc.grace-ms:86400000}") long graceMs,
+                          @Value("${geobook.media.gc.dry-run:false}") boolean dryRun,
+                          @Value("${geobook.media.gc.work-dir:${java.io.tmpdir}/geobook-gc}") String workDir) {
+        this.mediaStore = mediaStore;
+        this.dataSource = dataSource;
+        this.multimediaRepository = multimediaRepository;
+        this.chunkedUploadService = chunkedUploadService;
+        this.enabled = enabled;
+        this.graceMs = graceMs;
+        this.dryRun = dryRun;
+        this.workDir = Paths.get(workDir);
+
+        this.deleted = Counter.builder("geobook.media.gc.deleted")
+                .description("Orphaned media entries deleted")
+                .register(registry);
+        this.reclaimedStore = Counter.builder("geobook.media.gc.reclaimed")
+                .description("Bytes reclaimed by media garbage collection")
+                .baseUnit("bytes").tag("source", "store")
+                .register(registry);
+        this.reclaimedStaging = Counter.builder("geobook.media.gc.reclaimed")
+                .description("Bytes reclaimed by media garbage collection")
+                .baseUnit("bytes").tag("source", "staging")
+                .register(registry);
+        this.duration = Timer.builder("geobook.media.gc.duration")
+                .description("Time taken by one media garbage collection pass")
+                .register(registry);
+        registry.gauge("geobook.media.gc.pending", pending);
+        registry.gauge("geobook.media.gc.missing", missing);
+    }
+
+    @Scheduled(initialDelayString = "${geobook.media.gc.initial-delay-ms:600000}",
+               fixedDelayString = "${geobook.media.gc.interval-ms:21600000}")
+    public void scheduledRun() {
+        if (!enabled) return;
+        try {
+            run();
+        } catch (Exception e) {
+            logger.warn("Media garbage collection failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * One reconciliation pass. Does nothing if a pass is already running.
+     */
+    public void run() throws IOException {
+        if (!running.compareAndSet(false, true)) return;
+        try {
+            duration.recordCallable(() -> {
+                collect(System.currentTimeMillis() - graceMs);
+                return null;
+            });
+        } catch (IOException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException(e);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    private void collect(long cutoff) throws IOException {
+        long started = System.currentTimeMillis();
+        long scanned = 0, referenced = 0, young = 0, orphans = 0, removed = 0, bytes = 0, absent = 0;
+
+        try (ExternalSorter stored = new ExternalSorter(workDir, RUN_SIZE);
+             ExternalSorter rows = new ExternalSorter(workDir, RUN_SIZE)) {
+
+            // store side: "key<TAB>size<TAB>mtime"; TAB sorts below every key character,
+            // so whole-line order is key order
+            mediaStore.listEntries((key, size, lastModified) -> {
+                if (sortable(key)) stored.add(key + '\t' + size + '\t' + lastModified);
+            });
+            streamReferencedKeys(rows);
+
+            try (ExternalSorter.LineSource s = stored.sorted();
+                 ExternalSorter.LineSource r = rows.sorted()) {
+                String row = r.next();
+                for (String line = s.next(); line != null; line = s.next()) {
+                    scanned++;
+                    String[] entry = line.split("\t");
+                    String key = entry[0];
+                    while (row != null && row.compareTo(key) < 0) {
+                        absent++;
+                        row = nextDistinct(r, row);
+                    }
+                    if (key.equals(row)) {
+                        referenced++;
+                        row = nextDistinct(r, row);
+                        continue;
+                    }
+                    long size = Long.parseLong(entry[1]);
+                    if (Long.parseLong(entry[2]) >= cutoff) {
+                        young++;
+                        continue;
+                    }
+                    orphans++;
+                    if (dryRun) {
+                        logger.info("Media GC (dry run) would delete {} ({} bytes)", key, size);
+                    } else if (!multimediaRepository.existsByStoredPath("/" + key)) {
+                        mediaStore.delete(key);
+                        removed++;
+                        bytes += size;
+                        deleted.increment();
+                        reclaimedStore.increment(size);
+                    }
+                }
+                for (; row != null; row = nextDistinct(r, row)) {
+                    absent++;
+                }
+            }
+        }
+
+        long partial = mediaStore.purgeIncomplete(cutoff);
+        long staged = chunkedUploadService.purgeStale(cutoff);
+        reclaimedStore.increment(partial);
+        reclaimedStaging.increment(staged);
+        pending.set(young + (dryRun ? orphans : 0));
+        missing.set(absent);
+
+        logger.info("Media GC on {} store: scanned {}, referenced {}, orphaned {}, deleted {} ({} bytes), " +
+                        "within grace {}, rows without content {}, partial writes {} bytes, stale uploads {} bytes, in {} ms",
+                mediaStore.name(), scanned, referenced, orphans, removed, bytes, young, absent,
+                partial, staged, System.currentTimeMillis() - started);
+    }
+
+    /**
+     * Every key the multimedia table refers to, streamed with a bounded fetch size.
+     * With the ord store images live inside their rows and are not listed by the store,
+     * so only thumbnails take part.
+     */
+    private void streamReferencedKeys(ExternalSorter rows) throws IOException {
+        boolean imagesInRows = "ord".equals(mediaStore.name());
+        String sql = imagesInRows
+                ? "SELECT NULL, thumbnail_path FROM multimedia"
+                : "SELECT file_path, thumbnail_path FROM multimedia";
+        try (Connection conn = dataSource.getConnection();
+             PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setFetchSize(FETCH_SIZE);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) {
+                    addKey(rows, rs.getString(1));
+                    addKey(rows, rs.getString(2));
+                }
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to read multimedia paths", e);
+        }
+    }
+
+    private static void addKey(ExternalSorter rows, String path) throws IOException {
+        String key = MediaStore.keyOf(path);
+        if (key != null && sortable(key)) rows.add(key);
+    }
+
+    /**
+     * Keys with control characters cannot be ordered by whole line and are never touched.
+     */
+    private static boolean sortable(String key) {
+        if (key.isEmpty()) return false;
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) < 0x20) return false;
+        }
+        return true;
+    }
+
+    private static String nextDistinct(ExternalSorter.LineSource source, String current) throws IOException {
+        String next = source.next();
+        while (next != null && next.equals(current)) {
+            next = source.next();
+        }
+        return next;
+    }
+}
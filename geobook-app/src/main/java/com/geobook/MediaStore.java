@@ -0,0 +1,67 @@
+package com.geobook;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+
+/**
+ * Storage backend for original media and derived renditions.
+ * Keys are relative paths such as {@code images/<file>} or {@code thumbnails/<file>};
+ * {@link Multimedia#getFilePath()} holds the key with a leading slash.
+ */
+public interface MediaStore {
+
+    /** Short backend name: local, db or ord. */
+    String name();
+
+    /** Copy {@code source} into the store under {@code key}, replacing any existing content. */
+    void put(String key, Path source) throws IOException;
+
+    /** Open the content for streaming; throws {@link java.nio.file.NoSuchFileException} if absent. */
+    InputStream open(String key) throws IOException;
+
+    boolean exists(String key) throws IOException;
+
+    long size(String key) throws IOException;
+
+    /** Last modification time in epoch millis, used for caching headers. */
+    long lastModified(String key) throws IOException;
+
+    void delete(String key) throws IOException;
+
+    /**
+     * Visit every stored key with its size and modification time, in no particular
+     * order. Used by {@link MediaGcService} to find content no row refers to.
+     */
+    void listEntries(EntryVisitor visitor) throws IOException;
+
+    /** Delete partial writes abandoned before {@code cutoffMillis}; returns the bytes reclaimed. */
+    default long purgeIncomplete(long cutoffMillis) throws IOException {
+        return 0L;
+    }
+
+    /** Local file backing the key, when the store keeps media on the local filesystem. */
+    default Path localPath(String key) {
+        return null;
+    }
+
+    /** Convert a stored file path ("/images/x.jpg") into a store key ("images/x.jpg"). */
+    static String keyOf(String filePath) {
+        if (filePath == null) return null;
+        return filePath.startsWith("/") ? filePath.substring(1) : filePath;
+    }
+
+    /** Reject keys that could escape the store root. */
+    static String checkKey(String key) {
+        if (key == null || key.isEmpty() || key.startsWith("/") || key.contains("..") || key.contains("\\")) {
+            throw new IllegalArgumentException("Invalid media key: " + key);
+        }
+        return key;
+    }
+
+    /** Receives the entries produced by {@link #listEntries}. */
+    @FunctionalInterface
+    interface EntryVisitor {
+        void visit(String key, long size, long lastModified) throws IOException;
+    }
+}
@@ -0,0 +1,52 @@
+package com.geobook;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.nio.file.Paths;
+
+/**
+ * Selects the media backend with {@code geobook.media.store}: local (default), db or ord.
+ * The ord store needs Oracle Multimedia; without ORDSYS the db store is used instead.
+ * Both database stores stream content under {@link ConnectionBulkheads} permits,
+ * and every store's transfers are timed by {@link MeteredMediaStore}.
+ */
+@Configuration
+public class MediaStoreConfig {
+
+    private static final Logger logger = LoggerFactory.getLogger(MediaStoreConfig.class);
+
+    @Bean
+    public MediaStore mediaStore(@Value("${geobook.media.store:local}") String type,
+                                 @Value("${geobook.media.root:${user.dir}/data/media}") String root,
+                                 DataSource dataSource,
+                                 OrdImageService ordImageService,
+                                 DatabaseCapabilities capabilities,
+                                 ConnectionBulkheads bulkheads) throws IOException {
+        if ("ord".equals(type) && !capabilities.isAvailable(DatabaseCapabilities.Capability.ORDSYS)) {
+            logger.warn("geobook.media.store=ord but ORDSYS.ORDImage is not available, storing media as BLOBs");
+            type = "db";
+        }
+        return new MeteredMediaStore(backend(type, root, dataSource, ordImageService, bulkheads));
+    }
+
+    private static MediaStore backend(String type, String root, DataSource dataSource,
+                                      OrdImageService ordImageService, ConnectionBulkheads bulkheads) throws IOException {
+        switch (type) {
+            case "db":
+                return new BulkheadMediaStore(new DbLobMediaStore(dataSource), bulkheads);
+            case "ord":
+                return new BulkheadMediaStore(
+                        new OrdImageMediaStore(dataSource, ordImageService, new LocalFileMediaStore(Paths.get(root))), bulkheads);
+            case "local":
+                return new LocalFileMediaStore(Paths.get(root));
+            default:
+                throw new IllegalArgumentException("Unknown geobook.media.store: " + type);
+        }
+    }
+}
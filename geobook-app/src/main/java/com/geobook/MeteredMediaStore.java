@@ -0,0 +1,134 @@
+package com.geobook;
+
+import io.micrometer.core.instrument.Timer;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Records latency and size of content reads and writes on any media store, tagged
+ * with the store's name: for the db and ord stores these are the BLOB and ORDImage
+ * transfers. A write is timed until it returns; a read is timed until its stream
+ * is open (connection, bulkhead wait and LOB locator) and its size recorded at close,
+ * since how long the stream stays open is up to the client.
+ */
+public class MeteredMediaStore implements MediaStore {
+
+    private final MediaStore delegate;
+
+    public MeteredMediaStore(MediaStore delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public String name() {
+        return delegate.name();
+    }
+
+    @Override
+    public void put(String key, Path source) throws IOException {
+        Timer.Sample sample = HotPathMetrics.start();
+        boolean success = false;
+        try {
+            delegate.put(key, source);
+            success = true;
+        } finally {
+            HotPathMetrics.stop(sample, HotPathMetrics.MEDIA_IO, "store", name(), "operation", "put",
+                    "outcome", success ? "success" : "error");
+        }
+        HotPathMetrics.recordBytes(HotPathMetrics.MEDIA_BYTES, Files.size(source), "store", name(), "operation", "put");
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        Timer.Sample sample = HotPathMetrics.start();
+        InputStream in;
+        try {
+            in = delegate.open(key);
+        } catch (IOException | RuntimeException e) {
+            HotPathMetrics.stop(sample, HotPathMetrics.MEDIA_IO, "store", name(), "operation", "open",
+                    "outcome", "error");
+            throw e;
+        }
+        HotPathMetrics.stop(sample, HotPathMetrics.MEDIA_IO, "store", name(), "operation", "open",
+                "outcome", "success");
+        // the endpoint tag is resolved now, on the request thread
+        String endpoint = HotPathMetrics.endpoint();
+        return new FilterInputStream(in) {
+            private long bytes;
+            private boolean closed;
+
+            @Override
+            public int read() throws IOException {
+                int b = super.read();
+                if (b >= 0) bytes++;
+                return b;
+            }
+
+            @Override
+            public int read(byte[] buffer, int off, int len) throws IOException {
+                int n = super.read(buffer, off, len);
+                if (n > 0) bytes += n;
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long skipped = super.skip(n);
+                bytes += skipped;
+                return skipped;
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    if (!closed) {
+                        closed = true;
+                        HotPathMetrics.recordBytes(HotPathMetrics.MEDIA_BYTES, endpoint, bytes,
+                                "store", name(), "operation", "open");
+                    }
+                }
+            }
+        };
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        return delegate.exists(key);
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        return delegate.size(key);
+    }
+
+    @Override
+    public long lastModified(String key) throws IOException {
+        return delegate.lastModified(key);
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        delegate.delete(key);
+    }
+
+    @Override
+    public void listEntries(EntryVisitor visitor) throws IOException {
+        delegate.listEntries(visitor);
+    }
+
+    @Override
+    public long purgeIncomplete(long cutoffMillis) throws IOException {
+        return delegate.purgeIncomplete(cutoffMillis);
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return delegate.localPath(key);
+    }
+}
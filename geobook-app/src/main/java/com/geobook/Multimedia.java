@@ -3,8 +3,10 @@ package com.geobook;
 import jakarta.persistence.*;
 import com.fasterxml.jackson.annotation.JsonIgnore;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 @Entity
+@EntityListeners(SearchIndexListener.class)
 @Table(name = "multimedia")
 public class Multimedia {
 
@@ -12,7 +14,7 @@ public class Multimedia {
     @SequenceGenerator(
         name = "multimedia_seq",
         sequenceName = "MULTIMEDIA_SEQ",
-        allocationSize = 1
+        allocationSize = 50
     )
     @GeneratedValue(
         strategy = GenerationType.SEQUENCE,
@@ -47,6 +49,39 @@ private String description;
     @Column(name = "thumbnail_path")
     private String thumbnailPath;
 
+    // Java-computed visual descriptors (little-endian float vectors, see ImageDescriptors)
+    @Column(name = "feature_ac", length = 64)
+    @JsonIgnore
+    private byte[] featureAc;
+
+    @Column(name = "feature_ch", length = 512)
+    @JsonIgnore
+    private byte[] featureCh;
+
+    @Column(name = "feature_pc", length = 512)
+    @JsonIgnore
+    private byte[] featurePc;
+
+    @Column(name = "feature_tx", length = 128)
+    @JsonIgnore
+    private byte[] featureTx;
+
+    // Photo metadata read from EXIF at ingest
+    @Column(name = "captured_at")
+    private LocalDateTime capturedAt;
+
+    @Column(name = "gps_latitude")
+    private Double gpsLatitude;
+
+    @Column(name = "gps_longitude")
+    private Double gpsLongitude;
+
+    @Column(name = "image_width")
+    private Integer imageWidth;
+
+    @Column(name = "image_height")
+    private Integer imageHeight;
+
     // NO ORDImage fields here - they're managed by native SQL
 
     // Getters and Setters (ONLY for the fields above)
@@ -114,6 +149,93 @@ private String description;
         this.thumbnailPath = thumbnailPath;
     }
 
+    public byte[] getFeatureAc() {
+        return featureAc;
+    }
+
+    public void setFeatureAc(byte[] featureAc) {
+        this.featureAc = featureAc;
+    }
+
+    public byte[] getFeatureCh() {
+        return featureCh;
+    }
+
+    public void setFeatureCh(byte[] featureCh) {
+        this.featureCh = featureCh;
+    }
+
+    public byte[] getFeaturePc() {
+        return featurePc;
+    }
+
+    public void setFeaturePc(byte[] featurePc) {
+        this.featurePc = featurePc;
+    }
+
+    public byte[] getFeatureTx() {
+        return featureTx;
+    }
+
+    public void setFeatureTx(byte[] featureTx) {
+        this.featureTx = featureTx;
+    }
+
+    public LocalDateTime getCapturedAt() {
+        return capturedAt;
+    }
+
+    public void setCapturedAt(LocalDateTime capturedAt) {
+        this.capturedAt = capturedAt;
+    }
+
+    public Double getGpsLatitude() {
+        return gpsLatitude;
+    }
+
+    public void setGpsLatitude(Double gpsLatitude) {
+        this.gpsLatitude = gpsLatitude;
+    }
+
+    public Double getGpsLongitude() {
+        return gpsLongitude;
+    }
+
+    public void setGpsLongitude(Double gpsLongitude) {
+        this.gpsLongitude = gpsLongitude;
+    }
+
+    public Integer getImageWidth() {
+        return imageWidth;
+    }
+
+    public void setImageWidth(Integer imageWidth) {
+        this.imageWidth = imageWidth;
+    }
+
+    public Integer getImageHeight() {
+        return imageHeight;
+    }
+
+    public void setImageHeight(Integer imageHeight) {
+        this.imageHeight = imageHeight;
+    }
+
+    public void setPhotoMetadata(PhotoMetadata metadata) {
+        this.capturedAt = metadata.getCapturedAt();
+        this.gpsLatitude = metadata.getLatitude();
+        this.gpsLongitude = metadata.getLongitude();
+        this.imageWidth = metadata.getWidth();
+        this.imageHeight = metadata.getHeight();
+    }
+
+    public void setDescriptors(ImageDescriptors descriptors) {
+        this.featureAc = ImageDescriptors.encode(descriptors.getAverageColor());
+        this.featureCh = ImageDescriptors.encode(descriptors.getColorHistogram());
+        this.featurePc = ImageDescriptors.encode(descriptors.getPositionalColor());
+        this.featureTx = ImageDescriptors.encode(descriptors.getTexture());
+    }
+
     // Constructors
     public Multimedia() {}
 
@@ -2,6 +2,7 @@ package com.geobook;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.multipart.MultipartFile;
@@ -29,6 +30,7 @@ import java.awt.Graphics2D;
 import java.awt.geom.AffineTransform;
 import java.io.FileInputStream;
 
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -44,6 +46,16 @@ import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaTypeFactory;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
 
 import oracle.ord.im.OrdImage;
 import oracle.jdbc.OracleResultSet;
@@ -69,170 +81,77 @@ public class MultimediaController {
     @Autowired
     private OrdImageService ordImageService; // added service to write ORDSYS columns
 
+    @Autowired
+    private MultimediaIngestService ingestService;
+
+    @Autowired
+    private MediaStore mediaStore;
+
+    @Autowired
+    private ImageSimilarityIndex similarityIndex;
+
+    @Autowired
+    private SearchIndexService searchIndex;
+
+    @Autowired
+    private TableStatsService tableStats;
+
+    @Autowired
+    private ConnectionBulkheads bulkheads;
+
+    @Transactional(readOnly = true)
     @GetMapping
-    public String listMultimedia(Model model) {
-        List<Multimedia> multimediaList = multimediaRepository.findAll();
-        model.addAttribute("multimediaList", multimediaList);
+    public String listMultimedia(@RequestParam(required = false) Long after,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Integer size,
+            Model model) {
+        KeysetPage<MultimediaListItem> page = KeysetPage.fetch(after, before, size,
+                multimediaRepository::findListPageAfter, multimediaRepository::findListPageBefore,
+                MultimediaListItem::getMultimediaId, tableStats.count(TableStatsService.MULTIMEDIA));
+        model.addAttribute("multimediaList", page.getItems());
+        model.addAttribute("page", page);
         return "multimedia";
     }
 
     @GetMapping("/new")
     public String newMultimediaForm(Model model) {
         model.addAttribute("multimedia", new Multimedia());
-        model.addAttribute("locations", locationRepository.findAll());
+        model.addAttribute("locations", locationRepository.findAllForMap());
         return "multimedia-form";
     }
 
     @PostMapping
     public String createMultimedia(@RequestParam("imageFile") MultipartFile file,
-            @RequestParam("locationId") Long locationId,
+            @RequestParam(value = "locationId", required = false) Long locationId,
             @RequestParam("description") String description,
-            @RequestParam("fileType") String fileType) {
+            @RequestParam("fileType") String fileType,
+            Model model, HttpServletResponse response) {
         if (!file.isEmpty()) {
             try {
-                String basePath = System.getProperty("user.dir") + "/target/classes/static/images/";
-                Path uploadPath = Paths.get(basePath);
-                Files.createDirectories(uploadPath);
-
-                String filename = System.currentTimeMillis() + "_" + file.getOriginalFilename();
-                Path filePath = uploadPath.resolve(filename);
-                Files.write(filePath, file.getBytes());
-
-                Multimedia multimedia = new Multimedia();
-                multimedia.setLocation(locationRepository.findById(locationId).orElseThrow());
-                multimedia.setFileType(fileType);
-                multimedia.setFilePath("/images/" + filename);
-                multimedia.setDescription(description);
-                multimedia.setUploadDate(LocalDate.now());
-                multimedia.setIsActive('Y');
-                multimedia.setThumbnailPath("/thumbnails/" + filename); // Placeholder
-
-                Multimedia saved = multimediaRepository.save(multimedia);
-                logger.info("Saved multimedia record: id={}, filePath={}", saved.getMultimediaId(),
-                        saved.getFilePath());
-                System.out.println("Saved multimedia id=" + saved.getMultimediaId() + " path=" + saved.getFilePath());
-
-                // ORDSYS-first write: attempt JDBC flow using ORDSYS.ORDIMAGE() to create
-                // ORDImage locator,
-                // then SELECT image FOR UPDATE and write binary into returned Blob locator.
-                // This works with ojdbc
-                // without requiring Oracle multimedia Java jars. If it fails, fall back to the
-                // reflection-based OrdImageService.
-                boolean ordWritten = false;
-                try {
-                    java.sql.Connection conn = org.springframework.jdbc.datasource.DataSourceUtils
-                            .getConnection(dataSource);
-                    boolean prevAuto = conn.getAutoCommit();
-                    try {
-                        conn.setAutoCommit(false);
-                        // initialize ORDImage locator in the row
-                        try (java.sql.PreparedStatement init = conn.prepareStatement(
-                                "UPDATE multimedia SET image = ORDSYS.ORDIMAGE() WHERE multimedia_id = ?")) {
-                            init.setLong(1, saved.getMultimediaId());
-                            init.executeUpdate();
-                        }
-
-                        try (java.sql.PreparedStatement sel = conn
-                                .prepareStatement("SELECT image FROM multimedia WHERE multimedia_id = ? FOR UPDATE")) {
-                            sel.setLong(1, saved.getMultimediaId());
-                            try (java.sql.ResultSet rs = sel.executeQuery()) {
-                                if (!rs.next()) {
-                                    throw new IllegalStateException(
-                                            "multimedia row not found: " + saved.getMultimediaId());
-                                }
-                                java.sql.Blob blob = rs.getBlob(1);
-                                if (blob == null) {
-                                    // driver may return an object UDT; try getting as Object and handle later
-                                    Object obj = rs.getObject(1);
-                                    if (obj == null)
-                                        throw new IllegalStateException(
-                                                "No image locator returned for id=" + saved.getMultimediaId());
-                                    // attempt reflection-based path as backup
-                                    throw new IllegalStateException(
-                                            "ORDImage locator is not a JDBC Blob; fallback to OrdImageService");
-                                }
-                                try (java.io.InputStream in = file.getInputStream();
-                                        java.io.OutputStream out = blob.setBinaryStream(1)) {
-                                    in.transferTo(out);
-                                }
-                                try {
-                                    rs.updateBlob(1, blob);
-                                    rs.updateRow();
-                                } catch (Throwable ignore) {
-                                }
-                                ordWritten = true;
-                                logger.info("Wrote ORDImage blob content for multimedia id={}",
-                                        saved.getMultimediaId());
-                                System.out.println("Wrote ORDImage blob for multimedia id=" + saved.getMultimediaId());
-                            }
-                        }
-
-                        // try compute SI_* descriptors in SQL (best-effort, 2-step pattern like lab
-                        // example)
-                        try {
-                            // Step 1: Create SI_StillImage from ORDImage.getContent()
-                            try (java.sql.PreparedStatement step1 = conn.prepareStatement(
-                                    "UPDATE multimedia p SET p.image_si = SI_StillImage(p.image.getContent()) WHERE p.multimedia_id = ?")) {
-                                step1.setLong(1, saved.getMultimediaId());
-                                step1.executeUpdate();
-                            }
-                            // Step 2: Compute SI_* feature descriptors from SI_StillImage
-                            try (java.sql.PreparedStatement step2 = conn.prepareStatement(
-                                    "UPDATE multimedia SET image_ac = SI_AverageColor(image_si), image_ch = SI_ColorHistogram(image_si), image_pc = SI_PositionalColor(image_si), image_tx = SI_Texture(image_si) WHERE multimedia_id = ?")) {
-                                step2.setLong(1, saved.getMultimediaId());
-                                step2.executeUpdate();
-                            }
-                            logger.info("Computed SI_* descriptors for multimedia id={}", saved.getMultimediaId());
-                        } catch (Throwable metaEx) {
-                            logger.debug("SI_* SQL update skipped/failed for id={}: {}", saved.getMultimediaId(),
-                                    metaEx.getMessage());
-                        }
-
-                        conn.commit();
-                    } catch (Exception e) {
-                        try {
-                            conn.rollback();
-                        } catch (Exception ignore) {
-                        }
-                        throw e;
-                    } finally {
-                        try {
-                            conn.setAutoCommit(prevAuto);
-                        } catch (Exception ignore) {
-                        }
-                        org.springframework.jdbc.datasource.DataSourceUtils.releaseConnection(conn, dataSource);
-                    }
-                } catch (Exception ordEx) {
-                    logger.warn(
-                            "JDBC ORDSYS write failed for multimedia id={}. Falling back to reflection OrdImageService: {}",
-                            saved.getMultimediaId(), ordEx.getMessage());
-                    System.err.println("JDBC ORDSYS write failed: " + ordEx.getMessage());
-                    try {
-                        ordImageService.saveMultipartToOrdImage(saved.getMultimediaId(), file);
-                        ordWritten = true;
-                    } catch (Exception ordServiceEx) {
-                        logger.error("OrdImageService also failed for multimedia id={}", saved.getMultimediaId(),
-                                ordServiceEx);
-                        System.err.println("OrdImageService failed: " + ordServiceEx.getMessage());
-                    }
-                }
-
-                // create thumbnail for UI
+                // stream the multipart content to disk instead of buffering it with getBytes()
+                Path upload = Files.createTempFile("upload_", ".part");
                 try {
-                    File src = filePath.toFile();
-                    File thumbDir = new File(uploadPath.toFile().getParentFile(), "thumbnails");
-                    if (!thumbDir.exists())
-                        thumbDir.mkdirs();
-                    File thumbFile = new File(thumbDir, filename);
-                    Thumbnails.of(src).size(200, 200).toFile(thumbFile);
-                    saved.setThumbnailPath("/thumbnails/" + filename);
-                    multimediaRepository.save(saved);
-                } catch (Exception thumbEx) {
-                    logger.debug("Thumbnail creation failed: {}", thumbEx.getMessage());
+                    file.transferTo(upload);
+                    ingestService.ingest(upload, file.getOriginalFilename(), locationId, description, fileType);
+                } finally {
+                    Files.deleteIfExists(upload);
                 }
-
+            } catch (IllegalArgumentException e) {
+                // e.g. no location given and none near the photo's GPS position: show the form again
+                logger.warn("Upload of {} rejected: {}", file.getOriginalFilename(), e.getMessage());
+                Multimedia multimedia = new Multimedia();
+                multimedia.setDescription(description);
+                multimedia.setFileType(fileType);
+                model.addAttribute("multimedia", multimedia);
+                model.addAttribute("locations", locationRepository.findAllForMap());
+                model.addAttribute("error", "Upload rejected: " + e.getMessage());
+                response.setStatus(HttpServletResponse.SC_BAD_REQUEST);
+                return "multimedia-form";
+            } catch (ConnectionBulkheads.Busy e) {
+                throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
             } catch (IOException e) {
-                e.printStackTrace();
+                logger.error("Upload of {} failed", file.getOriginalFilename(), e);
+                throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Storing the upload failed", e);
             }
         }
         return "redirect:/multimedia";
@@ -242,7 +161,7 @@ public class MultimediaController {
     public String editMultimediaForm(@PathVariable Long id, Model model) {
         Multimedia multimedia = multimediaRepository.findById(id).orElseThrow();
         model.addAttribute("multimedia", multimedia);
-        model.addAttribute("locations", locationRepository.findAll());
+        model.addAttribute("locations", locationRepository.findAllForMap());
         return "multimedia-form";
     }
 
@@ -261,7 +180,19 @@ public class MultimediaController {
 
     @PostMapping("/{id}/delete")
     public String deleteMultimedia(@PathVariable Long id) {
+        Multimedia media = multimediaRepository.findById(id).orElse(null);
         multimediaRepository.deleteById(id);
+        similarityIndex.remove(id);
+        if (media != null) {
+            for (String path : new String[]{media.getFilePath(), media.getThumbnailPath()}) {
+                if (path == null) continue;
+                try {
+                    mediaStore.delete(MediaStore.keyOf(path));
+                } catch (Exception e) {
+                    logger.warn("Failed to delete {} from media store: {}", path, e.getMessage());
+                }
+            }
+        }
         return "redirect:/multimedia";
     }
 
@@ -332,11 +263,63 @@ public class MultimediaController {
 
     @PostMapping("/search")
     public String searchMultimedia(@RequestParam("query") String query, Model model) {
-        List<Multimedia> results = multimediaRepository.searchByDescription(query);
+        List<Multimedia> results;
+        if (searchIndex.isAvailable()) {
+            try {
+                // BM25-ranked ids from the full-text index, loaded in rank order
+                List<Long> ids = searchIndex.search(query, SearchIndexService.TYPE_MULTIMEDIA, 100).stream()
+                        .map(SearchIndexService.Hit::getId).toList();
+                Map<Long, Multimedia> byId = new java.util.HashMap<>();
+                for (Multimedia m : multimediaRepository.findAllById(ids)) {
+                    byId.put(m.getMultimediaId(), m);
+                }
+                results = ids.stream().map(byId::get).filter(java.util.Objects::nonNull).toList();
+            } catch (IOException e) {
+                logger.warn("Full-text search failed, falling back to LIKE: {}", e.getMessage());
+                results = multimediaRepository.searchByDescription(query);
+            }
+        } else {
+            results = multimediaRepository.searchByDescription(query);
+        }
         model.addAttribute("results", results);
         return "multimedia-search-results";
     }
 
+    /**
+     * Find visually similar images ranked by weighted descriptor distance.
+     * Weights follow SI_ScoreByFtrList: average color, histogram, positional color, texture.
+     */
+    @GetMapping("/{id}/similar")
+    @ResponseBody
+    public ResponseEntity<List<Map<String, Object>>> findSimilar(@PathVariable Long id,
+            @RequestParam(defaultValue = "10") int k,
+            @RequestParam(defaultValue = "1") float ac,
+            @RequestParam(defaultValue = "1") float ch,
+            @RequestParam(defaultValue = "1") float pc,
+            @RequestParam(defaultValue = "1") float tx,
+            @RequestParam(defaultValue = "false") boolean approximate) {
+        if (k <= 0 || k > 100) {
+            return ResponseEntity.badRequest().build();
+        }
+        List<ImageSimilarityIndex.Hit> hits = similarityIndex.findSimilar(id, k, new float[]{ac, ch, pc, tx}, approximate);
+        Map<Long, Multimedia> media = new java.util.HashMap<>();
+        for (Multimedia m : multimediaRepository.findAllById(hits.stream().map(ImageSimilarityIndex.Hit::getMultimediaId).toList())) {
+            media.put(m.getMultimediaId(), m);
+        }
+        List<Map<String, Object>> results = new java.util.ArrayList<>();
+        for (ImageSimilarityIndex.Hit hit : hits) {
+            Multimedia m = media.get(hit.getMultimediaId());
+            if (m == null) continue;
+            Map<String, Object> row = new java.util.HashMap<>();
+            row.put("multimediaId", m.getMultimediaId());
+            row.put("distance", hit.getDistance());
+            row.put("filePath", m.getFilePath());
+            row.put("thumbnailPath", m.getThumbnailPath());
+            row.put("description", m.getDescription());
+            results.add(row);
+        }
+        return ResponseEntity.ok(results);
+    }
 
     @GetMapping("/debug")
     @ResponseBody
@@ -344,16 +327,18 @@ public class MultimediaController {
         List<Multimedia> list = multimediaRepository.findAll();
         StringBuilder sb = new StringBuilder();
         sb.append("multimedia.count=").append(list.size()).append("\n");
-        String base1 = System.getProperty("user.dir") + "/target/classes/static";
-        String base2 = System.getProperty("user.dir") + "/src/main/resources/static";
+        sb.append("media.store=").append(mediaStore.name()).append("\n");
         for (Multimedia m : list) {
             String path = m.getFilePath();
             sb.append("id=").append(m.getMultimediaId())
                     .append(", filePath=").append(path);
-            File f1 = new File(base1 + path);
-            File f2 = new File(base2 + path);
-            sb.append(", exists_in_target=").append(f1.exists())
-                    .append(", exists_in_src=").append(f2.exists()).append("\n");
+            boolean exists;
+            try {
+                exists = path != null && mediaStore.exists(MediaStore.keyOf(path));
+            } catch (Exception e) {
+                exists = false;
+            }
+            sb.append(", exists_in_store=").append(exists).append("\n");
         }
         return sb.toString();
     }
@@ -426,28 +411,107 @@ public class MultimediaController {
 
 
 
+    /**
+     * Serve the original image from the media store with validators for conditional GETs.
+     */
     @GetMapping("/{id}/image")
-    public ResponseEntity<byte[]> getImage(@PathVariable Long id) {
-        try {
-            byte[] bytes = ordImageService.loadOrdImageBytes(id);
+    public void getImage(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Multimedia media = multimediaRepository.findById(id).orElse(null);
+        if (media == null || media.getFilePath() == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        serveMedia(MediaStore.keyOf(media.getFilePath()), media.getFileType(), request, response);
+    }
 
-            if (bytes == null) {
-                return ResponseEntity.notFound().build();
-            }
+    @GetMapping("/{id}/thumbnail")
+    public void getThumbnail(@PathVariable Long id, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        Multimedia media = multimediaRepository.findById(id).orElse(null);
+        if (media == null || media.getThumbnailPath() == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        serveMedia(MediaStore.keyOf(media.getThumbnailPath()), null, request, response);
+    }
 
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.IMAGE_JPEG); // default
+    private void serveMedia(String key, String contentType, HttpServletRequest request,
+            HttpServletResponse response) throws IOException {
+        if (!mediaStore.exists(key)) {
+            // files uploaded before the media store existed were packaged as static resources
+            ClassPathResource legacy = new ClassPathResource("static/" + key);
+            if (legacy.exists()) {
+                response.setContentType(contentTypeFor(contentType, key));
+                response.setContentLengthLong(legacy.contentLength());
+                try (InputStream in = legacy.getInputStream()) {
+                    in.transferTo(response.getOutputStream());
+                }
+                return;
+            }
+            response.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
 
-            return new ResponseEntity<>(bytes, headers, HttpStatus.OK);
+        long size = mediaStore.size(key);
+        long lastModified = mediaStore.lastModified(key);
+        String etag = "\"" + Long.toHexString(size) + "-" + Long.toHexString(lastModified) + "\"";
+        // rotation rewrites content under the same URL: caches must revalidate every time
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+        if (new ServletWebRequest(request, response).checkNotModified(etag, lastModified)) {
+            return; // 304 with ETag / Last-Modified already set
+        }
+        response.setContentType(contentTypeFor(contentType, key));
+        response.setContentLengthLong(size);
+
+        Path local = mediaStore.localPath(key);
+        if (local != null) {
+            if (Boolean.TRUE.equals(request.getAttribute("org.apache.tomcat.sendfile.support"))) {
+                // Tomcat NIO connector copies the file to the socket with sendfile after the servlet returns
+                request.setAttribute("org.apache.tomcat.sendfile.filename", local.toString());
+                request.setAttribute("org.apache.tomcat.sendfile.start", 0L);
+                request.setAttribute("org.apache.tomcat.sendfile.end", size);
+                return;
+            }
+            try (FileChannel channel = FileChannel.open(local, StandardOpenOption.READ)) {
+                WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+                long position = 0;
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, out);
+                }
+            }
+            return;
         }
-        catch (Exception e) {
-            return ResponseEntity.internalServerError().build();
+        try (InputStream in = mediaStore.open(key)) {
+            in.transferTo(response.getOutputStream());
+        } catch (ConnectionBulkheads.Busy e) {
+            // every LOB read permit is taken: shed this one instead of queueing on the pool
+            response.reset();
+            response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, e.getMessage());
         }
     }
 
+    private static String contentTypeFor(String fileType, String key) {
+        if (fileType != null && fileType.contains("/")) {
+            return fileType;
+        }
+        return MediaTypeFactory.getMediaType(key).orElse(MediaType.APPLICATION_OCTET_STREAM).toString();
+    }
+
     @PostMapping("/{id}/rotate")
     public String rotateMultimedia(@PathVariable Long id) throws Exception {
-        ordImageService.rotateImage(id); // rotate 90 degrees clockwise
+        // rotate 90 degrees clockwise
+        try {
+            if ("ord".equals(mediaStore.name())) {
+                try (ConnectionBulkheads.Permit permit = bulkheads.acquire(ConnectionBulkheads.Kind.LOB_WRITE)) {
+                    ordImageService.rotateImage(id);
+                }
+            } else {
+                ingestService.rotate(id);
+            }
+        } catch (ConnectionBulkheads.Busy e) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, e.getMessage(), e);
+        }
         return "redirect:/multimedia";
     }
 
@@ -0,0 +1,180 @@
+package com.geobook;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDate;
+
+/**
+ * Turns an uploaded file that is already on local disk into a Multimedia row:
+ * descriptors, stored original and thumbnail. Shared by the multipart form
+ * upload and the chunked upload protocol; content is always streamed from disk.
+ */
+@Service
+public class MultimediaIngestService {
+
+    private static final Logger logger = LoggerFactory.getLogger(MultimediaIngestService.class);
+
+    private final MultimediaRepository multimediaRepository;
+    private final LocationRepository locationRepository;
+    private final MediaStore mediaStore;
+    private final RenditionService renditionService;
+    private final ImageRotator imageRotator;
+    private final ImageDescriptorExtractor descriptorExtractor;
+    private final ImageSimilarityIndex similarityIndex;
+    private final PhotoMetadataReader metadataReader;
+    private final GeotagService geotagService;
+
+    public MultimediaIngestService(MultimediaRepository multimediaRepository,
+                                   LocationRepository locationRepository,
+                                   MediaStore mediaStore,
+                                   RenditionService renditionService,
+                                   ImageRotator imageRotator,
+                                   ImageDescriptorExtractor descriptorExtractor,
+                                   ImageSimilarityIndex similarityIndex,
+                                   PhotoMetadataReader metadataReader,
+                                   GeotagService geotagService) {
+        this.multimediaRepository = multimediaRepository;
+        this.locationRepository = locationRepository;
+        this.mediaStore = mediaStore;
+        this.renditionService = renditionService;
+        this.imageRotator = imageRotator;
+        this.descriptorExtractor = descriptorExtractor;
+        this.similarityIndex = similarityIndex;
+        this.metadataReader = metadataReader;
+        this.geotagService = geotagService;
+    }
+
+    /**
+     * Store {@code upload} in the media store and create its Multimedia record.
+     * Without a {@code locationId} the photo is placed at the nearest location to its
+     * EXIF GPS position. The upload file is left for the caller to delete.
+     */
+    public Multimedia ingest(Path upload, String originalFilename, Long locationId,
+                             String description, String fileType) throws IOException {
+        String filename = System.currentTimeMillis() + "_" + safeFileName(originalFilename);
+
+        PhotoMetadata metadata = null;
+        try {
+            metadata = metadataReader.read(upload);
+        } catch (Exception metaEx) {
+            logger.debug("Metadata extraction failed for {}: {}", filename, metaEx.getMessage());
+        }
+        if (locationId == null) {
+            GeotagService.Match match = geotagService.match(metadata);
+            if (match == null || match.getLocationId() == null) {
+                throw new IllegalArgumentException(match == null
+                        ? "No location given and the photo has no GPS position"
+                        : "No location given and no existing location near the photo's GPS position");
+            }
+            locationId = match.getLocationId();
+        }
+
+        Multimedia multimedia = new Multimedia();
+        multimedia.setLocation(locationRepository.findById(locationId).orElseThrow());
+        if (metadata != null) {
+            multimedia.setPhotoMetadata(metadata);
+        }
+        multimedia.setFileType(fileType);
+        multimedia.setFilePath("/images/" + filename);
+        multimedia.setDescription(description);
+        multimedia.setUploadDate(LocalDate.now());
+        multimedia.setIsActive('Y');
+        multimedia.setThumbnailPath("/thumbnails/" + filename);
+        // a key the store would refuse must not leave a row behind
+        MediaStore.checkKey(MediaStore.keyOf(multimedia.getFilePath()));
+
+        // visual descriptors are computed in Java, replacing the ORDSYS SI_* UPDATEs
+        ImageDescriptors descriptors = null;
+        try {
+            descriptors = descriptorExtractor.extract(upload.toFile());
+            if (descriptors != null) {
+                multimedia.setDescriptors(descriptors);
+            }
+        } catch (Exception descEx) {
+            logger.debug("Descriptor extraction failed for {}: {}", filename, descEx.getMessage());
+        }
+
+        // the row is saved first: the ORDImage store writes into it
+        Multimedia saved = multimediaRepository.save(multimedia);
+        try {
+            mediaStore.put(MediaStore.keyOf(saved.getFilePath()), upload);
+        } catch (IOException | RuntimeException e) {
+            // no row without content; a full LOB_WRITE bulkhead (Busy) reaches the caller as a 503
+            logger.warn("Failed to store media for multimedia id={} in {} store, removing the row: {}",
+                    saved.getMultimediaId(), mediaStore.name(), e.getMessage());
+            multimediaRepository.delete(saved);
+            throw e;
+        }
+        if (descriptors != null) {
+            similarityIndex.upsert(saved.getMultimediaId(), descriptors);
+        }
+        logger.info("Saved multimedia record: id={}, filePath={}", saved.getMultimediaId(),
+                saved.getFilePath());
+
+        // create thumbnail for UI
+        try {
+            renditionService.writeThumbnail(upload, MediaStore.keyOf(saved.getThumbnailPath()));
+        } catch (Exception thumbEx) {
+            logger.debug("Thumbnail creation failed: {}", thumbEx.getMessage());
+        }
+
+        return saved;
+    }
+
+    /**
+     * The last path segment of a client-supplied file name, made safe as part of a
+     * media key: control characters become '_' and runs of dots collapse to one,
+     * so "photo..jpg" is kept as "photo.jpg" instead of being refused.
+     */
+    static String safeFileName(String originalFilename) {
+        if (originalFilename == null) {
+            return "upload";
+        }
+        String name = originalFilename.substring(
+                Math.max(originalFilename.lastIndexOf('/'), originalFilename.lastIndexOf('\\')) + 1);
+        name = name.replaceAll("\\p{Cntrl}", "_").replaceAll("\\.{2,}", ".");
+        return name.isEmpty() || name.equals(".") ? "upload" : name;
+    }
+
+    /**
+     * Rotate a stored image 90 degrees clockwise in the media store. The ORDImage
+     * store rotates in the database instead (see {@link OrdImageService#rotateImage}).
+     */
+    public void rotate(Long multimediaId) throws IOException {
+        Multimedia media = multimediaRepository.findById(multimediaId).orElseThrow();
+        String key = MediaStore.keyOf(media.getFilePath());
+        Path original = Files.createTempFile("media_", ".src");
+        Path rotated = Files.createTempFile("media_", ".rot");
+        boolean handedOff = false;
+        try {
+            try (InputStream in = mediaStore.open(key)) {
+                Files.copy(in, original, StandardCopyOption.REPLACE_EXISTING);
+            }
+            String format = imageRotator.rotate90Clockwise(original, rotated);
+            mediaStore.put(key, rotated);
+            logger.info("Rotated multimedia id={} as {}", multimediaId, format);
+            renditionService.refreshDescriptors(multimediaId, rotated);
+
+            try {
+                renditionService.refreshThumbnail(multimediaId, rotated);
+                handedOff = true;
+            } catch (TaskRejectedException e) {
+                // rendition queue full: the rotation stands, the thumbnail stays stale
+                logger.warn("Thumbnail refresh for multimedia id={} rejected: {}", multimediaId, e.getMessage());
+            }
+        } finally {
+            Files.deleteIfExists(original);
+            if (!handedOff) {
+                Files.deleteIfExists(rotated);
+            }
+        }
+    }
+}
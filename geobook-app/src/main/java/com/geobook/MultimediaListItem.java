@@ -0,0 +1,14 @@
+package com.geobook;
+
+/**
+ * Columns shown on the multimedia list page, with location, chapter and book joined in.
+ */
+public interface MultimediaListItem {
+    Long getMultimediaId();
+    String getFileType();
+    String getDescription();
+    Long getLocationId();
+    String getPlaceName();
+    String getChapterTitle();
+    String getBookTitle();
+}
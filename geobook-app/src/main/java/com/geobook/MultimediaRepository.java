@@ -1,5 +1,6 @@
 package com.geobook;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -9,4 +10,25 @@ import java.util.List;
 public interface MultimediaRepository extends JpaRepository<Multimedia, Long> {
     @Query("SELECT m FROM Multimedia m WHERE LOWER(m.description) LIKE LOWER(CONCAT('%', :query, '%'))")
     List<Multimedia> searchByDescription(@Param("query") String query);
+
+    // id + feature_ac, feature_ch, feature_pc, feature_tx for the similarity index
+    @Query("SELECT m.multimediaId, m.featureAc, m.featureCh, m.featurePc, m.featureTx FROM Multimedia m WHERE m.featureCh IS NOT NULL")
+    List<Object[]> findAllDescriptors();
+
+    // Keyset pages for the multimedia list, location/chapter/book joined in the same statement
+    @Query("SELECT m.multimediaId AS multimediaId, m.fileType AS fileType, m.description AS description, " +
+           "l.locationId AS locationId, l.placeName AS placeName, c.title AS chapterTitle, b.title AS bookTitle " +
+           "FROM Multimedia m LEFT JOIN m.location l LEFT JOIN l.chapter c LEFT JOIN c.book b " +
+           "WHERE m.multimediaId > :after ORDER BY m.multimediaId ASC")
+    List<MultimediaListItem> findListPageAfter(@Param("after") long after, Pageable page);
+
+    @Query("SELECT m.multimediaId AS multimediaId, m.fileType AS fileType, m.description AS description, " +
+           "l.locationId AS locationId, l.placeName AS placeName, c.title AS chapterTitle, b.title AS bookTitle " +
+           "FROM Multimedia m LEFT JOIN m.location l LEFT JOIN l.chapter c LEFT JOIN c.book b " +
+           "WHERE m.multimediaId < :before ORDER BY m.multimediaId DESC")
+    List<MultimediaListItem> findListPageBefore(@Param("before") long before, Pageable page);
+
+    // Last check before the media collector deletes stored content
+    @Query("SELECT COUNT(m) > 0 FROM Multimedia m WHERE m.filePath = :path OR m.thumbnailPath = :path")
+    boolean existsByStoredPath(@Param("path") String path);
 }
@@ -0,0 +1,178 @@
+package com.geobook;
+
+import org.springframework.jdbc.datasource.DataSourceUtils;
+
+import javax.sql.DataSource;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+
+/**
+ * Keeps original images in the multimedia.image ORDImage column, the row being
+ * found by its file_path. Derived files (thumbnails) have no ORDImage column and
+ * are delegated to a {@link LocalFileMediaStore}.
+ */
+public class OrdImageMediaStore implements MediaStore {
+
+    private static final String IMAGE_PREFIX = "images/";
+
+    private final DataSource dataSource;
+    private final OrdImageService ordImageService;
+    private final LocalFileMediaStore renditions;
+
+    public OrdImageMediaStore(DataSource dataSource, OrdImageService ordImageService, LocalFileMediaStore renditions) {
+        this.dataSource = dataSource;
+        this.ordImageService = ordImageService;
+        this.renditions = renditions;
+    }
+
+    @Override
+    public String name() {
+        return "ord";
+    }
+
+    /**
+     * Writes into the ORDImage of an existing row, so the Multimedia entity must be saved first.
+     */
+    @Override
+    public void put(String key, Path source) throws IOException {
+        if (!isImage(key)) {
+            renditions.put(key, source);
+            return;
+        }
+        Long id = requireId(key);
+        try (InputStream in = Files.newInputStream(source)) {
+            ordImageService.saveStreamToOrdImage(id, in);
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to store " + key + " as ORDImage", e);
+        }
+    }
+
+    @Override
+    public InputStream open(String key) throws IOException {
+        if (!isImage(key)) {
+            return renditions.open(key);
+        }
+        Path temp;
+        try {
+            temp = ordImageService.exportOrdImageToTempFile(requireId(key));
+        } catch (IOException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new IOException("Failed to read " + key + " from ORDImage", e);
+        }
+        if (temp == null) {
+            throw new NoSuchFileException(key);
+        }
+        return new FilterInputStream(Files.newInputStream(temp)) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    Files.deleteIfExists(temp);
+                }
+            }
+        };
+    }
+
+    @Override
+    public boolean exists(String key) throws IOException {
+        if (!isImage(key)) {
+            return renditions.exists(key);
+        }
+        return queryImage(key, "SELECT m.multimedia_id FROM multimedia m WHERE m.file_path = ? AND m.image IS NOT NULL") != null;
+    }
+
+    @Override
+    public long size(String key) throws IOException {
+        if (!isImage(key)) {
+            return renditions.size(key);
+        }
+        Object length = queryImage(key, "SELECT m.image.contentLength FROM multimedia m WHERE m.file_path = ?");
+        if (length == null) throw new NoSuchFileException(key);
+        return ((Number) length).longValue();
+    }
+
+    @Override
+    public long lastModified(String key) throws IOException {
+        if (!isImage(key)) {
+            return renditions.lastModified(key);
+        }
+        Object updated = queryImage(key, "SELECT m.image.source.updateTime FROM multimedia m WHERE m.file_path = ?");
+        return updated instanceof Timestamp ts ? ts.getTime() : 0L;
+    }
+
+    @Override
+    public void delete(String key) throws IOException {
+        if (!isImage(key)) {
+            renditions.delete(key);
+            return;
+        }
+        Connection conn = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement ps = conn.prepareStatement("UPDATE multimedia SET image = NULL WHERE file_path = ?")) {
+            ps.setString(1, "/" + key);
+            ps.executeUpdate();
+        } catch (SQLException e) {
+            throw new IOException("Failed to delete " + key, e);
+        } finally {
+            DataSourceUtils.releaseConnection(conn, dataSource);
+        }
+    }
+
+    /**
+     * Only renditions are listed: images live inside their multimedia row and
+     * disappear with it.
+     */
+    @Override
+    public void listEntries(EntryVisitor visitor) throws IOException {
+        renditions.listEntries((key, size, lastModified) -> {
+            if (!isImage(key)) visitor.visit(key, size, lastModified);
+        });
+    }
+
+    @Override
+    public long purgeIncomplete(long cutoffMillis) throws IOException {
+        return renditions.purgeIncomplete(cutoffMillis);
+    }
+
+    @Override
+    public Path localPath(String key) {
+        return isImage(key) ? null : renditions.localPath(key);
+    }
+
+    private Long requireId(String key) throws IOException {
+        Object id = queryImage(key, "SELECT m.multimedia_id FROM multimedia m WHERE m.file_path = ?");
+        if (id == null) throw new NoSuchFileException(key);
+        return ((Number) id).longValue();
+    }
+
+    private Object queryImage(String key, String sql) throws IOException {
+        MediaStore.checkKey(key);
+        Connection conn = DataSourceUtils.getConnection(dataSource);
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setString(1, "/" + key);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? rs.getObject(1) : null;
+            }
+        } catch (SQLException e) {
+            throw new IOException("Failed to look up " + key, e);
+        } finally {
+            DataSourceUtils.releaseConnection(conn, dataSource);
+        }
+    }
+
+    private static boolean isImage(String key) {
+        return MediaStore.checkKey(key).startsWith(IMAGE_PREFIX);
+    }
+}
@@ -1,32 +1,45 @@
 package com.geobook;
 
+import io.micrometer.core.instrument.Timer;
 import oracle.jdbc.OraclePreparedStatement;
 import oracle.jdbc.OracleResultSet;
 import oracle.ord.im.OrdImage;
 import org.apache.tomcat.util.http.fileupload.ByteArrayOutputStream;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
 import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.stereotype.Service;
 import org.springframework.web.multipart.MultipartFile;
 
-import javax.imageio.ImageIO;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.core.task.TaskRejectedException;
+
 import javax.sql.DataSource;
-import java.awt.*;
-import java.awt.image.BufferedImage;
-import java.io.ByteArrayInputStream;
-import java.io.IOException;
+import java.io.BufferedInputStream;
 import java.io.InputStream;
 import java.sql.*;
 import java.io.File;
 import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
 
 
 @Service
 public class OrdImageService {
 
+    private static final Logger logger = LoggerFactory.getLogger(OrdImageService.class);
+
     @Autowired
     private DataSource dataSource;
 
+    @Autowired
+    private ImageRotator imageRotator;
+
+    @Autowired
+    @Lazy
+    private RenditionService renditionService;
+
     /**
      * Save MultipartFile → ORDImage
      */
@@ -55,7 +68,7 @@ public class OrdImageService {
 
                 try (ResultSet rs = ps.executeQuery()) {
                     if (rs.next()) {
-                        OracleResultSet ors = (OracleResultSet) rs;
+                        OracleResultSet ors = rs.unwrap(OracleResultSet.class);
                         ordImageObj = (OrdImage) ors.getORAData(1, OrdImage.getORADataFactory());
                     }
                 }
@@ -76,7 +89,7 @@ public class OrdImageService {
 
                     try (ResultSet rs = ps.executeQuery()) {
                         if (rs.next()) {
-                            OracleResultSet ors = (OracleResultSet) rs;
+                            OracleResultSet ors = rs.unwrap(OracleResultSet.class);
                             ordImageObj = (OrdImage) ors.getORAData(1, OrdImage.getORADataFactory());
                         }
                     }
@@ -93,16 +106,13 @@ public class OrdImageService {
             try (PreparedStatement ps =
                          conn.prepareStatement("UPDATE multimedia SET image = ? WHERE multimedia_id = ?")) {
 
-                OraclePreparedStatement ops = (OraclePreparedStatement) ps;
+                OraclePreparedStatement ops = ps.unwrap(OraclePreparedStatement.class);
                 ops.setORAData(1, ordImageObj);
                 ps.setLong(2, multimediaId);
 
                 ps.executeUpdate();
             }
 
-            // 5️⃣ Compute SI_* (You already have a trigger; but adding SQL method too)
-            computeStillImageDescriptors(conn, multimediaId);
-
             conn.commit();
 
         } catch (Exception ex) {
@@ -130,7 +140,7 @@ public class OrdImageService {
 
             try (ResultSet rs = ps.executeQuery()) {
                 if (rs.next()) {
-                    OracleResultSet ors = (OracleResultSet) rs;
+                    OracleResultSet ors = rs.unwrap(OracleResultSet.class);
                     ord = (OrdImage) ors.getORAData(1, OrdImage.getORADataFactory());
                 }
             }
@@ -150,7 +160,7 @@ public class OrdImageService {
 
                 try (ResultSet rs = ps.executeQuery()) {
                     if (rs.next()) {
-                        OracleResultSet ors = (OracleResultSet) rs;
+                        OracleResultSet ors = rs.unwrap(OracleResultSet.class);
                         ord = (OrdImage) ors.getORAData(1, OrdImage.getORADataFactory());
                     }
                 }
@@ -164,67 +174,40 @@ public class OrdImageService {
      * Load ORDImage and convert to byte[]
      */
     public byte[] loadOrdImageBytes(Long id) throws Exception {
+        Path temp = exportOrdImageToTempFile(id);
+        if (temp == null)
+            return null;
+        try {
+            return Files.readAllBytes(temp);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
 
+    /**
+     * Stream the ORDImage content into a temp file; returns null when the row has no image.
+     * The caller owns (and deletes) the file.
+     */
+    public Path exportOrdImageToTempFile(Long id) throws Exception {
         Connection conn = DataSourceUtils.getConnection(dataSource);
-
         try {
-            OrdImage img = null;
-
-            String sql = "SELECT image FROM multimedia WHERE multimedia_id = ?";
-
-            try (PreparedStatement ps = conn.prepareStatement(sql)) {
-                ps.setLong(1, id);
-
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) {
-                        OracleResultSet ors = (OracleResultSet) rs;
-                        img = (OrdImage) ors.getORAData(1, OrdImage.getORADataFactory());
-                    }
-                }
-            }
-
+            OrdImage img = selectOrdImage(conn, id, false);
             if (img == null)
                 return null;
-
-            // Save ORDImage to a temporary file then read as bytes
-            File temp = File.createTempFile("ordimage_", ".tmp");
-            temp.deleteOnExit();
-
-            img.getDataInFile(temp.getAbsolutePath());
-
-            return Files.readAllBytes(temp.toPath());
+            Path temp = Files.createTempFile("ordimage_", ".tmp");
+            try (InputStream in = img.getDataInStream()) {
+                Files.copy(in, temp, StandardCopyOption.REPLACE_EXISTING);
+            } catch (Exception e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+            return temp;
         }
         finally {
             DataSourceUtils.releaseConnection(conn, dataSource);
         }
     }
 
-    /**
-     * Compute SI descriptors
-     */
-    private void computeStillImageDescriptors(Connection conn, Long id) throws SQLException {
-
-        String si = "UPDATE multimedia p " +
-                "SET p.image_si = SI_StillImage(p.image.getContent()) WHERE multimedia_id = ?";
-
-        String features = "UPDATE multimedia SET " +
-                "image_ac = SI_AverageColor(image_si), " +
-                "image_ch = SI_ColorHistogram(image_si), " +
-                "image_pc = SI_PositionalColor(image_si), " +
-                "image_tx = SI_Texture(image_si) " +
-                "WHERE multimedia_id = ?";
-
-        try (PreparedStatement ps = conn.prepareStatement(si)) {
-            ps.setLong(1, id);
-            ps.executeUpdate();
-        }
-
-        try (PreparedStatement ps = conn.prepareStatement(features)) {
-            ps.setLong(1, id);
-            ps.executeUpdate();
-        }
-    }
-
     /**
      * Rotate the image by degrees (90, 180, 270)
      */
@@ -265,89 +248,100 @@ public class OrdImageService {
     }
 
     /**
-     * Rotate image 90 degrees clockwise and update in DB
+     * Rotate image 90 degrees clockwise and update in DB.
+     * The image is streamed to a temp file and transformed without holding a lock;
+     * the row is locked only for the streaming write-back, and renditions are
+     * regenerated asynchronously afterwards.
      */
     public void rotateImage(Long multimediaId) throws Exception {
-        Connection conn = DataSourceUtils.getConnection(dataSource);
-        boolean oldAutoCommit = conn.getAutoCommit();
-        conn.setAutoCommit(false);
-
+        Path original = Files.createTempFile("ordimage_", ".src");
+        Path rotated = Files.createTempFile("ordimage_", ".rot");
+        boolean handedOff = false;
         try {
-            OrdImage ordImageObj = null;
-
-            // Fetch ORDImage with FOR UPDATE
-            try (PreparedStatement ps = conn.prepareStatement(
-                    "SELECT image FROM multimedia WHERE multimedia_id = ? FOR UPDATE")) {
-
-                ps.setLong(1, multimediaId);
-                try (ResultSet rs = ps.executeQuery()) {
-                    if (rs.next()) {
-                        OracleResultSet ors = rs.unwrap(OracleResultSet.class);
-                        ordImageObj = (OrdImage) ors.getORAData(1, OrdImage.getORADataFactory());
-                    }
+            // 1. Stream the current content out (no row lock)
+            int originalLength;
+            Timer.Sample sample = HotPathMetrics.start();
+            Connection conn = DataSourceUtils.getConnection(dataSource);
+            try {
+                OrdImage img = selectOrdImage(conn, multimediaId, false);
+                if (img == null) {
+                    throw new Exception("ORDImage not found for ID: " + multimediaId);
+                }
+                originalLength = img.getContentLength();
+                try (InputStream in = img.getDataInStream()) {
+                    Files.copy(in, original, StandardCopyOption.REPLACE_EXISTING);
                 }
+            } finally {
+                DataSourceUtils.releaseConnection(conn, dataSource);
+                HotPathMetrics.stop(sample, HotPathMetrics.MEDIA_IO, "store", "ord", "operation", "rotate_load");
             }
+            HotPathMetrics.recordBytes(HotPathMetrics.MEDIA_BYTES, originalLength, "store", "ord", "operation", "rotate_load");
+
+            // 2. Transform outside any transaction: lossless for JPEG, same format otherwise
+            String format = imageRotator.rotate90Clockwise(original, rotated);
+
+            // 3. Short locked write-back, streamed from the temp file
+            sample = HotPathMetrics.start();
+            conn = DataSourceUtils.getConnection(dataSource);
+            boolean oldAutoCommit = conn.getAutoCommit();
+            conn.setAutoCommit(false);
+            try {
+                OrdImage img = selectOrdImage(conn, multimediaId, true);
+                if (img == null || img.getContentLength() != originalLength) {
+                    throw new IllegalStateException("Image " + multimediaId + " changed during rotation, retry");
+                }
+                try (InputStream in = new BufferedInputStream(Files.newInputStream(rotated))) {
+                    img.loadDataFromInputStream(in);
+                }
+                img.setProperties();
 
-            if (ordImageObj == null) {
-                throw new Exception("ORDImage not found for ID: " + multimediaId);
+                try (PreparedStatement ps = conn.prepareStatement(
+                        "UPDATE multimedia SET image = ? WHERE multimedia_id = ?")) {
+                    OraclePreparedStatement ops = ps.unwrap(OraclePreparedStatement.class);
+                    ops.setORAData(1, img);
+                    ps.setLong(2, multimediaId);
+                    ps.executeUpdate();
+                }
+                conn.commit();
+            } catch (Exception e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(oldAutoCommit);
+                DataSourceUtils.releaseConnection(conn, dataSource);
+                HotPathMetrics.stop(sample, HotPathMetrics.MEDIA_IO, "store", "ord", "operation", "rotate_store");
             }
-
-            // Read original bytes
-            InputStream in = ordImageObj.getDataInStream();
-            ByteArrayOutputStream baos = new ByteArrayOutputStream();
-            byte[] buffer = new byte[8192];
-            int read;
-            while ((read = in.read(buffer)) != -1) {
-                baos.write(buffer, 0, read);
+            HotPathMetrics.recordBytes(HotPathMetrics.MEDIA_BYTES, Files.size(rotated), "store", "ord", "operation", "rotate_store");
+            logger.info("Rotated multimedia id={} as {}", multimediaId, format);
+            renditionService.refreshDescriptors(multimediaId, rotated);
+
+            // 4. Thumbnail is rebuilt in the background
+            try {
+                renditionService.refreshThumbnail(multimediaId, rotated);
+                handedOff = true;
+            } catch (TaskRejectedException e) {
+                // rendition queue full: the rotation stands, the thumbnail stays stale
+                logger.warn("Thumbnail refresh for multimedia id={} rejected: {}", multimediaId, e.getMessage());
             }
-            byte[] originalBytes = baos.toByteArray();
-
-            // Rotate bytes
-            byte[] rotatedBytes = rotate90Clockwise(originalBytes);
-
-            // Load rotated bytes back into ORDImage
-            ordImageObj.loadDataFromByteArray(rotatedBytes);
-            ordImageObj.setProperties();
-
-            // Update database
-            try (PreparedStatement ps = conn.prepareStatement(
-                    "UPDATE multimedia SET image = ? WHERE multimedia_id = ?")) {
-
-                OraclePreparedStatement ops = ps.unwrap(OraclePreparedStatement.class);
-                ops.setORAData(1, ordImageObj);
-                ps.setLong(2, multimediaId);
-                ps.executeUpdate();
-            }
-
-            conn.commit();
-        } catch (Exception e) {
-            conn.rollback();
-            throw e;
         } finally {
-            conn.setAutoCommit(oldAutoCommit);
-            DataSourceUtils.releaseConnection(conn, dataSource);
+            Files.deleteIfExists(original);
+            if (!handedOff) {
+                Files.deleteIfExists(rotated);
+            }
         }
     }
 
-    /**
-     * Rotate image bytes 90 degrees clockwise
-     */
-    private byte[] rotate90Clockwise(byte[] imageBytes) throws Exception {
-        InputStream input = new ByteArrayInputStream(imageBytes);
-        BufferedImage original = ImageIO.read(input);
-        int width = original.getWidth();
-        int height = original.getHeight();
-
-        BufferedImage rotated = new BufferedImage(height, width, original.getType());
-        Graphics2D g2d = rotated.createGraphics();
-        g2d.translate((height - width) / 2.0, (height - width) / 2.0);
-        g2d.rotate(Math.toRadians(90), height / 2.0, width / 2.0);
-        g2d.drawImage(original, 0, 0, null);
-        g2d.dispose();
-
-        ByteArrayOutputStream baos = new ByteArrayOutputStream();
-        ImageIO.write(rotated, "PNG", baos);
-        return baos.toByteArray();
+    private OrdImage selectOrdImage(Connection conn, Long multimediaId, boolean forUpdate) throws SQLException {
+        String sql = "SELECT image FROM multimedia WHERE multimedia_id = ?" + (forUpdate ? " FOR UPDATE" : "");
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            ps.setLong(1, multimediaId);
+            try (ResultSet rs = ps.executeQuery()) {
+                if (rs.next()) {
+                    OracleResultSet ors = rs.unwrap(OracleResultSet.class);
+                    return (OrdImage) ors.getORAData(1, OrdImage.getORADataFactory());
+                }
+            }
+        }
+        return null;
     }
-
 }
@@ -0,0 +1,38 @@
+package com.geobook;
+
+import java.time.LocalDateTime;
+
+/**
+ * Header metadata of a photo: GPS position, capture time, EXIF orientation and size.
+ * Any field may be null when the file does not carry it.
+ */
+public final class PhotoMetadata {
+
+    private final Double latitude;
+    private final Double longitude;
+    private final LocalDateTime capturedAt;
+    private final Integer orientation;
+    private final Integer width;
+    private final Integer height;
+
+    public PhotoMetadata(Double latitude, Double longitude, LocalDateTime capturedAt,
+                         Integer orientation, Integer width, Integer height) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.capturedAt = capturedAt;
+        this.orientation = orientation;
+        this.width = width;
+        this.height = height;
+    }
+
+    public boolean hasGps() {
+        return latitude != null && longitude != null;
+    }
+
+    public Double getLatitude() { return latitude; }
+    public Double getLongitude() { return longitude; }
+    public LocalDateTime getCapturedAt() { return capturedAt; }
+    public Integer getOrientation() { return orientation; }
+    public Integer getWidth() { return width; }
+    public Integer getHeight() { return height; }
+}
@@ -0,0 +1,198 @@
+package com.geobook;
+
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+/**
+ * Reads EXIF GPS position, capture time, orientation and dimensions from a photo.
+ * JPEG segments are streamed only up to the start of scan, so the compressed image
+ * data is never read; other formats get their dimensions from the image header.
+ */
+@Component
+public class PhotoMetadataReader {
+
+    private static final int TAG_ORIENTATION = 0x0112;
+    private static final int TAG_DATE_TIME = 0x0132;
+    private static final int TAG_EXIF_IFD = 0x8769;
+    private static final int TAG_GPS_IFD = 0x8825;
+    private static final int TAG_DATE_TIME_ORIGINAL = 0x9003;
+    private static final int TAG_GPS_LATITUDE_REF = 1;
+    private static final int TAG_GPS_LATITUDE = 2;
+    private static final int TAG_GPS_LONGITUDE_REF = 3;
+    private static final int TAG_GPS_LONGITUDE = 4;
+
+    private static final DateTimeFormatter EXIF_DATE = DateTimeFormatter.ofPattern("yyyy:MM:dd HH:mm:ss");
+
+    private final ImageDecoder imageDecoder;
+
+    public PhotoMetadataReader(ImageDecoder imageDecoder) {
+        this.imageDecoder = imageDecoder;
+    }
+
+    public PhotoMetadata read(Path file) throws IOException {
+        Exif exif = new Exif();
+        Integer width = null;
+        Integer height = null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            if (in.readUnsignedShort() == 0xFFD8) {
+                while (true) {
+                    int marker = in.readUnsignedShort();
+                    if ((marker & 0xFF00) != 0xFF00 || marker == 0xFFDA || marker == 0xFFD9) break;
+                    int length = in.readUnsignedShort() - 2;
+                    if (marker == 0xFFE1 && !exif.seen) {
+                        byte[] payload = new byte[length];
+                        in.readFully(payload);
+                        parseExif(payload, exif);
+                    } else if (isStartOfFrame(marker)) {
+                        byte[] sof = new byte[length];
+                        in.readFully(sof);
+                        height = (sof[1] & 0xFF) << 8 | (sof[2] & 0xFF);
+                        width = (sof[3] & 0xFF) << 8 | (sof[4] & 0xFF);
+                    } else {
+                        in.skipNBytes(length);
+                    }
+                }
+            }
+        } catch (EOFException e) {
+            // truncated header: keep whatever was parsed
+        }
+
+        if (width == null) {
+            int[] size = imageDecoder.readDimensions(file);
+            if (size != null) {
+                width = size[0];
+                height = size[1];
+            }
+        }
+        return new PhotoMetadata(exif.latitude, exif.longitude, exif.capturedAt, exif.orientation, width, height);
+    }
+
+    private static boolean isStartOfFrame(int marker) {
+        // SOF0..SOF15 except DHT (C4), JPG (C8) and DAC (CC)
+        return marker >= 0xFFC0 && marker <= 0xFFCF && marker != 0xFFC4 && marker != 0xFFC8 && marker != 0xFFCC;
+    }
+
+    private static void parseExif(byte[] p, Exif exif) {
+        // APP1 is also used for XMP; only the first Exif block counts
+        if (p.length < 14 || p[0] != 'E' || p[1] != 'x' || p[2] != 'i' || p[3] != 'f') return;
+        exif.seen = true;
+        int tiff = 6;
+        boolean little = p[tiff] == 'I';
+        try {
+            int ifd0 = tiff + ImageRotator.readInt(p, tiff + 4, little);
+            LocalDateTime modified = null;
+            int exifIfd = -1;
+            int gpsIfd = -1;
+
+            int entries = ImageRotator.readShort(p, ifd0, little);
+            for (int i = 0; i < entries; i++) {
+                int e = ifd0 + 2 + i * 12;
+                int tag = ImageRotator.readShort(p, e, little);
+                if (tag == TAG_ORIENTATION) {
+                    exif.orientation = ImageRotator.readShort(p, e + 8, little);
+                } else if (tag == TAG_DATE_TIME) {
+                    modified = parseDate(ascii(p, tiff, e, little));
+                } else if (tag == TAG_EXIF_IFD) {
+                    exifIfd = tiff + ImageRotator.readInt(p, e + 8, little);
+                } else if (tag == TAG_GPS_IFD) {
+                    gpsIfd = tiff + ImageRotator.readInt(p, e + 8, little);
+                }
+            }
+
+            if (exifIfd > 0) {
+                int n = ImageRotator.readShort(p, exifIfd, little);
+                for (int i = 0; i < n; i++) {
+                    int e = exifIfd + 2 + i * 12;
+                    if (ImageRotator.readShort(p, e, little) == TAG_DATE_TIME_ORIGINAL) {
+                        exif.capturedAt = parseDate(ascii(p, tiff, e, little));
+                    }
+                }
+            }
+            if (exif.capturedAt == null) {
+                exif.capturedAt = modified;
+            }
+
+            if (gpsIfd > 0) {
+                char latRef = 'N', lonRef = 'E';
+                Double lat = null, lon = null;
+                int n = ImageRotator.readShort(p, gpsIfd, little);
+                for (int i = 0; i < n; i++) {
+                    int e = gpsIfd + 2 + i * 12;
+                    int tag = ImageRotator.readShort(p, e, little);
+                    if (tag == TAG_GPS_LATITUDE_REF) {
+                        latRef = (char) p[e + 8];
+                    } else if (tag == TAG_GPS_LONGITUDE_REF) {
+                        lonRef = (char) p[e + 8];
+                    } else if (tag == TAG_GPS_LATITUDE) {
+                        lat = degrees(p, tiff + ImageRotator.readInt(p, e + 8, little), little);
+                    } else if (tag == TAG_GPS_LONGITUDE) {
+                        lon = degrees(p, tiff + ImageRotator.readInt(p, e + 8, little), little);
+                    }
+                }
+                if (lat != null && lon != null && !(lat == 0 && lon == 0)) {
+                    exif.latitude = latRef == 'S' ? -lat : lat;
+                    exif.longitude = lonRef == 'W' ? -lon : lon;
+                }
+            }
+        } catch (IndexOutOfBoundsException e) {
+            // malformed offsets: ignore the rest of the block
+        }
+    }
+
+    /**
+     * Degrees, minutes, seconds as three RATIONALs.
+     */
+    private static Double degrees(byte[] p, int offset, boolean little) {
+        double result = 0;
+        double unit = 1;
+        for (int i = 0; i < 3; i++) {
+            long num = ImageRotator.readInt(p, offset + i * 8, little) & 0xFFFFFFFFL;
+            long den = ImageRotator.readInt(p, offset + i * 8 + 4, little) & 0xFFFFFFFFL;
+            if (den == 0) {
+                if (i == 0) return null;
+                continue;
+            }
+            result += (double) num / den / unit;
+            unit *= 60;
+        }
+        return result;
+    }
+
+    private static String ascii(byte[] p, int tiff, int entry, boolean little) {
+        int count = ImageRotator.readInt(p, entry + 4, little);
+        int start = count <= 4 ? entry + 8 : tiff + ImageRotator.readInt(p, entry + 8, little);
+        if (start < 0 || start > p.length) {
+            return "";
+        }
+        int end = start;
+        while (end < start + count && end < p.length && p[end] != 0) end++;
+        return new String(p, start, end - start, StandardCharsets.US_ASCII);
+    }
+
+    private static LocalDateTime parseDate(String value) {
+        try {
+            return LocalDateTime.parse(value.trim(), EXIF_DATE);
+        } catch (DateTimeParseException e) {
+            return null;
+        }
+    }
+
+    private static final class Exif {
+        boolean seen;
+        Double latitude;
+        Double longitude;
+        LocalDateTime capturedAt;
+        Integer orientation;
+    }
+}
@@ -0,0 +1,117 @@
+package com.geobook;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.hibernate.resource.jdbc.spi.PhysicalConnectionHandlingMode;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.bind.Bindable;
+import org.springframework.boot.context.properties.bind.Binder;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.Ordered;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read replicas, enabled with {@code geobook.datasource.routing.enabled=true}. The
+ * primary keeps the {@code spring.datasource.*} settings; each entry of
+ * {@code geobook.datasource.replicas} gets its own read-only Hikari pool with the
+ * same {@code spring.datasource.hikari.*} tuning. The application's DataSource
+ * routes {@code @Transactional(readOnly = true)} work to an up-to-date replica.
+ */
+@Configuration
+@ConditionalOnProperty(name = "geobook.datasource.routing.enabled", havingValue = "true")
+public class ReadWriteRoutingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    public ReplicaLagMonitor replicaLagMonitor(@Qualifier("primaryDataSource") DataSource primary,
+                                               Environment env,
+                                               @Value("${geobook.datasource.routing.max-lag-ms:5000}") long maxLagMs,
+                                               MeterRegistry registry) {
+        return new ReplicaLagMonitor(primary, replicas(env, registry), maxLagMs, registry);
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") HikariDataSource primary,
+                                 ReplicaLagMonitor lagMonitor) {
+        ReadWriteRoutingDataSource routing = new ReadWriteRoutingDataSource(lagMonitor);
+        Map<Object, Object> targets = new HashMap<>(lagMonitor.replicas());
+        targets.put(ReadWriteRoutingDataSource.PRIMARY, primary);
+        routing.setTargetDataSources(targets);
+        routing.setDefaultTargetDataSource(primary);
+        routing.afterPropertiesSet();
+
+        // the real connection is only fetched at the first statement, once the
+        // transaction's read-only flag is known; the proxy must not ask the pool for defaults
+        LazyConnectionDataSourceProxy lazy = new LazyConnectionDataSourceProxy(routing);
+        lazy.setDefaultAutoCommit(primary.isAutoCommit());
+        lazy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return lazy;
+    }
+
+    /**
+     * Spring's default for Hibernate holds a session's first connection until the
+     * session closes, and with open-in-view that is the end of the request: a
+     * read-only repository call would pick the database for every later
+     * transaction of the request, writes included. Releasing the connection after
+     * each transaction lets every transaction be routed on its own.
+     */
+    @Bean
+    public HibernatePropertiesCustomizer releaseConnectionAfterTransaction() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_HANDLING,
+                PhysicalConnectionHandlingMode.DELAYED_ACQUISITION_AND_RELEASE_AFTER_TRANSACTION);
+    }
+
+    @Bean
+    public FilterRegistrationBean<ReadYourWritesFilter> readYourWritesFilter(
+            @Value("${geobook.datasource.routing.sticky-ms:10000}") long stickyMs) {
+        FilterRegistrationBean<ReadYourWritesFilter> registration =
+                new FilterRegistrationBean<>(new ReadYourWritesFilter(stickyMs));
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    private Map<String, DataSource> replicas(Environment env, MeterRegistry registry) {
+        Binder binder = Binder.get(env);
+        List<DataSourceProperties> configured = binder
+                .bind("geobook.datasource.replicas", Bindable.listOf(DataSourceProperties.class))
+                .orElse(List.of());
+        if (configured.isEmpty()) {
+            throw new IllegalArgumentException("geobook.datasource.routing.enabled needs at least one geobook.datasource.replicas[n].url");
+        }
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < configured.size(); i++) {
+            DataSourceProperties properties = configured.get(i);
+            HikariDataSource replica = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+            binder.bind("spring.datasource.hikari", Bindable.ofInstance(replica));
+            replica.setPoolName("geobook-replica-" + i);
+            replica.setReadOnly(true);
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(registry));
+            replicas.put("replica-" + i, replica);
+        }
+        return replicas;
+    }
+}
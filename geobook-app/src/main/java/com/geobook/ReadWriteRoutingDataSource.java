@@ -0,0 +1,47 @@
+package com.geobook;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Sends read-only transactions to a replica and everything else to the primary.
+ * A replica is only chosen while {@link ReplicaLagMonitor} reports it within the
+ * lag limit, and never while the current thread is pinned to the primary
+ * (read-your-writes, see {@link ReadYourWritesFilter}). Must sit behind a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy} so the
+ * transaction's read-only flag is known when the connection is fetched.
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+
+    static final String PRIMARY = "primary";
+
+    private static final ThreadLocal<Boolean> pinnedToPrimary = new ThreadLocal<>();
+
+    private final ReplicaLagMonitor lagMonitor;
+
+    public ReadWriteRoutingDataSource(ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+    }
+
+    /** Route every connection of the current thread to the primary until {@link #unpin()}. */
+    public static void pinToPrimary() {
+        pinnedToPrimary.set(Boolean.TRUE);
+    }
+
+    public static void unpin() {
+        pinnedToPrimary.remove();
+    }
+
+    public static boolean isPinnedToPrimary() {
+        return Boolean.TRUE.equals(pinnedToPrimary.get());
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || isPinnedToPrimary()) {
+            return PRIMARY;
+        }
+        String replica = lagMonitor.pickReplica();
+        return replica != null ? replica : PRIMARY;
+    }
+}
@@ -0,0 +1,56 @@
+package com.geobook;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpSession;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Read-your-writes for replica routing. A mutating request (any method but
+ * GET/HEAD/OPTIONS) runs entirely on the primary, and the session remembers when
+ * it happened so the same user's reads stay on the primary for {@code stickyMs}
+ * afterwards, long enough for replicas to catch up.
+ */
+public class ReadYourWritesFilter extends OncePerRequestFilter {
+
+    static final String LAST_WRITE = ReadYourWritesFilter.class.getName() + ".LAST_WRITE";
+
+    private static final Set<String> SAFE_METHODS = Set.of("GET", "HEAD", "OPTIONS");
+
+    private final long stickyMs;
+
+    public ReadYourWritesFilter(long stickyMs) {
+        this.stickyMs = stickyMs;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        boolean mutating = !SAFE_METHODS.contains(request.getMethod());
+        if (mutating || wroteRecently(request.getSession(false))) {
+            ReadWriteRoutingDataSource.pinToPrimary();
+        }
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            ReadWriteRoutingDataSource.unpin();
+            if (mutating && response.getStatus() < 400) {
+                HttpSession session = request.getSession(false);
+                if (session != null) {
+                    session.setAttribute(LAST_WRITE, System.currentTimeMillis());
+                }
+            }
+        }
+    }
+
+    private boolean wroteRecently(HttpSession session) {
+        if (session == null) return false;
+        Object last = session.getAttribute(LAST_WRITE);
+        return last instanceof Long at && System.currentTimeMillis() - at < stickyMs;
+    }
+}
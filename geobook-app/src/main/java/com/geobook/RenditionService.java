@@ -0,0 +1,128 @@
+package com.geobook;
+
+import io.micrometer.core.instrument.Timer;
+import net.coobird.thumbnailator.Thumbnails;
+import net.coobird.thumbnailator.util.exif.ExifFilterUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.stereotype.Service;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Regenerates derived data after the stored image changes. Thumbnails are rebuilt
+ * asynchronously so the request that changed the image does not wait for them;
+ * descriptors are refreshed in line so similarity results never lag the image.
+ */
+@Service
+public class RenditionService {
+
+    private static final Logger logger = LoggerFactory.getLogger(RenditionService.class);
+
+    static final int THUMBNAIL_SIZE = 200;
+
+    private final MultimediaRepository multimediaRepository;
+    private final MediaStore mediaStore;
+    private final ImageDecoder imageDecoder;
+    private final ImageDescriptorExtractor descriptorExtractor;
+    private final ImageSimilarityIndex similarityIndex;
+
+    public RenditionService(MultimediaRepository multimediaRepository, MediaStore mediaStore,
+                            ImageDecoder imageDecoder, ImageDescriptorExtractor descriptorExtractor,
+                            ImageSimilarityIndex similarityIndex) {
+        this.multimediaRepository = multimediaRepository;
+        this.mediaStore = mediaStore;
+        this.imageDecoder = imageDecoder;
+        this.descriptorExtractor = descriptorExtractor;
+        this.similarityIndex = similarityIndex;
+    }
+
+    /**
+     * Recompute the visual descriptors from {@code source}, the current image content,
+     * and update the row and the similarity index. The source file is left in place.
+     */
+    public void refreshDescriptors(Long multimediaId, Path source) {
+        try {
+            ImageDescriptors descriptors = descriptorExtractor.extract(source.toFile());
+            Multimedia media = multimediaRepository.findById(multimediaId).orElse(null);
+            if (descriptors == null || media == null) {
+                return;
+            }
+            media.setDescriptors(descriptors);
+            multimediaRepository.save(media);
+            similarityIndex.upsert(multimediaId, descriptors);
+        } catch (Exception e) {
+            logger.warn("Descriptor refresh failed for multimedia id={}: {}", multimediaId, e.getMessage());
+        }
+    }
+
+    /**
+     * Rebuild the thumbnail from {@code source}, the current image content.
+     * The source file is consumed (deleted).
+     */
+    @Async
+    public void refreshThumbnail(Long multimediaId, Path source) {
+        try {
+            Multimedia media = multimediaRepository.findById(multimediaId).orElse(null);
+            if (media == null || media.getThumbnailPath() == null) {
+                return;
+            }
+            writeThumbnail(source, MediaStore.keyOf(media.getThumbnailPath()));
+            logger.info("Refreshed thumbnail for multimedia id={}", multimediaId);
+        } catch (Exception e) {
+            logger.warn("Thumbnail refresh failed for multimedia id={}: {}", multimediaId, e.getMessage());
+        } finally {
+            try {
+                Files.deleteIfExists(source);
+            } catch (Exception ignore) {
+            }
+        }
+    }
+
+    /**
+     * Scale {@code image} down and store it under {@code key}. The source is decoded
+     * subsampled to just above the thumbnail size, never at full resolution.
+     */
+    public void writeThumbnail(Path image, String key) throws Exception {
+        int[] size = imageDecoder.readDimensions(image);
+        if (size == null) {
+            throw new IOException("Not a readable image: " + image);
+        }
+        double scale = Math.min((double) THUMBNAIL_SIZE / size[0], (double) THUMBNAIL_SIZE / size[1]);
+        int minWidth = (int) Math.ceil(size[0] * scale);
+        int minHeight = (int) Math.ceil(size[1] * scale);
+
+        Path thumb = Files.createTempFile("thumb_", suffixOf(key));
+        try {
+            // decode and scale only; the store write is timed by the media store
+            Timer.Sample sample = HotPathMetrics.start();
+            boolean success = false;
+            try {
+                imageDecoder.decode(image, minWidth, minHeight, 1, (decoded, orientation) -> {
+                    Thumbnails.Builder<BufferedImage> builder = Thumbnails.of(decoded).size(THUMBNAIL_SIZE, THUMBNAIL_SIZE);
+                    if (orientation != null) {
+                        // honour the EXIF orientation written by lossless JPEG rotation
+                        builder.addFilter(ExifFilterUtils.getFilterForOrientation(orientation));
+                    }
+                    builder.toFile(thumb.toFile());
+                    return null;
+                });
+                success = true;
+            } finally {
+                HotPathMetrics.stop(sample, HotPathMetrics.IMAGE_THUMBNAIL, "outcome", success ? "success" : "error");
+            }
+            mediaStore.put(key, thumb);
+        } finally {
+            Files.deleteIfExists(thumb);
+        }
+    }
+
+    private static String suffixOf(String key) {
+        int dot = key.lastIndexOf('.');
+        return dot > key.lastIndexOf('/') ? key.substring(dot) : ".jpg";
+    }
+}
@@ -0,0 +1,139 @@
+package com.geobook;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how far each replica lags behind the primary. The primary's
+ * replica_heartbeat row is stamped with the current time on every tick; reading
+ * the same row back from a replica gives its replication delay, whatever
+ * replication technology sits in between. A replica that cannot be read counts
+ * as infinitely behind. Owns the replica pools and closes them on shutdown.
+ */
+public class ReplicaLagMonitor implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(ReplicaLagMonitor.class);
+
+    private final DataSource primary;
+    private final Map<String, DataSource> replicas;
+    private final Map<String, AtomicLong> lagMs = new LinkedHashMap<>();
+    private final List<String> keys;
+    private final long maxLagMs;
+    private final AtomicInteger next = new AtomicInteger();
+    private volatile boolean tableChecked;
+
+    public ReplicaLagMonitor(DataSource primary, Map<String, DataSource> replicas, long maxLagMs,
+                             MeterRegistry registry) {
+        this.primary = primary;
+        this.replicas = replicas;
+        this.maxLagMs = maxLagMs;
+        this.keys = new ArrayList<>(replicas.keySet());
+        for (String key : keys) {
+            AtomicLong lag = new AtomicLong(Long.MAX_VALUE);
+            lagMs.put(key, lag);
+            Gauge.builder("geobook.datasource.replica.lag", lag, AtomicLong::get)
+                    .description("Replication delay of a read replica")
+                    .baseUnit("milliseconds").tag("replica", key)
+                    .register(registry);
+        }
+    }
+
+    /**
+     * Round-robin over the replicas currently within the lag limit; null if none is.
+     */
+    public String pickReplica() {
+        int n = keys.size();
+        int start = Math.floorMod(next.getAndIncrement(), Math.max(n, 1));
+        for (int i = 0; i < n; i++) {
+            String key = keys.get((start + i) % n);
+            if (lagMs.get(key).get() <= maxLagMs) return key;
+        }
+        return null;
+    }
+
+    public Map<String, DataSource> replicas() {
+        return replicas;
+    }
+
+    @Scheduled(fixedDelayString = "${geobook.datasource.routing.heartbeat-ms:1000}")
+    public void tick() {
+        long now = System.currentTimeMillis();
+        try {
+            beat(now);
+        } catch (SQLException e) {
+            logger.warn("Replica heartbeat write failed: {}", e.getMessage());
+        }
+        for (String key : keys) {
+            long lag = Long.MAX_VALUE;
+            try {
+                Long beat = readBeat(replicas.get(key));
+                if (beat != null) lag = Math.max(0, now - beat);
+            } catch (SQLException e) {
+                logger.debug("Replica {} heartbeat read failed: {}", key, e.getMessage());
+            }
+            long previous = lagMs.get(key).getAndSet(lag);
+            if ((previous <= maxLagMs) != (lag <= maxLagMs)) {
+                logger.info("Replica {} {} (lag {} ms)", key, lag <= maxLagMs ? "in sync, taking reads" : "behind, reads go to primary",
+                        lag == Long.MAX_VALUE ? "unknown" : lag);
+            }
+        }
+    }
+
+    private void beat(long now) throws SQLException {
+        try (Connection conn = primary.getConnection()) {
+            if (!tableChecked) {
+                ensureTable(conn);
+                tableChecked = true;
+            }
+            try (PreparedStatement ps = conn.prepareStatement("UPDATE replica_heartbeat SET beat_millis = ? WHERE id = 1")) {
+                ps.setLong(1, now);
+                if (ps.executeUpdate() > 0) return;
+            }
+            try (PreparedStatement ps = conn.prepareStatement("INSERT INTO replica_heartbeat (id, beat_millis) VALUES (1, ?)")) {
+                ps.setLong(1, now);
+                ps.executeUpdate();
+            }
+        }
+    }
+
+    private static void ensureTable(Connection conn) throws SQLException {
+        try (Statement st = conn.createStatement()) {
+            st.executeQuery("SELECT beat_millis FROM replica_heartbeat WHERE id = 1").close();
+        } catch (SQLException missing) {
+            try (Statement st = conn.createStatement()) {
+                st.execute("CREATE TABLE replica_heartbeat (id NUMBER(1) PRIMARY KEY, beat_millis NUMBER(19) NOT NULL)");
+            }
+        }
+    }
+
+    private static Long readBeat(DataSource replica) throws SQLException {
+        try (Connection conn = replica.getConnection();
+             PreparedStatement ps = conn.prepareStatement("SELECT beat_millis FROM replica_heartbeat WHERE id = 1");
+             ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? rs.getLong(1) : null;
+        }
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (DataSource replica : replicas.values()) {
+            if (replica instanceof AutoCloseable closeable) closeable.close();
+        }
+    }
+}
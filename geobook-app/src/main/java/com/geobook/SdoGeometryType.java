@@ -1,5 +1,6 @@
 package com.geobook;
 
+import io.micrometer.core.instrument.Timer;
 import org.hibernate.engine.spi.SharedSessionContractImplementor;
 import org.hibernate.usertype.UserType;
 import oracle.sql.STRUCT;
@@ -43,16 +44,20 @@ public class SdoGeometryType implements UserType<String> {
         if (struct == null) return null;
 
         Connection conn = session.getJdbcCoordinator().getLogicalConnection().getPhysicalConnection();
-        PreparedStatement ps = conn.prepareStatement("SELECT SDO_UTIL.TO_WKTGEOMETRY(?) FROM DUAL");
-        ps.setObject(1, struct);
-        ResultSet rs2 = ps.executeQuery();
-        String wkt = null;
-        if (rs2.next()) {
-            wkt = rs2.getString(1);
+        // one extra round trip per row read, hence the timer
+        Timer.Sample sample = HotPathMetrics.start();
+        boolean success = false;
+        try (PreparedStatement ps = conn.prepareStatement("SELECT SDO_UTIL.TO_WKTGEOMETRY(?) FROM DUAL")) {
+            ps.setObject(1, struct);
+            try (ResultSet rs2 = ps.executeQuery()) {
+                String wkt = rs2.next() ? rs2.getString(1) : null;
+                success = true;
+                return wkt;
+            }
+        } finally {
+            HotPathMetrics.stop(sample, HotPathMetrics.SDO_CONVERSION, "direction", "to_wkt",
+                    "outcome", success ? "success" : "error");
         }
-        rs2.close();
-        ps.close();
-        return wkt;
     }
 
     @Override
@@ -65,17 +70,24 @@ public class SdoGeometryType implements UserType<String> {
             Connection conn = session.getJdbcCoordinator().getLogicalConnection().getPhysicalConnection();
             
             // First create SDO_GEOMETRY from WKT, then set SRID
-            PreparedStatement ps = conn.prepareStatement("SELECT SDO_CS.TRANSFORM(SDO_UTIL.FROM_WKTGEOMETRY(?), 8307) FROM DUAL");
-            ps.setString(1, value);
-            ResultSet rs = ps.executeQuery();
             STRUCT struct = null;
-            if (rs.next()) {
-                struct = (STRUCT) rs.getObject(1);
+            Timer.Sample sample = HotPathMetrics.start();
+            boolean success = false;
+            try (PreparedStatement ps = conn.prepareStatement("SELECT SDO_CS.TRANSFORM(SDO_UTIL.FROM_WKTGEOMETRY(?), 8307) FROM DUAL")) {
+                ps.setString(1, value);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        struct = (STRUCT) rs.getObject(1);
+                    }
+                }
+                success = true;
+            } finally {
+                HotPathMetrics.stop(sample, HotPathMetrics.SDO_CONVERSION, "direction", "from_wkt",
+                        "outcome", success ? "success" : "error");
             }
-            rs.close();
-            ps.close();
             logger.debug("STRUCT created: {}", struct != null);
-            ((OraclePreparedStatement) st).setSTRUCT(index, (oracle.sql.STRUCT) struct);
+            // pooled statements are proxies; the Oracle interface sits underneath
+            st.unwrap(OraclePreparedStatement.class).setSTRUCT(index, struct);
         }
     }
 
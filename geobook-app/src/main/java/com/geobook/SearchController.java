@@ -0,0 +1,37 @@
+package com.geobook;
+
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.ResponseBody;
+
+import java.util.List;
+
+@Controller
+@RequestMapping("/search")
+public class SearchController {
+
+    private final SearchIndexService searchIndex;
+
+    public SearchController(SearchIndexService searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    // Ranked full-text search over books, chapters and multimedia; type = book | chapter | multimedia
+    @GetMapping
+    @ResponseBody
+    public ResponseEntity<List<SearchIndexService.Hit>> search(@RequestParam("q") String q,
+                                                               @RequestParam(required = false) String type,
+                                                               @RequestParam(defaultValue = "20") int limit) {
+        if (!searchIndex.isAvailable()) {
+            return ResponseEntity.status(503).build();
+        }
+        try {
+            return ResponseEntity.ok(searchIndex.search(q, type, Math.min(Math.max(limit, 1), 100)));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.geobook;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+
+/**
+ * JPA entity listener that mirrors saves and deletes of searchable entities into
+ * the Lucene index. Instantiated by Hibernate through Spring's bean container;
+ * the index service is resolved lazily to avoid a cycle with the EntityManagerFactory.
+ */
+public class SearchIndexListener {
+
+    private final ObjectProvider<SearchIndexService> searchIndex;
+
+    public SearchIndexListener(ObjectProvider<SearchIndexService> searchIndex) {
+        this.searchIndex = searchIndex;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Object entity) {
+        SearchIndexService index = searchIndex.getIfAvailable();
+        if (index == null) return;
+        if (entity instanceof Book b) {
+            index.indexBook(b.getBookId(), b.getTitle(), b.getAuthor(), b.getDescription());
+        } else if (entity instanceof Chapter c) {
+            index.index(SearchIndexService.TYPE_CHAPTER, c.getChapterId(), c.getTitle(), c.getLocationDescription());
+        } else if (entity instanceof Multimedia m) {
+            index.index(SearchIndexService.TYPE_MULTIMEDIA, m.getMultimediaId(), null, m.getDescription());
+        }
+    }
+
+    @PostRemove
+    public void onRemove(Object entity) {
+        SearchIndexService index = searchIndex.getIfAvailable();
+        if (index == null) return;
+        if (entity instanceof Book b) {
+            index.delete(SearchIndexService.TYPE_BOOK, b.getBookId());
+        } else if (entity instanceof Chapter c) {
+            index.delete(SearchIndexService.TYPE_CHAPTER, c.getChapterId());
+        } else if (entity instanceof Multimedia m) {
+            index.delete(SearchIndexService.TYPE_MULTIMEDIA, m.getMultimediaId());
+        }
+    }
+}
@@ -0,0 +1,461 @@
+package com.geobook;
+
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.apache.lucene.analysis.Analyzer;
+import org.apache.lucene.analysis.TokenStream;
+import org.apache.lucene.analysis.core.WhitespaceAnalyzer;
+import org.apache.lucene.analysis.en.EnglishAnalyzer;
+import org.apache.lucene.analysis.miscellaneous.PerFieldAnalyzerWrapper;
+import org.apache.lucene.analysis.tokenattributes.CharTermAttribute;
+import org.apache.lucene.document.Document;
+import org.apache.lucene.document.Field;
+import org.apache.lucene.document.NumericDocValuesField;
+import org.apache.lucene.document.StoredField;
+import org.apache.lucene.document.StringField;
+import org.apache.lucene.document.TextField;
+import org.apache.lucene.index.IndexWriter;
+import org.apache.lucene.index.IndexWriterConfig;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.search.BooleanClause;
+import org.apache.lucene.search.BooleanQuery;
+import org.apache.lucene.search.BoostQuery;
+import org.apache.lucene.search.DisjunctionMaxQuery;
+import org.apache.lucene.search.FieldDoc;
+import org.apache.lucene.search.IndexSearcher;
+import org.apache.lucene.search.PrefixQuery;
+import org.apache.lucene.search.Query;
+import org.apache.lucene.search.ScoreDoc;
+import org.apache.lucene.search.SearcherManager;
+import org.apache.lucene.search.Sort;
+import org.apache.lucene.search.SortField;
+import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TopDocs;
+import org.apache.lucene.search.TopFieldDocs;
+import org.apache.lucene.store.FSDirectory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Embedded Lucene index over book titles/descriptions, chapter location descriptions
+ * and multimedia descriptions. Ranked with BM25 (Lucene default), English stemming,
+ * prefix matching on the last query word. Book titles and authors are also indexed as
+ * word trigrams for substring and typo-tolerant book search ({@link #searchBooks}).
+ * Kept current by {@link SearchIndexListener} and refreshed near-real-time.
+ */
+@Service
+public class SearchIndexService {
+
+    private static final Logger logger = LoggerFactory.getLogger(SearchIndexService.class);
+
+    public static final String TYPE_BOOK = "book";
+    public static final String TYPE_CHAPTER = "chapter";
+    public static final String TYPE_MULTIMEDIA = "multimedia";
+
+    private static final String F_KEY = "key";
+    private static final String F_TYPE = "type";
+    private static final String F_ID = "id";
+    private static final String F_TITLE = "title";
+    private static final String F_BODY = "body";
+    private static final String F_SORT_ID = "sort_id";
+    private static final String F_TITLE_GRAMS = "title_grams";
+    private static final String F_AUTHOR_GRAMS = "author_grams";
+
+    // bumped whenever documents gain fields, so an index written by an older build is rebuilt
+    private static final String SCHEMA_KEY = "schema";
+    private static final String SCHEMA_VERSION = "2";
+
+    // share of the query's trigrams a book must contain; one typo costs up to three of them
+    private static final float TRIGRAM_MIN_MATCH = 0.5f;
+    private static final Sort RELEVANCE = new Sort(SortField.FIELD_SCORE, new SortField(F_SORT_ID, SortField.Type.LONG));
+
+    private final BookRepository bookRepository;
+    private final ChapterRepository chapterRepository;
+    private final MultimediaRepository multimediaRepository;
+    private final String indexDir;
+
+    // trigram fields are generated in Java and only need splitting on whitespace
+    private final Analyzer analyzer = new PerFieldAnalyzerWrapper(new EnglishAnalyzer(), Map.of(
+            F_TITLE_GRAMS, new WhitespaceAnalyzer(),
+            F_AUTHOR_GRAMS, new WhitespaceAnalyzer()));
+    private IndexWriter writer;
+    private SearcherManager searcherManager;
+
+    public SearchIndexService(BookRepository bookRepository,
+                              ChapterRepository chapterRepository,
+                              MultimediaRepository multimediaRepository,
+                              @Value("${geobook.search.index-dir:${user.dir}/data/search-index}") String indexDir) {
+        this.bookRepository = bookRepository;
+        this.chapterRepository = chapterRepository;
+        this.multimediaRepository = multimediaRepository;
+        this.indexDir = indexDir;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void open() {
+        try {
+            IndexWriterConfig config = new IndexWriterConfig(analyzer);
+            config.setOpenMode(IndexWriterConfig.OpenMode.CREATE_OR_APPEND);
+            writer = new IndexWriter(FSDirectory.open(Paths.get(indexDir)), config);
+            searcherManager = new SearcherManager(writer, null);
+
+            long expected = bookRepository.count() + chapterRepository.count() + multimediaRepository.count();
+            if (writer.getDocStats().numDocs != expected || !SCHEMA_VERSION.equals(schemaVersion())) {
+                reindexAll();
+            }
+            logger.info("Search index at {} ready with {} documents", indexDir, writer.getDocStats().numDocs);
+        } catch (Exception e) {
+            logger.warn("Search index could not be opened at {}: {}", indexDir, e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        if (searcherManager != null) searcherManager.close();
+        if (writer != null) writer.close();
+    }
+
+    public boolean isAvailable() {
+        return writer != null && writer.isOpen();
+    }
+
+    /**
+     * Rebuild the whole index from the database.
+     */
+    public synchronized void reindexAll() throws IOException {
+        writer.deleteAll();
+        for (Book b : bookRepository.findAll()) {
+            writer.addDocument(toBookDocument(b.getBookId(), b.getTitle(), b.getAuthor(), b.getDescription()));
+        }
+        for (Chapter c : chapterRepository.findAll()) {
+            writer.addDocument(toDocument(TYPE_CHAPTER, c.getChapterId(), c.getTitle(), c.getLocationDescription()));
+        }
+        for (Multimedia m : multimediaRepository.findAll()) {
+            writer.addDocument(toDocument(TYPE_MULTIMEDIA, m.getMultimediaId(), null, m.getDescription()));
+        }
+        writer.setLiveCommitData(Map.of(SCHEMA_KEY, SCHEMA_VERSION).entrySet());
+        writer.commit();
+        searcherManager.maybeRefresh();
+    }
+
+    private String schemaVersion() {
+        Iterable<Map.Entry<String, String>> data = writer.getLiveCommitData();
+        if (data == null) return null;
+        for (Map.Entry<String, String> e : data) {
+            if (SCHEMA_KEY.equals(e.getKey())) return e.getValue();
+        }
+        return null;
+    }
+
+    public void indexBook(Long id, String title, String author, String description) {
+        afterCommit(() -> {
+            if (!isAvailable() || id == null) return;
+            try {
+                writer.updateDocument(new Term(F_KEY, key(TYPE_BOOK, id)), toBookDocument(id, title, author, description));
+            } catch (IOException e) {
+                logger.warn("Failed to index {} {}: {}", TYPE_BOOK, id, e.getMessage());
+            }
+        });
+    }
+
+    public void index(String type, Long id, String title, String body) {
+        afterCommit(() -> {
+            if (!isAvailable() || id == null) return;
+            try {
+                writer.updateDocument(new Term(F_KEY, key(type, id)), toDocument(type, id, title, body));
+            } catch (IOException e) {
+                logger.warn("Failed to index {} {}: {}", type, id, e.getMessage());
+            }
+        });
+    }
+
+    public void delete(String type, Long id) {
+        afterCommit(() -> {
+            if (!isAvailable() || id == null) return;
+            try {
+                writer.deleteDocuments(new Term(F_KEY, key(type, id)));
+            } catch (IOException e) {
+                logger.warn("Failed to remove {} {} from index: {}", type, id, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Ranked search; {@code type} restricts to one entity kind or is null for all.
+     */
+    public List<Hit> search(String queryText, String type, int limit) throws IOException {
+        List<Hit> hits = new ArrayList<>();
+        if (!isAvailable() || queryText == null || queryText.isBlank()) return hits;
+
+        Query query = buildQuery(queryText, type);
+        if (query == null) return hits;
+
+        Timer.Sample sample = HotPathMetrics.start();
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            TopDocs top = searcher.search(query, limit);
+            for (ScoreDoc sd : top.scoreDocs) {
+                Document doc = searcher.storedFields().document(sd.doc);
+                hits.add(new Hit(doc.get(F_TYPE), doc.getField(F_ID).numericValue().longValue(), sd.score));
+            }
+        } finally {
+            searcherManager.release(searcher);
+            HotPathMetrics.stop(sample, HotPathMetrics.SEARCH_QUERY, "query", "text",
+                    "result", hits.isEmpty() ? "empty" : "hit");
+        }
+        return hits;
+    }
+
+    Query buildQuery(String queryText, String type) throws IOException {
+        BooleanQuery.Builder text = new BooleanQuery.Builder();
+        int clauses = 0;
+        for (String token : analyze(queryText)) {
+            text.add(new BoostQuery(new TermQuery(new Term(F_TITLE, token)), 2f), BooleanClause.Occur.SHOULD);
+            text.add(new TermQuery(new Term(F_BODY, token)), BooleanClause.Occur.SHOULD);
+            clauses += 2;
+        }
+        // prefix on the raw last word so "lond" matches "london" while typing
+        String[] words = queryText.trim().toLowerCase(Locale.ROOT).split("\\s+");
+        String last = words[words.length - 1].replaceAll("[^\\p{L}\\p{N}]", "");
+        if (last.length() >= 2) {
+            text.add(new PrefixQuery(new Term(F_TITLE, last)), BooleanClause.Occur.SHOULD);
+            text.add(new PrefixQuery(new Term(F_BODY, last)), BooleanClause.Occur.SHOULD);
+            clauses += 2;
+        }
+        if (clauses == 0) return null;
+
+        if (type == null) return text.build();
+        return new BooleanQuery.Builder()
+                .add(text.build(), BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term(F_TYPE, type)), BooleanClause.Occur.FILTER)
+                .build();
+    }
+
+    /**
+     * Book search by title and author trigrams: matches substrings ("ondo" finds
+     * "London") and misspellings ("Londno"), best matches first. Pages are addressed
+     * by the cursor of the last hit of the previous page (score and book id), so a
+     * page costs the same however deep it is. An empty query returns an empty page.
+     */
+    public RankedPage searchBooks(String queryText, String after, int size) throws IOException {
+        if (!isAvailable() || queryText == null) return new RankedPage(List.of(), null, 0);
+        Query query = buildTrigramQuery(queryText);
+        if (query == null) return new RankedPage(List.of(), null, 0);
+
+        Timer.Sample sample = HotPathMetrics.start();
+        boolean found = false;
+        IndexSearcher searcher = searcherManager.acquire();
+        try {
+            FieldDoc cursor = parseCursor(after, searcher.getIndexReader().maxDoc());
+            TopFieldDocs top = searcher.searchAfter(cursor, query, size + 1, RELEVANCE, true);
+            List<Hit> hits = new ArrayList<>();
+            String next = null;
+            for (int i = 0; i < top.scoreDocs.length && i < size; i++) {
+                FieldDoc fd = (FieldDoc) top.scoreDocs[i];
+                Document doc = searcher.storedFields().document(fd.doc);
+                hits.add(new Hit(TYPE_BOOK, doc.getField(F_ID).numericValue().longValue(), fd.score));
+                if (top.scoreDocs.length > size && i == size - 1) {
+                    next = fd.score + "_" + fd.fields[1];
+                }
+            }
+            found = !hits.isEmpty();
+            return new RankedPage(hits, next, top.totalHits.value);
+        } finally {
+            searcherManager.release(searcher);
+            HotPathMetrics.stop(sample, HotPathMetrics.SEARCH_QUERY, "query", "trigram",
+                    "result", found ? "hit" : "empty");
+        }
+    }
+
+    /**
+     * Whether {@link #searchBooks} can answer the query: it needs a word of at least
+     * three characters. Shorter queries are left to the title LIKE scan.
+     */
+    public static boolean isRankable(String queryText) {
+        return trigrams(queryText).stream().anyMatch(SearchIndexService::isInterior);
+    }
+
+    Query buildTrigramQuery(String queryText) {
+        Map<String, Integer> grams = new LinkedHashMap<>();
+        for (String gram : trigrams(queryText)) grams.merge(gram, 1, Integer::sum);
+        long interior = grams.keySet().stream().filter(SearchIndexService::isInterior).count();
+        if (interior == 0) return null;
+
+        BooleanQuery.Builder text = new BooleanQuery.Builder();
+        for (String gram : grams.keySet()) {
+            text.add(new DisjunctionMaxQuery(List.of(
+                    new BoostQuery(new TermQuery(new Term(F_TITLE_GRAMS, gram)), 2f),
+                    new TermQuery(new Term(F_AUTHOR_GRAMS, gram))), 0f), BooleanClause.Occur.SHOULD);
+        }
+        // a title containing the query as a substring (what the LIKE scan found) has every
+        // interior gram but maybe none of the padded ones, so never ask for more than that:
+        // "bbi" still finds "Hobbit"
+        int minimum = (int) Math.min((long) Math.ceil(grams.size() * TRIGRAM_MIN_MATCH), interior);
+        text.setMinimumNumberShouldMatch(Math.max(1, minimum));
+        return new BooleanQuery.Builder()
+                .add(text.build(), BooleanClause.Occur.MUST)
+                .add(new TermQuery(new Term(F_TYPE, TYPE_BOOK)), BooleanClause.Occur.FILTER)
+                .build();
+    }
+
+    /**
+     * Trigrams of each word, lower-cased and padded with '$' at both ends so that
+     * word starts and ends count as well: "Rome" gives $ro rom ome me$. Words of one
+     * character give nothing.
+     */
+    static List<String> trigrams(String text) {
+        List<String> grams = new ArrayList<>();
+        if (text == null) return grams;
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (word.length() < 2) continue;
+            String padded = "$" + word + "$";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(padded.substring(i, i + 3));
+            }
+        }
+        return grams;
+    }
+
+    // a gram from inside a word, without the '$' padding
+    private static boolean isInterior(String gram) {
+        return gram.indexOf('$') < 0;
+    }
+
+    private static FieldDoc parseCursor(String cursor, int maxDoc) {
+        if (cursor == null || cursor.isBlank()) return null;
+        int sep = cursor.lastIndexOf('_');
+        try {
+            float score = Float.parseFloat(cursor.substring(0, sep));
+            long id = Long.parseLong(cursor.substring(sep + 1));
+            // ties on score and id are the cursor's own book; the highest doc number keeps it from repeating
+            return new FieldDoc(Math.max(maxDoc - 1, 0), score, new Object[]{score, id});
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException("Invalid search cursor: " + cursor);
+        }
+    }
+
+    /**
+     * Near-real-time refresh: makes recent updates searchable without a full commit.
+     */
+    @Scheduled(fixedDelayString = "${geobook.search.refresh-ms:1000}")
+    public void refresh() {
+        if (!isAvailable()) return;
+        try {
+            searcherManager.maybeRefresh();
+        } catch (IOException e) {
+            logger.warn("Search index refresh failed: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Durable commit of buffered updates to disk.
+     */
+    @Scheduled(fixedDelayString = "${geobook.search.commit-ms:30000}")
+    public void commit() {
+        if (!isAvailable() || !writer.hasUncommittedChanges()) return;
+        try {
+            writer.commit();
+        } catch (IOException e) {
+            logger.warn("Search index commit failed: {}", e.getMessage());
+        }
+    }
+
+    private List<String> analyze(String text) throws IOException {
+        List<String> tokens = new ArrayList<>();
+        try (TokenStream ts = analyzer.tokenStream(F_BODY, new StringReader(text))) {
+            CharTermAttribute term = ts.addAttribute(CharTermAttribute.class);
+            ts.reset();
+            while (ts.incrementToken()) {
+                tokens.add(term.toString());
+            }
+            ts.end();
+        }
+        return tokens;
+    }
+
+    private static Document toBookDocument(Long id, String title, String author, String description) {
+        Document doc = toDocument(TYPE_BOOK, id, title, description);
+        if (title != null) doc.add(new TextField(F_TITLE_GRAMS, String.join(" ", trigrams(title)), Field.Store.NO));
+        if (author != null) doc.add(new TextField(F_AUTHOR_GRAMS, String.join(" ", trigrams(author)), Field.Store.NO));
+        return doc;
+    }
+
+    private static Document toDocument(String type, Long id, String title, String body) {
+        Document doc = new Document();
+        doc.add(new StringField(F_KEY, key(type, id), Field.Store.NO));
+        doc.add(new StringField(F_TYPE, type, Field.Store.YES));
+        doc.add(new StoredField(F_ID, id));
+        doc.add(new NumericDocValuesField(F_SORT_ID, id));
+        if (title != null) doc.add(new TextField(F_TITLE, title, Field.Store.NO));
+        if (body != null) doc.add(new TextField(F_BODY, body, Field.Store.NO));
+        return doc;
+    }
+
+    private static String key(String type, Long id) {
+        return type + ":" + id;
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    public static final class Hit {
+        private final String type;
+        private final long id;
+        private final float score;
+
+        public Hit(String type, long id, float score) {
+            this.type = type;
+            this.id = id;
+            this.score = score;
+        }
+
+        public String getType() { return type; }
+        public long getId() { return id; }
+        public float getScore() { return score; }
+    }
+
+    /**
+     * One page of ranked hits; {@code next} is the cursor for the following page, null on the last.
+     */
+    public static final class RankedPage {
+        private final List<Hit> hits;
+        private final String next;
+        private final long total;
+
+        public RankedPage(List<Hit> hits, String next, long total) {
+            this.hits = hits;
+            this.next = next;
+            this.total = total;
+        }
+
+        public List<Hit> getHits() { return hits; }
+        public String getNext() { return next; }
+        public long getTotal() { return total; }
+    }
+}
@@ -0,0 +1,81 @@
+package com.geobook;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Hibernate second-level cache for the catalog hierarchy (books, chapters,
+ * locations and the collections between them) plus the catalog query cache,
+ * held in size-bounded Caffeine regions. Every region reports hits, misses and
+ * evictions as {@code cache.*} metrics tagged with its name.
+ */
+@Configuration
+public class SecondLevelCacheConfig {
+
+    static final String BOOK = "geobook.book";
+    static final String BOOK_CHAPTERS = "geobook.book.chapters";
+    static final String CHAPTER = "geobook.chapter";
+    static final String CHAPTER_LOCATIONS = "geobook.chapter.locations";
+    static final String LOCATION = "geobook.location";
+    static final String CATALOG_QUERIES = "geobook.query.catalog";
+
+    // Hibernate's own regions; the timestamps region holds one entry per table and must never evict
+    private static final String DEFAULT_QUERIES = "default-query-results-region";
+    private static final String UPDATE_TIMESTAMPS = "default-update-timestamps-region";
+
+    @Bean(destroyMethod = "close")
+    public CacheManager hibernateCacheManager(MeterRegistry registry,
+                                              @Value("${geobook.cache.book.max-entries:10000}") long books,
+                                              @Value("${geobook.cache.chapter.max-entries:50000}") long chapters,
+                                              @Value("${geobook.cache.location.max-entries:100000}") long locations,
+                                              @Value("${geobook.cache.collection.max-entries:50000}") long collections,
+                                              @Value("${geobook.cache.query.max-entries:2000}") long queries) {
+        // a manager of this context's own: the provider's default one is shared by every context in the JVM
+        CachingProvider provider = Caching.getCachingProvider(CaffeineCachingProvider.class.getName());
+        CacheManager cacheManager = provider.getCacheManager(URI.create("geobook-" + UUID.randomUUID()),
+                SecondLevelCacheConfig.class.getClassLoader());
+        createRegion(cacheManager, registry, BOOK, books);
+        createRegion(cacheManager, registry, CHAPTER, chapters);
+        createRegion(cacheManager, registry, LOCATION, locations);
+        createRegion(cacheManager, registry, BOOK_CHAPTERS, collections);
+        createRegion(cacheManager, registry, CHAPTER_LOCATIONS, collections);
+        createRegion(cacheManager, registry, CATALOG_QUERIES, queries);
+        createRegion(cacheManager, registry, DEFAULT_QUERIES, queries);
+        createRegion(cacheManager, registry, UPDATE_TIMESTAMPS, -1);
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCache(CacheManager hibernateCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, hibernateCacheManager);
+    }
+
+    /**
+     * A region bounded to maxEntries (unbounded if negative), with native statistics bound to the registry.
+     */
+    @SuppressWarnings("unchecked")
+    private static void createRegion(CacheManager cacheManager, MeterRegistry registry, String name, long maxEntries) {
+        CaffeineConfiguration<Object, Object> config = new CaffeineConfiguration<>();
+        if (maxEntries >= 0) {
+            config.setMaximumSize(OptionalLong.of(maxEntries));
+        }
+        config.setNativeStatisticsEnabled(true);
+        Cache<Object, Object> cache = cacheManager.createCache(name, config);
+        CaffeineCacheMetrics.monitor(registry, cache.unwrap(com.github.benmanes.caffeine.cache.Cache.class), name);
+    }
+}
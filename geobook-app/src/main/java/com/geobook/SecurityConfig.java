@@ -2,12 +2,15 @@ package com.geobook;
 
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
 
+import static org.springframework.security.web.util.matcher.AntPathRequestMatcher.antMatcher;
+
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
@@ -18,11 +21,16 @@ public class SecurityConfig {
         http
             .authorizeHttpRequests(authz -> authz
                 .requestMatchers("/", "/login", "/register", "/css/**", "/js/**", "/images/**",
-                        "/thumbnails/**", "/multimedia", "/h2-console/**")
+                        "/thumbnails/**", "/multimedia", "/h2-console/**",
+                        "/actuator/health", "/actuator/prometheus")
                 .permitAll()
                 .anyRequest().authenticated()
             )
-            .csrf(csrf -> csrf.ignoringRequestMatchers("/multimedia", "/h2-console/**"))
+            // only the raw chunk PUTs of the upload protocol go without a token; init, complete,
+            // abort and geotag imports send X-CSRF-TOKEN like the map's JSON calls
+            .csrf(csrf -> csrf
+                .ignoringRequestMatchers(antMatcher(HttpMethod.PUT, "/multimedia/uploads/*"))
+                .ignoringRequestMatchers("/multimedia", "/h2-console/**"))
             .headers(headers -> headers.frameOptions().disable())
             .formLogin(form -> form
                 .loginPage("/login")
@@ -0,0 +1,48 @@
+package com.geobook;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * {@code /actuator/slowqueries}: the slowest statements of the last one to two
+ * windows, slowest first ({@code ?limit=} to change how many). DELETE clears the table.
+ * Like every actuator endpoint except health and prometheus it needs a login.
+ */
+@Component
+@Endpoint(id = "slowqueries")
+public class SlowQueriesEndpoint {
+
+    private final SlowQueryLog slowQueryLog;
+    private final long thresholdMs;
+    private final int defaultLimit;
+
+    public SlowQueriesEndpoint(SlowQueryLog slowQueryLog,
+                               @Value("${geobook.jdbc.slow-threshold-ms:500}") long thresholdMs,
+                               @Value("${geobook.jdbc.slow-top:50}") int defaultLimit) {
+        this.slowQueryLog = slowQueryLog;
+        this.thresholdMs = thresholdMs;
+        this.defaultLimit = defaultLimit;
+    }
+
+    @ReadOperation
+    public Map<String, Object> slowest(@Nullable Integer limit) {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("thresholdMs", thresholdMs);
+        body.put("windowMs", slowQueryLog.getWindowMs());
+        body.put("dropped", slowQueryLog.getDropped());
+        body.put("statements", slowQueryLog.top(limit != null ? Math.max(1, limit) : defaultLimit));
+        return body;
+    }
+
+    @DeleteOperation
+    public void reset() {
+        slowQueryLog.reset();
+    }
+}
@@ -0,0 +1,160 @@
+package com.geobook;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Rolling table of statements that ran over the slow threshold, one entry per SQL
+ * text. Entries live in two windows of {@code geobook.jdbc.slow-window-ms}; at each
+ * rotation the older window is dropped, so the table covers the last one to two
+ * windows. The slowest execution of each statement keeps its bind shape and
+ * request context for {@link SlowQueriesEndpoint}.
+ */
+@Component
+public class SlowQueryLog {
+
+    // statement text is the key; very long generated SQL is cut here
+    private static final int MAX_SQL_LENGTH = 4000;
+
+    private final int capacity;
+    private final long windowMs;
+    private final AtomicLong dropped = new AtomicLong();
+    private volatile Map<String, Entry> current = new ConcurrentHashMap<>();
+    private volatile Map<String, Entry> previous = new ConcurrentHashMap<>();
+
+    public SlowQueryLog(@Value("${geobook.jdbc.slow-capacity:1000}") int capacity,
+                        @Value("${geobook.jdbc.slow-window-ms:900000}") long windowMs) {
+        this.capacity = capacity;
+        this.windowMs = windowMs;
+    }
+
+    /**
+     * One slow execution; {@code elapsedNanos} is the time spent in the driver
+     * (execute plus fetching), not the time the caller held the result set open.
+     */
+    public void record(String sql, long elapsedNanos, long rows, String binds, String context,
+                       String traceId, String spanId) {
+        String key = sql.length() > MAX_SQL_LENGTH ? sql.substring(0, MAX_SQL_LENGTH) : sql;
+        Map<String, Entry> window = current;
+        Entry entry = window.get(key);
+        if (entry == null) {
+            if (window.size() >= capacity) {
+                dropped.incrementAndGet();
+                return;
+            }
+            entry = window.computeIfAbsent(key, Entry::new);
+        }
+        entry.add(elapsedNanos, rows, binds, context, traceId, spanId);
+    }
+
+    /**
+     * The {@code limit} statements with the highest maximum latency over both windows.
+     */
+    public List<Entry> top(int limit) {
+        Map<String, Entry> merged = new HashMap<>();
+        for (Map<String, Entry> window : List.of(previous, current)) {
+            window.forEach((sql, entry) -> merged.computeIfAbsent(sql, Entry::new).merge(entry));
+        }
+        List<Entry> entries = new ArrayList<>(merged.values());
+        entries.sort(Comparator.comparingLong(Entry::getMaxNanos).reversed());
+        return entries.size() > limit ? entries.subList(0, limit) : entries;
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public long getWindowMs() {
+        return windowMs;
+    }
+
+    @Scheduled(initialDelayString = "${geobook.jdbc.slow-window-ms:900000}",
+               fixedDelayString = "${geobook.jdbc.slow-window-ms:900000}")
+    public void rotate() {
+        previous = current;
+        current = new ConcurrentHashMap<>();
+    }
+
+    public void reset() {
+        previous = new ConcurrentHashMap<>();
+        current = new ConcurrentHashMap<>();
+        dropped.set(0);
+    }
+
+    /**
+     * Aggregate for one SQL text; the bind shape, context and trace ids are those
+     * of its slowest execution.
+     */
+    public static final class Entry {
+        private final String sql;
+        private long count;
+        private long totalNanos;
+        private long maxNanos;
+        private long maxRows;
+        private String binds;
+        private String context;
+        private String traceId;
+        private String spanId;
+        private Instant lastSeen;
+
+        Entry(String sql) {
+            this.sql = sql;
+        }
+
+        synchronized void add(long elapsedNanos, long rows, String binds, String context,
+                              String traceId, String spanId) {
+            count++;
+            totalNanos += elapsedNanos;
+            maxRows = Math.max(maxRows, rows);
+            lastSeen = Instant.now();
+            if (elapsedNanos >= maxNanos) {
+                maxNanos = elapsedNanos;
+                this.binds = binds;
+                this.context = context;
+                this.traceId = traceId;
+                this.spanId = spanId;
+            }
+        }
+
+        synchronized void merge(Entry other) {
+            synchronized (other) {
+                count += other.count;
+                totalNanos += other.totalNanos;
+                maxRows = Math.max(maxRows, other.maxRows);
+                if (lastSeen == null || (other.lastSeen != null && other.lastSeen.isAfter(lastSeen))) {
+                    lastSeen = other.lastSeen;
+                }
+                if (other.maxNanos >= maxNanos) {
+                    maxNanos = other.maxNanos;
+                    binds = other.binds;
+                    context = other.context;
+                    traceId = other.traceId;
+                    spanId = other.spanId;
+                }
+            }
+        }
+
+        public String getSql() { return sql; }
+        public synchronized long getCount() { return count; }
+        public synchronized double getMaxMs() { return maxNanos / 1_000_000.0; }
+        public synchronized double getAvgMs() { return count == 0 ? 0 : totalNanos / 1_000_000.0 / count; }
+        public synchronized long getMaxRows() { return maxRows; }
+        public synchronized String getBinds() { return binds; }
+        public synchronized String getContext() { return context; }
+        public synchronized String getTraceId() { return traceId; }
+        public synchronized String getSpanId() { return spanId; }
+        public synchronized Instant getLastSeen() { return lastSeen; }
+
+        synchronized long getMaxNanos() { return maxNanos; }
+    }
+}
@@ -10,7 +10,7 @@ public class SpatialEntity {
 
     @Id
     @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "spatial_entities_seq")
-    @SequenceGenerator(name = "spatial_entities_seq", sequenceName = "spatial_entities_seq", allocationSize = 1)
+    @SequenceGenerator(name = "spatial_entities_seq", sequenceName = "spatial_entities_seq", allocationSize = 50)
     @Column(name = "entity_id")
     private Long entityId;
 
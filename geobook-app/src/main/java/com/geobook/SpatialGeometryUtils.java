@@ -88,6 +88,61 @@ public class SpatialGeometryUtils {
     }
 
     
+     // Vertices of an SDO_GEOMETRY string as x,y pairs: the SDO_POINT_TYPE of a point,
+     // otherwise the SDO_ORDINATE_ARRAY. Empty when neither can be read.
+     
+    public static double[] extractOrdinates(String geometryString) {
+        if (!isValidGeometry(geometryString)) {
+            return new double[0];
+        }
+        String upper = geometryString.toUpperCase();
+        int start = upper.indexOf("SDO_ORDINATE_ARRAY(");
+        int count = Integer.MAX_VALUE;
+        if (start >= 0) {
+            start += "SDO_ORDINATE_ARRAY(".length();
+        } else if ((start = upper.indexOf("SDO_POINT_TYPE(")) >= 0) {
+            start += "SDO_POINT_TYPE(".length();
+            count = 2; // the third ordinate is NULL
+        } else {
+            return new double[0];
+        }
+        int end = upper.indexOf(')', start);
+        if (end < 0) {
+            return new double[0];
+        }
+        String[] parts = upper.substring(start, end).split(",");
+        if (parts.length < 2) {
+            return new double[0];
+        }
+        double[] values = new double[Math.min(parts.length, count) & ~1];
+        try {
+            for (int i = 0; i < values.length; i++) {
+                values[i] = Double.parseDouble(parts[i].trim());
+            }
+        } catch (NumberFormatException e) {
+            return new double[0];
+        }
+        return values;
+    }
+
+    
+     // True when every vertex lies in the box, as SDO_INSIDE against a rectangle
+     
+    public static boolean isInsideBox(String geometryString, double minX, double minY, double maxX, double maxY) {
+        double[] ordinates = extractOrdinates(geometryString);
+        if (ordinates.length == 0) {
+            return false;
+        }
+        for (int i = 0; i < ordinates.length; i += 2) {
+            double x = ordinates[i], y = ordinates[i + 1];
+            if (x < minX || x > maxX || y < minY || y > maxY) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    
      // Generate sample geometry 
     public static String generateSampleGeometry(SpatialEntity.SpatialEntityType type, 
                                                double baseLat, double baseLng) {
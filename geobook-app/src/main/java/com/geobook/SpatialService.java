@@ -1,7 +1,12 @@
 package com.geobook;
 
+import io.micrometer.core.instrument.Timer;
 import org.springframework.beans.factory.annotation.Autowired;
+import jakarta.persistence.EntityManagerFactory;
+import org.springframework.jdbc.datasource.DataSourceUtils;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -10,6 +15,10 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
 
 @Service
 public class SpatialService {
@@ -19,10 +28,20 @@ public class SpatialService {
     @Autowired
     private DataSource dataSource;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private DatabaseCapabilities capabilities;
+
     /**
      * Return WKT representation of an SDO point (for testing). Uses SDO_GEOMETRY(...).GET_WKT()
      */
     public String createSpatialData(double latitude, double longitude) {
+        String fallback = String.format(Locale.ROOT, "POINT(%f %f)", longitude, latitude);
+        if (!capabilities.isAvailable(DatabaseCapabilities.Capability.SPATIAL)) {
+            return fallback;
+        }
         String sql = "SELECT MDSYS.SDO_GEOMETRY(2001, 8307, MDSYS.SDO_POINT_TYPE(?, ?, NULL), NULL, NULL).GET_WKT() as wkt FROM dual";
 
         try (Connection conn = dataSource.getConnection();
@@ -39,9 +58,8 @@ public class SpatialService {
                 }
             }
         } catch (SQLException e) {
-            logger.error("Error creating spatial data", e);
+            capabilities.recordFailure(DatabaseCapabilities.Capability.SPATIAL, e);
             // Fallback to simple WKT format
-            String fallback = String.format("POINT(%f %f)", longitude, latitude);
             logger.debug("Using fallback WKT: {}", fallback);
             return fallback;
         }
@@ -53,28 +71,115 @@ public class SpatialService {
      * Uses SDO_POINT_TYPE(longitude, latitude).
      */
     public boolean updateLocationSpatialData(Long locationId, double latitude, double longitude) {
-        String sql = "UPDATE locations SET spatial_data = MDSYS.SDO_GEOMETRY(2001, 8307, MDSYS.SDO_POINT_TYPE(?, ?, NULL), NULL, NULL) WHERE location_id = ?";
+        if (capabilities.isAvailable(DatabaseCapabilities.Capability.SPATIAL)) {
+            String sql = "UPDATE locations SET spatial_data = MDSYS.SDO_GEOMETRY(2001, 8307, MDSYS.SDO_POINT_TYPE(?, ?, NULL), NULL, NULL) WHERE location_id = ?";
 
+            Timer.Sample sample = HotPathMetrics.start();
+            try (Connection conn = dataSource.getConnection();
+                 PreparedStatement ps = conn.prepareStatement(sql)) {
+
+                ps.setDouble(1, longitude);
+                ps.setDouble(2, latitude);
+                ps.setLong(3, locationId);
+
+                boolean updated = ps.executeUpdate() > 0;
+                HotPathMetrics.stopSpatial(sample, "sdo_geometry_update", "native", true);
+                return evictAfterUpdate(List.of(locationId), updated);
+            } catch (SQLException e) {
+                HotPathMetrics.stopSpatial(sample, "sdo_geometry_update", "native", false);
+                capabilities.recordFailure(DatabaseCapabilities.Capability.SPATIAL, e);
+            }
+        }
+        // fallback: store a WKT string into spatial_data (only as last resort)
         try (Connection conn = dataSource.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setDouble(1, longitude);
-            ps.setDouble(2, latitude);
-            ps.setLong(3, locationId);
+             PreparedStatement ps = conn.prepareStatement("UPDATE locations SET spatial_data = ? WHERE location_id = ?")) {
+            ps.setString(1, String.format(Locale.ROOT, "POINT(%f %f)", longitude, latitude));
+            ps.setLong(2, locationId);
+            return evictAfterUpdate(List.of(locationId), ps.executeUpdate() > 0);
+        } catch (SQLException e2) {
+            logger.error("Storing WKT spatial data for location {} failed", locationId, e2);
+            return false;
+        }
+    }
 
-            return ps.executeUpdate() > 0;
+    /**
+     * Batched variant of {@link #updateLocationSpatialData} for many locations: one
+     * UPDATE sent as a single JDBC batch. Runs on the caller's transactional connection,
+     * so locations inserted earlier in the same transaction are visible.
+     * Returns the number of rows updated.
+     */
+    public int updateLocationsSpatialData(List<Location> locations) {
+        List<Long> ids = new ArrayList<>(locations.size());
+        for (Location l : locations) ids.add(l.getLocationId());
+        evictAfterUpdate(ids, true);
+        Connection conn = DataSourceUtils.getConnection(dataSource);
+        try {
+            if (capabilities.isAvailable(DatabaseCapabilities.Capability.SPATIAL)) {
+                Timer.Sample sample = HotPathMetrics.start();
+                try {
+                    int updated = executeSpatialBatch(conn, "UPDATE locations SET spatial_data = MDSYS.SDO_GEOMETRY(2001, 8307, " +
+                            "MDSYS.SDO_POINT_TYPE(?, ?, NULL), NULL, NULL) WHERE location_id = ?", locations, false);
+                    HotPathMetrics.stopSpatial(sample, "sdo_geometry_batch_update", "native", true);
+                    return updated;
+                } catch (SQLException e) {
+                    HotPathMetrics.stopSpatial(sample, "sdo_geometry_batch_update", "native", false);
+                    capabilities.recordFailure(DatabaseCapabilities.Capability.SPATIAL, e);
+                    logger.warn("Batched SDO_GEOMETRY update failed, storing WKT instead: {}", e.getMessage());
+                }
+            }
+            return executeSpatialBatch(conn, "UPDATE locations SET spatial_data = ? WHERE location_id = ?", locations, true);
         } catch (SQLException e) {
-            e.printStackTrace();
-            // fallback: try storing WKT string into spatial_data (only as last resort)
-            try (Connection conn = dataSource.getConnection();
-                 PreparedStatement ps = conn.prepareStatement("UPDATE locations SET spatial_data = ? WHERE location_id = ?")) {
-                ps.setString(1, String.format("POINT(%f %f)", longitude, latitude));
-                ps.setLong(2, locationId);
-                return ps.executeUpdate() > 0;
-            } catch (SQLException e2) {
-                e2.printStackTrace();
-                return false;
+            logger.error("Batched spatial data update failed", e);
+            return 0;
+        } finally {
+            DataSourceUtils.releaseConnection(conn, dataSource);
+        }
+    }
+
+    /**
+     * spatial_data is written behind Hibernate's back, so the cached Location entries are
+     * dropped; inside a transaction only after commit, when Hibernate has put its own copy.
+     */
+    private boolean evictAfterUpdate(List<Long> locationIds, boolean updated) {
+        if (!updated) return false;
+        Runnable evict = () -> {
+            jakarta.persistence.Cache cache = entityManagerFactory.getCache();
+            for (Long id : locationIds) cache.evict(Location.class, id);
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    evict.run();
+                }
+            });
+        } else {
+            evict.run();
+        }
+        return true;
+    }
+
+    private static int executeSpatialBatch(Connection conn, String sql, List<Location> locations, boolean wkt)
+            throws SQLException {
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            for (Location l : locations) {
+                if (l.getLatitude() == null || l.getLongitude() == null) continue;
+                if (wkt) {
+                    ps.setString(1, String.format(Locale.ROOT, "POINT(%f %f)", l.getLongitude(), l.getLatitude()));
+                    ps.setLong(2, l.getLocationId());
+                } else {
+                    ps.setDouble(1, l.getLongitude());
+                    ps.setDouble(2, l.getLatitude());
+                    ps.setLong(3, l.getLocationId());
+                }
+                ps.addBatch();
             }
+            int updated = 0;
+            for (int count : ps.executeBatch()) {
+                if (count > 0) updated += count;
+                else if (count == Statement.SUCCESS_NO_INFO) updated++;
+            }
+            return updated;
         }
     }
 
@@ -98,8 +203,9 @@ public class SpatialService {
             ps1.execute();
             ps2.execute();
         } catch (SQLException e) {
-            e.printStackTrace();
+            logger.error("Creating the locations spatial index failed", e);
         }
+        capabilities.recheck();
     }
 
     /**
@@ -109,6 +215,10 @@ public class SpatialService {
         String sql = "SELECT location_id, place_name FROM locations WHERE SDO_INSIDE(spatial_data, SDO_GEOMETRY(?, 8307)) = 'TRUE'";
 
         StringBuilder result = new StringBuilder();
+        if (!capabilities.isAvailable(DatabaseCapabilities.Capability.SPATIAL_INDEX)) {
+            return result.toString();
+        }
+        Timer.Sample sample = HotPathMetrics.start();
         try (Connection conn = dataSource.getConnection();
              PreparedStatement ps = conn.prepareStatement(sql)) {
 
@@ -121,8 +231,10 @@ public class SpatialService {
                           .append("\n");
                 }
             }
+            HotPathMetrics.stopSpatial(sample, "sdo_inside", "native", true);
         } catch (SQLException e) {
-            e.printStackTrace();
+            HotPathMetrics.stopSpatial(sample, "sdo_inside", "native", false);
+            logger.error("SDO_INSIDE polygon query failed", e);
         }
         return result.toString();
     }
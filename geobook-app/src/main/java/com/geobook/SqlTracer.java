@@ -0,0 +1,157 @@
+package com.geobook;
+
+import io.micrometer.common.KeyValue;
+import io.micrometer.observation.Observation;
+import io.micrometer.observation.ObservationRegistry;
+import io.micrometer.tracing.TraceContext;
+import io.micrometer.tracing.handler.TracingObservationHandler;
+import jakarta.servlet.http.HttpServletRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Observes every JDBC statement run through {@link SqlTracingDataSource}: each one
+ * is a {@code geobook.jdbc.statement} observation, which becomes a child span of
+ * the request's span (W3C/OpenTelemetry trace and span ids) and a timer tagged
+ * with the SQL operation and endpoint. Statements whose driver time reaches
+ * {@code geobook.jdbc.slow-threshold-ms} are logged with their request context
+ * and kept in the {@link SlowQueryLog}.
+ */
+@Component
+public class SqlTracer {
+
+    private static final Logger logger = LoggerFactory.getLogger(SqlTracer.class);
+
+    private final ObservationRegistry observationRegistry;
+    private final SlowQueryLog slowQueryLog;
+    private final long slowThresholdNanos;
+
+    public SqlTracer(ObservationRegistry observationRegistry, SlowQueryLog slowQueryLog,
+                     @Value("${geobook.jdbc.slow-threshold-ms:500}") long slowThresholdMs) {
+        this.observationRegistry = observationRegistry;
+        this.slowQueryLog = slowQueryLog;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMs);
+    }
+
+    /**
+     * One execution of a statement, from the execute call until its result set
+     * is exhausted or closed. Only time spent inside the driver is counted.
+     */
+    public final class Execution {
+        private final String sql;
+        private final String binds;
+        private final String endpoint;
+        private final Observation observation;
+        private long busyNanos;
+        private long rows;
+        private boolean finished;
+
+        private Execution(String sql, String binds) {
+            this.sql = sql;
+            this.binds = binds;
+            this.endpoint = HotPathMetrics.endpoint();
+            String operation = operation(sql);
+            this.observation = Observation.createNotStarted("geobook.jdbc.statement", observationRegistry)
+                    .contextualName(operation.toLowerCase(Locale.ROOT))
+                    .lowCardinalityKeyValue("db.operation", operation)
+                    .lowCardinalityKeyValue("endpoint", endpoint)
+                    .highCardinalityKeyValue("db.statement", sql)
+                    .start();
+        }
+
+        void addBusy(long nanos) {
+            busyNanos += nanos;
+        }
+
+        void addRows(long count) {
+            rows += count;
+        }
+
+        void finish(Throwable error) {
+            if (finished) return;
+            finished = true;
+            observation.highCardinalityKeyValue(KeyValue.of("db.rows", String.valueOf(rows)));
+            if (binds != null) {
+                observation.highCardinalityKeyValue(KeyValue.of("db.binds", binds));
+            }
+            if (error != null) {
+                observation.error(error);
+            }
+            observation.stop();
+            if (busyNanos >= slowThresholdNanos) {
+                slow(this);
+            }
+        }
+    }
+
+    public Execution start(String sql, String binds) {
+        return new Execution(sql, binds);
+    }
+
+    private void slow(Execution execution) {
+        TraceContext trace = traceContext(execution.observation);
+        String traceId = trace != null ? trace.traceId() : null;
+        String spanId = trace != null ? trace.spanId() : null;
+        String context = requestContext(execution.endpoint);
+        logger.warn("Slow SQL ({} ms, {} rows) [{}] trace={} span={} binds={}: {}",
+                TimeUnit.NANOSECONDS.toMillis(execution.busyNanos), execution.rows, context,
+                traceId, spanId, execution.binds, execution.sql);
+        slowQueryLog.record(execution.sql, execution.busyNanos, execution.rows, execution.binds, context,
+                traceId, spanId);
+    }
+
+    private static TraceContext traceContext(Observation observation) {
+        TracingObservationHandler.TracingContext tracing =
+                observation.getContext().get(TracingObservationHandler.TracingContext.class);
+        return tracing != null && tracing.getSpan() != null ? tracing.getSpan().context() : null;
+    }
+
+    private static String requestContext(String endpoint) {
+        StringBuilder context = new StringBuilder(endpoint);
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes instanceof ServletRequestAttributes) {
+            HttpServletRequest request = ((ServletRequestAttributes) attributes).getRequest();
+            context.append(" uri=").append(request.getRequestURI());
+        }
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth != null && auth.isAuthenticated()) {
+            context.append(" user=").append(auth.getName());
+        }
+        context.append(" thread=").append(Thread.currentThread().getName());
+        return context.toString();
+    }
+
+    static String operation(String sql) {
+        String trimmed = sql.stripLeading();
+        if (trimmed.startsWith("{")) trimmed = trimmed.substring(1).stripLeading();
+        int end = 0;
+        while (end < trimmed.length() && Character.isLetter(trimmed.charAt(end))) end++;
+        String keyword = trimmed.substring(0, end).toUpperCase(Locale.ROOT);
+        switch (keyword) {
+            case "SELECT":
+            case "WITH":
+                return "SELECT";
+            case "INSERT":
+            case "UPDATE":
+            case "DELETE":
+            case "MERGE":
+            case "CALL":
+                return keyword;
+            case "BEGIN":
+            case "DECLARE":
+                return "PLSQL";
+            default:
+                return "OTHER";
+        }
+    }
+}
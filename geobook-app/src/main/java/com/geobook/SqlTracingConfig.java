@@ -0,0 +1,35 @@
+package com.geobook;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.sql.DataSource;
+
+/**
+ * Puts the {@link SqlTracingDataSource} proxy in front of the application's
+ * {@code dataSource} bean ({@code geobook.jdbc.trace.enabled}, on by default). The
+ * pools behind it keep their own beans, so Hikari metrics and the replica lag
+ * heartbeat are unaffected; with read/write routing, statements sent to replicas
+ * are traced as well.
+ */
+@Configuration
+@ConditionalOnProperty(name = "geobook.jdbc.trace.enabled", havingValue = "true", matchIfMissing = true)
+public class SqlTracingConfig {
+
+    @Bean
+    public static BeanPostProcessor sqlTracingPostProcessor(ObjectProvider<SqlTracer> tracer) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if ("dataSource".equals(beanName) && bean instanceof DataSource
+                        && !(bean instanceof SqlTracingDataSource)) {
+                    return new SqlTracingDataSource((DataSource) bean, tracer.getObject());
+                }
+                return bean;
+            }
+        };
+    }
+}
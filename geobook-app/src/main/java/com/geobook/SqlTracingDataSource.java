@@ -0,0 +1,279 @@
+package com.geobook;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.TreeMap;
+
+/**
+ * JDBC proxy layer: connections, statements and result sets handed out by this
+ * data source are dynamic proxies that report every execution to the
+ * {@link SqlTracer} with its latency, rows fetched or updated and the shape of its
+ * bind parameters (types and lengths, never values). Everything else, including
+ * {@code unwrap} to the Oracle driver interfaces, passes through unchanged.
+ */
+public class SqlTracingDataSource extends DelegatingDataSource {
+
+    private final SqlTracer tracer;
+
+    public SqlTracingDataSource(DataSource target, SqlTracer tracer) {
+        super(target);
+        this.tracer = tracer;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return connection(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return connection(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection connection(Connection target) {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(target));
+    }
+
+    private static Object invoke(Object target, Method method, Object[] args) throws Throwable {
+        try {
+            return method.invoke(target, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private final class ConnectionHandler implements InvocationHandler {
+        private final Connection target;
+        // statements still open, finished when the connection goes back to the pool
+        private final List<StatementHandler> statements = new ArrayList<>();
+
+        ConnectionHandler(Connection target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            switch (name) {
+                case "createStatement":
+                    return statement(Statement.class, (Statement) SqlTracingDataSource.invoke(target, method, args), null);
+                case "prepareStatement":
+                    return statement(PreparedStatement.class,
+                            (Statement) SqlTracingDataSource.invoke(target, method, args), (String) args[0]);
+                case "prepareCall":
+                    return statement(CallableStatement.class,
+                            (Statement) SqlTracingDataSource.invoke(target, method, args), (String) args[0]);
+                case "close":
+                    for (StatementHandler statement : statements) statement.finishPending(null);
+                    statements.clear();
+                    return SqlTracingDataSource.invoke(target, method, args);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Traced " + target;
+                default:
+                    return SqlTracingDataSource.invoke(target, method, args);
+            }
+        }
+
+        private Object statement(Class<? extends Statement> type, Statement statement, String sql) {
+            StatementHandler handler = new StatementHandler(this, statement, sql);
+            statements.add(handler);
+            return Proxy.newProxyInstance(SqlTracingDataSource.class.getClassLoader(), new Class<?>[]{type}, handler);
+        }
+    }
+
+    private final class StatementHandler implements InvocationHandler {
+        private final ConnectionHandler connection;
+        private final Statement target;
+        private final String sql;
+        private final Map<Integer, String> binds = new TreeMap<>();
+        private String batchSql;
+        private int batchSize;
+        private SqlTracer.Execution pending;
+
+        StatementHandler(ConnectionHandler connection, Statement target, String sql) {
+            this.connection = connection;
+            this.target = target;
+            this.sql = sql;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if (name.startsWith("execute")) {
+                return execute(method, args);
+            }
+            switch (name) {
+                case "getResultSet": {
+                    ResultSet rs = (ResultSet) SqlTracingDataSource.invoke(target, method, args);
+                    return rs != null && pending != null ? resultSet(rs, pending) : rs;
+                }
+                case "addBatch":
+                    batchSize++;
+                    if (args != null && batchSql == null) batchSql = (String) args[0];
+                    return SqlTracingDataSource.invoke(target, method, args);
+                case "clearBatch":
+                    batchSize = 0;
+                    batchSql = null;
+                    return SqlTracingDataSource.invoke(target, method, args);
+                case "clearParameters":
+                    binds.clear();
+                    return SqlTracingDataSource.invoke(target, method, args);
+                case "close":
+                    finishPending(null);
+                    connection.statements.remove(this);
+                    return SqlTracingDataSource.invoke(target, method, args);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Traced " + target;
+                default:
+                    if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                        binds.put((Integer) args[0], shape(name, args[1]));
+                    }
+                    return SqlTracingDataSource.invoke(target, method, args);
+            }
+        }
+
+        private Object execute(Method method, Object[] args) throws Throwable {
+            finishPending(null);
+            String text = args != null && args.length > 0 && args[0] instanceof String ? (String) args[0]
+                    : sql != null ? sql : batchSql;
+            boolean batch = method.getName().contains("Batch");
+            SqlTracer.Execution execution = tracer.start(text != null ? text : "?", bindShape(batch));
+            long started = System.nanoTime();
+            Object result;
+            try {
+                result = SqlTracingDataSource.invoke(target, method, args);
+            } catch (Throwable e) {
+                execution.addBusy(System.nanoTime() - started);
+                execution.finish(e);
+                throw e;
+            } finally {
+                if (batch) {
+                    batchSize = 0;
+                    batchSql = null;
+                }
+            }
+            execution.addBusy(System.nanoTime() - started);
+            if (result instanceof ResultSet) {
+                pending = execution;
+                return resultSet((ResultSet) result, execution);
+            }
+            if (Boolean.TRUE.equals(result)) {
+                // execute() with a result set to follow: finished by getResultSet's proxy or close
+                pending = execution;
+                return result;
+            }
+            execution.addRows(updateCount(result));
+            execution.finish(null);
+            return result;
+        }
+
+        void finishPending(Throwable error) {
+            if (pending != null) {
+                pending.finish(error);
+                pending = null;
+            }
+        }
+
+        private String bindShape(boolean batch) {
+            if (binds.isEmpty() && !batch) return null;
+            StringJoiner joiner = new StringJoiner(", ", "[", "]");
+            binds.values().forEach(joiner::add);
+            String shape = joiner.toString();
+            return batch ? shape + " x" + batchSize : shape;
+        }
+
+        private Object resultSet(ResultSet rs, SqlTracer.Execution execution) {
+            return Proxy.newProxyInstance(SqlTracingDataSource.class.getClassLoader(), new Class<?>[]{ResultSet.class},
+                    new ResultSetHandler(rs, execution));
+        }
+    }
+
+    private static final class ResultSetHandler implements InvocationHandler {
+        private final ResultSet target;
+        private final SqlTracer.Execution execution;
+
+        ResultSetHandler(ResultSet target, SqlTracer.Execution execution) {
+            this.target = target;
+            this.execution = execution;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "next": {
+                    long started = System.nanoTime();
+                    boolean more;
+                    try {
+                        more = (Boolean) SqlTracingDataSource.invoke(target, method, args);
+                    } catch (Throwable e) {
+                        execution.addBusy(System.nanoTime() - started);
+                        execution.finish(e);
+                        throw e;
+                    }
+                    execution.addBusy(System.nanoTime() - started);
+                    if (more) {
+                        execution.addRows(1);
+                    } else {
+                        execution.finish(null);
+                    }
+                    return more;
+                }
+                case "close":
+                    execution.finish(null);
+                    return SqlTracingDataSource.invoke(target, method, args);
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                default:
+                    return SqlTracingDataSource.invoke(target, method, args);
+            }
+        }
+    }
+
+    private static long updateCount(Object result) {
+        if (result instanceof Number) return Math.max(0, ((Number) result).longValue());
+        long total = 0;
+        if (result instanceof int[]) {
+            for (int count : (int[]) result) total += Math.max(0, count);
+        } else if (result instanceof long[]) {
+            for (long count : (long[]) result) total += Math.max(0, count);
+        }
+        return total;
+    }
+
+    /**
+     * Type and size of a bind value, e.g. {@code String(48)} or {@code Bytes[40960]}.
+     */
+    static String shape(String setter, Object value) {
+        if ("setNull".equals(setter) || value == null) return "null";
+        String type = "setObject".equals(setter) ? value.getClass().getSimpleName() : setter.substring(3);
+        if (value instanceof CharSequence) return type + "(" + ((CharSequence) value).length() + ")";
+        if (value instanceof byte[]) return type + "[" + ((byte[]) value).length + "]";
+        return type;
+    }
+}
@@ -0,0 +1,507 @@
+package com.geobook;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Fills the database with a production-sized synthetic dataset
+ * ({@code geobook.datagen.enabled}): books with a varying number of chapters,
+ * clustered locations spread over the chapters, polygons, linestrings, circles,
+ * rectangles and points, and photos with stored images, thumbnails and
+ * descriptors. Everything follows from {@code geobook.datagen.seed} (see
+ * {@link SyntheticWorld}). Rows go in as JDBC batches of {@code batch-size}, one
+ * transaction per batch, with ids drawn from the same pooled sequences Hibernate
+ * uses, so it works on H2 and Oracle alike and the application keeps allocating
+ * ids afterwards without collisions.
+ * <p>
+ * Runs before the search and similarity indexes load, so they include the new
+ * rows. Progress is kept in {@code datagen_runs}, one row per table with the
+ * first and last generated id, the last one advanced in the same transaction as
+ * each batch. A finished run is marked complete and later starts skip
+ * generation; a run that did not finish is removed by those id ranges on the
+ * next start and generated again. Content of removed photos is left to
+ * {@link MediaGcService}.
+ */
+@Component
+@ConditionalOnProperty(name = "geobook.datagen.enabled", havingValue = "true")
+public class SyntheticDataGenerator implements ApplicationRunner {
+
+    private static final Logger logger = LoggerFactory.getLogger(SyntheticDataGenerator.class);
+
+    // INCREMENT BY of the *_seq sequences and allocationSize of the entities (pooled-lo)
+    static final int ID_BLOCK = 50;
+    private static final int IMAGE_WIDTH = 1024;
+    private static final int IMAGE_HEIGHT = 768;
+    // photos wait on disk until their rows are in, as the ORDImage store writes into the row
+    private static final int PHOTO_BATCH = 50;
+    // child tables first, for removing an interrupted run
+    private static final String[][] TABLES = {
+            {"multimedia", "multimedia_id"}, {"spatial_entities", "entity_id"}, {"locations", "location_id"},
+            {"chapters", "chapter_id"}, {"books", "book_id"}};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final DatabaseCapabilities capabilities;
+    private final MediaStore mediaStore;
+    private final RenditionService renditionService;
+    private final ImageDescriptorExtractor descriptorExtractor;
+    private final EntityManagerFactory entityManagerFactory;
+    private final TableStatsService tableStats;
+    private final StartupTimings startupTimings;
+
+    private final long seed;
+    private final int books;
+    private final int chaptersPerBook;
+    private final int locations;
+    private final int clusters;
+    private final int entities;
+    private final int images;
+    private final int batchSize;
+
+    public SyntheticDataGenerator(JdbcTemplate jdbcTemplate, TransactionTemplate transactionTemplate,
+                                  DatabaseCapabilities capabilities, MediaStore mediaStore,
+                                  RenditionService renditionService, ImageDescriptorExtractor descriptorExtractor,
+                                  EntityManagerFactory entityManagerFactory, TableStatsService tableStats,
+                                  StartupTimings startupTimings,
+                                  @Value("${geobook.datagen.seed:42}") long seed,
+                                  @Value("${geobook.datagen.books:1000}") int books,
+                                  @Value("${geobook.datagen.chapters-per-book:20}") int chaptersPerBook,
+                                  @Value("${geobook.datagen.locations:1000000}") int locations,
+                                  @Value("${geobook.datagen.clusters:2000}") int clusters,
+                                  @Value("${geobook.datagen.entities:30000}") int entities,
+                                  @Value("${geobook.datagen.images:500}") int images,
+                                  @Value("${geobook.datagen.batch-size:1000}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.capabilities = capabilities;
+        this.mediaStore = mediaStore;
+        this.renditionService = renditionService;
+        this.descriptorExtractor = descriptorExtractor;
+        this.entityManagerFactory = entityManagerFactory;
+        this.tableStats = tableStats;
+        this.startupTimings = startupTimings;
+        this.seed = seed;
+        this.books = books;
+        this.chaptersPerBook = Math.max(1, chaptersPerBook);
+        this.locations = locations;
+        this.clusters = Math.max(1, clusters);
+        this.entities = entities;
+        this.images = images;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws Exception {
+        ensureTable();
+        List<Map<String, Object>> runs = jdbcTemplate.queryForList(
+                "SELECT table_name, seed, first_id, last_id, completed_at FROM datagen_runs");
+        if (!runs.isEmpty() && runs.stream().allMatch(r -> r.get("completed_at") != null)) {
+            logger.info("Synthetic dataset (seed {}) already generated, generation skipped", runs.get(0).get("seed"));
+            return;
+        }
+        long started = System.currentTimeMillis();
+        if (!runs.isEmpty()) {
+            removeInterrupted(runs);
+        }
+        SyntheticWorld world = new SyntheticWorld(seed, clusters);
+        Catalog catalog = generateCatalog(world);
+        PhotoSites sites = generateLocations(world, catalog);
+        generateEntities(world, catalog);
+        generatePhotos(world, sites);
+        transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+                "UPDATE datagen_runs SET completed_at = ?", Timestamp.valueOf(LocalDateTime.now())));
+
+        // rows were written behind Hibernate's back
+        entityManagerFactory.getCache().evictAll();
+        tableStats.refresh();
+        long took = System.currentTimeMillis() - started;
+        startupTimings.record("datagen", took);
+        logger.info("Synthetic dataset (seed {}) generated in {} ms", seed, took);
+    }
+
+    // --- progress ---
+
+    private void ensureTable() {
+        try {
+            jdbcTemplate.queryForObject("SELECT COUNT(*) FROM datagen_runs", Long.class);
+        } catch (DataAccessException missing) {
+            // schema-h2.sql and the V3 migration create it; the create-drop dev schema does not
+            jdbcTemplate.execute("CREATE TABLE datagen_runs (table_name VARCHAR2(30) PRIMARY KEY, "
+                    + "seed NUMBER(19) NOT NULL, first_id NUMBER(19) NOT NULL, last_id NUMBER(19), completed_at TIMESTAMP)");
+        }
+    }
+
+    /** Delete what an unfinished run inserted, table by table, children first. */
+    private void removeInterrupted(List<Map<String, Object>> runs) {
+        for (String[] table : TABLES) {
+            Map<String, Object> run = runs.stream()
+                    .filter(r -> table[0].equalsIgnoreCase(String.valueOf(r.get("table_name"))))
+                    .findFirst().orElse(null);
+            if (run == null) continue;
+            Number first = (Number) run.get("first_id");
+            Number last = (Number) run.get("last_id");
+            int removed = transactionTemplate.execute(status -> {
+                int rows = last == null ? 0 : jdbcTemplate.update("DELETE FROM " + table[0] + " WHERE "
+                        + table[1] + " BETWEEN ? AND ?", first.longValue(), last.longValue());
+                jdbcTemplate.update("DELETE FROM datagen_runs WHERE table_name = ?", table[0]);
+                return rows;
+            });
+            logger.info("Removed {} {} rows of an interrupted synthetic data run (seed {})", removed, table[0],
+                    run.get("seed"));
+        }
+        jdbcTemplate.update("DELETE FROM datagen_runs");
+    }
+
+    // --- books and chapters ---
+
+    /** Generated chapters with the clusters their book is set in. */
+    private static final class Catalog {
+        final List<Long> chapterIds = new ArrayList<>();
+        final List<int[]> chapterClusters = new ArrayList<>();
+    }
+
+    private Catalog generateCatalog(SyntheticWorld world) {
+        Random random = world.stream("catalog");
+        Catalog catalog = new Catalog();
+        IdBlock bookIds = new IdBlock("books", "books_seq");
+        IdBlock chapterIds = new IdBlock("chapters", "chapters_seq");
+        Batch bookRows = new Batch("books", "INSERT INTO books (book_id, title, author, isbn, description) VALUES (?, ?, ?, ?, ?)",
+                Types.NUMERIC, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.CLOB);
+        Batch chapterRows = new Batch("chapters", "INSERT INTO chapters (chapter_id, book_id, chapter_number, title, location_description) "
+                + "VALUES (?, ?, ?, ?, ?)", Types.NUMERIC, Types.NUMERIC, Types.NUMERIC, Types.VARCHAR, Types.CLOB);
+
+        for (int b = 0; b < books; b++) {
+            long bookId = bookIds.next();
+            // a book is set in one to three places, popular ones more often
+            int[] setting = new int[1 + random.nextInt(3)];
+            for (int i = 0; i < setting.length; i++) setting[i] = world.pickCluster(random);
+            bookRows.add(bookId, SyntheticWorld.title(random, 2 + random.nextInt(3)),
+                    SyntheticWorld.name(random, 2) + " " + SyntheticWorld.name(random, 3),
+                    String.format(Locale.ROOT, "978%010d", bookId), SyntheticWorld.words(random, 20 + random.nextInt(60)));
+            int chapters = 1 + random.nextInt(2 * chaptersPerBook - 1);
+            for (int c = 1; c <= chapters; c++) {
+                long chapterId = chapterIds.next();
+                String place = world.clusterName(setting[random.nextInt(setting.length)]);
+                chapterRows.add(chapterId, bookId, c, "Chapter " + c + ": " + SyntheticWorld.title(random, 1 + random.nextInt(3)),
+                        "In " + place + ", " + SyntheticWorld.words(random, 10 + random.nextInt(40)));
+                catalog.chapterIds.add(chapterId);
+                catalog.chapterClusters.add(setting);
+            }
+            // books go first: each batch commits on its own and chapters reference them
+            if (chapterRows.size() >= batchSize) {
+                bookRows.flush();
+                chapterRows.flush();
+            }
+        }
+        bookRows.flush();
+        chapterRows.flush();
+        logger.info("Generated {} books and {} chapters", bookRows.total, chapterRows.total);
+        return catalog;
+    }
+
+    // --- locations ---
+
+    /** Every n-th location, where generated photos are taken. */
+    private static final class PhotoSites {
+        final long[] ids;
+        final double[] latitudes;
+        final double[] longitudes;
+        int count;
+
+        PhotoSites(int capacity) {
+            ids = new long[capacity];
+            latitudes = new double[capacity];
+            longitudes = new double[capacity];
+        }
+    }
+
+    private PhotoSites generateLocations(SyntheticWorld world, Catalog catalog) {
+        Random random = world.stream("locations");
+        int chapters = catalog.chapterIds.size();
+        // uneven spread over chapters: exponential weights, rounded so the total is exact
+        double[] weights = new double[chapters];
+        double sum = 0;
+        for (int i = 0; i < chapters; i++) {
+            weights[i] = -Math.log(1 - random.nextDouble());
+            sum += weights[i];
+        }
+
+        boolean spatial = capabilities.isAvailable(DatabaseCapabilities.Capability.SPATIAL);
+        Batch rows = spatial
+                ? new Batch("locations", "INSERT INTO locations (location_id, chapter_id, latitude, longitude, place_name, spatial_data) "
+                        + "VALUES (?, ?, ?, ?, ?, MDSYS.SDO_GEOMETRY(2001, 8307, MDSYS.SDO_POINT_TYPE(?, ?, NULL), NULL, NULL))",
+                        Types.NUMERIC, Types.NUMERIC, Types.DOUBLE, Types.DOUBLE, Types.VARCHAR, Types.DOUBLE, Types.DOUBLE)
+                // without Oracle Spatial, spatial_data stays NULL; the fallbacks use latitude/longitude
+                : new Batch("locations", "INSERT INTO locations (location_id, chapter_id, latitude, longitude, place_name) "
+                        + "VALUES (?, ?, ?, ?, ?)", Types.NUMERIC, Types.NUMERIC, Types.DOUBLE, Types.DOUBLE, Types.VARCHAR);
+        IdBlock ids = new IdBlock("locations", "locations_seq");
+        PhotoSites sites = new PhotoSites(Math.max(0, Math.min(images, locations)));
+        int photoEvery = sites.ids.length == 0 ? Integer.MAX_VALUE : Math.max(1, locations / sites.ids.length);
+
+        double cumulative = 0;
+        long assigned = 0;
+        for (int c = 0; c < chapters && assigned < locations; c++) {
+            cumulative += weights[c];
+            long upTo = c == chapters - 1 ? locations : Math.round(locations * cumulative / sum);
+            int[] setting = catalog.chapterClusters.get(c);
+            for (; assigned < upTo; assigned++) {
+                // mostly where the book is set, sometimes anywhere
+                int cluster = random.nextDouble() < 0.85 ? setting[random.nextInt(setting.length)] : world.pickCluster(random);
+                double[] p = world.point(random, cluster);
+                long id = ids.next();
+                String name = world.clusterName(cluster) + " " + SyntheticWorld.words(random, 1) + " " + (assigned + 1);
+                if (spatial) {
+                    rows.add(id, catalog.chapterIds.get(c), p[0], p[1], name, p[1], p[0]);
+                } else {
+                    rows.add(id, catalog.chapterIds.get(c), p[0], p[1], name);
+                }
+                rows.flushIfFull();
+                if (assigned % photoEvery == 0 && sites.count < sites.ids.length) {
+                    sites.ids[sites.count] = id;
+                    sites.latitudes[sites.count] = p[0];
+                    sites.longitudes[sites.count] = p[1];
+                    sites.count++;
+                }
+            }
+        }
+        rows.flush();
+        logger.info("Generated {} locations in {} clusters{}", rows.total, clusters,
+                spatial ? " with SDO_GEOMETRY" : "");
+        return sites;
+    }
+
+    // --- spatial entities ---
+
+    private void generateEntities(SyntheticWorld world, Catalog catalog) {
+        Random random = world.stream("entities");
+        IdBlock ids = new IdBlock("spatial_entities", "spatial_entities_seq");
+        Batch rows = new Batch("spatial_entities", "INSERT INTO spatial_entities (entity_id, name, entity_type, geometry, description, color, "
+                + "created_date, updated_date, chapter_id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                Types.NUMERIC, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR, Types.VARCHAR,
+                Types.TIMESTAMP, Types.TIMESTAMP, Types.NUMERIC);
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        for (int i = 0; i < entities; i++) {
+            int cluster = world.pickCluster(random);
+            double[] centre = world.point(random, cluster);
+            double u = random.nextDouble();
+            SpatialEntity.SpatialEntityType type;
+            String geometry;
+            if (u < 0.40) {
+                type = SpatialEntity.SpatialEntityType.POLYGON;
+                geometry = SyntheticWorld.polygon(random, centre[0], centre[1], 0.2 + 5 * random.nextDouble());
+            } else if (u < 0.70) {
+                type = SpatialEntity.SpatialEntityType.LINESTRING;
+                geometry = SyntheticWorld.lineString(random, centre[0], centre[1], 0.1 + 2 * random.nextDouble());
+            } else if (u < 0.90) {
+                type = SpatialEntity.SpatialEntityType.CIRCLE;
+                geometry = SyntheticWorld.circle(centre[0], centre[1], 0.1 + 3 * random.nextDouble());
+            } else if (u < 0.95) {
+                type = SpatialEntity.SpatialEntityType.RECTANGLE;
+                geometry = SyntheticWorld.rectangle(centre[0], centre[1], 0.1 + 2 * random.nextDouble());
+            } else {
+                type = SpatialEntity.SpatialEntityType.POINT;
+                geometry = SyntheticWorld.point(centre[0], centre[1]);
+            }
+            Long chapterId = random.nextDouble() < 0.7
+                    ? catalog.chapterIds.get(random.nextInt(catalog.chapterIds.size())) : null;
+            rows.add(ids.next(), world.clusterName(cluster) + " " + SyntheticWorld.words(random, 1),
+                    type.name(), geometry, SyntheticWorld.words(random, 5 + random.nextInt(15)),
+                    String.format(Locale.ROOT, "#%06x", random.nextInt(0x1000000)), now, now, chapterId);
+            rows.flushIfFull();
+        }
+        rows.flush();
+        logger.info("Generated {} spatial entities", rows.total);
+    }
+
+    // --- photos ---
+
+    private void generatePhotos(SyntheticWorld world, PhotoSites sites) throws Exception {
+        if (sites.count == 0) return;
+        Random random = world.stream("photos");
+        IdBlock ids = new IdBlock("multimedia", "multimedia_seq");
+        Batch rows = new Batch("multimedia", "INSERT INTO multimedia (multimedia_id, location_id, file_type, file_path, description, "
+                + "upload_date, is_active, thumbnail_path, feature_ac, feature_ch, feature_pc, feature_tx, captured_at, "
+                + "gps_latitude, gps_longitude, image_width, image_height) "
+                + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)",
+                Types.NUMERIC, Types.NUMERIC, Types.VARCHAR, Types.VARCHAR, Types.CLOB, Types.DATE, Types.CHAR,
+                Types.VARCHAR, Types.VARBINARY, Types.VARBINARY, Types.VARBINARY, Types.VARBINARY, Types.TIMESTAMP,
+                Types.DOUBLE, Types.DOUBLE, Types.NUMERIC, Types.NUMERIC);
+        Path dir = Files.createTempDirectory("synthetic_");
+        List<String> pending = new ArrayList<>();
+        try {
+            for (int i = 0; i < sites.count; i++) {
+                BufferedImage image = photo(random);
+                String name = "synthetic_" + seed + "_" + i + ".jpg";
+                ImageIO.write(image, "jpg", dir.resolve(name).toFile());
+                pending.add(name);
+                ImageDescriptors descriptors = descriptorExtractor.extract(image);
+                double[] taken = SyntheticWorld.offset(sites.latitudes[i], sites.longitudes[i],
+                        0.2 * random.nextGaussian(), 0.2 * random.nextGaussian());
+                LocalDateTime capturedAt = LocalDateTime.of(2019, 1, 1, 0, 0).plusMinutes(random.nextInt(5 * 365 * 24 * 60));
+                rows.add(ids.next(), sites.ids[i], "image/jpeg", "/images/" + name,
+                        "Photo of " + SyntheticWorld.words(random, 3 + random.nextInt(8)),
+                        java.sql.Date.valueOf(LocalDate.now()), "Y", "/thumbnails/" + name,
+                        ImageDescriptors.encode(descriptors.getAverageColor()),
+                        ImageDescriptors.encode(descriptors.getColorHistogram()),
+                        ImageDescriptors.encode(descriptors.getPositionalColor()),
+                        ImageDescriptors.encode(descriptors.getTexture()),
+                        Timestamp.valueOf(capturedAt), taken[0], taken[1], IMAGE_WIDTH, IMAGE_HEIGHT);
+                if (pending.size() >= Math.min(batchSize, PHOTO_BATCH)) {
+                    storePhotos(rows, dir, pending);
+                }
+            }
+            storePhotos(rows, dir, pending);
+        } finally {
+            for (String name : pending) {
+                Files.deleteIfExists(dir.resolve(name));
+            }
+            Files.deleteIfExists(dir);
+        }
+        logger.info("Generated {} photos in the {} media store", rows.total, mediaStore.name());
+    }
+
+    /** Insert the pending rows, then store each image and its thumbnail. */
+    private void storePhotos(Batch rows, Path dir, List<String> pending) throws Exception {
+        rows.flush();
+        for (String name : pending) {
+            Path file = dir.resolve(name);
+            mediaStore.put("images/" + name, file);
+            renditionService.writeThumbnail(file, "thumbnails/" + name);
+            Files.delete(file);
+        }
+        pending.clear();
+    }
+
+    /**
+     * Sky over ground with shapes and grain: varied colours and texture, so the
+     * descriptors spread out and JPEGs have photo-like sizes.
+     */
+    private static BufferedImage photo(Random random) {
+        BufferedImage image = new BufferedImage(IMAGE_WIDTH, IMAGE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = image.createGraphics();
+        int horizon = IMAGE_HEIGHT / 3 + random.nextInt(IMAGE_HEIGHT / 3);
+        g.setPaint(new GradientPaint(0, 0, color(random), 0, horizon, color(random)));
+        g.fillRect(0, 0, IMAGE_WIDTH, horizon);
+        g.setPaint(new GradientPaint(0, horizon, color(random), 0, IMAGE_HEIGHT, color(random)));
+        g.fillRect(0, horizon, IMAGE_WIDTH, IMAGE_HEIGHT - horizon);
+        for (int i = 0, n = 10 + random.nextInt(40); i < n; i++) {
+            g.setColor(color(random));
+            int w = 10 + random.nextInt(IMAGE_WIDTH / 4);
+            int h = 10 + random.nextInt(IMAGE_HEIGHT / 3);
+            int x = random.nextInt(IMAGE_WIDTH);
+            int y = horizon - h + random.nextInt(IMAGE_HEIGHT - horizon + h);
+            if (random.nextBoolean()) g.fillRect(x, y, w, h); else g.fillOval(x, y, w, h);
+        }
+        g.dispose();
+        for (int y = 0; y < IMAGE_HEIGHT; y += 2) {
+            for (int x = 0; x < IMAGE_WIDTH; x += 2) {
+                image.setRGB(x, y, image.getRGB(x, y) ^ (random.nextInt(16) * 0x010101));
+            }
+        }
+        return image;
+    }
+
+    private static Color color(Random random) {
+        return new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+    }
+
+    /**
+     * Ids from a pooled sequence: each NEXTVAL reserves itself and the following
+     * {@link #ID_BLOCK} - 1 values, as Hibernate's pooled-lo optimizer does. The
+     * first id is recorded in datagen_runs before any row of the table is written.
+     */
+    private final class IdBlock {
+        private final String table;
+        private final String sequence;
+        private long next;
+        private int remaining;
+        private boolean recorded;
+
+        IdBlock(String table, String sequence) {
+            this.table = table;
+            this.sequence = sequence;
+        }
+
+        long next() {
+            if (remaining == 0) {
+                Long value = jdbcTemplate.queryForObject("SELECT " + sequence + ".NEXTVAL FROM dual", Long.class);
+                next = value != null ? value : 0;
+                remaining = ID_BLOCK;
+                if (!recorded) {
+                    jdbcTemplate.update("INSERT INTO datagen_runs (table_name, seed, first_id) VALUES (?, ?, ?)",
+                            table, seed, next);
+                    recorded = true;
+                }
+            }
+            remaining--;
+            return next++;
+        }
+    }
+
+    /**
+     * Rows for one INSERT, sent as a JDBC batch in its own transaction together
+     * with the table's last id in datagen_runs. The first value of a row is its id.
+     */
+    private final class Batch {
+        private final String table;
+        private final String sql;
+        private final int[] types;
+        private final List<Object[]> rows = new ArrayList<>();
+        long total;
+
+        Batch(String table, String sql, int... types) {
+            this.table = table;
+            this.sql = sql;
+            this.types = types;
+        }
+
+        void add(Object... row) {
+            rows.add(row);
+        }
+
+        int size() {
+            return rows.size();
+        }
+
+        void flushIfFull() {
+            if (rows.size() >= batchSize) flush();
+        }
+
+        void flush() {
+            if (rows.isEmpty()) return;
+            Object lastId = rows.get(rows.size() - 1)[0];
+            transactionTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.batchUpdate(sql, rows, types);
+                jdbcTemplate.update("UPDATE datagen_runs SET last_id = ? WHERE table_name = ?", lastId, table);
+            });
+            total += rows.size();
+            rows.clear();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.geobook;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Seeded model behind {@link SyntheticDataGenerator}: a world of place clusters
+ * (towns and cities) with Zipf-distributed popularity, so a few clusters hold
+ * most of the points the way real geotagged data does, plus names, text and
+ * geometries. Each kind of data draws from its own stream derived from the seed,
+ * so the same seed gives the same rows and changing one count does not reshuffle
+ * the others.
+ */
+final class SyntheticWorld {
+
+    private static final double KM_PER_DEGREE = 111.32;
+    // share of points scattered outside any cluster
+    private static final double BACKGROUND = 0.03;
+
+    private static final String[] SYLLABLES = {
+            "al", "an", "ar", "bel", "bor", "ca", "dor", "el", "en", "fen", "gar", "ha", "is", "kar", "la",
+            "lin", "mar", "mon", "nor", "os", "par", "ra", "ros", "sal", "sen", "ta", "tor", "ul", "va", "wen"};
+    private static final String[] WORDS = {
+            "river", "harbour", "mountain", "journey", "night", "road", "garden", "winter", "letter", "island",
+            "bridge", "market", "storm", "house", "forest", "station", "silence", "map", "border", "summer",
+            "cathedral", "valley", "lighthouse", "desert", "square", "promise", "voyage", "shadow", "coast", "city"};
+
+    private final long seed;
+    private final double[] clusterLat;
+    private final double[] clusterLng;
+    private final double[] clusterRadiusKm;
+    private final String[] clusterName;
+    // cumulative Zipf weights for picking a cluster
+    private final double[] cumulative;
+
+    SyntheticWorld(long seed, int clusters) {
+        this.seed = seed;
+        Random random = stream("clusters");
+        clusterLat = new double[clusters];
+        clusterLng = new double[clusters];
+        clusterRadiusKm = new double[clusters];
+        clusterName = new String[clusters];
+        cumulative = new double[clusters];
+        double total = 0;
+        for (int i = 0; i < clusters; i++) {
+            // mostly northern mid-latitudes, some southern, none near the poles
+            double lat = random.nextDouble() < 0.8 ? 35 + 15 * random.nextGaussian() : -(15 + 12 * Math.abs(random.nextGaussian()));
+            clusterLat[i] = Math.max(-55, Math.min(70, lat));
+            clusterLng[i] = -180 + 360 * random.nextDouble();
+            double weight = 1 / Math.pow(i + 1, 1.1);
+            // popular clusters are the big cities: wider spread
+            double radius = Math.exp(Math.log(6) + 0.7 * random.nextGaussian()) * (1 + 3 * Math.sqrt(weight));
+            clusterRadiusKm[i] = Math.max(0.5, Math.min(150, radius));
+            clusterName[i] = name(random, 2 + random.nextInt(2));
+            total += weight;
+            cumulative[i] = total;
+        }
+        for (int i = 0; i < clusters; i++) cumulative[i] /= total;
+    }
+
+    /**
+     * An independent random stream for one kind of data.
+     */
+    Random stream(String purpose) {
+        return new Random(seed * 31 + purpose.hashCode());
+    }
+
+    int clusters() {
+        return cumulative.length;
+    }
+
+    /** A cluster picked by popularity. */
+    int pickCluster(Random random) {
+        int index = Arrays.binarySearch(cumulative, random.nextDouble());
+        return Math.min(index >= 0 ? index : -index - 1, cumulative.length - 1);
+    }
+
+    String clusterName(int cluster) {
+        return clusterName[cluster];
+    }
+
+    /**
+     * A point around the cluster centre, normally distributed with the cluster's
+     * radius, or anywhere in the inhabited latitudes for background points;
+     * {@code [latitude, longitude]}.
+     */
+    double[] point(Random random, int cluster) {
+        if (random.nextDouble() < BACKGROUND) {
+            return new double[]{-55 + 125 * random.nextDouble(), -180 + 360 * random.nextDouble()};
+        }
+        return offset(clusterLat[cluster], clusterLng[cluster],
+                random.nextGaussian() * clusterRadiusKm[cluster], random.nextGaussian() * clusterRadiusKm[cluster]);
+    }
+
+    static double[] offset(double lat, double lng, double northKm, double eastKm) {
+        double newLat = Math.max(-89.9, Math.min(89.9, lat + northKm / KM_PER_DEGREE));
+        double newLng = lng + eastKm / (KM_PER_DEGREE * Math.max(0.05, Math.cos(Math.toRadians(newLat))));
+        if (newLng >= 180) newLng -= 360;
+        if (newLng < -180) newLng += 360;
+        return new double[]{newLat, newLng};
+    }
+
+    static String name(Random random, int syllables) {
+        StringBuilder name = new StringBuilder();
+        for (int i = 0; i < syllables; i++) name.append(SYLLABLES[random.nextInt(SYLLABLES.length)]);
+        name.setCharAt(0, Character.toUpperCase(name.charAt(0)));
+        return name.toString();
+    }
+
+    /**
+     * {@code count} words with a skewed frequency, so full-text search sees common
+     * and rare terms.
+     */
+    static String words(Random random, int count) {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            if (i > 0) text.append(' ');
+            double u = random.nextDouble();
+            text.append(WORDS[(int) (WORDS.length * u * u)]);
+        }
+        return text.toString();
+    }
+
+    static String title(Random random, int words) {
+        String text = words(random, words);
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+
+    // --- geometries, in the SDO_GEOMETRY text form the map page creates (SRID 8307) ---
+
+    static String point(double lat, double lng) {
+        return String.format(Locale.ROOT, "SDO_GEOMETRY(2001, 8307, SDO_POINT_TYPE(%.6f, %.6f, NULL), NULL, NULL)",
+                lng, lat);
+    }
+
+    /** Star-shaped polygon of 5 to 24 vertices around the centre, closed. */
+    static String polygon(Random random, double lat, double lng, double radiusKm) {
+        int vertices = 5 + random.nextInt(20);
+        double[] ordinates = new double[(vertices + 1) * 2];
+        for (int i = 0; i < vertices; i++) {
+            double angle = 2 * Math.PI * i / vertices;
+            double r = radiusKm * (0.5 + 0.5 * random.nextDouble());
+            double[] p = offset(lat, lng, r * Math.sin(angle), r * Math.cos(angle));
+            ordinates[2 * i] = p[1];
+            ordinates[2 * i + 1] = p[0];
+        }
+        ordinates[2 * vertices] = ordinates[0];
+        ordinates[2 * vertices + 1] = ordinates[1];
+        return sdo("2003", "1,1003,1", ordinates);
+    }
+
+    /** Random walk of 3 to 40 vertices, like a road or route. */
+    static String lineString(Random random, double lat, double lng, double stepKm) {
+        int vertices = 3 + random.nextInt(38);
+        double[] ordinates = new double[vertices * 2];
+        double heading = 2 * Math.PI * random.nextDouble();
+        double[] p = {lat, lng};
+        for (int i = 0; i < vertices; i++) {
+            ordinates[2 * i] = p[1];
+            ordinates[2 * i + 1] = p[0];
+            heading += 0.6 * random.nextGaussian();
+            double step = stepKm * (0.3 + random.nextDouble());
+            p = offset(p[0], p[1], step * Math.sin(heading), step * Math.cos(heading));
+        }
+        return sdo("2002", "1,2,1", ordinates);
+    }
+
+    /** Circle as three points on its boundary (SDO element 1003,4). */
+    static String circle(double lat, double lng, double radiusKm) {
+        double[] east = offset(lat, lng, 0, radiusKm);
+        double[] north = offset(lat, lng, radiusKm, 0);
+        double[] west = offset(lat, lng, 0, -radiusKm);
+        return sdo("2003", "1,1003,4", new double[]{east[1], east[0], north[1], north[0], west[1], west[0]});
+    }
+
+    /** Axis-aligned rectangle by its corners (SDO element 1003,3). */
+    static String rectangle(double lat, double lng, double halfKm) {
+        double[] min = offset(lat, lng, -halfKm, -halfKm);
+        double[] max = offset(lat, lng, halfKm, halfKm);
+        return sdo("2003", "1,1003,3", new double[]{min[1], min[0], max[1], max[0]});
+    }
+
+    private static String sdo(String gtype, String elemInfo, double[] ordinates) {
+        StringBuilder text = new StringBuilder("SDO_GEOMETRY(").append(gtype)
+                .append(", 8307, NULL, SDO_ELEM_INFO_ARRAY(").append(elemInfo).append("), SDO_ORDINATE_ARRAY(");
+        for (int i = 0; i < ordinates.length; i++) {
+            if (i > 0) text.append(", ");
+            text.append(String.format(Locale.ROOT, "%.6f", ordinates[i]));
+        }
+        return text.append("))").toString();
+    }
+}
@@ -0,0 +1,54 @@
+package com.geobook;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Row counts for the listing pages, refreshed in the background so that rendering
+ * a page never runs COUNT(*) over a growing table.
+ */
+@Service
+public class TableStatsService {
+
+    private static final Logger logger = LoggerFactory.getLogger(TableStatsService.class);
+
+    public static final String BOOKS = "books";
+    public static final String LOCATIONS = "locations";
+    public static final String MULTIMEDIA = "multimedia";
+
+    private final Map<String, LongSupplier> counters;
+    private final Map<String, Long> counts = new ConcurrentHashMap<>();
+
+    public TableStatsService(BookRepository bookRepository,
+                             LocationRepository locationRepository,
+                             MultimediaRepository multimediaRepository) {
+        this.counters = Map.of(
+                BOOKS, bookRepository::count,
+                LOCATIONS, locationRepository::count,
+                MULTIMEDIA, multimediaRepository::count);
+    }
+
+    /**
+     * Cached row count; computed on first use, then refreshed on a schedule.
+     */
+    public long count(String table) {
+        return counts.computeIfAbsent(table, t -> counters.get(t).getAsLong());
+    }
+
+    @Scheduled(fixedDelayString = "${geobook.listing.count-refresh-ms:60000}")
+    public void refresh() {
+        counters.forEach((table, counter) -> {
+            try {
+                counts.put(table, counter.getAsLong());
+            } catch (Exception e) {
+                logger.warn("Failed to refresh row count for {}: {}", table, e.getMessage());
+            }
+        });
+    }
+}
@@ -0,0 +1,163 @@
+package com.geobook;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Resumable chunked upload protocol for large media:
+ * POST /multimedia/uploads (init) → PUT /multimedia/uploads/{id}?offset=N (raw chunk body)
+ * → POST /multimedia/uploads/{id}/complete. HEAD/GET returns the acknowledged offset.
+ * POST /multimedia/uploads/geotag ingests a zip or folder of photos by their GPS position.
+ * Every call but the chunk PUT needs the {@code X-CSRF-TOKEN} header.
+ */
+@Controller
+@RequestMapping("/multimedia/uploads")
+public class UploadController {
+
+    private static final String OFFSET_HEADER = "Upload-Offset";
+
+    private final ChunkedUploadService uploadService;
+    private final GeotagBatchService geotagBatchService;
+
+    public UploadController(ChunkedUploadService uploadService, GeotagBatchService geotagBatchService) {
+        this.uploadService = uploadService;
+        this.geotagBatchService = geotagBatchService;
+    }
+
+    @PostMapping
+    @ResponseBody
+    public ResponseEntity<?> init(@RequestParam String filename,
+                                  @RequestParam long size,
+                                  @RequestParam String sha256,
+                                  @RequestParam(required = false) Long locationId,
+                                  @RequestParam(required = false) String description,
+                                  @RequestParam(required = false) String fileType) {
+        try {
+            String uploadId = uploadService.init(filename, size, sha256, locationId, description, fileType);
+            return ResponseEntity.status(HttpStatus.CREATED)
+                    .header(OFFSET_HEADER, "0")
+                    .body(Map.of("uploadId", uploadId, "offset", 0));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Error starting upload: " + e.getMessage());
+        }
+    }
+
+    @RequestMapping(value = "/{uploadId}", method = {RequestMethod.GET, RequestMethod.HEAD})
+    @ResponseBody
+    public ResponseEntity<?> status(@PathVariable String uploadId) {
+        try {
+            long offset = uploadService.offset(uploadId);
+            return ResponseEntity.ok()
+                    .header(OFFSET_HEADER, Long.toString(offset))
+                    .body(Map.of("uploadId", uploadId, "offset", offset, "size", uploadService.totalSize(uploadId)));
+        } catch (ChunkedUploadService.UploadNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+    @PutMapping("/{uploadId}")
+    @ResponseBody
+    public ResponseEntity<?> appendChunk(@PathVariable String uploadId,
+                                         @RequestParam long offset,
+                                         HttpServletRequest request) {
+        try {
+            long newOffset = uploadService.appendChunk(uploadId, offset, request.getInputStream(),
+                    request.getContentLengthLong());
+            return ResponseEntity.noContent().header(OFFSET_HEADER, Long.toString(newOffset)).build();
+        } catch (ChunkedUploadService.OffsetMismatchException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header(OFFSET_HEADER, Long.toString(e.getCurrentOffset()))
+                    .body(e.getMessage());
+        } catch (ChunkedUploadService.UploadNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Error writing chunk: " + e.getMessage());
+        }
+    }
+
+    @PostMapping("/{uploadId}/complete")
+    @ResponseBody
+    public ResponseEntity<?> complete(@PathVariable String uploadId) {
+        try {
+            Multimedia saved = uploadService.complete(uploadId);
+            return ResponseEntity.ok(Map.of("multimediaId", saved.getMultimediaId(), "filePath", saved.getFilePath()));
+        } catch (ChunkedUploadService.OffsetMismatchException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .header(OFFSET_HEADER, Long.toString(e.getCurrentOffset()))
+                    .body("Upload incomplete: " + e.getMessage());
+        } catch (ChunkedUploadService.UploadNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            return ResponseEntity.unprocessableEntity().body(e.getMessage());
+        } catch (ConnectionBulkheads.Busy e) {
+            // the staged upload is kept: completing again later ingests it
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Error completing upload: " + e.getMessage());
+        }
+    }
+
+    @DeleteMapping("/{uploadId}")
+    @ResponseBody
+    public ResponseEntity<?> abort(@PathVariable String uploadId) {
+        try {
+            uploadService.abort(uploadId);
+            return ResponseEntity.noContent().build();
+        } catch (ChunkedUploadService.UploadNotFoundException e) {
+            return ResponseEntity.notFound().build();
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body(e.getMessage());
+        }
+    }
+
+    /**
+     * Bulk geotag: a zip of photos ({@code file}) or a folder under the import root.
+     * Photos go to the location nearest their GPS position; with {@code chapterId},
+     * positions with no nearby location create one in that chapter.
+     */
+    @PostMapping("/geotag")
+    @ResponseBody
+    public ResponseEntity<?> geotag(@RequestParam(required = false) MultipartFile file,
+                                    @RequestParam(required = false) String folder,
+                                    @RequestParam(required = false) Long chapterId,
+                                    @RequestParam(required = false) Long locationId,
+                                    @RequestParam(required = false) String description) {
+        GeotagBatchService.Options options = new GeotagBatchService.Options(chapterId, locationId, description);
+        try {
+            List<Map<String, Object>> results;
+            if (file != null && !file.isEmpty()) {
+                try (InputStream in = file.getInputStream()) {
+                    results = geotagBatchService.geotagZip(in, options);
+                }
+            } else if (folder != null && !folder.isBlank()) {
+                results = geotagBatchService.geotagFolder(folder, options);
+            } else {
+                return ResponseEntity.badRequest().body("Either a zip file or a folder is required");
+            }
+            Map<String, Long> summary = new TreeMap<>();
+            for (Map<String, Object> r : results) {
+                summary.merge(String.valueOf(r.get("status")), 1L, Long::sum);
+            }
+            return ResponseEntity.ok(Map.of("summary", summary, "results", results));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        } catch (Exception e) {
+            return ResponseEntity.internalServerError().body("Error geotagging photos: " + e.getMessage());
+        }
+    }
+}
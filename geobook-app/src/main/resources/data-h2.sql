@@ -0,0 +1,25 @@
+-- Seed rows for the h2 profile, generated so every run starts from the same
+-- data: 40 books of 10 chapters, 5 locations per chapter spread over the map,
+-- 500 spatial entities. No users (the load test registers its own) and no
+-- multimedia (rows need files in the media store; uploads create them).
+
+INSERT INTO books (book_id, title, author, isbn, description)
+SELECT x, 'Book ' || x, 'Author ' || MOD(x, 13), 'ISBN-' || (100000 + x), 'Description of book ' || x
+FROM SYSTEM_RANGE(1, 40);
+
+INSERT INTO chapters (chapter_id, book_id, chapter_number, title, location_description)
+SELECT x, (x - 1) / 10 + 1, MOD(x - 1, 10) + 1, 'Chapter ' || (MOD(x - 1, 10) + 1),
+       'Places visited in chapter ' || x
+FROM SYSTEM_RANGE(1, 400);
+
+-- deterministic scatter between 60S and 70N
+INSERT INTO locations (location_id, chapter_id, latitude, longitude, place_name, spatial_data)
+SELECT x, (x - 1) / 5 + 1, MOD(x * 7919, 13000) / 100.0 - 60, MOD(x * 104729, 36000) / 100.0 - 180,
+       'Place ' || x, NULL
+FROM SYSTEM_RANGE(1, 2000);
+
+INSERT INTO spatial_entities (entity_id, name, entity_type, geometry, description, color, chapter_id)
+SELECT x, 'Entity ' || x, 'POINT',
+       'POINT(' || (MOD(x * 104729, 36000) / 100.0 - 180) || ' ' || (MOD(x * 7919, 13000) / 100.0 - 60) || ')',
+       'Seeded entity ' || x, '#3388ff', MOD(x - 1, 400) + 1
+FROM SYSTEM_RANGE(1, 500);
@@ -0,0 +1,263 @@
+-- GeoBook baseline schema: tables, sequences, id triggers, indexes and the
+-- Oracle Spatial metadata/index for locations. Applied once by Flyway in the
+-- prod profile; never edit an applied migration, add a new version instead.
+
+-- User Management Table
+-- ========================================================================================================
+CREATE TABLE users (
+    user_id         NUMBER          PRIMARY KEY,
+    username        VARCHAR2(100)   UNIQUE NOT NULL,
+    password        VARCHAR2(255)   NOT NULL,
+    email          VARCHAR2(255)   UNIQUE NOT NULL,
+    enabled        CHAR(1)         DEFAULT 'Y' CHECK (enabled IN ('Y', 'N')),
+    created_at     DATE            DEFAULT SYSDATE
+);
+
+COMMENT ON TABLE users IS 'Application users with authentication credentials';
+COMMENT ON COLUMN users.enabled IS 'Account status: Y=Active, N=Disabled';
+
+-- Book Catalog Table  
+CREATE TABLE books (
+                       book_id         NUMBER          PRIMARY KEY,
+                       title          VARCHAR2(255)   NOT NULL,
+                       author         VARCHAR2(255),
+                       isbn           VARCHAR2(20)    UNIQUE,
+                       description    CLOB
+);
+
+COMMENT ON TABLE books IS 'Central catalog of books with their geographic references';
+COMMENT ON COLUMN books.isbn IS 'International Standard Book Number - unique identifier';
+
+-- Chapter Organization Table
+CREATE TABLE chapters (
+                          chapter_id             NUMBER          PRIMARY KEY,
+                          book_id               NUMBER          NOT NULL REFERENCES books(book_id) ON DELETE CASCADE,
+                          chapter_number        NUMBER          NOT NULL,
+                          title                 VARCHAR2(255),
+                          location_description  CLOB,
+                          CONSTRAINT uk_book_chapter UNIQUE (book_id, chapter_number)
+);
+
+COMMENT ON TABLE chapters IS 'Individual chapters within books, containing location references';
+COMMENT ON COLUMN chapters.location_description IS 'Textual description of places mentioned in chapter';
+
+-- Geographic Locations Table
+CREATE TABLE locations (
+                           location_id     NUMBER          PRIMARY KEY,
+                           chapter_id      NUMBER          NOT NULL REFERENCES chapters(chapter_id) ON DELETE CASCADE,
+                           latitude        FLOAT,
+                           longitude       FLOAT,
+                           place_name      VARCHAR2(255),
+                           spatial_data SDO_GEOMETRY
+);
+
+COMMENT ON TABLE locations IS 'Geographic coordinates of places referenced in book content';
+COMMENT ON COLUMN locations.spatial_data IS 'Spatial geometry data as text (for JPA compatibility)';
+
+-- Multimedia Content Table
+CREATE TABLE multimedia (
+                            multimedia_id   NUMBER          PRIMARY KEY,
+                            location_id     NUMBER          NOT NULL REFERENCES locations(location_id) ON DELETE CASCADE,
+                            file_type       VARCHAR2(50)    NOT NULL,
+                            file_path       VARCHAR2(500)   NOT NULL,
+                            description     CLOB,
+                            upload_date     DATE            DEFAULT SYSDATE,
+                            is_active       CHAR(1)         DEFAULT 'Y' CHECK (is_active IN ('Y', 'N')),
+                            thumbnail_path  VARCHAR2(500),
+
+    -- Standard BLOB storage for images
+                            image_blob      BLOB,
+
+    -- Oracle Multimedia features (requires Oracle Multimedia installation)
+                            image           ORDSYS.ORDImage,
+                            image_si        ORDSYS.SI_StillImage,
+                            image_ac        ORDSYS.SI_AverageColor,
+                            image_ch        ORDSYS.SI_ColorHistogram,
+                            image_pc        ORDSYS.SI_PositionalColor,
+                            image_tx        ORDSYS.SI_Texture,
+
+    -- Portable descriptors computed in Java (little-endian float vectors)
+                            feature_ac      RAW(64),
+                            feature_ch      RAW(512),
+                            feature_pc      RAW(512),
+                            feature_tx      RAW(128),
+
+    -- Photo metadata read from EXIF at ingest
+                            captured_at     TIMESTAMP,
+                            gps_latitude    FLOAT,
+                            gps_longitude   FLOAT,
+                            image_width     NUMBER,
+                            image_height    NUMBER
+);
+
+COMMENT ON TABLE multimedia IS 'Images, videos, and other media associated with geographic locations';
+COMMENT ON COLUMN multimedia.image_blob IS 'Fallback BLOB storage when Oracle Multimedia is unavailable';
+COMMENT ON COLUMN multimedia.feature_ch IS 'Color histogram (64 bins) as float vector, computed by ImageDescriptorExtractor';
+
+-- Media content for geobook.media.store=db, keyed by the file path without leading slash
+CREATE TABLE media_blobs (
+                             media_key       VARCHAR2(512)   PRIMARY KEY,
+                             content         BLOB,
+                             content_length  NUMBER,
+                             updated_at      TIMESTAMP       DEFAULT CURRENT_TIMESTAMP
+);
+
+-- Single row stamped by the primary every geobook.datasource.routing.heartbeat-ms;
+-- read back on each replica to measure its replication lag
+CREATE TABLE replica_heartbeat (
+                             id              NUMBER(1)       PRIMARY KEY,
+                             beat_millis     NUMBER(19)      NOT NULL
+);
+
+-- Advanced Spatial Entities Table
+CREATE TABLE spatial_entities (
+    entity_id       NUMBER          PRIMARY KEY,
+    name           VARCHAR2(255)   NOT NULL,
+    entity_type    VARCHAR2(50)    NOT NULL CHECK (entity_type IN ('POINT', 'LINESTRING', 'POLYGON', 'CIRCLE', 'RECTANGLE')),
+    geometry       VARCHAR2(4000)  NOT NULL, -- Using VARCHAR2 for JPA compatibility
+    description    VARCHAR2(1000),
+    color          VARCHAR2(20)    DEFAULT '#3388ff',
+    created_date   TIMESTAMP       DEFAULT CURRENT_TIMESTAMP,
+    updated_date   TIMESTAMP       DEFAULT CURRENT_TIMESTAMP,
+    chapter_id     NUMBER          REFERENCES chapters(chapter_id) ON DELETE SET NULL
+);
+
+COMMENT ON TABLE spatial_entities IS 'Advanced geometric entities for spatial analysis and visualization';
+COMMENT ON COLUMN spatial_entities.entity_type IS 'Type of geometry: POINT, LINESTRING, POLYGON, CIRCLE, or RECTANGLE';
+COMMENT ON COLUMN spatial_entities.color IS 'Hex color code for map visualization';
+
+-- Sequences step by 50 to match the application's pooled-lo id allocation
+-- (allocationSize = 50): the app reserves a block of ids per NEXTVAL and the
+-- triggers only fill in ids for rows inserted without one.
+
+-- Users sequence and trigger
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+
+CREATE OR REPLACE TRIGGER users_auto_id
+    BEFORE INSERT ON users
+    FOR EACH ROW
+BEGIN
+    IF :NEW.user_id IS NULL THEN
+        :NEW.user_id := users_seq.NEXTVAL;
+END IF;
+END;
+/
+
+-- Books sequence and trigger  
+CREATE SEQUENCE books_seq START WITH 1 INCREMENT BY 50;
+
+CREATE OR REPLACE TRIGGER books_auto_id
+    BEFORE INSERT ON books
+    FOR EACH ROW
+BEGIN
+    IF :NEW.book_id IS NULL THEN
+        :NEW.book_id := books_seq.NEXTVAL;
+END IF;
+END;
+/
+
+-- Chapters sequence and trigger
+CREATE SEQUENCE chapters_seq START WITH 1 INCREMENT BY 50;
+
+CREATE OR REPLACE TRIGGER chapters_auto_id
+    BEFORE INSERT ON chapters
+    FOR EACH ROW
+BEGIN
+    IF :NEW.chapter_id IS NULL THEN
+        :NEW.chapter_id := chapters_seq.NEXTVAL;
+END IF;
+END;
+/
+
+-- Locations sequence and trigger
+CREATE SEQUENCE locations_seq START WITH 1 INCREMENT BY 50;
+
+CREATE OR REPLACE TRIGGER locations_auto_id
+    BEFORE INSERT ON locations
+    FOR EACH ROW
+BEGIN
+    IF :NEW.location_id IS NULL THEN
+        :NEW.location_id := locations_seq.NEXTVAL;
+END IF;
+END;
+/
+
+-- Multimedia sequence and trigger
+CREATE SEQUENCE multimedia_seq START WITH 1 INCREMENT BY 50;
+
+CREATE OR REPLACE TRIGGER multimedia_auto_id
+    BEFORE INSERT ON multimedia
+    FOR EACH ROW
+BEGIN
+    IF :NEW.multimedia_id IS NULL THEN
+        :NEW.multimedia_id := multimedia_seq.NEXTVAL;
+END IF;
+END;
+/
+
+-- Multimedia  trigger for storing image
+-- Commented out because ORDImage handling is done in application code
+-- CREATE OR REPLACE TRIGGER multimedia_generateFeatures
+--   BEFORE INSERT OR UPDATE OF image ON multimedia
+--     FOR EACH ROW
+-- DECLARE
+-- si ORDSYS.SI_StillImage;
+-- BEGIN
+--   IF :NEW.image IS NOT NULL AND :NEW.image.height IS NOT NULL THEN
+--     si := ORDSYS.SI_StillImage(:NEW.image.getContent());
+--     :NEW.image_si := si;
+--     :NEW.image_ac := ORDSYS.SI_AverageColor(si);
+--     :NEW.image_ch := ORDSYS.SI_ColorHistogram(si);
+--     :NEW.image_pc := ORDSYS.SI_PositionalColor(si);
+--     :NEW.image_tx := ORDSYS.SI_Texture(si);
+-- END IF;
+-- END multimedia_generateFeatures;
+-- /
+
+-- Spatial entities sequence and triggers
+CREATE SEQUENCE spatial_entities_seq START WITH 1 INCREMENT BY 50;
+
+CREATE OR REPLACE TRIGGER spatial_entities_auto_id
+    BEFORE INSERT ON spatial_entities
+    FOR EACH ROW
+BEGIN
+    IF :NEW.entity_id IS NULL THEN
+        :NEW.entity_id := spatial_entities_seq.NEXTVAL;
+END IF;
+    :NEW.created_date := CURRENT_TIMESTAMP;
+    :NEW.updated_date := CURRENT_TIMESTAMP;
+END;
+/
+
+CREATE OR REPLACE TRIGGER spatial_entities_update_time
+    BEFORE UPDATE ON spatial_entities
+                      FOR EACH ROW
+BEGIN
+    :NEW.updated_date := CURRENT_TIMESTAMP;
+END;
+/
+
+-- Foreign key indexes for better join performance
+CREATE INDEX idx_chapters_book_id ON chapters(book_id);
+CREATE INDEX idx_locations_chapter_id ON locations(chapter_id);
+CREATE INDEX idx_multimedia_location_id ON multimedia(location_id);
+CREATE INDEX idx_spatial_entities_chapter_id ON spatial_entities(chapter_id);
+
+-- Text search indexes
+CREATE INDEX idx_books_title ON books(title);
+CREATE INDEX idx_books_author ON books(author);
+CREATE INDEX idx_locations_place_name ON locations(place_name);
+
+-- Status and type filters
+CREATE INDEX idx_multimedia_type_active ON multimedia(file_type, is_active);
+CREATE INDEX idx_spatial_entities_type ON spatial_entities(entity_type);
+
+-- Spatial metadata and index for locations table
+INSERT INTO user_sdo_geom_metadata (table_name, column_name, diminfo, srid)
+VALUES ('LOCATIONS', 'SPATIAL_DATA',
+  MDSYS.SDO_DIM_ARRAY(
+    MDSYS.SDO_DIM_ELEMENT('LONG', -180, 180, 0.5),
+    MDSYS.SDO_DIM_ELEMENT('LAT', -90, 90, 0.5)
+  ), 8307);
+
+CREATE INDEX LOCATIONS_SDO_IDX ON LOCATIONS(SPATIAL_DATA) INDEXTYPE IS MDSYS.SPATIAL_INDEX;
@@ -0,0 +1,60 @@
+-- Turns the WKT / CIRCLE(...) / SDO_GEOMETRY(...) strings stored in
+-- spatial_entities.geometry into SDO_GEOMETRY for the spatial analysis queries.
+CREATE OR REPLACE FUNCTION parse_sdo_geom(geom_str IN VARCHAR2) RETURN SDO_GEOMETRY IS
+  result SDO_GEOMETRY;
+BEGIN
+  IF UPPER(SUBSTR(geom_str, 1, 6)) = 'CIRCLE' THEN
+    -- Parse CIRCLE(lon lat radius)
+    DECLARE
+      params VARCHAR2(4000);
+      pos_space1 NUMBER;
+      lon_str VARCHAR2(100);
+      rest VARCHAR2(4000);
+      pos_space2 NUMBER;
+      lat_str VARCHAR2(100);
+      rad_str VARCHAR2(100);
+      lon NUMBER;
+      lat NUMBER;
+      rad NUMBER;
+      wkt VARCHAR2(4000);
+      num_points NUMBER;
+      angle_step NUMBER;
+      i NUMBER;
+      x NUMBER;
+      y NUMBER;
+    BEGIN
+      params := SUBSTR(geom_str, 8, LENGTH(geom_str) - 8);
+      params := SUBSTR(params, 1, LENGTH(params) - 1);
+      pos_space1 := INSTR(params, ' ');
+      lon_str := SUBSTR(params, 1, pos_space1 - 1);
+      rest := SUBSTR(params, pos_space1 + 1);
+      pos_space2 := INSTR(rest, ' ');
+      lat_str := SUBSTR(rest, 1, pos_space2 - 1);
+      rad_str := SUBSTR(rest, pos_space2 + 1);
+      lon := TO_NUMBER(lon_str);
+      lat := TO_NUMBER(lat_str);
+      rad := TO_NUMBER(rad_str);
+      wkt := 'POLYGON((';
+      num_points := 32;
+      angle_step := 2 * 3.141592653589793 / num_points;
+      FOR i IN 0 .. num_points - 1 LOOP
+        x := lon + rad * COS(i * angle_step);
+        y := lat + rad * SIN(i * angle_step);
+        wkt := wkt || TO_CHAR(x) || ' ' || TO_CHAR(y) || ',';
+      END LOOP;
+      -- Close the polygon
+      x := lon + rad * COS(0);
+      y := lat + rad * SIN(0);
+      wkt := wkt || TO_CHAR(x) || ' ' || TO_CHAR(y) || '))';
+      result := SDO_UTIL.FROM_WKTGEOMETRY(wkt);
+    END;
+  ELSIF UPPER(SUBSTR(geom_str, 1, 12)) = 'SDO_GEOMETRY' THEN
+    EXECUTE IMMEDIATE 'SELECT ' || geom_str || ' FROM dual' INTO result;
+  ELSE
+    result := SDO_UTIL.FROM_WKTGEOMETRY(geom_str);
+  END IF;
+  -- Ensure SRID is set to 4326 for consistency
+  result.SDO_SRID := 4326;
+  RETURN result;
+END;
+/
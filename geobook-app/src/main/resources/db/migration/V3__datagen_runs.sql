@@ -0,0 +1,9 @@
+-- Progress of SyntheticDataGenerator: per table the first and last generated id,
+-- completed_at set on every row once the whole dataset is in
+CREATE TABLE datagen_runs (
+                             table_name      VARCHAR2(30)    PRIMARY KEY,
+                             seed            NUMBER(19)      NOT NULL,
+                             first_id        NUMBER(19)      NOT NULL,
+                             last_id         NUMBER(19),
+                             completed_at    TIMESTAMP
+);
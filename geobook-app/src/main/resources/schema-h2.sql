@@ -0,0 +1,110 @@
+-- GeoBook schema for the h2 profile: the tables of db/migration/V1 without the
+-- Oracle-only parts (ORDSYS columns, SDO metadata and index, triggers).
+-- locations.spatial_data holds WKT text; it is left NULL by data-h2.sql since
+-- reading it back goes through SdoGeometryType, which expects SDO_GEOMETRY.
+
+CREATE TABLE users (
+    user_id         NUMBER          PRIMARY KEY,
+    username        VARCHAR2(100)   UNIQUE NOT NULL,
+    password        VARCHAR2(255)   NOT NULL,
+    email           VARCHAR2(255)   UNIQUE NOT NULL,
+    enabled         CHAR(1)         DEFAULT 'Y',
+    created_at      DATE            DEFAULT SYSDATE
+);
+
+CREATE TABLE books (
+    book_id         NUMBER          PRIMARY KEY,
+    title           VARCHAR2(255)   NOT NULL,
+    author          VARCHAR2(255),
+    isbn            VARCHAR2(20)    UNIQUE,
+    description     CLOB
+);
+
+CREATE TABLE chapters (
+    chapter_id           NUMBER     PRIMARY KEY,
+    book_id              NUMBER     NOT NULL REFERENCES books(book_id) ON DELETE CASCADE,
+    chapter_number       NUMBER     NOT NULL,
+    title                VARCHAR2(255),
+    location_description CLOB,
+    CONSTRAINT uk_book_chapter UNIQUE (book_id, chapter_number)
+);
+
+CREATE TABLE locations (
+    location_id     NUMBER          PRIMARY KEY,
+    chapter_id      NUMBER          NOT NULL REFERENCES chapters(chapter_id) ON DELETE CASCADE,
+    latitude        FLOAT,
+    longitude       FLOAT,
+    place_name      VARCHAR2(255),
+    spatial_data    VARCHAR2(4000)
+);
+
+CREATE TABLE multimedia (
+    multimedia_id   NUMBER          PRIMARY KEY,
+    location_id     NUMBER          NOT NULL REFERENCES locations(location_id) ON DELETE CASCADE,
+    file_type       VARCHAR2(50)    NOT NULL,
+    file_path       VARCHAR2(500)   NOT NULL,
+    description     CLOB,
+    upload_date     DATE            DEFAULT SYSDATE,
+    is_active       CHAR(1)         DEFAULT 'Y',
+    thumbnail_path  VARCHAR2(500),
+    feature_ac      RAW(64),
+    feature_ch      RAW(512),
+    feature_pc      RAW(512),
+    feature_tx      RAW(128),
+    captured_at     TIMESTAMP,
+    gps_latitude    FLOAT,
+    gps_longitude   FLOAT,
+    image_width     NUMBER,
+    image_height    NUMBER
+);
+
+CREATE TABLE media_blobs (
+    media_key       VARCHAR2(512)   PRIMARY KEY,
+    content         BLOB,
+    content_length  NUMBER,
+    updated_at      TIMESTAMP       DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE TABLE replica_heartbeat (
+    id              NUMBER(1)       PRIMARY KEY,
+    beat_millis     NUMBER(19)      NOT NULL
+);
+
+CREATE TABLE datagen_runs (
+    table_name      VARCHAR2(30)    PRIMARY KEY,
+    seed            NUMBER(19)      NOT NULL,
+    first_id        NUMBER(19)      NOT NULL,
+    last_id         NUMBER(19),
+    completed_at    TIMESTAMP
+);
+
+CREATE TABLE spatial_entities (
+    entity_id       NUMBER          PRIMARY KEY,
+    name            VARCHAR2(255)   NOT NULL,
+    entity_type     VARCHAR2(50)    NOT NULL,
+    geometry        VARCHAR2(4000)  NOT NULL,
+    description     VARCHAR2(1000),
+    color           VARCHAR2(20)    DEFAULT '#3388ff',
+    created_date    TIMESTAMP       DEFAULT CURRENT_TIMESTAMP,
+    updated_date    TIMESTAMP       DEFAULT CURRENT_TIMESTAMP,
+    chapter_id      NUMBER          REFERENCES chapters(chapter_id) ON DELETE SET NULL
+);
+
+-- INCREMENT BY 50 as in V1 (allocationSize = 50); they start above the ids
+-- data-h2.sql inserts explicitly
+CREATE SEQUENCE users_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE books_seq START WITH 100001 INCREMENT BY 50;
+CREATE SEQUENCE chapters_seq START WITH 100001 INCREMENT BY 50;
+CREATE SEQUENCE locations_seq START WITH 100001 INCREMENT BY 50;
+CREATE SEQUENCE multimedia_seq START WITH 1 INCREMENT BY 50;
+CREATE SEQUENCE spatial_entities_seq START WITH 100001 INCREMENT BY 50;
+
+CREATE INDEX idx_chapters_book_id ON chapters(book_id);
+CREATE INDEX idx_locations_chapter_id ON locations(chapter_id);
+CREATE INDEX idx_multimedia_location_id ON multimedia(location_id);
+CREATE INDEX idx_spatial_entities_chapter_id ON spatial_entities(chapter_id);
+CREATE INDEX idx_books_title ON books(title);
+CREATE INDEX idx_books_author ON books(author);
+CREATE INDEX idx_locations_place_name ON locations(place_name);
+CREATE INDEX idx_multimedia_type_active ON multimedia(file_type, is_active);
+CREATE INDEX idx_spatial_entities_type ON spatial_entities(entity_type);
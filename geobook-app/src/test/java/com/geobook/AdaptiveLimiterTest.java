@@ -0,0 +1,46 @@
+package com.geobook;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The decrease side of {@link AdaptiveLimiter}: a slow completion cuts the limit
+ * unless its latency is the client's transfer time, an overloaded one always does.
+ */
+class AdaptiveLimiterTest {
+
+    private static final long SLOW = TimeUnit.SECONDS.toNanos(10);
+
+    private static AdaptiveLimiter limiter() {
+        return new AdaptiveLimiter("upload", new AdaptiveLimiter.Settings(8, 2, 32, 0, 0, 100));
+    }
+
+    @Test
+    void slowCompletionLowersTheLimit() throws InterruptedException {
+        AdaptiveLimiter limiter = limiter();
+        limiter.acquire();
+        limiter.release(SLOW, false);
+        assertThat(limiter.getLimit()).isLessThan(8);
+    }
+
+    @Test
+    void slowTransferDoesNotLowerTheLimit() throws InterruptedException {
+        AdaptiveLimiter limiter = limiter();
+        for (int i = 0; i < 20; i++) {
+            limiter.acquire();
+            limiter.release(SLOW, false, false);
+        }
+        assertThat(limiter.getLimit()).isGreaterThanOrEqualTo(8);
+    }
+
+    @Test
+    void overloadedTransferLowersTheLimit() throws InterruptedException {
+        AdaptiveLimiter limiter = limiter();
+        limiter.acquire();
+        limiter.release(SLOW, true, false);
+        assertThat(limiter.getLimit()).isLessThan(8);
+    }
+}
@@ -0,0 +1,96 @@
+package com.geobook;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The cached book.chapters and chapter.locations collections follow writes that
+ * only set the owning side, as the controllers and batch services do. Every step
+ * commits, so the collections come from the second-level cache, not the session.
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:collection-cache;MODE=Oracle;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import({SecondLevelCacheConfig.class, CollectionCacheEvictionTest.Metrics.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class CollectionCacheEvictionTest {
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private ChapterRepository chapterRepository;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    private <T> T inTransaction(Supplier<T> work) {
+        return new TransactionTemplate(transactionManager).execute(status -> work.get());
+    }
+
+    private List<String> chapterTitles(long bookId) {
+        return inTransaction(() -> bookRepository.findById(bookId).orElseThrow()
+                .getChapters().stream().map(Chapter::getTitle).toList());
+    }
+
+    private List<Long> locationIds(long chapterId) {
+        return inTransaction(() -> chapterRepository.findById(chapterId).orElseThrow()
+                .getLocations().stream().map(Location::getLocationId).toList());
+    }
+
+    @Test
+    void addedChapterShowsInCachedBook() {
+        assertThat(chapterTitles(2L)).hasSize(10);
+
+        inTransaction(() -> {
+            Chapter chapter = new Chapter();
+            chapter.setBook(bookRepository.findById(2L).orElseThrow());
+            chapter.setChapterNumber(11);
+            chapter.setTitle("Epilogue");
+            return chapterRepository.save(chapter);
+        });
+
+        assertThat(chapterTitles(2L)).hasSize(11).contains("Epilogue");
+    }
+
+    @Test
+    void deletedLocationLeavesCachedChapter() {
+        List<Long> before = locationIds(3L);
+        assertThat(before).hasSize(5);
+
+        inTransaction(() -> {
+            locationRepository.deleteById(before.get(0));
+            return null;
+        });
+
+        assertThat(locationIds(3L)).hasSize(4).doesNotContain(before.get(0));
+    }
+}
@@ -0,0 +1,141 @@
+package com.geobook;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Statement counts of the listing paths on the seeded h2 data (40 books of 10
+ * chapters, 5 locations per chapter), counted by Hibernate statistics with the
+ * second-level cache cold. A lazy association touched per row shows up here as
+ * one statement per row and fails the build.
+ */
+@DataJpaTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:fetch-count;MODE=Oracle;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.generate_statistics=true"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import({SecondLevelCacheConfig.class, FetchStatementCountTest.Metrics.class})
+class FetchStatementCountTest {
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private LocationRepository locationRepository;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private MultimediaRepository multimediaRepository;
+
+    private Statistics statistics;
+
+    @BeforeEach
+    void coldStart() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManager.clear();
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+    }
+
+    @Test
+    void mapLoadsAllLocationsInOneStatement() {
+        List<LocationDto> rows = locationRepository.findAllForMap();
+
+        assertThat(rows).hasSize(2000);
+        assertThat(rows.get(0).getBookTitle()).isNotNull();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void mapRadiusFallbackIsOneStatement() {
+        List<LocationDto> rows = locationRepository.findForMapWithinDistanceFallback(0, 0, 5000);
+
+        assertThat(rows).isNotEmpty();
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void bookDetailDoesNotLoadLocationsPerChapter() {
+        // what book-detail.html walks: the book, its chapters, each chapter's locations
+        Book book = bookRepository.findById(1L).orElseThrow();
+        int locations = 0;
+        for (Chapter chapter : book.getChapters()) {
+            for (Location location : chapter.getLocations()) {
+                assertThat(location.getPlaceName()).isNotNull();
+                locations++;
+            }
+        }
+
+        assertThat(book.getChapters()).hasSize(10);
+        assertThat(locations).isEqualTo(50);
+        // book, chapters, locations of all its chapters
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+
+    @Test
+    void shortTitleSearchIsOneBoundedPage() {
+        // one letter cannot be ranked by trigrams; the fallback reads a page, not every match
+        List<BookListItem> page = bookRepository.findTitleMatchesAfter("o", Long.MIN_VALUE, PageRequest.of(0, 6));
+
+        assertThat(page).hasSize(6).isSortedAccordingTo((a, b) -> Long.compare(a.getBookId(), b.getBookId()));
+        assertThat(page).allSatisfy(book -> assertThat(book.getTitle().toLowerCase()).contains("o"));
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    void multimediaListPageIsOneStatement() {
+        for (long locationId = 1; locationId <= 30; locationId++) {
+            Multimedia media = new Multimedia();
+            media.setLocation(entityManager.find(Location.class, locationId));
+            media.setFileType("image/jpeg");
+            media.setFilePath("/images/test_" + locationId + ".jpg");
+            media.setThumbnailPath("/thumbnails/test_" + locationId + ".jpg");
+            media.setDescription("photo " + locationId);
+            media.setUploadDate(LocalDate.now());
+            media.setIsActive('Y');
+            entityManager.persist(media);
+        }
+        entityManager.flush();
+        entityManager.clear();
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+
+        List<MultimediaListItem> page = multimediaRepository.findListPageAfter(0L, PageRequest.of(0, 20));
+
+        assertThat(page).hasSize(20);
+        assertThat(page).allSatisfy(item -> assertThat(item.getBookTitle()).isNotNull());
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+}
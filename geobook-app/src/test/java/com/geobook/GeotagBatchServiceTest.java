@@ -0,0 +1,81 @@
+package com.geobook;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.env.MockEnvironment;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The archive size cap of {@link GeotagBatchService#geotagZip}: an entry that
+ * inflates past the cap is cut off while it is copied, and an aborted archive
+ * leaves no extracted temp files behind.
+ */
+class GeotagBatchServiceTest {
+
+    private static final long MAX_BYTES = 64 * 1024;
+
+    @TempDir
+    Path importRoot;
+
+    private GeotagBatchService service;
+
+    @AfterEach
+    void shutdown() {
+        if (service != null) service.shutdown();
+    }
+
+    private GeotagBatchService service() {
+        service = new GeotagBatchService(mock(MultimediaIngestService.class), mock(GeotagService.class),
+                mock(PhotoMetadataReader.class), mock(ConnectionBulkheads.class), new MockEnvironment(),
+                new SimpleMeterRegistry(), importRoot.toString(), MAX_BYTES, 1);
+        return service;
+    }
+
+    private static byte[] zip(int... entrySizes) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream out = new ZipOutputStream(bytes)) {
+            for (int i = 0; i < entrySizes.length; i++) {
+                out.putNextEntry(new ZipEntry("photo" + i + ".jpg"));
+                out.write(new byte[entrySizes[i]]);
+                out.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<Path> extracted() throws IOException {
+        try (Stream<Path> files = Files.list(Paths.get(System.getProperty("java.io.tmpdir")))) {
+            return files.filter(p -> p.getFileName().toString().startsWith("geotag_")).toList();
+        }
+    }
+
+    @Test
+    void entryInflatingPastTheCapIsRejectedAndNothingIsLeft() throws IOException {
+        List<Path> before = extracted();
+        // a few kilobytes of zeros on the wire, sixteen times the cap once inflated
+        byte[] bomb = zip(1024, 2048, (int) (16 * MAX_BYTES));
+        assertThat(bomb.length).isLessThan((int) MAX_BYTES);
+
+        assertThatThrownBy(() -> service().geotagZip(new ByteArrayInputStream(bomb),
+                new GeotagBatchService.Options(null, null, null)))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(extracted()).containsExactlyInAnyOrderElementsOf(before);
+    }
+}
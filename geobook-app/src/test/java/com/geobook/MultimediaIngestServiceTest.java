@@ -0,0 +1,61 @@
+package com.geobook;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * An upload whose content cannot be stored leaves no multimedia row and no
+ * similarity-index entry, and a full LOB_WRITE bulkhead reaches the caller.
+ */
+class MultimediaIngestServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void busyStoreRemovesTheSavedRowAndPropagates() throws Exception {
+        MultimediaRepository multimedia = mock(MultimediaRepository.class);
+        LocationRepository locations = mock(LocationRepository.class);
+        MediaStore store = mock(MediaStore.class);
+        RenditionService renditions = mock(RenditionService.class);
+        ImageDescriptorExtractor extractor = mock(ImageDescriptorExtractor.class);
+        ImageSimilarityIndex similarity = mock(ImageSimilarityIndex.class);
+        when(locations.findById(7L)).thenReturn(Optional.of(new Location()));
+        when(extractor.extract(any(File.class))).thenReturn(new ImageDescriptors(
+                new float[3], new float[8], new float[12], new float[4]));
+        when(multimedia.save(any(Multimedia.class))).thenAnswer(call -> {
+            Multimedia row = call.getArgument(0);
+            row.setMultimediaId(42L);
+            return row;
+        });
+        when(store.name()).thenReturn("ord");
+        doThrow(new ConnectionBulkheads.Busy(ConnectionBulkheads.Kind.LOB_WRITE))
+                .when(store).put(anyString(), any(Path.class));
+        MultimediaIngestService ingest = new MultimediaIngestService(multimedia, locations, store, renditions,
+                mock(ImageRotator.class), extractor, similarity, mock(PhotoMetadataReader.class),
+                mock(GeotagService.class));
+        Path upload = Files.write(dir.resolve("photo.jpg"), new byte[]{1, 2, 3});
+
+        assertThatThrownBy(() -> ingest.ingest(upload, "photo.jpg", 7L, "a photo", "image/jpeg"))
+                .isInstanceOf(ConnectionBulkheads.Busy.class);
+
+        verify(multimedia).delete(any(Multimedia.class));
+        verify(similarity, never()).upsert(anyLong(), any(ImageDescriptors.class));
+        verify(renditions, never()).writeThumbnail(any(Path.class), anyString());
+    }
+}
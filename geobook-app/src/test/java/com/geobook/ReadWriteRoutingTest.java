@@ -0,0 +1,203 @@
+package com.geobook;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceAutoConfiguration;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceTransactionManagerAutoConfiguration;
+import org.springframework.boot.autoconfigure.domain.EntityScan;
+import org.springframework.boot.autoconfigure.jdbc.JdbcTemplateAutoConfiguration;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration;
+import org.springframework.boot.autoconfigure.transaction.TransactionAutoConfiguration;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockHttpSession;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Replica routing against two in-memory H2 databases standing in for the primary
+ * and one replica. Each holds a one-row table naming itself, so a query shows
+ * which database the routing picked; replication is simulated by writing the
+ * replica's heartbeat row directly, and the lag monitor is ticked by hand.
+ * Transactions run under the application's JpaTransactionManager.
+ */
+@SpringBootTest(classes = ReadWriteRoutingTest.Config.class, properties = {
+        "spring.datasource.url=jdbc:h2:mem:routing-primary;DB_CLOSE_DELAY=-1",
+        "spring.datasource.driver-class-name=org.h2.Driver",
+        "spring.datasource.username=sa",
+        "spring.datasource.password=",
+        "geobook.datasource.routing.enabled=true",
+        "geobook.datasource.routing.max-lag-ms=5000",
+        "geobook.datasource.routing.sticky-ms=10000",
+        "geobook.datasource.replicas[0].url=jdbc:h2:mem:routing-replica;DB_CLOSE_DELAY=-1",
+        "geobook.datasource.replicas[0].username=sa",
+        "geobook.datasource.replicas[0].password=",
+        "spring.jpa.hibernate.ddl-auto=none",
+        "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+        "spring.jpa.properties.hibernate.cache.use_second_level_cache=false",
+        "spring.jpa.properties.hibernate.cache.use_query_cache=false"
+})
+class ReadWriteRoutingTest {
+
+    @Configuration
+    @ImportAutoConfiguration({DataSourceAutoConfiguration.class, HibernateJpaAutoConfiguration.class,
+            DataSourceTransactionManagerAutoConfiguration.class, TransactionAutoConfiguration.class,
+            JdbcTemplateAutoConfiguration.class})
+    // transactions are JPA ones as in the application, with no entities: queries are native
+    @EntityScan("com.geobook.routingtest")
+    @Import(ReadWriteRoutingConfig.class)
+    static class Config {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    @Qualifier("primaryDataSource")
+    private DataSource primary;
+
+    @Autowired
+    private ReplicaLagMonitor lagMonitor;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private FilterRegistrationBean<ReadYourWritesFilter> readYourWrites;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private JdbcTemplate replica;
+
+    @BeforeEach
+    void databases() {
+        replica = new JdbcTemplate(lagMonitor.replicas().get("replica-0"));
+        name(new JdbcTemplate(primary), "primary");
+        name(replica, "replica");
+    }
+
+    private static void name(JdbcTemplate db, String name) {
+        db.execute("CREATE TABLE IF NOT EXISTS whoami (name VARCHAR(20))");
+        db.execute("CREATE TABLE IF NOT EXISTS replica_heartbeat (id NUMBER(1) PRIMARY KEY, beat_millis NUMBER(19) NOT NULL)");
+        db.update("DELETE FROM whoami");
+        db.update("INSERT INTO whoami (name) VALUES (?)", name);
+    }
+
+    /** Replicate the heartbeat as it stood {@code lagMs} ago, then let the monitor measure it. */
+    private void replicaBehindBy(long lagMs) {
+        replica.update("DELETE FROM replica_heartbeat");
+        replica.update("INSERT INTO replica_heartbeat (id, beat_millis) VALUES (1, ?)", System.currentTimeMillis() - lagMs);
+        lagMonitor.tick();
+    }
+
+    private String servedBy(boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(readOnly);
+        return tx.execute(status -> jdbcTemplate.queryForObject("SELECT name FROM whoami", String.class));
+    }
+
+    private String servedByWithin(MockHttpServletRequest request) throws Exception {
+        AtomicReference<String> seen = new AtomicReference<>();
+        FilterChain chain = (req, res) -> seen.set(servedBy(true));
+        readYourWrites.getFilter().doFilter(request, new MockHttpServletResponse(), chain);
+        return seen.get();
+    }
+
+    @Test
+    void readOnlyTransactionsGoToAnUpToDateReplica() {
+        replicaBehindBy(0);
+
+        assertThat(servedBy(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void writeTransactionsGoToThePrimary() {
+        replicaBehindBy(0);
+
+        assertThat(servedBy(false)).isEqualTo("primary");
+    }
+
+    @Test
+    void staleReplicaFallsBackToThePrimary() {
+        replicaBehindBy(60_000);
+
+        assertThat(servedBy(true)).isEqualTo("primary");
+
+        replicaBehindBy(0);
+
+        assertThat(servedBy(true)).isEqualTo("replica");
+    }
+
+    @Test
+    void writerReadsFromThePrimaryUntilStickyWindowEnds() throws Exception {
+        replicaBehindBy(0);
+        MockHttpSession session = new MockHttpSession();
+
+        MockHttpServletRequest write = new MockHttpServletRequest("POST", "/books/add");
+        write.setSession(session);
+        assertThat(servedByWithin(write)).isEqualTo("primary");
+
+        MockHttpServletRequest ownRead = new MockHttpServletRequest("GET", "/books");
+        ownRead.setSession(session);
+        assertThat(servedByWithin(ownRead)).isEqualTo("primary");
+
+        MockHttpServletRequest otherRead = new MockHttpServletRequest("GET", "/books");
+        otherRead.setSession(new MockHttpSession());
+        assertThat(servedByWithin(otherRead)).isEqualTo("replica");
+
+        session.setAttribute(ReadYourWritesFilter.LAST_WRITE, System.currentTimeMillis() - 10_000);
+        MockHttpServletRequest laterRead = new MockHttpServletRequest("GET", "/books");
+        laterRead.setSession(session);
+        assertThat(servedByWithin(laterRead)).isEqualTo("replica");
+    }
+
+    /** The named database as seen by the request's shared EntityManager inside a transaction. */
+    private String servedByEntityManager(EntityManager em, boolean readOnly) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(readOnly);
+        return tx.execute(status -> (String) em.createNativeQuery("SELECT name FROM whoami").getSingleResult());
+    }
+
+    @Test
+    void openInViewRequestWritesToThePrimaryAfterAReplicaRead() {
+        replicaBehindBy(0);
+        // what OpenEntityManagerInViewInterceptor does: one EntityManager for the whole request
+        EntityManager em = entityManagerFactory.createEntityManager();
+        TransactionSynchronizationManager.bindResource(entityManagerFactory, new EntityManagerHolder(em));
+        try {
+            // a repository read (read-only by default), then a read-write transaction
+            assertThat(servedByEntityManager(em, true)).isEqualTo("replica");
+            assertThat(servedByEntityManager(em, false)).isEqualTo("primary");
+            assertThat(servedByEntityManager(em, true)).isEqualTo("replica");
+        } finally {
+            TransactionSynchronizationManager.unbindResource(entityManagerFactory);
+            em.close();
+        }
+    }
+}
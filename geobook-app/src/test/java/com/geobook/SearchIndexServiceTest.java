@@ -0,0 +1,96 @@
+package com.geobook;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Trigram book search over a small catalog in a temporary index. Every substring
+ * the former title LIKE scan matched must still find its book.
+ */
+class SearchIndexServiceTest {
+
+    private static final List<String> TITLES = List.of(
+            "The Hobbit", "London Fields", "Lord of the Rings", "Ulysses", "War and Peace", "The Name of the Rose");
+
+    @TempDir
+    Path indexDir;
+
+    private SearchIndexService search;
+
+    @BeforeEach
+    void index() {
+        BookRepository books = mock(BookRepository.class);
+        ChapterRepository chapters = mock(ChapterRepository.class);
+        MultimediaRepository multimedia = mock(MultimediaRepository.class);
+        List<Book> catalog = new ArrayList<>();
+        for (int i = 0; i < TITLES.size(); i++) {
+            Book book = new Book();
+            book.setBookId((long) i + 1);
+            book.setTitle(TITLES.get(i));
+            book.setAuthor("Author " + (i + 1));
+            catalog.add(book);
+        }
+        when(books.findAll()).thenReturn(catalog);
+        when(books.count()).thenReturn((long) catalog.size());
+
+        search = new SearchIndexService(books, chapters, multimedia, indexDir.toString());
+        search.open();
+        assertThat(search.isAvailable()).isTrue();
+    }
+
+    @AfterEach
+    void close() throws IOException {
+        search.close();
+    }
+
+    private List<Long> ids(String query) throws IOException {
+        return search.searchBooks(query, null, 50).getHits().stream().map(SearchIndexService.Hit::getId).toList();
+    }
+
+    @Test
+    void shortInteriorSubstringsMatch() throws IOException {
+        assertThat(ids("bbi")).contains(1L);
+        assertThat(ids("ndo")).contains(2L);
+        assertThat(ids("lys")).contains(4L);
+    }
+
+    @Test
+    void misspellingsStillMatch() throws IOException {
+        assertThat(ids("Londno")).first().isEqualTo(2L);
+        assertThat(ids("Hobit")).first().isEqualTo(1L);
+    }
+
+    @Test
+    void everyRankableSubstringFindsItsTitle() throws IOException {
+        for (int book = 0; book < TITLES.size(); book++) {
+            String title = TITLES.get(book);
+            for (int from = 0; from < title.length(); from++) {
+                for (int to = from + 1; to <= title.length(); to++) {
+                    String query = title.substring(from, to).toUpperCase(Locale.ROOT);
+                    if (!SearchIndexService.isRankable(query)) continue;
+                    assertThat(ids(query)).as("query '%s'", query).contains((long) book + 1);
+                }
+            }
+        }
+    }
+
+    @Test
+    void queriesWithoutAThreeLetterWordAreLeftToTheTitleScan() {
+        assertThat(SearchIndexService.isRankable("ob")).isFalse();
+        assertThat(SearchIndexService.isRankable("e H")).isFalse();
+        assertThat(SearchIndexService.isRankable("e Ho")).isFalse();
+        assertThat(SearchIndexService.isRankable("e Hob")).isTrue();
+    }
+}
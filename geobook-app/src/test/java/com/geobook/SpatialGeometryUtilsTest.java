@@ -0,0 +1,32 @@
+package com.geobook;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The Java bounding-box filter behind {@code /map/spatial/bounding-box} when the
+ * database has no Oracle Spatial, on the geometry strings the map stores.
+ */
+class SpatialGeometryUtilsTest {
+
+    @Test
+    void readsPointAndOrdinateArrayVertices() {
+        assertThat(SpatialGeometryUtils.extractOrdinates(SpatialGeometryUtils.createPoint(-74.0, 40.7)))
+                .containsExactly(-74.0, 40.7);
+        assertThat(SpatialGeometryUtils.extractOrdinates(SpatialGeometryUtils.createLineString(1, 2, 3, 4)))
+                .containsExactly(1, 2, 3, 4);
+        assertThat(SpatialGeometryUtils.extractOrdinates("not a geometry")).isEmpty();
+        assertThat(SpatialGeometryUtils.extractOrdinates("SDO_GEOMETRY(2001, 4326, NULL, NULL, NULL)")).isEmpty();
+    }
+
+    @Test
+    void geometryIsInsideOnlyWhenEveryVertexIs() {
+        String polygon = SpatialGeometryUtils.generateSampleGeometry(SpatialEntity.SpatialEntityType.POLYGON, 40.7, -74.0);
+
+        assertThat(SpatialGeometryUtils.isInsideBox(polygon, -74.1, 40.6, -73.9, 40.8)).isTrue();
+        assertThat(SpatialGeometryUtils.isInsideBox(polygon, -74.005, 40.6, -73.9, 40.8)).isFalse();
+        assertThat(SpatialGeometryUtils.isInsideBox(SpatialGeometryUtils.createPoint(-74.0, 40.7), 0, 0, 10, 10)).isFalse();
+        assertThat(SpatialGeometryUtils.isInsideBox(null, -180, -90, 180, 90)).isFalse();
+    }
+}
@@ -0,0 +1,121 @@
+package com.geobook;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.DefaultApplicationArguments;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * The generator on the seeded h2 database with a small dataset: photo rows are
+ * in before their content is stored, a run that dies part way is removed and
+ * redone on the next start, and a completed run is not repeated.
+ */
+@DataJpaTest(properties = "spring.datasource.url=jdbc:h2:mem:datagen;MODE=Oracle;DB_CLOSE_DELAY=-1")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@ActiveProfiles("h2")
+@Import({SecondLevelCacheConfig.class, SyntheticDataGeneratorTest.Metrics.class})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SyntheticDataGeneratorTest {
+
+    private static final int LOCATIONS = 40;
+    private static final int IMAGES = 4;
+
+    @TestConfiguration
+    static class Metrics {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private long count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Long.class);
+    }
+
+    private SyntheticDataGenerator generator(MediaStore mediaStore) {
+        DatabaseCapabilities capabilities = mock(DatabaseCapabilities.class);
+        return new SyntheticDataGenerator(jdbcTemplate, transactionTemplate, capabilities, mediaStore,
+                mock(RenditionService.class), new ImageDescriptorExtractor(mock(ImageDecoder.class)),
+                entityManagerFactory, mock(TableStatsService.class), mock(StartupTimings.class),
+                7, 3, 2, LOCATIONS, 3, 10, IMAGES, 10);
+    }
+
+    @Test
+    void interruptedRunIsRedoneAndACompletedRunSkipped() throws Exception {
+        long locations = count("locations");
+        long multimedia = count("multimedia");
+        long entities = count("spatial_entities");
+
+        // the media store fails on the second image, after every row is in
+        MediaStore failing = mock(MediaStore.class);
+        AtomicInteger puts = new AtomicInteger();
+        doAnswer(call -> {
+            if (puts.incrementAndGet() == 2) throw new IOException("disk full");
+            return null;
+        }).when(failing).put(anyString(), any(Path.class));
+        assertThatThrownBy(() -> generator(failing).run(new DefaultApplicationArguments()))
+                .hasMessage("disk full");
+        assertThat(count("locations")).isEqualTo(locations + LOCATIONS);
+        assertThat(count("multimedia")).isEqualTo(multimedia + IMAGES);
+
+        // each image's row is already there when the store is asked to hold it (the ORDImage store needs it)
+        MediaStore store = mock(MediaStore.class);
+        List<String> stored = new ArrayList<>();
+        doAnswer(call -> {
+            String key = call.getArgument(0);
+            assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM multimedia WHERE file_path = ?",
+                    Long.class, "/" + key)).isEqualTo(1);
+            stored.add(key);
+            return null;
+        }).when(store).put(anyString(), any(Path.class));
+        when(store.name()).thenReturn("test");
+        generator(store).run(new DefaultApplicationArguments());
+
+        assertThat(stored).hasSize(IMAGES);
+        assertThat(count("locations")).isEqualTo(locations + LOCATIONS);
+        assertThat(count("multimedia")).isEqualTo(multimedia + IMAGES);
+        assertThat(count("spatial_entities")).isEqualTo(entities + 10);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM datagen_runs WHERE completed_at IS NULL",
+                Long.class)).isZero();
+
+        MediaStore unused = mock(MediaStore.class);
+        generator(unused).run(new DefaultApplicationArguments());
+        assertThat(count("locations")).isEqualTo(locations + LOCATIONS);
+        assertThat(count("multimedia")).isEqualTo(multimedia + IMAGES);
+    }
+}
@@ -0,0 +1,102 @@
+package com.geobook;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic fixtures shaped like the seeded data: locations spread over a
+ * city-sized area with their chapter and book attached, and spatial entities of
+ * every type with generated geometry.
+ */
+final class BenchData {
+
+    static final double CENTER_LAT = 51.5074;
+    static final double CENTER_LNG = -0.1278;
+
+    private BenchData() {
+    }
+
+    static List<Location> locations(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        Book book = new Book();
+        book.setBookId(1L);
+        book.setTitle("A Tale of Two Cities");
+        List<Chapter> chapters = new ArrayList<>();
+        for (int c = 0; c < 20; c++) {
+            Chapter chapter = new Chapter();
+            chapter.setChapterId((long) c + 1);
+            chapter.setBook(book);
+            chapter.setTitle("Chapter " + (c + 1));
+            chapter.setLocationDescription("Streets and squares around chapter " + (c + 1));
+            chapters.add(chapter);
+        }
+        List<Location> locations = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            double lat = CENTER_LAT + random.nextDouble(-0.5, 0.5);
+            double lng = CENTER_LNG + random.nextDouble(-0.8, 0.8);
+            Location location = new Location();
+            location.setLocationId((long) i + 1);
+            location.setChapter(chapters.get(i % chapters.size()));
+            location.setLatitude(lat);
+            location.setLongitude(lng);
+            location.setPlaceName("Place " + i);
+            location.setSpatialData(String.format("POINT(%f %f)", lng, lat));
+            locations.add(location);
+        }
+        return locations;
+    }
+
+    static List<SpatialEntity> spatialEntities(int count, long seed) {
+        SplittableRandom random = new SplittableRandom(seed);
+        SpatialEntity.SpatialEntityType[] types = SpatialEntity.SpatialEntityType.values();
+        LocalDateTime created = LocalDateTime.of(2024, 1, 1, 12, 0);
+        List<SpatialEntity> entities = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SpatialEntity.SpatialEntityType type = types[i % types.length];
+            double lat = CENTER_LAT + random.nextDouble(-0.5, 0.5);
+            double lng = CENTER_LNG + random.nextDouble(-0.8, 0.8);
+            SpatialEntity entity = new SpatialEntity("Entity " + i, type,
+                    SpatialGeometryUtils.generateSampleGeometry(type, lat, lng));
+            entity.setEntityId((long) i + 1);
+            entity.setDescription("Generated " + type.name().toLowerCase() + " " + i);
+            entity.setColor("#3388ff");
+            entity.setCreatedDate(created.plusMinutes(i));
+            entity.setUpdatedDate(created.plusMinutes(i));
+            entities.add(entity);
+        }
+        return entities;
+    }
+
+    /**
+     * Ordinates of an SDO_ORDINATE_ARRAY(...) in a geometry string, as x,y pairs.
+     */
+    static double[] ordinates(String geometry) {
+        int start = geometry.indexOf("SDO_ORDINATE_ARRAY(");
+        if (start < 0) return new double[0];
+        start += "SDO_ORDINATE_ARRAY(".length();
+        int end = geometry.indexOf(')', start);
+        String[] parts = geometry.substring(start, end).split(",");
+        double[] values = new double[parts.length];
+        for (int i = 0; i < parts.length; i++) {
+            values[i] = Double.parseDouble(parts[i].trim());
+        }
+        return values;
+    }
+
+    /**
+     * Ring of {@code vertices} points around a centre, closed (first point repeated).
+     */
+    static double[] ring(double centerX, double centerY, double radius, int vertices) {
+        double[] ring = new double[(vertices + 1) * 2];
+        for (int i = 0; i <= vertices; i++) {
+            double angle = 2 * Math.PI * (i % vertices) / vertices;
+            // a little irregular, so the ray test sees real crossings
+            double r = radius * (i % 2 == 0 ? 1.0 : 0.8);
+            ring[2 * i] = centerX + r * Math.cos(angle);
+            ring[2 * i + 1] = centerY + r * Math.sin(angle);
+        }
+        return ring;
+    }
+}
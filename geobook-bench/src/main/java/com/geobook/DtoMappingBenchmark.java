@@ -0,0 +1,84 @@
+package com.geobook;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entity to DTO mapping for the map page and {@code GET /map/entities}, and the
+ * Jackson serialization of that endpoint's payload with an ObjectMapper set up
+ * the way Spring Boot configures it.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DtoMappingBenchmark {
+
+    @Param({"100", "2000"})
+    public int size;
+
+    private List<Location> locations;
+    private List<SpatialEntity> entities;
+    private List<SpatialEntityDto> entityDtos;
+    private ObjectMapper objectMapper;
+
+    @Setup
+    public void setUp() {
+        locations = BenchData.locations(size, 7);
+        entities = BenchData.spatialEntities(size, 11);
+        entityDtos = mapEntities();
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                .build();
+    }
+
+    @Benchmark
+    public List<LocationDto> locationDtoFrom() {
+        List<LocationDto> dtos = new ArrayList<>(locations.size());
+        for (Location location : locations) {
+            dtos.add(LocationDto.from(location));
+        }
+        return dtos;
+    }
+
+    @Benchmark
+    public List<SpatialEntityDto> spatialEntityDtoFrom() {
+        return mapEntities();
+    }
+
+    @Benchmark
+    public byte[] mapEntitiesJson() throws Exception {
+        return objectMapper.writeValueAsBytes(entityDtos);
+    }
+
+    @Benchmark
+    public byte[] mapEntitiesMapAndJson() throws Exception {
+        return objectMapper.writeValueAsBytes(mapEntities());
+    }
+
+    private List<SpatialEntityDto> mapEntities() {
+        List<SpatialEntityDto> dtos = new ArrayList<>(entities.size());
+        for (SpatialEntity entity : entities) {
+            dtos.add(SpatialEntityDto.from(entity));
+        }
+        return dtos;
+    }
+}
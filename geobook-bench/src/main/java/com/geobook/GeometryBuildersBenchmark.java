@@ -0,0 +1,66 @@
+package com.geobook;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SDO_GEOMETRY string builders in {@link SpatialGeometryUtils}, which format every
+ * ordinate through {@code String.format}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeometryBuildersBenchmark {
+
+    private double lat;
+    private double lng;
+    private double[] polygon16;
+
+    @Setup
+    public void setUp() {
+        lat = BenchData.CENTER_LAT;
+        lng = BenchData.CENTER_LNG;
+        polygon16 = BenchData.ring(lng, lat, 0.01, 15);
+    }
+
+    @Benchmark
+    public String point() {
+        return SpatialGeometryUtils.createPoint(lng, lat);
+    }
+
+    @Benchmark
+    public String rectangle() {
+        return SpatialGeometryUtils.createRectanglePolygon(lng - 0.01, lat - 0.01, lng + 0.01, lat + 0.01);
+    }
+
+    @Benchmark
+    public String circle() {
+        return SpatialGeometryUtils.createCircle(lng, lat, 0.01);
+    }
+
+    @Benchmark
+    public String polygon16() {
+        return SpatialGeometryUtils.createPolygon(polygon16);
+    }
+
+    @Benchmark
+    public void sampleGeometryAllTypes(Blackhole bh) {
+        for (SpatialEntity.SpatialEntityType type : SpatialEntity.SpatialEntityType.values()) {
+            bh.consume(SpatialGeometryUtils.generateSampleGeometry(type, lat, lng));
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.geobook;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Validation and type detection of geometry strings as done on entity create and
+ * update, and ordinate parsing, over a mix of every entity type plus WKT and junk.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GeometryParsingBenchmark {
+
+    private final List<String> geometries = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        for (SpatialEntity entity : BenchData.spatialEntities(100, 42)) {
+            geometries.add(entity.getGeometry());
+        }
+        geometries.add("POINT(-0.127800 51.507400)");
+        geometries.add("  sdo_geometry(2001, 8307, SDO_POINT_TYPE(1, 2, NULL), NULL, NULL)");
+        geometries.add("");
+        geometries.add("not a geometry");
+    }
+
+    @Benchmark
+    public void validate(Blackhole bh) {
+        for (String geometry : geometries) {
+            bh.consume(SpatialGeometryUtils.isValidGeometry(geometry));
+        }
+    }
+
+    @Benchmark
+    public void extractType(Blackhole bh) {
+        for (String geometry : geometries) {
+            bh.consume(SpatialGeometryUtils.extractGeometryType(geometry));
+        }
+    }
+
+    @Benchmark
+    public void parseOrdinates(Blackhole bh) {
+        for (String geometry : geometries) {
+            bh.consume(BenchData.ordinates(geometry));
+        }
+    }
+}
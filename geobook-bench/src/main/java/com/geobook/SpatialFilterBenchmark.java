@@ -0,0 +1,103 @@
+package com.geobook;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Java side of the spatial fallbacks: haversine radius filtering as in
+ * {@link GeotagService} when no spatial index is usable (with and without a
+ * bounding-box prefilter), and even-odd point-in-polygon, the candidate Java
+ * replacement for SDO_INSIDE, against a 64-vertex ring.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SpatialFilterBenchmark {
+
+    private static final double RADIUS_KM = 10;
+
+    @Param({"1000", "20000"})
+    public int size;
+
+    private double[] lats;
+    private double[] lngs;
+    private double[] ring;
+
+    @Setup
+    public void setUp() {
+        List<Location> locations = BenchData.locations(size, 3);
+        lats = new double[size];
+        lngs = new double[size];
+        for (int i = 0; i < size; i++) {
+            lats[i] = locations.get(i).getLatitude();
+            lngs[i] = locations.get(i).getLongitude();
+        }
+        ring = BenchData.ordinates(SpatialGeometryUtils.createPolygon(
+                BenchData.ring(BenchData.CENTER_LNG, BenchData.CENTER_LAT, 0.3, 64)));
+    }
+
+    @Benchmark
+    public List<Integer> haversineFilter() {
+        List<Integer> within = new ArrayList<>();
+        for (int i = 0; i < lats.length; i++) {
+            if (GeotagService.haversineKm(BenchData.CENTER_LAT, BenchData.CENTER_LNG, lats[i], lngs[i]) <= RADIUS_KM) {
+                within.add(i);
+            }
+        }
+        return within;
+    }
+
+    @Benchmark
+    public List<Integer> boundingBoxThenHaversine() {
+        double dLat = Math.toDegrees(RADIUS_KM / 6371.0);
+        double dLng = dLat / Math.cos(Math.toRadians(BenchData.CENTER_LAT));
+        List<Integer> within = new ArrayList<>();
+        for (int i = 0; i < lats.length; i++) {
+            if (Math.abs(lats[i] - BenchData.CENTER_LAT) > dLat || Math.abs(lngs[i] - BenchData.CENTER_LNG) > dLng) {
+                continue;
+            }
+            if (GeotagService.haversineKm(BenchData.CENTER_LAT, BenchData.CENTER_LNG, lats[i], lngs[i]) <= RADIUS_KM) {
+                within.add(i);
+            }
+        }
+        return within;
+    }
+
+    @Benchmark
+    public int pointInPolygon() {
+        int inside = 0;
+        for (int i = 0; i < lats.length; i++) {
+            if (contains(ring, lngs[i], lats[i])) inside++;
+        }
+        return inside;
+    }
+
+    static boolean contains(double[] ring, double x, double y) {
+        boolean inside = false;
+        int n = ring.length / 2;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            double xi = ring[2 * i], yi = ring[2 * i + 1];
+            double xj = ring[2 * j], yj = ring[2 * j + 1];
+            if ((yi > y) != (yj > y) && x < (xj - xi) * (y - yi) / (yj - yi) + xi) {
+                inside = !inside;
+            }
+        }
+        return inside;
+    }
+}
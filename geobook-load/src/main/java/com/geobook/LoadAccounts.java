@@ -0,0 +1,60 @@
+package com.geobook;
+
+import java.io.IOException;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * The accounts load-test sessions log in with, registered through the public
+ * sign-up form before the run. Registering an existing account fails quietly
+ * (the form redirects to {@code /register?error}), so reruns against the same
+ * server reuse them.
+ */
+final class LoadAccounts {
+
+    private static final Pattern CSRF = Pattern.compile("name=\"_csrf\"[^>]*value=\"([^\"]*)\"");
+
+    private LoadAccounts() {
+    }
+
+    static String username(int index) {
+        return "loaduser" + index;
+    }
+
+    static void register(String baseUrl, int count, String password) {
+        for (int i = 0; i < count; i++) {
+            // fresh cookie jar per account: the sign-up form's CSRF token is bound to its session
+            HttpClient client = HttpClient.newBuilder().cookieHandler(new CookieManager()).build();
+            try {
+                String form = client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/register")).build(),
+                        HttpResponse.BodyHandlers.ofString()).body();
+                Matcher csrf = CSRF.matcher(form);
+                if (!csrf.find()) {
+                    throw new IllegalStateException("No CSRF token on " + baseUrl + "/register");
+                }
+                String body = "username=" + encode(username(i)) + "&password=" + encode(password)
+                        + "&email=" + encode(username(i) + "@load.test") + "&_csrf=" + encode(csrf.group(1));
+                client.send(HttpRequest.newBuilder(URI.create(baseUrl + "/register"))
+                                .header("Content-Type", "application/x-www-form-urlencoded")
+                                .POST(HttpRequest.BodyPublishers.ofString(body)).build(),
+                        HttpResponse.BodyHandlers.discarding());
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot register load-test accounts at " + baseUrl, e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while registering load-test accounts", e);
+            }
+        }
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,69 @@
+package com.geobook;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.GradientPaint;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Photos for the upload journey: a fixed set of JPEGs drawn from a seeded
+ * random source, photo-sized so decoding, descriptor extraction and thumbnail
+ * rendering do realistic work, and different enough that the colour
+ * descriptors are not all equal.
+ */
+final class LoadImages {
+
+    private static final int COUNT = 8;
+    private static final int WIDTH = 1600;
+    private static final int HEIGHT = 1200;
+    private static final List<byte[]> IMAGES = generate();
+
+    private LoadImages() {
+    }
+
+    static byte[] jpeg(long sessionId) {
+        return IMAGES.get((int) (sessionId % COUNT));
+    }
+
+    private static List<byte[]> generate() {
+        Random random = new Random(42);
+        List<byte[]> images = new ArrayList<>(COUNT);
+        for (int i = 0; i < COUNT; i++) {
+            BufferedImage image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = image.createGraphics();
+            g.setPaint(new GradientPaint(0, 0, color(random), WIDTH, HEIGHT, color(random)));
+            g.fillRect(0, 0, WIDTH, HEIGHT);
+            for (int shape = 0; shape < 60; shape++) {
+                g.setColor(color(random));
+                g.fillOval(random.nextInt(WIDTH), random.nextInt(HEIGHT), 20 + random.nextInt(300),
+                        20 + random.nextInt(300));
+            }
+            g.dispose();
+            // per-pixel noise so the JPEG does not compress to almost nothing
+            for (int y = 0; y < HEIGHT; y += 2) {
+                for (int x = 0; x < WIDTH; x += 2) {
+                    image.setRGB(x, y, image.getRGB(x, y) ^ (random.nextInt(32) * 0x010101));
+                }
+            }
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try {
+                ImageIO.write(image, "jpg", out);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            images.add(out.toByteArray());
+        }
+        return images;
+    }
+
+    private static Color color(Random random) {
+        return new Color(random.nextInt(256), random.nextInt(256), random.nextInt(256));
+    }
+}
@@ -0,0 +1,143 @@
+package com.geobook;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.PrintStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Condenses a Gatling run into one line per request: throughput, error rate and
+ * p50/p95/p99 latency, written to {@code summary.csv} in the run directory and
+ * printed. Given a second run as baseline, each figure is followed by its change
+ * against it, so two builds (or two settings) can be compared side by side.
+ * <p>
+ * {@code mvn exec:java -Dexec.args="[run-dir] [baseline-run-dir]"}; without
+ * arguments it reports the latest run under {@code target/gatling}.
+ */
+public final class LoadReport {
+
+    private static final String ALL = "All Requests";
+
+    private LoadReport() {
+    }
+
+    /** The figures compared between runs for one request name. */
+    static final class Row {
+        final String name;
+        final long count;
+        final long failed;
+        final double perSecond;
+        final long p50;
+        final long p95;
+        final long p99;
+        final long max;
+
+        Row(String name, long count, long failed, double perSecond, long p50, long p95, long p99, long max) {
+            this.name = name;
+            this.count = count;
+            this.failed = failed;
+            this.perSecond = perSecond;
+            this.p50 = p50;
+            this.p95 = p95;
+            this.p99 = p99;
+            this.max = max;
+        }
+
+        double errorPercent() {
+            return count == 0 ? 0 : 100.0 * failed / count;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        Path run = args.length > 0 ? Paths.get(args[0]) : latestRun(Paths.get("target", "gatling"));
+        Map<String, Row> rows = read(run);
+        Map<String, Row> baseline = args.length > 1 ? read(Paths.get(args[1])) : null;
+
+        Files.write(run.resolve("summary.csv"), csv(rows));
+        PrintStream out = System.out;
+        out.println("Run: " + run.getFileName() + (baseline != null ? "   baseline: " + Paths.get(args[1]).getFileName() : ""));
+        out.printf(Locale.ROOT, "%-26s %8s %15s %15s %15s %15s %15s%n",
+                "request", "count", "req/s", "errors %", "p50 ms", "p95 ms", "p99 ms");
+        for (Row row : rows.values()) {
+            Row base = baseline != null ? baseline.get(row.name) : null;
+            out.printf(Locale.ROOT, "%-26s %8d %15s %15s %15s %15s %15s%n", row.name, row.count,
+                    cell(row.perSecond, base != null ? base.perSecond : null, "%.2f"),
+                    points(row.errorPercent(), base != null ? base.errorPercent() : null),
+                    cell(row.p50, base != null ? (double) base.p50 : null, "%.0f"),
+                    cell(row.p95, base != null ? (double) base.p95 : null, "%.0f"),
+                    cell(row.p99, base != null ? (double) base.p99 : null, "%.0f"));
+        }
+    }
+
+    static Path latestRun(Path reports) throws IOException {
+        try (Stream<Path> runs = Files.list(reports)) {
+            return runs.filter(dir -> Files.exists(dir.resolve("js/stats.json")))
+                    .max(Comparator.comparing(dir -> dir.getFileName().toString()))
+                    .orElseThrow(() -> new IllegalStateException("No Gatling report under " + reports));
+        }
+    }
+
+    /**
+     * Rows of {@code js/stats.json}, overall first; Gatling's default percentiles
+     * 1 to 4 are p50, p75, p95 and p99.
+     */
+    static Map<String, Row> read(Path run) throws IOException {
+        JsonNode root = new ObjectMapper().readTree(run.resolve("js/stats.json").toFile());
+        Map<String, Row> rows = new LinkedHashMap<>();
+        rows.put(ALL, row(ALL, root.get("stats")));
+        List<Row> requests = new ArrayList<>();
+        for (Iterator<JsonNode> it = root.get("contents").elements(); it.hasNext(); ) {
+            JsonNode request = it.next();
+            requests.add(row(request.get("name").asText(), request.get("stats")));
+        }
+        requests.sort(Comparator.comparing((Row row) -> row.name));
+        requests.forEach(row -> rows.put(row.name, row));
+        return rows;
+    }
+
+    private static Row row(String name, JsonNode stats) {
+        JsonNode requests = stats.get("numberOfRequests");
+        return new Row(name, requests.get("total").asLong(), requests.get("ko").asLong(),
+                stats.get("meanNumberOfRequestsPerSecond").get("total").asDouble(),
+                stats.get("percentiles1").get("total").asLong(),
+                stats.get("percentiles3").get("total").asLong(),
+                stats.get("percentiles4").get("total").asLong(),
+                stats.get("maxResponseTime").get("total").asLong());
+    }
+
+    private static List<String> csv(Map<String, Row> rows) {
+        List<String> lines = new ArrayList<>();
+        lines.add("request,count,failed,req_per_s,error_percent,p50_ms,p95_ms,p99_ms,max_ms");
+        for (Row row : rows.values()) {
+            lines.add(String.format(Locale.ROOT, "\"%s\",%d,%d,%.3f,%.3f,%d,%d,%d,%d", row.name, row.count,
+                    row.failed, row.perSecond, row.errorPercent(), row.p50, row.p95, row.p99, row.max));
+        }
+        return lines;
+    }
+
+    // value, then its relative change against the baseline when there is one
+    private static String cell(double value, Double base, String format) {
+        String text = String.format(Locale.ROOT, format, value);
+        if (base == null) return text;
+        if (base == 0) return text + (value == 0 ? " (=)" : " (new)");
+        return text + String.format(Locale.ROOT, " (%+.0f%%)", 100 * (value - base) / base);
+    }
+
+    // error rates change by percentage points, a relative change of 0.1% is noise
+    private static String points(double value, Double base) {
+        String text = String.format(Locale.ROOT, "%.2f", value);
+        return base == null ? text : text + String.format(Locale.ROOT, " (%+.2f)", value - base);
+    }
+}
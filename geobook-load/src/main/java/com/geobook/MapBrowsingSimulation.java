@@ -0,0 +1,197 @@
+package com.geobook;
+
+import io.gatling.javaapi.core.ChainBuilder;
+import io.gatling.javaapi.core.ScenarioBuilder;
+import io.gatling.javaapi.core.Session;
+import io.gatling.javaapi.core.Simulation;
+import io.gatling.javaapi.http.HttpProtocolBuilder;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+import static io.gatling.javaapi.core.CoreDsl.*;
+import static io.gatling.javaapi.http.HttpDsl.*;
+
+/**
+ * Open-model load test: sessions arrive at {@code rate} per second whatever the
+ * response times, ramping up over {@code rampSeconds} and then holding for
+ * {@code durationSeconds}. Each session logs in as one of {@code users} accounts
+ * (registered in {@link #before()}) and plays one of four journeys, picked with
+ * the weights below: browsing the map (panning by bounding box, radius searches),
+ * editing spatial entities, viewing photos and uploading one.
+ * <p>
+ * Settings are system properties, e.g.
+ * {@code mvn gatling:test -DbaseUrl=http://localhost:8080 -Drate=5 -DdurationSeconds=300}.
+ * Arrivals are evenly spaced and coordinates, entity payloads and images derive
+ * from the session id, so runs with the same settings hit the same map areas with
+ * the same payloads; only the journey draw and the photo picked vary.
+ */
+public class MapBrowsingSimulation extends Simulation {
+
+    private static final String BASE_URL = System.getProperty("baseUrl", "http://localhost:8080");
+    private static final double RATE = Double.parseDouble(System.getProperty("rate", "2"));
+    private static final int RAMP_SECONDS = Integer.getInteger("rampSeconds", 30);
+    private static final int DURATION_SECONDS = Integer.getInteger("durationSeconds", 120);
+    private static final int USERS = Integer.getInteger("users", 20);
+    private static final String PASSWORD = "load-test-1";
+    // the run fails (non-zero exit) above this share of failed requests
+    private static final double MAX_ERROR_PERCENT = Double.parseDouble(System.getProperty("maxErrorPercent", "1"));
+
+    // journey weights in percent
+    private static final double BROWSE = 50;
+    private static final double EDIT = 20;
+    private static final double VIEW = 20;
+    private static final double UPLOAD = 10;
+
+    private final HttpProtocolBuilder httpProtocol = http
+            .baseUrl(BASE_URL)
+            .acceptHeader("text/html,application/json;q=0.9,*/*;q=0.8")
+            .acceptEncodingHeader("gzip, deflate")
+            .userAgentHeader("geobook-load");
+
+    private static List<Map<String, Object>> accounts() {
+        List<Map<String, Object>> accounts = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            accounts.add(Map.of("username", LoadAccounts.username(i), "password", PASSWORD));
+        }
+        return accounts;
+    }
+
+    private static Random random(Session session) {
+        return new Random(session.userId());
+    }
+
+    // --- login; every journey starts with it ---
+
+    private final ChainBuilder login = feed(listFeeder(accounts()).circular())
+            .exec(http("login form").get("/login")
+                    .check(css("input[name=_csrf]", "value").saveAs("csrf")))
+            .exec(http("login").post("/login")
+                    .formParam("username", "#{username}")
+                    .formParam("password", "#{password}")
+                    .formParam("_csrf", "#{csrf}")
+                    // a bad login is redirected to /login?error
+                    .check(currentLocationRegex("/home$").exists()));
+
+    private final ChainBuilder openMap = exec(http("map").get("/map")
+            .check(css("meta[name=_csrf]", "content").saveAs("csrf")));
+
+    // --- journeys ---
+
+    private final ChainBuilder browse = exec(openMap)
+            .pause(Duration.ofSeconds(1), Duration.ofSeconds(3))
+            .repeat(session -> 2 + (int) (session.userId() % 4), "pan").on(
+                    exec(session -> {
+                        Random random = new Random(session.userId() * 31 + session.getInt("pan"));
+                        double width = 2 + random.nextDouble() * 18;
+                        double minX = -180 + random.nextDouble() * (360 - width);
+                        double minY = -60 + random.nextDouble() * (130 - width / 2);
+                        return session.set("minX", minX).set("minY", minY)
+                                .set("maxX", minX + width).set("maxY", minY + width / 2);
+                    })
+                    .exec(http("pan (bounding box)").post("/map/spatial/bounding-box")
+                            .queryParam("minX", "#{minX}").queryParam("minY", "#{minY}")
+                            .queryParam("maxX", "#{maxX}").queryParam("maxY", "#{maxY}")
+                            .header("X-CSRF-TOKEN", "#{csrf}")
+                            // without Oracle Spatial (h2 profile) the box is filtered in Java
+                            .check(status().is(200)))
+                    .pause(Duration.ofMillis(500), Duration.ofSeconds(2)))
+            .exec(session -> {
+                Random random = random(session);
+                return session.set("lat", -50 + random.nextDouble() * 110)
+                        .set("lng", -170 + random.nextDouble() * 340)
+                        .set("distance", 100 + random.nextInt(900));
+            })
+            .exec(http("radius search").post("/map/search")
+                    .formParam("lat", "#{lat}")
+                    .formParam("lng", "#{lng}")
+                    .formParam("distance", "#{distance}")
+                    .formParam("_csrf", "#{csrf}")
+                    .check(css("meta[name=_csrf]", "content").saveAs("csrf")));
+
+    private final ChainBuilder edit = exec(openMap)
+            .exec(session -> {
+                Random random = random(session);
+                double lng = -170 + random.nextDouble() * 340;
+                double lat = -50 + random.nextDouble() * 110;
+                return session.set("entityName", "load-" + session.userId())
+                        .set("geometry", String.format(Locale.ROOT, "POINT(%.5f %.5f)", lng, lat))
+                        .set("movedGeometry", String.format(Locale.ROOT, "POINT(%.5f %.5f)",
+                                lng + 0.01, lat + 0.01));
+            })
+            .pause(Duration.ofSeconds(1), Duration.ofSeconds(3))
+            .exec(http("create entity").post("/map/entities")
+                    .header("X-CSRF-TOKEN", "#{csrf}")
+                    .body(StringBody("{\"name\":\"#{entityName}\",\"entityType\":\"POINT\","
+                            + "\"description\":\"load test\",\"color\":\"#ff7800\",\"geometry\":\"#{geometry}\"}"))
+                    .asJson()
+                    .check(jsonPath("$.entityId").saveAs("entityId")))
+            .exec(http("list entities").get("/map/entities"))
+            .exec(http("get entity").get("/map/entities/#{entityId}"))
+            .pause(Duration.ofSeconds(1), Duration.ofSeconds(3))
+            .exec(http("update entity").put("/map/entities/#{entityId}")
+                    .header("X-CSRF-TOKEN", "#{csrf}")
+                    .body(StringBody("{\"name\":\"#{entityName}\",\"entityType\":\"POINT\","
+                            + "\"description\":\"moved\",\"color\":\"#00aa00\",\"geometry\":\"#{movedGeometry}\"}"))
+                    .asJson())
+            .exec(http("delete entity").delete("/map/entities/#{entityId}")
+                    .header("X-CSRF-TOKEN", "#{csrf}"));
+
+    private final ChainBuilder view = exec(http("photo list").get("/multimedia")
+                    .check(regex("/multimedia/(\\d+)/image").findRandom().optional().saveAs("mediaId")))
+            .pause(Duration.ofSeconds(1), Duration.ofSeconds(3))
+            .doIf(session -> session.contains("mediaId")).then(
+                    exec(http("photo").get("/multimedia/#{mediaId}/image")
+                            .check(status().in(200, 304)))
+                    .exec(http("thumbnail").get("/multimedia/#{mediaId}/thumbnail")
+                            .check(status().in(200, 304))));
+
+    private final ChainBuilder upload = exec(http("upload form").get("/multimedia/new")
+                    .check(css("input[name=_csrf]", "value").saveAs("csrf"))
+                    .check(regex("<option value=\"(\\d+)\"").findRandom().saveAs("locationId")))
+            .pause(Duration.ofSeconds(2), Duration.ofSeconds(5))
+            .exec(http("upload").post("/multimedia")
+                    .formParam("_csrf", "#{csrf}")
+                    .formParam("locationId", "#{locationId}")
+                    .formParam("description", "load test #{username}")
+                    .formParam("fileType", "image/jpeg")
+                    .bodyPart(ByteArrayBodyPart("imageFile", session -> LoadImages.jpeg(session.userId()))
+                            .fileName("load.jpg").contentType("image/jpeg"))
+                    .asMultipartForm()
+                    // stored: 302 to the photo list; rejected: 400 with the form, failed: 500, busy: 503
+                    .disableFollowRedirect()
+                    .check(status().is(302))
+                    .check(header("Location").transform(location -> location.endsWith("/multimedia"))
+                            .is(true)))
+            .exec(http("photo list").get("/multimedia")
+                    .check(regex("/multimedia/(\\d+)/image").findRandom().optional().saveAs("mediaId")))
+            .doIf(session -> session.contains("mediaId")).then(
+                    exec(http("photo").get("/multimedia/#{mediaId}/image")
+                            .check(status().in(200, 304))));
+
+    private final ScenarioBuilder sessions = scenario("geobook sessions")
+            .exec(login)
+            .pause(Duration.ofSeconds(1))
+            .randomSwitch().on(
+                    percent(BROWSE).then(browse),
+                    percent(EDIT).then(edit),
+                    percent(VIEW).then(view),
+                    percent(UPLOAD).then(upload));
+
+    {
+        setUp(sessions.injectOpen(
+                rampUsersPerSec(Math.min(1, RATE)).to(RATE).during(RAMP_SECONDS),
+                constantUsersPerSec(RATE).during(DURATION_SECONDS)))
+                .protocols(httpProtocol)
+                .assertions(global().failedRequests().percent().lte(MAX_ERROR_PERCENT));
+    }
+
+    @Override
+    public void before() {
+        LoadAccounts.register(BASE_URL, USERS, PASSWORD);
+    }
+}